@@ -67,15 +67,24 @@ public class LineRecordReader extends BaseRecordReader {
 
     @Override
     public List<Writable> next() {
-        Preconditions.checkState(initialized, "Record reader has not been initialized");
         List<Writable> ret = new ArrayList<>();
+        ret.add(new Text(nextLine()));
+        return ret;
+    }
+
+    /**
+     * This method returns next line as is, without wrapping it into Writable
+     *
+     * @return
+     */
+    protected String nextLine() {
+        Preconditions.checkState(initialized, "Record reader has not been initialized");
 
         if (iter.hasNext()) {
             String record = iter.next();
             invokeListeners(record);
-            ret.add(new Text(record));
             lineIndex++;
-            return ret;
+            return record;
         } else {
             if (!(inputSplit instanceof StringSplit) && splitIndex < locations.length - 1) {
                 splitIndex++;
@@ -91,9 +100,8 @@ public class LineRecordReader extends BaseRecordReader {
                 if (iter.hasNext()) {
                     String record = iter.next();
                     invokeListeners(record);
-                    ret.add(new Text(record));
                     lineIndex++;
-                    return ret;
+                    return record;
                 }
             }
 
@@ -191,8 +191,7 @@ public class CSVRecordReader extends LineRecordReader {
 
     protected String readStringLine(){
         Preconditions.checkState(initialized, "RecordReader has not been initialized before use");
-        Text t = (Text) super.next().iterator().next();
-        return t.toString();
+        return nextLine();
     }
 
     @Override
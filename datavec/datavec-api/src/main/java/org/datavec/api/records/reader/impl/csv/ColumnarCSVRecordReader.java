@@ -0,0 +1,381 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.api.records.reader.impl.csv;
+
+import lombok.Getter;
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.batch.NDArrayRecordBatch;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CSV record reader for purely numeric data, that produces batches in columnar form.<br>
+ * Instead of creating a Writable per value, {@link #next(int)} parses lines straight into off-heap buffer of
+ * 'f' ordered [numRows, numColumns] INDArray, and returns it as {@link NDArrayRecordBatch} of [numRows, 1] column views.
+ * So, RecordReaderDataSetIterator/RecordReaderMultiDataSetIterator pick it up without any per-value conversion.
+ * <p>
+ * Batch parsing is split into row ranges, and ranges are processed in parallel when batch is big enough.
+ * Numbers with up to 15 significant digits and decimal exponent within [-22, 22] are parsed without allocations,
+ * everything else falls back to {@link Double#parseDouble(String)}.
+ * <p>
+ * PLEASE NOTE: every column must be numeric, and all lines must have the same number of columns.
+ * PLEASE NOTE: quotes around values are stripped, but quoted values can't contain delimiter.
+ */
+public class ColumnarCSVRecordReader extends CSVRecordReader {
+    /**
+     * Batches smaller than this number of rows per thread are parsed in caller thread
+     */
+    public static final int MIN_ROWS_PER_THREAD = 256;
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+    }
+
+    private static volatile ExecutorService executorService;
+
+    protected char delimiter;
+    protected char quote;
+    @Getter
+    protected DataType dataType;
+    @Getter
+    protected int numThreads;
+
+    public ColumnarCSVRecordReader() {
+        this(0, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * @param skipNumLines the number of lines to skip
+     * @param delimiter the delimiter
+     */
+    public ColumnarCSVRecordReader(int skipNumLines, char delimiter) {
+        this(skipNumLines, delimiter, DEFAULT_QUOTE, Nd4j.dataType(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param skipNumLines the number of lines to skip
+     * @param delimiter the delimiter
+     * @param quote the quote to strip
+     * @param dataType data type of produced batches. Must be floating point type.
+     * @param numThreads maximal number of threads used to parse single batch
+     */
+    public ColumnarCSVRecordReader(int skipNumLines, char delimiter, char quote, DataType dataType, int numThreads) {
+        super(skipNumLines, delimiter, quote);
+        Preconditions.checkArgument(dataType.isFPType(), "Data type must be floating point type, got %s", dataType);
+        Preconditions.checkArgument(numThreads > 0, "Number of threads must be positive, got %s", numThreads);
+
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.dataType = dataType;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
+        super.initialize(conf, split);
+        this.delimiter = conf.getChar(DELIMITER, DEFAULT_DELIMITER);
+        this.quote = conf.getChar(QUOTE, DEFAULT_QUOTE);
+    }
+
+    @Override
+    public List<List<Writable>> next(int num) {
+        INDArray batch = nextBatch(num);
+
+        List<INDArray> columns = new ArrayList<>((int) batch.size(1));
+        for (int c = 0; c < batch.size(1); c++)
+            columns.add(batch.get(NDArrayIndex.all(), NDArrayIndex.interval(c, c + 1)));
+
+        return new NDArrayRecordBatch(columns);
+    }
+
+    /**
+     * This method reads up to num lines, and returns them as single 'f' ordered [numRows, numColumns] INDArray
+     *
+     * @param num maximal number of lines to read
+     * @return
+     */
+    public INDArray nextBatch(int num) {
+        Preconditions.checkArgument(num > 0, "Number of lines must be positive, got %s", num);
+
+        final List<String> lines = new ArrayList<>(Math.min(num, 10000));
+        while (lines.size() < num && hasNext())
+            lines.add(readStringLine());
+
+        if (lines.isEmpty())
+            throw new NoSuchElementException("No next element found!");
+
+        final int rows = lines.size();
+        final int columns = countColumns(lines.get(0));
+        final INDArray batch = Nd4j.createUninitialized(dataType, new long[] {rows, columns}, 'f');
+        final DataBuffer buffer = batch.data();
+
+        int threads = Math.max(1, Math.min(numThreads, rows / MIN_ROWS_PER_THREAD));
+        if (threads == 1) {
+            parseRows(lines, 0, rows, columns, buffer);
+            return batch;
+        }
+
+        int rowsPerThread = (rows + threads - 1) / threads;
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int start = t * rowsPerThread;
+            final int end = Math.min(rows, start + rowsPerThread);
+            if (start >= end)
+                break;
+
+            futures.add(getExecutorService().submit(new Runnable() {
+                @Override
+                public void run() {
+                    parseRows(lines, start, end, columns, buffer);
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        return batch;
+    }
+
+    @Override
+    protected List<Writable> parseLine(String line) {
+        int columns = countColumns(line);
+        List<Writable> ret = new ArrayList<>(columns);
+        int position = 0;
+        for (int c = 0; c < columns; c++) {
+            int end = line.indexOf(delimiter, position);
+            if (end < 0)
+                end = line.length();
+
+            ret.add(new DoubleWritable(parseValue(line, position, end)));
+            position = end + 1;
+        }
+
+        return ret;
+    }
+
+    protected int countColumns(String line) {
+        int columns = 1;
+        for (int i = 0; i < line.length(); i++)
+            if (line.charAt(i) == delimiter)
+                columns++;
+
+        return columns;
+    }
+
+    /**
+     * This method parses given rows into 'f' ordered buffer, i.e. value of row r and column c goes to c * numRows + r
+     */
+    protected void parseRows(List<String> lines, int start, int end, int columns, DataBuffer buffer) {
+        long rows = lines.size();
+        for (int r = start; r < end; r++) {
+            String line = lines.get(r);
+            int position = 0;
+            for (int c = 0; c < columns; c++) {
+                int next = line.indexOf(delimiter, position);
+                if (c == columns - 1) {
+                    if (next >= 0)
+                        throw new IllegalStateException("Line " + r + " of batch has more than " + columns
+                                        + " columns: \"" + line + "\"");
+                    next = line.length();
+                } else if (next < 0) {
+                    throw new IllegalStateException("Line " + r + " of batch has less than " + columns
+                                    + " columns: \"" + line + "\"");
+                }
+
+                buffer.put(c * rows + r, parseValue(line, position, next));
+                position = next + 1;
+            }
+        }
+    }
+
+    protected double parseValue(String line, int from, int to) {
+        while (from < to && line.charAt(from) <= ' ')
+            from++;
+        while (to > from && line.charAt(to - 1) <= ' ')
+            to--;
+
+        if (to - from >= 2 && line.charAt(from) == quote && line.charAt(to - 1) == quote) {
+            from++;
+            to--;
+        }
+
+        return parseDouble(line, from, to);
+    }
+
+    /**
+     * This method parses decimal number from given part of the string.
+     * Numbers that fit into exact double arithmetic are parsed in place, everything else is passed to {@link Double#parseDouble(String)}
+     *
+     * @param s source string
+     * @param from start position, inclusive
+     * @param to end position, exclusive
+     * @return
+     */
+    public static double parseDouble(String s, int from, int to) {
+        if (from >= to)
+            throw new NumberFormatException("Empty value can't be parsed as number");
+
+        int i = from;
+        boolean negative = false;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+
+        for (; i < to; i++) {
+            c = s.charAt(i);
+            if (c < '0' || c > '9')
+                break;
+
+            hasDigits = true;
+            if (mantissa != 0 || c != '0') {
+                if (++digits > 15)
+                    return parseDoubleSlow(s, from, to);
+                mantissa = mantissa * 10 + (c - '0');
+            }
+        }
+
+        if (i < to && s.charAt(i) == '.') {
+            for (i++; i < to; i++) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9')
+                    break;
+
+                hasDigits = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > 15)
+                        return parseDoubleSlow(s, from, to);
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                exponent--;
+            }
+        }
+
+        // NaN, Infinity, hex values etc
+        if (!hasDigits)
+            return parseDoubleSlow(s, from, to);
+
+        if (i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+
+            int e = 0;
+            boolean hasExponentDigits = false;
+            for (; i < to; i++) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9')
+                    break;
+
+                hasExponentDigits = true;
+                if (e < 100000)
+                    e = e * 10 + (c - '0');
+            }
+
+            if (!hasExponentDigits)
+                return parseDoubleSlow(s, from, to);
+
+            exponent += negativeExponent ? -e : e;
+        }
+
+        // trailing characters, i.e. type suffix
+        if (i != to)
+            return parseDoubleSlow(s, from, to);
+
+        if (mantissa == 0)
+            return negative ? -0.0 : 0.0;
+
+        // both mantissa and power of ten are exact doubles here, so single multiplication/division is correctly rounded
+        double value;
+        if (exponent == 0)
+            value = mantissa;
+        else if (exponent > 0 && exponent < POWERS_OF_TEN.length)
+            value = mantissa * POWERS_OF_TEN[exponent];
+        else if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        else
+            return parseDoubleSlow(s, from, to);
+
+        return negative ? -value : value;
+    }
+
+    private static double parseDoubleSlow(String s, int from, int to) {
+        return Double.parseDouble(s.substring(from, to));
+    }
+
+    /**
+     * Parsing threads are shared between all readers, and never block JVM shutdown
+     */
+    protected static ExecutorService getExecutorService() {
+        if (executorService == null) {
+            synchronized (ColumnarCSVRecordReader.class) {
+                if (executorService == null) {
+                    final AtomicInteger counter = new AtomicInteger(0);
+                    executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                    new ThreadFactory() {
+                                        @Override
+                                        public Thread newThread(Runnable r) {
+                                            Thread t = new Thread(r, "ColumnarCSVRecordReader-" + counter.getAndIncrement());
+                                            t.setDaemon(true);
+                                            return t;
+                                        }
+                                    });
+                }
+            }
+        }
+
+        return executorService;
+    }
+}
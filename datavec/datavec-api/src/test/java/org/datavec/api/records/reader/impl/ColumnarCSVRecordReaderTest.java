@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.api.records.reader.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
+import org.datavec.api.records.reader.impl.csv.ColumnarCSVRecordReader;
+import org.datavec.api.split.FileSplit;
+import org.datavec.api.split.StringSplit;
+import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.batch.NDArrayRecordBatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ColumnarCSVRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testParseDouble() {
+        String[] values = {"0", "-0", "1", "+1", "-1.5", "0.1", "0.001", ".5", "5.", "1e10", "1E-10", "-2.5e+3",
+                        "123456789012345", "1234567890123456789", "0.30000000000000004", "1e23", "1e-23",
+                        "4.9e-324", "1.7976931348623157e308", "NaN", "-Infinity", "  7.25 ", "3.0f"};
+
+        for (String v : values)
+            assertEquals(v, Double.parseDouble(v), ColumnarCSVRecordReader.parseDouble(v, 0, v.length()), 0.0);
+
+        Random random = new Random(12345);
+        for (int e = 0; e < 100000; e++) {
+            double d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 10);
+            String v = random.nextBoolean() ? Double.toString(d) : String.format(Locale.US, "%.6f", d);
+            assertEquals(v, Double.parseDouble(v), ColumnarCSVRecordReader.parseDouble(v, 0, v.length()), 0.0);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseDoubleInvalid() {
+        ColumnarCSVRecordReader.parseDouble("1.2.3", 0, 5);
+    }
+
+    @Test
+    public void testSameAsCSVRecordReader() throws Exception {
+        File f = new ClassPathResource("datavec-api/iris.dat").getFile();
+
+        CSVRecordReader expReader = new CSVRecordReader();
+        expReader.initialize(new FileSplit(f));
+
+        ColumnarCSVRecordReader reader = new ColumnarCSVRecordReader();
+        reader.initialize(new FileSplit(f));
+
+        int count = 0;
+        while (reader.hasNext()) {
+            List<List<Writable>> batch = reader.next(32);
+            assertTrue(batch instanceof NDArrayRecordBatch);
+            assertEquals(5, ((NDArrayRecordBatch) batch).getArrays().size());
+
+            for (List<Writable> record : batch) {
+                List<Writable> exp = expReader.next();
+                assertEquals(exp.size(), record.size());
+                for (int i = 0; i < exp.size(); i++)
+                    assertEquals(exp.get(i).toDouble(), record.get(i).toDouble(), 1e-6);
+                count++;
+            }
+        }
+
+        assertFalse(expReader.hasNext());
+        assertEquals(150, count);
+
+        reader.reset();
+        List<Writable> first = reader.next();
+        assertEquals(5.1, first.get(0).toDouble(), 1e-6);
+        assertEquals(0.0, first.get(4).toDouble(), 1e-6);
+    }
+
+    @Test
+    public void testParallelBatch() throws Exception {
+        int rows = 10000;
+        int columns = 7;
+        double[][] expected = new double[rows][columns];
+
+        StringBuilder sb = new StringBuilder("header;that;should;be;skipped\n");
+        Random random = new Random(119);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                expected[r][c] = random.nextInt(100000) / 100.0 - 500.0;
+                if (c > 0)
+                    sb.append(";");
+                sb.append(c == 3 ? "\"" + expected[r][c] + "\"" : String.valueOf(expected[r][c]));
+            }
+            sb.append("\n");
+        }
+
+        File f = testDir.newFile("data.csv");
+        FileUtils.writeStringToFile(f, sb.toString(), StandardCharsets.UTF_8);
+
+        ColumnarCSVRecordReader reader = new ColumnarCSVRecordReader(1, ';', '"', DataType.DOUBLE, 4);
+        reader.initialize(new FileSplit(f));
+
+        INDArray batch = reader.nextBatch(rows + 100);
+        assertFalse(reader.hasNext());
+        assertEquals('f', batch.ordering());
+        assertEquals(DataType.DOUBLE, batch.dataType());
+        assertArrayEquals(new long[] {rows, columns}, batch.shape());
+
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < columns; c++)
+                assertEquals(expected[r][c], batch.getDouble(r, c), 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testColumnsMismatch() throws Exception {
+        ColumnarCSVRecordReader reader = new ColumnarCSVRecordReader();
+        reader.initialize(new StringSplit("1,2,3"));
+        reader.next(10);
+
+        reader = new ColumnarCSVRecordReader();
+        reader.initialize(new FileSplit(writeLines("1,2,3\n4,5\n")));
+        reader.next(10);
+    }
+
+    private File writeLines(String lines) throws Exception {
+        File f = testDir.newFile();
+        FileUtils.writeStringToFile(f, lines, StandardCharsets.UTF_8);
+        return f;
+    }
+}
@@ -119,4 +119,11 @@ public class DL4JSystemProperties {
      * Description: This sets the time source to use for spark stats. Default: {@code org.deeplearning4j.spark.time.NTPTimeSource}
      */
     public static final String TIMESOURCE_CLASSNAME_PROPERTY = "org.deeplearning4j.spark.time.TimeSource";
+
+    /**
+     * Applicability: deeplearning4j-nn - LSTM layers on CPU backend<br>
+     * Description: If set to "true", fused LSTM implementation ({@code FusedLSTMHelper}) won't be used on CPU, and
+     * LSTM layers will fall back to the default per-time-step implementation. Default: false
+     */
+    public static final String DISABLE_FUSED_LSTM_HELPER_PROPERTY = "org.deeplearning4j.nn.lstm.fused.disable";
 }
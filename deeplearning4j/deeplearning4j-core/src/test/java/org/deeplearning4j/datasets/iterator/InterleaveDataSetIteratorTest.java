@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.parallel.InterleaveDataSetIterator;
+import org.deeplearning4j.datasets.iterator.tools.SimpleVariableGenerator;
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InterleaveDataSetIteratorTest extends BaseDL4JTest {
+
+    /**
+     * Sources are identified by minibatch size here. With cycle length 2, third source takes place of
+     * the first depleted one
+     */
+    @Test
+    public void testRoundRobin() {
+        InterleaveDataSetIterator iterator = new InterleaveDataSetIterator.Builder()
+                        .addSourceIterator(new SimpleVariableGenerator(119, 3, 4, 5, 5))
+                        .addSourceIterator(new SimpleVariableGenerator(119, 2, 5, 5, 5))
+                        .addSourceIterator(new SimpleVariableGenerator(119, 1, 6, 5, 5))
+                        .cycleLength(2).build();
+
+        int[] expSizes = {4, 5, 4, 5, 4, 6};
+        int[] expValues = {0, 0, 1, 1, 2, 0};
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            int cnt = 0;
+            while (iterator.hasNext()) {
+                DataSet ds = iterator.next();
+                assertEquals("Failed on iteration " + cnt, expSizes[cnt], ds.numExamples());
+                assertEquals("Failed on iteration " + cnt, (double) expValues[cnt],
+                                ds.getFeatures().meanNumber().doubleValue(), 1e-5);
+                cnt++;
+            }
+
+            assertEquals(expSizes.length, cnt);
+            iterator.reset();
+        }
+
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testShuffledSources() {
+        InterleaveDataSetIterator.Builder builder = new InterleaveDataSetIterator.Builder().cycleLength(3)
+                        .prefetchSize(0).shuffleSources(12345);
+        for (int i = 1; i <= 8; i++)
+            builder.addSourceIterator(new SimpleVariableGenerator(119, 2, i, 5, 5));
+
+        InterleaveDataSetIterator iterator = builder.build();
+
+        List<Integer> first = new ArrayList<>();
+        while (iterator.hasNext())
+            first.add(iterator.next().numExamples());
+
+        iterator.reset();
+        List<Integer> second = new ArrayList<>();
+        while (iterator.hasNext())
+            second.add(iterator.next().numExamples());
+
+        assertEquals(16, first.size());
+        assertNotEquals(first, second);
+
+        Collections.sort(first);
+        Collections.sort(second);
+        assertEquals(first, second);
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.parallel.ParallelMapDataSetIterator;
+import org.deeplearning4j.datasets.iterator.tools.SimpleVariableGenerator;
+import org.junit.Test;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParallelMapDataSetIteratorTest extends BaseDL4JTest {
+
+    /**
+     * Preprocessor with random delays, so minibatches are processed out of order by workers
+     */
+    private static class SlowPreProcessor implements DataSetPreProcessor {
+        @Override
+        public void preProcess(DataSet toPreProcess) {
+            try {
+                Thread.sleep(new Random().nextInt(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            toPreProcess.getFeatures().addi(1.0);
+        }
+    }
+
+    @Test
+    public void testOrdered() {
+        ParallelMapDataSetIterator iterator = new ParallelMapDataSetIterator(
+                        new SimpleVariableGenerator(119, 100, 32, 100, 10), new SlowPreProcessor(), 4);
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            int cnt = 0;
+            while (iterator.hasNext()) {
+                DataSet ds = iterator.next();
+                assertEquals("Failed on iteration " + cnt, (double) cnt + 1.0,
+                                ds.getFeatures().meanNumber().doubleValue(), 0.001);
+                assertEquals("Failed on iteration " + cnt, (double) cnt + 0.5,
+                                ds.getLabels().meanNumber().doubleValue(), 0.001);
+                cnt++;
+            }
+
+            assertEquals(100, cnt);
+            iterator.reset();
+        }
+
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testUnordered() {
+        ParallelMapDataSetIterator iterator = new ParallelMapDataSetIterator(
+                        new SimpleVariableGenerator(119, 100, 32, 100, 10), new SlowPreProcessor(), 4, 8, false,
+                        false);
+
+        boolean[] seen = new boolean[100];
+        int cnt = 0;
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            int example = (int) Math.round(ds.getLabels().meanNumber().doubleValue() - 0.5);
+            assertEquals(example + 1.0, ds.getFeatures().meanNumber().doubleValue(), 0.001);
+            assertFalse(seen[example]);
+            seen[example] = true;
+            cnt++;
+        }
+
+        assertEquals(100, cnt);
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testUnorderedWorkspace() {
+        // first minibatch stays with worker while many others are read, processed and consumed
+        ParallelMapDataSetIterator iterator = new ParallelMapDataSetIterator(
+                        new SimpleVariableGenerator(119, 50, 32, 100, 10), new DataSetPreProcessor() {
+                            @Override
+                            public void preProcess(DataSet toPreProcess) {
+                                if (toPreProcess.getLabels().meanNumber().doubleValue() < 1.0) {
+                                    try {
+                                        Thread.sleep(300);
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                }
+                                toPreProcess.getFeatures().addi(1.0);
+                            }
+                        }, 2, 4, false, true);
+
+        boolean[] seen = new boolean[50];
+        int cnt = 0;
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            int example = (int) Math.round(ds.getLabels().meanNumber().doubleValue() - 0.5);
+            assertEquals("Failed on minibatch " + example, example + 1.0,
+                            ds.getFeatures().meanNumber().doubleValue(), 0.001);
+            assertFalse(seen[example]);
+            seen[example] = true;
+            cnt++;
+        }
+
+        assertEquals(50, cnt);
+
+        // slow minibatch must come back intact too
+        assertTrue(seen[0]);
+        iterator.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWorkerFailure() {
+        ParallelMapDataSetIterator iterator = new ParallelMapDataSetIterator(
+                        new SimpleVariableGenerator(119, 10, 32, 100, 10), new DataSetPreProcessor() {
+                            @Override
+                            public void preProcess(DataSet toPreProcess) {
+                                throw new IllegalStateException();
+                            }
+                        }, 2);
+
+        try {
+            while (iterator.hasNext())
+                iterator.next();
+        } finally {
+            iterator.shutdown();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.val;
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.tools.SimpleVariableGenerator;
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+
+import static org.junit.Assert.*;
+
+public class ShuffleBufferDataSetIteratorTest extends BaseDL4JTest {
+
+    @Test
+    public void testShuffleBuffer() {
+        int numBatches = 10;
+        int batchSize = 4;
+        int bufferSize = 8;
+
+        val iterator = new ShuffleBufferDataSetIterator(
+                        new SimpleVariableGenerator(119, numBatches, batchSize, 5, 5), bufferSize, 12345);
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            int[] counts = new int[numBatches];
+            boolean mixed = false;
+            int cnt = 0;
+            while (iterator.hasNext()) {
+                DataSet ds = iterator.next();
+                assertEquals(batchSize, ds.numExamples());
+
+                for (int e = 0; e < ds.numExamples(); e++) {
+                    double value = ds.getFeatures().getDouble(e, 0);
+                    assertEquals(value + 0.5, ds.getLabels().getDouble(e, 0), 1e-5);
+
+                    // example can't travel further than buffer allows
+                    int source = (int) value;
+                    assertTrue(source <= cnt + bufferSize / batchSize);
+                    counts[source]++;
+
+                    if (source != cnt)
+                        mixed = true;
+                }
+                cnt++;
+            }
+
+            assertEquals(numBatches, cnt);
+            assertTrue(mixed);
+            for (int c : counts)
+                assertEquals(batchSize, c);
+
+            iterator.reset();
+        }
+    }
+
+    @Test
+    public void testCustomBatchSize() {
+        val iterator = new ShuffleBufferDataSetIterator(new SimpleVariableGenerator(119, 5, 4, 5, 5), 10, 3, 12345);
+
+        int examples = 0;
+        int cnt = 0;
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            assertTrue(ds.numExamples() <= 3);
+            examples += ds.numExamples();
+            cnt++;
+        }
+
+        assertEquals(20, examples);
+        assertEquals(7, cnt);
+    }
+}
@@ -33,6 +33,7 @@ import org.junit.Test;
 import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.learning.config.Sgd;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
@@ -43,6 +44,7 @@ import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class EmbeddingLayerTest extends BaseDL4JTest {
 
@@ -352,6 +354,106 @@ public class EmbeddingLayerTest extends BaseDL4JTest {
         }
     }
 
+    @Test
+    public void testSparseGradientsSgd() {
+        //With SGD and no regularization, lazy updates are exactly equivalent to dense updates
+        int nClassesIn = 100;
+        int embeddingDim = 5;
+
+        for (boolean sequence : new boolean[]{false, true}) {
+            MultiLayerNetwork dense = null;
+            MultiLayerNetwork sparse = null;
+            for (boolean sparseGradients : new boolean[]{false, true}) {
+                org.deeplearning4j.nn.conf.layers.Layer embedding;
+                org.deeplearning4j.nn.conf.layers.Layer output;
+                if (sequence) {
+                    embedding = new EmbeddingSequenceLayer.Builder().inputLength(1).hasBias(true).nIn(nClassesIn)
+                            .nOut(embeddingDim).sparseGradients(sparseGradients).build();
+                    output = new RnnOutputLayer.Builder().nIn(embeddingDim).nOut(4).activation(Activation.SOFTMAX).build();
+                } else {
+                    embedding = new EmbeddingLayer.Builder().hasBias(true).nIn(nClassesIn).nOut(embeddingDim)
+                            .sparseGradients(sparseGradients).build();
+                    output = new OutputLayer.Builder().nIn(embeddingDim).nOut(4).activation(Activation.SOFTMAX).build();
+                }
+
+                MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().activation(Activation.TANH)
+                        .updater(new Sgd(0.1)).seed(12345).list()
+                        .layer(embedding)
+                        .layer(output)
+                        .build();
+
+                MultiLayerNetwork net = new MultiLayerNetwork(conf);
+                net.init();
+                if (sparseGradients) {
+                    sparse = net;
+                } else {
+                    dense = net;
+                }
+            }
+            sparse.setParams(dense.params().dup());
+
+            Random r = new Random(12345);
+            for (int iter = 0; iter < 5; iter++) {
+                int batchSize = 8;
+                INDArray in = Nd4j.create(batchSize, 1);
+                INDArray labels = sequence ? Nd4j.create(batchSize, 4, 1) : Nd4j.create(batchSize, 4);
+                for (int i = 0; i < batchSize; i++) {
+                    //Different subset of rows in each iteration, with duplicates
+                    in.putScalar(i, r.nextInt(10) + 10 * iter);
+                    if (sequence) {
+                        labels.putScalar(new int[]{i, r.nextInt(4), 0}, 1.0);
+                    } else {
+                        labels.putScalar(new int[]{i, r.nextInt(4)}, 1.0);
+                    }
+                }
+
+                dense.fit(in, labels);
+                sparse.fit(in, labels);
+
+                assertEquals(dense.params(), sparse.params());
+            }
+        }
+    }
+
+    @Test
+    public void testSparseGradientsLazyAdam() {
+        int nClassesIn = 100;
+        int embeddingDim = 5;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().activation(Activation.TANH)
+                .updater(new Adam(0.01)).seed(12345).list()
+                .layer(new EmbeddingLayer.Builder().nIn(nClassesIn).nOut(embeddingDim).sparseGradients(true).build())
+                .layer(new OutputLayer.Builder().nIn(embeddingDim).nOut(4).activation(Activation.SOFTMAX).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        //First iteration touches rows 0 and 1, second one - only row 2
+        INDArray labels = Nd4j.create(new double[][]{{1, 0, 0, 0}, {0, 1, 0, 0}});
+        net.fit(Nd4j.create(new double[][]{{0}, {1}}), labels);
+
+        INDArray weights = net.getLayer(0).getParam(DefaultParamInitializer.WEIGHT_KEY);
+        INDArray before = weights.dup();
+        INDArray updaterStateBefore = net.getUpdater().getStateViewArray().dup();
+
+        net.fit(Nd4j.create(new double[][]{{2}, {2}}), labels);
+
+        //Dense Adam would keep moving rows 0 and 1 due to momentum; lazy Adam doesn't touch them
+        for (int row : new int[]{0, 1, 3, 50, 99})
+            assertEquals(before.getRow(row), weights.getRow(row));
+        assertNotEquals(before.getRow(2), weights.getRow(2));
+
+        //Moments are updated only for the row 2: 1 row of m and 1 row of v (output layer params aside)
+        INDArray updaterState = net.getUpdater().getStateViewArray();
+        int changed = 0;
+        for (int i = 0; i < 2 * nClassesIn * embeddingDim; i++) {
+            if (updaterState.getDouble(i) != updaterStateBefore.getDouble(i))
+                changed++;
+        }
+        assertEquals(2 * embeddingDim, changed);
+    }
+
     @Test
     public void testEmbeddingLayerRNN() {
 
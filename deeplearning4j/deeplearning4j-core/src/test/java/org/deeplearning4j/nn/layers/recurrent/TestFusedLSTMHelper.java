@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.nn.layers.recurrent;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.nn.conf.BackpropType;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Sgd;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestFusedLSTMHelper extends BaseDL4JTest {
+    private static final int MINIBATCH = 3;
+    private static final int N_IN = 4;
+    private static final int N_OUT = 5;
+    private static final int TS_LENGTH = 7;
+
+    @Test
+    public void testSupported() {
+        FusedLSTMHelper helper = new FusedLSTMHelper();
+        assertTrue(helper.checkSupported(Activation.SIGMOID.getActivationFunction(),
+                        Activation.TANH.getActivationFunction(), false));
+        assertTrue(!helper.checkSupported(Activation.HARDSIGMOID.getActivationFunction(),
+                        Activation.TANH.getActivationFunction(), false));
+        assertTrue(!helper.checkSupported(Activation.SIGMOID.getActivationFunction(),
+                        Activation.RELU.getActivationFunction(), false));
+        assertTrue(!helper.checkSupported(Activation.SIGMOID.getActivationFunction(),
+                        Activation.TANH.getActivationFunction(), true));
+    }
+
+    @Test
+    public void testOutputAndGradients() {
+        for (boolean masks : new boolean[] {false, true}) {
+            MultiLayerNetwork fused = getNetwork(BackpropType.Standard, true);
+            MultiLayerNetwork reference = getNetwork(BackpropType.Standard, false);
+
+            Nd4j.getRandom().setSeed(12345);
+            INDArray in = Nd4j.rand(new int[] {MINIBATCH, N_IN, TS_LENGTH});
+            INDArray labels = Nd4j.rand(new int[] {MINIBATCH, 3, TS_LENGTH});
+            INDArray mask = null;
+            if (masks) {
+                mask = Nd4j.ones(MINIBATCH, TS_LENGTH);
+                mask.putScalar(1, TS_LENGTH - 1, 0.0);
+                mask.putScalar(2, TS_LENGTH - 1, 0.0);
+                mask.putScalar(2, TS_LENGTH - 2, 0.0);
+            }
+
+            INDArray expOut = reference.output(in, false, mask, mask);
+            assertTrue(expOut.equalsWithEps(fused.output(in, false, mask, mask), 1e-8));
+
+            for (MultiLayerNetwork net : new MultiLayerNetwork[] {fused, reference}) {
+                net.setInput(in);
+                net.setLabels(labels);
+                net.setLayerMaskArrays(mask, mask);
+                net.computeGradientAndScore();
+            }
+
+            assertEquals(reference.score(), fused.score(), 1e-8);
+
+            Map<String, INDArray> expected = reference.gradient().gradientForVariable();
+            Map<String, INDArray> actual = fused.gradient().gradientForVariable();
+            assertEquals(expected.keySet(), actual.keySet());
+            for (String key : expected.keySet())
+                assertTrue(key, expected.get(key).equalsWithEps(actual.get(key), 1e-6));
+        }
+    }
+
+    @Test
+    public void testRnnTimeStep() {
+        MultiLayerNetwork fused = getNetwork(BackpropType.Standard, true);
+        MultiLayerNetwork reference = getNetwork(BackpropType.Standard, false);
+
+        Nd4j.getRandom().setSeed(12345);
+        for (int i = 0; i < 3; i++) {
+            INDArray in = Nd4j.rand(new int[] {MINIBATCH, N_IN, 2});
+            assertTrue(reference.rnnTimeStep(in).equalsWithEps(fused.rnnTimeStep(in), 1e-8));
+        }
+    }
+
+    @Test
+    public void testTruncatedBPTT() {
+        MultiLayerNetwork fused = getNetwork(BackpropType.TruncatedBPTT, true);
+        MultiLayerNetwork reference = getNetwork(BackpropType.TruncatedBPTT, false);
+
+        Nd4j.getRandom().setSeed(12345);
+        INDArray in = Nd4j.rand(new int[] {MINIBATCH, N_IN, 3 * TS_LENGTH});
+        INDArray labels = Nd4j.rand(new int[] {MINIBATCH, 3, 3 * TS_LENGTH});
+
+        fused.fit(new DataSet(in, labels));
+        reference.fit(new DataSet(in, labels));
+
+        assertTrue(reference.params().equalsWithEps(fused.params(), 1e-6));
+    }
+
+    private static MultiLayerNetwork getNetwork(BackpropType backpropType, boolean useFusedHelper) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                        .seed(12345)
+                        .updater(new Sgd(0.1))
+                        .weightInit(WeightInit.XAVIER)
+                        .list()
+                        .layer(new org.deeplearning4j.nn.conf.layers.LSTM.Builder().nIn(N_IN).nOut(N_OUT)
+                                        .activation(Activation.TANH).build())
+                        .layer(new RnnOutputLayer.Builder().nIn(N_OUT).nOut(3).activation(Activation.IDENTITY)
+                                        .lossFunction(LossFunctions.LossFunction.MSE).build())
+                        .backpropType(backpropType).tBPTTForwardLength(TS_LENGTH).tBPTTBackwardLength(4)
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        // helper is set explicitly, so that test doesn't depend on backend in use
+        LSTM layer = (LSTM) net.getLayer(0);
+        layer.helper = useFusedHelper ? new FusedLSTMHelper() : null;
+
+        return net;
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Sgd;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class MappedModelSerializerTest extends BaseDL4JTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Test
+    public void testMappedMLN() throws Exception {
+        if (!MappedModelSerializer.isSupported())
+            return;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .updater(new Sgd(0.1)).activation(Activation.TANH).weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new DenseLayer.Builder().nIn(5).nOut(20).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE).nIn(20).nOut(6).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        File tempFile = tempDir.newFile();
+        MappedModelSerializer.writeModel(net, tempFile);
+
+        assertTrue(MappedModelSerializer.isMappedModel(tempFile));
+
+        MultiLayerNetwork restored = MappedModelSerializer.restoreMultiLayerNetwork(tempFile);
+
+        assertEquals(net.getLayerWiseConfigurations().toJson(), restored.getLayerWiseConfigurations().toJson());
+        assertEquals(net.params(), restored.params());
+
+        INDArray in = Nd4j.rand(3, 5);
+        assertEquals(net.output(in), restored.output(in));
+    }
+
+    @Test
+    public void testChangesDontReachFile() throws Exception {
+        if (!MappedModelSerializer.isSupported())
+            return;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .updater(new Sgd(0.1)).activation(Activation.TANH).weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new DenseLayer.Builder().nIn(5).nOut(20).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE).nIn(20).nOut(6).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        File tempFile = tempDir.newFile();
+        MappedModelSerializer.writeModel(net, tempFile);
+        byte[] bytes = java.nio.file.Files.readAllBytes(tempFile.toPath());
+
+        MultiLayerNetwork restored = MappedModelSerializer.restoreMultiLayerNetwork(tempFile);
+        restored.fit(Nd4j.rand(3, 5), Nd4j.rand(3, 6));
+        restored.params().addi(1.0);
+        assertNotEquals(net.params(), restored.params());
+
+        assertArrayEquals(bytes, java.nio.file.Files.readAllBytes(tempFile.toPath()));
+
+        MultiLayerNetwork second = MappedModelSerializer.restoreMultiLayerNetwork(tempFile);
+        assertEquals(net.params(), second.params());
+
+        assertTrue(MappedModelSerializer.release(restored));
+        assertFalse(MappedModelSerializer.release(restored));
+        assertTrue(MappedModelSerializer.release(second));
+        assertFalse(MappedModelSerializer.release(net));
+    }
+
+    @Test
+    public void testMappedCG() throws Exception {
+        if (!MappedModelSerializer.isSupported())
+            return;
+
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .updater(new Sgd(0.1)).activation(Activation.TANH).weightInit(WeightInit.XAVIER)
+                        .graphBuilder().addInputs("in")
+                        .addLayer("dense", new DenseLayer.Builder().nIn(4).nOut(2).build(), "in")
+                        .addLayer("out", new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE).nIn(2).nOut(3).build(), "dense")
+                        .setOutputs("out").build();
+
+        ComputationGraph net = new ComputationGraph(conf);
+        net.init();
+
+        File tempFile = tempDir.newFile();
+        MappedModelSerializer.writeModel(net, tempFile);
+
+        ComputationGraph restored = MappedModelSerializer.restoreComputationGraph(tempFile);
+
+        assertEquals(net.getConfiguration().toJson(), restored.getConfiguration().toJson());
+        assertEquals(net.params(), restored.params());
+
+        try {
+            MappedModelSerializer.restoreMultiLayerNetwork(tempFile);
+            fail("Expected exception");
+        } catch (Exception e) {
+            //OK
+        }
+    }
+
+    @Test
+    public void testZipModelIsNotMapped() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).list()
+                        .layer(0, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE).nIn(5).nOut(6).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        File tempFile = tempDir.newFile();
+        ModelSerializer.writeModel(net, tempFile, false);
+
+        assertFalse(MappedModelSerializer.isMappedModel(tempFile));
+    }
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * This iterator provides streaming shuffle for underlying iterator: examples from source minibatches are kept in
+ * a buffer of limited size, and each output minibatch is built from examples picked at random from that buffer.
+ * So examples are mixed across source minibatches, without loading whole dataset into memory.
+ *
+ * Randomization quality depends on buffer size: with buffer size equal to dataset size this is full shuffle,
+ * with buffer size equal to minibatch size - examples can only move within a few neighbouring minibatches.
+ *
+ * PLEASE NOTE: buffer is refilled with whole source minibatches, so up to bufferSize + source batch size - 1
+ * examples are held in memory. Buffered examples are copied out of source minibatches, so this iterator
+ * is safe to use on top of workspace-enabled AsyncDataSetIterator.
+ */
+public class ShuffleBufferDataSetIterator implements DataSetIterator {
+    protected final DataSetIterator underlying;
+    protected final int bufferSize;
+    protected final int batchSize;
+    protected final long seed;
+
+    protected Random random;
+    protected final List<DataSet> buffer = new ArrayList<>();
+    protected DataSetPreProcessor preProcessor;
+
+    /**
+     * @param underlying Source iterator
+     * @param bufferSize Number of examples to keep in shuffle buffer
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferDataSetIterator(@NonNull DataSetIterator underlying, int bufferSize, long seed) {
+        this(underlying, bufferSize, underlying.batch(), seed);
+    }
+
+    /**
+     * @param underlying Source iterator
+     * @param bufferSize Number of examples to keep in shuffle buffer
+     * @param batchSize  Number of examples in output minibatches
+     * @param seed       RNG seed
+     */
+    public ShuffleBufferDataSetIterator(@NonNull DataSetIterator underlying, int bufferSize, int batchSize,
+                    long seed) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size should be positive value, got " + bufferSize);
+
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size should be positive value, got " + batchSize);
+
+        this.underlying = underlying;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * This method pulls source minibatches until buffer holds at least bufferSize examples, or source is depleted
+     */
+    protected void fillBuffer() {
+        while (buffer.size() < bufferSize && underlying.hasNext()) {
+            DataSet ds = underlying.next();
+            if (ds == null || ds.isEmpty())
+                continue;
+
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                for (DataSet example : ds.asList())
+                    buffer.add(new DataSet(copy(example.getFeatures()), copy(example.getLabels()),
+                                    copy(example.getFeaturesMaskArray()), copy(example.getLabelsMaskArray())));
+            }
+        }
+    }
+
+    private static INDArray copy(INDArray array) {
+        return array == null ? null : array.dup(array.ordering());
+    }
+
+    @Override
+    public boolean hasNext() {
+        fillBuffer();
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public DataSet next() {
+        return next(batchSize);
+    }
+
+    @Override
+    public DataSet next(int num) {
+        if (!hasNext())
+            throw new NoSuchElementException("No more examples available");
+
+        List<DataSet> examples = new ArrayList<>(num);
+        while (examples.size() < num) {
+            fillBuffer();
+            if (buffer.isEmpty())
+                break;
+
+            // swap picked example with the last one, so removal is O(1)
+            int idx = random.nextInt(buffer.size());
+            int last = buffer.size() - 1;
+            DataSet picked = buffer.get(idx);
+            buffer.set(idx, buffer.get(last));
+            buffer.remove(last);
+            examples.add(picked);
+        }
+
+        DataSet ds = DataSet.merge(examples);
+        if (preProcessor != null)
+            preProcessor.preProcess(ds);
+
+        return ds;
+    }
+
+    @Override
+    public int inputColumns() {
+        return underlying.inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return underlying.totalOutcomes();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return underlying.resetSupported();
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return true;
+    }
+
+    /**
+     * This method resets underlying iterator and drops buffered examples. RNG isn't reset, so each epoch gets
+     * different order.
+     */
+    @Override
+    public void reset() {
+        buffer.clear();
+        underlying.reset();
+    }
+
+    @Override
+    public int batch() {
+        return batchSize;
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return underlying.getLabels();
+    }
+
+    @Override
+    public void remove() {
+        // no-op
+    }
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator.parallel;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.AsyncDataSetIterator;
+import org.deeplearning4j.datasets.iterator.file.FileDataSetIterator;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * This iterator interleaves minibatches from multiple source iterators (i.e. one FileDataSetIterator per on-disk
+ * shard), in round-robin fashion. Up to cycleLength sources are open at any given time, each one prefetched in its
+ * own background thread. Once open source is depleted, next pending source takes its place in the cycle.
+ *
+ * Combined with optional shuffle of source order on each epoch, and with ShuffleBufferDataSetIterator on top of it,
+ * this gives reasonable randomization for sharded datasets, without full in-memory shuffle.
+ *
+ * PLEASE NOTE: prefetch threads don't use workspaces, so returned DataSets can be held by consumer as long as needed.
+ */
+@Slf4j
+public class InterleaveDataSetIterator implements DataSetIterator {
+    protected final List<DataSetIterator> sources;
+    protected final int cycleLength;
+    protected final int prefetchSize;
+    protected final Random random;
+
+    protected final LinkedList<Integer> pending = new LinkedList<>();
+    protected final List<DataSetIterator> active = new ArrayList<>();
+    protected boolean initialized = false;
+    protected int position = 0;
+    protected DataSetPreProcessor preProcessor;
+
+    /**
+     * @param sources      Source iterators
+     * @param cycleLength  Number of sources open (and prefetched) at the same time
+     * @param prefetchSize Number of minibatches prefetched for each open source
+     * @param random       RNG used to shuffle sources order on each epoch. If null, sources are used in given order
+     */
+    public InterleaveDataSetIterator(@NonNull List<DataSetIterator> sources, int cycleLength, int prefetchSize,
+                    Random random) {
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("You can't start InterleaveDataSetIterator without input data");
+
+        if (cycleLength < 1)
+            throw new IllegalArgumentException("Cycle length should be positive value, got " + cycleLength);
+
+        this.sources = new ArrayList<>(sources);
+        this.cycleLength = cycleLength;
+        this.prefetchSize = prefetchSize;
+        this.random = random;
+    }
+
+    protected void initialize() {
+        for (int i = 0; i < sources.size(); i++)
+            pending.add(i);
+
+        if (random != null)
+            Collections.shuffle(pending, random);
+
+        while (active.size() < cycleLength && !pending.isEmpty())
+            active.add(open(pending.removeFirst()));
+
+        position = 0;
+        initialized = true;
+    }
+
+    protected DataSetIterator open(int index) {
+        DataSetIterator source = sources.get(index);
+        if (prefetchSize > 0 && source.asyncSupported())
+            return new AsyncDataSetIterator(source, prefetchSize, false);
+
+        if (source.resetSupported() && !source.hasNext())
+            source.reset();
+
+        return source;
+    }
+
+    protected void close(DataSetIterator iterator) {
+        if (iterator instanceof AsyncDataSetIterator)
+            ((AsyncDataSetIterator) iterator).shutdown();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!initialized)
+            initialize();
+
+        while (!active.isEmpty()) {
+            if (position >= active.size())
+                position = 0;
+
+            DataSetIterator current = active.get(position);
+            if (current.hasNext())
+                return true;
+
+            // depleted source is replaced in place, so round-robin order is kept for other sources
+            close(current);
+            if (pending.isEmpty())
+                active.remove(position);
+            else
+                active.set(position, open(pending.removeFirst()));
+        }
+
+        return false;
+    }
+
+    @Override
+    public DataSet next() {
+        if (!hasNext())
+            throw new NoSuchElementException("No more minibatches available");
+
+        DataSet ds = active.get(position).next();
+        position++;
+
+        if (preProcessor != null)
+            preProcessor.preProcess(ds);
+
+        return ds;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * This method stops prefetch threads of all open sources, and resets all sources. Sources order is reshuffled,
+     * if RNG was provided.
+     */
+    @Override
+    public void reset() {
+        for (DataSetIterator iterator : active)
+            close(iterator);
+
+        active.clear();
+        pending.clear();
+
+        for (DataSetIterator source : sources)
+            source.reset();
+
+        initialized = false;
+    }
+
+    /**
+     * This method stops prefetch threads of all open sources
+     */
+    public void shutdown() {
+        for (DataSetIterator iterator : active)
+            close(iterator);
+
+        active.clear();
+        pending.clear();
+    }
+
+    @Override
+    public int inputColumns() {
+        return sources.get(0).inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return sources.get(0).totalOutcomes();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        for (DataSetIterator source : sources)
+            if (!source.resetSupported())
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        // sources are prefetched already
+        return false;
+    }
+
+    @Override
+    public int batch() {
+        return sources.get(0).batch();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return sources.get(0).getLabels();
+    }
+
+    @Override
+    public void remove() {
+        // no-op
+    }
+
+
+    public static class Builder {
+        private List<DataSetIterator> sources = new ArrayList<>();
+        private int cycleLength = 4;
+        private int prefetchSize = 2;
+        private Random random;
+
+        public Builder() {
+            //
+        }
+
+        public Builder addSourceIterator(@NonNull DataSetIterator iterator) {
+            for (DataSetIterator source : sources)
+                if (source == iterator)
+                    throw new IllegalArgumentException("You can't put the same iterator into this iterator twice");
+
+            sources.add(iterator);
+            return this;
+        }
+
+        /**
+         * This method adds one FileDataSetIterator per given directory, i.e. one per on-disk shard
+         *
+         * @param directories
+         * @return
+         */
+        public Builder addSourceDirectories(@NonNull File... directories) {
+            for (File directory : directories)
+                addSourceIterator(new FileDataSetIterator(directory));
+
+            return this;
+        }
+
+        /**
+         * This method defines number of sources open (and prefetched) at the same time. Default value: 4
+         *
+         * @param cycleLength
+         * @return
+         */
+        public Builder cycleLength(int cycleLength) {
+            this.cycleLength = cycleLength;
+            return this;
+        }
+
+        /**
+         * This method defines number of minibatches prefetched for each open source. 0 disables prefetch.
+         * Default value: 2
+         *
+         * @param prefetchSize
+         * @return
+         */
+        public Builder prefetchSize(int prefetchSize) {
+            this.prefetchSize = prefetchSize;
+            return this;
+        }
+
+        /**
+         * This method enables shuffle of sources order on each epoch
+         *
+         * @param seed RNG seed
+         * @return
+         */
+        public Builder shuffleSources(long seed) {
+            this.random = new Random(seed);
+            return this;
+        }
+
+        public InterleaveDataSetIterator build() {
+            return new InterleaveDataSetIterator(sources, cycleLength, prefetchSize, random);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator.parallel;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This iterator applies DataSetPreProcessor (i.e. normalization or augmentation) to minibatches of underlying
+ * iterator in K worker threads. Underlying iterator itself is read by single background thread, and minibatches
+ * are dispatched to workers as they arrive.
+ *
+ * Two modes are available:
+ * - ordered: minibatches are returned in the same order as underlying iterator returns them
+ * - unordered: minibatches are returned as soon as they are processed, so one slow minibatch doesn't stall others
+ *
+ * Number of minibatches in flight (read, being processed, or waiting for consumer) is limited by bufferSize.
+ * Minibatches are read into cyclic workspace sized for that number of minibatches, so each slot of that ring is
+ * reused, same as in AsyncDataSetIterator.
+ *
+ * PLEASE NOTE: In unordered mode a slow minibatch may still be processed when its ring slot is reused, so in this mode
+ * minibatches are detached from workspace before they're handed over to workers.
+ *
+ * PLEASE NOTE: preprocessor is applied in-place. Any arrays it allocates are allocated outside of workspace.
+ * PLEASE NOTE: preprocessor set on underlying iterator is still applied on reader thread, so expensive
+ * preprocessing should be set on this iterator instead.
+ */
+@Slf4j
+public class ParallelMapDataSetIterator implements DataSetIterator {
+    protected final DataSetIterator backedIterator;
+    protected final int numWorkers;
+    protected final int bufferSize;
+    protected final boolean ordered;
+    protected final boolean useWorkspace;
+    protected final String workspaceId;
+    protected final Integer deviceId;
+    protected volatile DataSetPreProcessor preProcessor;
+
+    protected final Future<DataSet> terminator = new FutureTask<>(new Callable<DataSet>() {
+        @Override
+        public DataSet call() throws Exception {
+            return null;
+        }
+    });
+
+    protected ExecutorService workers;
+    protected ReaderThread reader;
+    protected BlockingQueue<Future<DataSet>> output;
+    protected Semaphore permits;
+    protected volatile RuntimeException throwable;
+
+    protected DataSet nextElement;
+    protected boolean readerDone;
+    protected int consumed;
+    protected boolean depleted;
+
+    /**
+     * @param iterator     Underlying iterator
+     * @param preProcessor Preprocessor to apply in worker threads
+     * @param numWorkers   Number of worker threads
+     */
+    public ParallelMapDataSetIterator(@NonNull DataSetIterator iterator, DataSetPreProcessor preProcessor,
+                    int numWorkers) {
+        this(iterator, preProcessor, numWorkers, numWorkers * 2, true, true);
+    }
+
+    /**
+     * @param iterator     Underlying iterator
+     * @param preProcessor Preprocessor to apply in worker threads
+     * @param numWorkers   Number of worker threads
+     * @param bufferSize   Max number of minibatches in flight. Should be >= numWorkers to keep all workers busy
+     * @param ordered      If true, minibatches are returned in order of underlying iterator
+     * @param useWorkspace If true, minibatches are read into cyclic workspace
+     */
+    public ParallelMapDataSetIterator(@NonNull DataSetIterator iterator, DataSetPreProcessor preProcessor,
+                    int numWorkers, int bufferSize, boolean ordered, boolean useWorkspace) {
+        if (numWorkers < 1)
+            throw new IllegalArgumentException("Number of workers should be positive value, got " + numWorkers);
+
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size should be positive value, got " + bufferSize);
+
+        this.backedIterator = iterator;
+        this.preProcessor = preProcessor;
+        this.numWorkers = numWorkers;
+        this.bufferSize = bufferSize;
+        this.ordered = ordered;
+        this.useWorkspace = useWorkspace;
+        this.workspaceId = "PMDSI_ITER-" + java.util.UUID.randomUUID().toString();
+        this.deviceId = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+
+        if (iterator.resetSupported() && !iterator.hasNext())
+            iterator.reset();
+
+        start();
+    }
+
+    protected void start() {
+        output = new LinkedBlockingQueue<>();
+        permits = new Semaphore(bufferSize);
+        nextElement = null;
+        readerDone = false;
+        consumed = 0;
+        depleted = false;
+
+        final AtomicInteger cnt = new AtomicInteger(0);
+        workers = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "PMDSI worker thread " + cnt.getAndIncrement());
+
+                // we want to ensure, that worker threads will have the same thread->device affinity, as master thread
+                Nd4j.getAffinityManager().attachThreadToDevice(t, deviceId);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        reader = new ReaderThread();
+        Nd4j.getAffinityManager().attachThreadToDevice(reader, deviceId);
+        reader.start();
+    }
+
+    /**
+     * This method stops reader and worker threads, and destroys reader workspace (if any)
+     *
+     * PLEASE NOTE: After shutdown() call, this instance can't be used until reset() is called
+     */
+    public void shutdown() {
+        reader.interrupt();
+        try {
+            reader.join();
+            workers.shutdownNow();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        output.clear();
+        reader.destroyWorkspace();
+    }
+
+    @Override
+    public void reset() {
+        shutdown();
+
+        throwable = null;
+        backedIterator.reset();
+        start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (throwable != null)
+            throw throwable;
+
+        if (nextElement != null)
+            return true;
+
+        if (depleted)
+            return false;
+
+        try {
+            while (true) {
+                if (readerDone && consumed == reader.submitted) {
+                    depleted = true;
+                    return false;
+                }
+
+                Future<DataSet> future = output.take();
+                if (future == terminator) {
+                    // reader might have failed while reading underlying iterator
+                    if (throwable != null)
+                        throw throwable;
+
+                    readerDone = true;
+                    continue;
+                }
+
+                consumed++;
+                nextElement = future.get();
+                permits.release();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throwable = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+            throw throwable;
+        }
+    }
+
+    @Override
+    public DataSet next() {
+        if (!hasNext())
+            throw new NoSuchElementException("No more minibatches available");
+
+        DataSet temp = nextElement;
+        nextElement = null;
+        return temp;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int inputColumns() {
+        return backedIterator.inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return backedIterator.totalOutcomes();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return backedIterator.resetSupported();
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        // this iterator prefetches on its own
+        return false;
+    }
+
+    @Override
+    public int batch() {
+        return backedIterator.batch();
+    }
+
+    /**
+     * This method sets preprocessor that will be applied in worker threads
+     *
+     * @param preProcessor a pre processor to set
+     */
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return backedIterator.getLabels();
+    }
+
+    @Override
+    public void remove() {
+        // no-op
+    }
+
+    protected class MapTask extends FutureTask<DataSet> {
+
+        protected MapTask(final DataSet dataSet) {
+            super(new Callable<DataSet>() {
+                @Override
+                public DataSet call() throws Exception {
+                    DataSetPreProcessor p = preProcessor;
+                    if (p != null)
+                        p.preProcess(dataSet);
+
+                    // we want to ensure preprocessing is finished before minibatch is handed over
+                    Nd4j.getExecutioner().commit();
+                    return dataSet;
+                }
+            });
+        }
+
+        @Override
+        protected void done() {
+            // in unordered mode minibatches go to consumer in order of completion
+            if (!ordered && !isCancelled())
+                output.add(this);
+        }
+    }
+
+    protected class ReaderThread extends Thread implements Runnable {
+        protected volatile int submitted = 0;
+        private WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().minSize(10 * 1024L * 1024L)
+                        .overallocationLimit(bufferSize + 2).policyReset(ResetPolicy.ENDOFBUFFER_REACHED)
+                        .policyLearning(LearningPolicy.FIRST_LOOP).policyAllocation(AllocationPolicy.OVERALLOCATE)
+                        .policySpill(SpillPolicy.REALLOCATE).build();
+
+        private volatile MemoryWorkspace workspace;
+
+        protected ReaderThread() {
+            this.setDaemon(true);
+            this.setName("PMDSI reader thread");
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (useWorkspace)
+                    workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(configuration, workspaceId);
+
+                while (backedIterator.hasNext()) {
+                    permits.acquire();
+
+                    DataSet ds;
+                    if (useWorkspace) {
+                        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                            ds = backedIterator.next();
+                        }
+                    } else {
+                        ds = backedIterator.next();
+                    }
+
+                    // we want to ensure underlying iterator finished dataset creation
+                    Nd4j.getExecutioner().commit();
+
+                    if (ds == null) {
+                        permits.release();
+                        continue;
+                    }
+
+                    // ring slots are reused in order of reading, but unordered mode doesn't release them in that order
+                    if (useWorkspace && !ordered)
+                        ds.detach();
+
+                    MapTask task = new MapTask(ds);
+                    submitted++;
+                    if (ordered)
+                        output.put(task);
+
+                    workers.execute(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                throwable = e;
+            } catch (Exception e) {
+                throwable = new RuntimeException(e);
+            }
+
+            output.add(terminator);
+        }
+
+        protected void destroyWorkspace() {
+            if (workspace != null) {
+                log.debug("Manually destroying PMDSI workspace");
+                workspace.destroyWorkspace(true);
+            }
+        }
+    }
+}
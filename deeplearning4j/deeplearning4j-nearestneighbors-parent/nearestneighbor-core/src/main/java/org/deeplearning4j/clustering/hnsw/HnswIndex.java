@@ -0,0 +1,774 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.hnsw;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.clustering.util.MultiThreadUtils;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest neighbours index for the cosine distance, based on Hierarchical Navigable Small World graphs:
+ *
+ * _Efficient and robust approximate nearest neighbor search using Hierarchical Navigable Small World graphs_
+ * Yu. A. Malkov, D. A. Yashunin - 2016
+ * <a href="https://arxiv.org/abs/1603.09320">https://arxiv.org/abs/1603.09320</a>
+ *
+ * Vectors are normalized on insertion, so cosine similarity is a single dot product.
+ * Search cost grows roughly logarithmically with number of points, and recall is controlled with ef parameter:
+ * larger ef means better recall and slower queries.
+ *
+ * PLEASE NOTE: Index keeps its own copy of vectors, as float32.
+ * PLEASE NOTE: Queries are thread-safe, and might run concurrently. Insertions are serialized.
+ * PLEASE NOTE: searchBatch() uses thread pool, which is released with close()
+ */
+@Slf4j
+public class HnswIndex implements AutoCloseable {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 200;
+    public static final int DEFAULT_EF = 64;
+
+    protected static final int MAGIC = 0x484E5357; // "HNSW"
+    protected static final int VERSION = 1;
+
+    @Getter
+    private final int dimensions;
+    @Getter
+    private final int m;
+    private final int maxM0;
+    @Getter
+    private final int efConstruction;
+    @Getter
+    private volatile int ef = DEFAULT_EF;
+
+    private final double levelMultiplier;
+    private final Random random;
+
+    private float[] vectors;
+    private int[] levels;
+    // level 0 links: [node][0] holds number of neighbours, followed by neighbour ids
+    private int[][] links0;
+    // upper level links: [node][level - 1], same layout as above
+    private int[][][] links;
+
+    @Getter
+    private int size = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<VisitedSet> visited = new ThreadLocal<>();
+    private ExecutorService executorService;
+
+    public HnswIndex(int dimensions) {
+        this(dimensions, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, 119L);
+    }
+
+    /**
+     * @param dimensions length of vectors
+     * @param m max number of links per node on upper levels. Level 0 uses 2 * m.
+     * @param efConstruction size of candidates list used during insertion. Larger values mean better graph and slower build.
+     * @param seed seed for levels generation
+     */
+    public HnswIndex(int dimensions, int m, int efConstruction, long seed) {
+        if (dimensions < 1)
+            throw new ND4JIllegalStateException("Dimensions should be positive value");
+
+        if (m < 2)
+            throw new ND4JIllegalStateException("M should be >= 2");
+
+        if (efConstruction < 1)
+            throw new ND4JIllegalStateException("efConstruction should be positive value");
+
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+
+        this.vectors = new float[16 * dimensions];
+        this.levels = new int[16];
+        this.links0 = new int[16][];
+        this.links = new int[16][][];
+    }
+
+    /**
+     * This method sets size of candidates list used during search. Recall grows with ef, as well as search time.
+     *
+     * @param ef
+     */
+    public void setEf(int ef) {
+        if (ef < 1)
+            throw new ND4JIllegalStateException("ef should be positive value");
+
+        this.ef = ef;
+    }
+
+    /**
+     * This method adds all rows of given matrix to the index. Ids are assigned sequentially, in order of rows.
+     *
+     * @param points 2D matrix, one point per row
+     */
+    public void addAll(@NonNull INDArray points) {
+        if (points.rank() != 2 || points.columns() != dimensions)
+            throw new ND4JIllegalStateException("Points should be matrix with " + dimensions + " columns");
+
+        INDArray array = points.dataType() == DataType.FLOAT ? points : points.castTo(DataType.FLOAT);
+        for (int e = 0; e < array.rows(); e++)
+            add(array.getRow(e).toFloatVector());
+    }
+
+    /**
+     * This method adds point to the index
+     *
+     * @param vector
+     * @return id of the point, which is number of points added before this one
+     */
+    public int add(@NonNull float[] vector) {
+        if (vector.length != dimensions)
+            throw new ND4JIllegalStateException("Vector length [" + vector.length + "] doesn't match index dimensions [" + dimensions + "]");
+
+        lock.writeLock().lock();
+        try {
+            int id = size;
+            ensureCapacity(id + 1);
+
+            double norm = 0.0;
+            for (float v : vector)
+                norm += v * v;
+
+            norm = Math.sqrt(norm);
+            int offset = id * dimensions;
+            for (int e = 0; e < dimensions; e++)
+                vectors[offset + e] = norm > 0 ? (float) (vector[e] / norm) : 0.0f;
+
+            int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+            levels[id] = level;
+            links0[id] = new int[maxM0 + 1];
+            if (level > 0) {
+                links[id] = new int[level][m + 1];
+            }
+            size++;
+
+            if (entryPoint < 0) {
+                entryPoint = id;
+                maxLevel = level;
+                return id;
+            }
+
+            VisitedSet visitedSet = visitedSet();
+
+            // greedy descent through levels above new node's level
+            int current = entryPoint;
+            float currentDistance = distance(vectors, offset, current);
+            for (int l = maxLevel; l > level; l--) {
+                boolean changed = true;
+                while (changed) {
+                    changed = false;
+                    int[] neighbours = linksOf(current, l);
+                    for (int i = 1; i <= neighbours[0]; i++) {
+                        float d = distance(vectors, offset, neighbours[i]);
+                        if (d < currentDistance) {
+                            currentDistance = d;
+                            current = neighbours[i];
+                            changed = true;
+                        }
+                    }
+                }
+            }
+
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                DistanceHeap candidates = searchLayer(vectors, offset, current, efConstruction, l, visitedSet);
+                int[] sorted = candidates.sortedIds();
+
+                int maxLinks = l == 0 ? maxM0 : m;
+                int[] selected = selectNeighbours(offset, sorted, m);
+
+                int[] own = linksOf(id, l);
+                for (int s : selected) {
+                    own[++own[0]] = s;
+                    connect(s, id, l, maxLinks);
+                }
+
+                current = sorted[0];
+            }
+
+            if (level > maxLevel) {
+                entryPoint = id;
+                maxLevel = level;
+            }
+
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method returns ids of k points nearest to the query, most similar first
+     *
+     * @param query vector
+     * @param k number of points to return
+     * @return
+     */
+    public int[] search(@NonNull INDArray query, int k) {
+        return search(query.dataType() == DataType.FLOAT ? query.toFloatVector() : query.castTo(DataType.FLOAT).toFloatVector(), k);
+    }
+
+    /**
+     * This method returns ids of k points nearest to the query, most similar first
+     *
+     * @param query vector
+     * @param k number of points to return
+     * @return
+     */
+    public int[] search(@NonNull float[] query, int k) {
+        return search(query, k, null);
+    }
+
+    /**
+     * This method returns ids of k points nearest to the query, most similar first.
+     * Cosine distances of returned points are stored into distances array, if it's not null.
+     *
+     * @param query vector
+     * @param k number of points to return
+     * @param distances optional array of length k for distances
+     * @return
+     */
+    public int[] search(@NonNull float[] query, int k, float[] distances) {
+        if (query.length != dimensions)
+            throw new ND4JIllegalStateException("Query length [" + query.length + "] doesn't match index dimensions [" + dimensions + "]");
+
+        if (k < 1)
+            return new int[0];
+
+        double norm = 0.0;
+        for (float v : query)
+            norm += v * v;
+
+        norm = Math.sqrt(norm);
+        float[] q = new float[dimensions];
+        for (int e = 0; e < dimensions; e++)
+            q[e] = norm > 0 ? (float) (query[e] / norm) : 0.0f;
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0)
+                return new int[0];
+
+            int current = entryPoint;
+            float currentDistance = distance(q, 0, current);
+            for (int l = maxLevel; l > 0; l--) {
+                boolean changed = true;
+                while (changed) {
+                    changed = false;
+                    int[] neighbours = linksOf(current, l);
+                    for (int i = 1; i <= neighbours[0]; i++) {
+                        float d = distance(q, 0, neighbours[i]);
+                        if (d < currentDistance) {
+                            currentDistance = d;
+                            current = neighbours[i];
+                            changed = true;
+                        }
+                    }
+                }
+            }
+
+            DistanceHeap results = searchLayer(q, 0, current, Math.max(ef, k), 0, visitedSet());
+            while (results.size() > k)
+                results.pop();
+
+            int[] ids = new int[results.size()];
+            for (int e = ids.length - 1; e >= 0; e--) {
+                if (distances != null)
+                    distances[e] = results.peekDistance();
+
+                ids[e] = results.pop();
+            }
+
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method runs search for every row of given matrix. Queries are executed in parallel.
+     *
+     * @param queries 2D matrix, one query per row
+     * @param k number of points to return per query
+     * @return
+     */
+    public int[][] searchBatch(@NonNull INDArray queries, final int k) {
+        if (queries.rank() != 2 || queries.columns() != dimensions)
+            throw new ND4JIllegalStateException("Queries should be matrix with " + dimensions + " columns");
+
+        INDArray array = queries.dataType() == DataType.FLOAT ? queries : queries.castTo(DataType.FLOAT);
+        final int numQueries = array.rows();
+        final float[][] rows = new float[numQueries][];
+        for (int e = 0; e < numQueries; e++)
+            rows[e] = array.getRow(e).toFloatVector();
+
+        final int[][] result = new int[numQueries][];
+        int threads = Math.min(numQueries, Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            for (int e = 0; e < numQueries; e++)
+                result[e] = search(rows[e], k);
+
+            return result;
+        }
+
+        List<Runnable> tasks = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            final int numThreads = threads;
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    for (int e = thread; e < numQueries; e += numThreads)
+                        result[e] = search(rows[e], k);
+                }
+            });
+        }
+
+        MultiThreadUtils.parallelTasks(tasks, executorService());
+
+        for (int e = 0; e < numQueries; e++)
+            if (result[e] == null)
+                throw new ND4JIllegalStateException("Query " + e + " failed");
+
+        return result;
+    }
+
+    /**
+     * This method saves index to the file
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void save(@NonNull File file) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            save(os);
+        }
+    }
+
+    /**
+     * This method writes index to the stream. Stream isn't closed.
+     *
+     * @param stream
+     * @throws IOException
+     */
+    public void save(@NonNull OutputStream stream) throws IOException {
+        lock.readLock().lock();
+        try {
+            DataOutputStream dos = new DataOutputStream(stream);
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(dimensions);
+            dos.writeInt(m);
+            dos.writeInt(efConstruction);
+            dos.writeInt(ef);
+            dos.writeInt(size);
+            dos.writeInt(entryPoint);
+            dos.writeInt(maxLevel);
+
+            for (int e = 0; e < size * dimensions; e++)
+                dos.writeFloat(vectors[e]);
+
+            for (int e = 0; e < size; e++) {
+                dos.writeInt(levels[e]);
+                writeLinks(dos, links0[e]);
+                for (int l = 0; l < levels[e]; l++)
+                    writeLinks(dos, links[e][l]);
+            }
+
+            dos.flush();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method restores index previously saved with save() method
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static HnswIndex load(@NonNull File file) throws IOException {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            return load(is);
+        }
+    }
+
+    /**
+     * This method restores index previously saved with save() method. Stream isn't closed.
+     *
+     * @param stream
+     * @return
+     * @throws IOException
+     */
+    public static HnswIndex load(@NonNull InputStream stream) throws IOException {
+        DataInputStream dis = new DataInputStream(stream);
+        if (dis.readInt() != MAGIC)
+            throw new ND4JIllegalStateException("Stream doesn't contain HNSW index");
+
+        int version = dis.readInt();
+        if (version != VERSION)
+            throw new ND4JIllegalStateException("Unsupported HNSW index version: " + version);
+
+        int dimensions = dis.readInt();
+        int m = dis.readInt();
+        int efConstruction = dis.readInt();
+
+        HnswIndex index = new HnswIndex(dimensions, m, efConstruction, 119L);
+        index.setEf(dis.readInt());
+
+        int size = dis.readInt();
+        index.ensureCapacity(size);
+        index.size = size;
+        index.entryPoint = dis.readInt();
+        index.maxLevel = dis.readInt();
+
+        for (int e = 0; e < size * dimensions; e++)
+            index.vectors[e] = dis.readFloat();
+
+        for (int e = 0; e < size; e++) {
+            int level = dis.readInt();
+            index.levels[e] = level;
+            index.links0[e] = readLinks(dis, index.maxM0);
+            if (level > 0) {
+                index.links[e] = new int[level][];
+                for (int l = 0; l < level; l++)
+                    index.links[e][l] = readLinks(dis, m);
+            }
+        }
+
+        return index;
+    }
+
+    private static void writeLinks(DataOutputStream dos, int[] links) throws IOException {
+        dos.writeInt(links[0]);
+        for (int i = 1; i <= links[0]; i++)
+            dos.writeInt(links[i]);
+    }
+
+    private static int[] readLinks(DataInputStream dis, int maxLinks) throws IOException {
+        int[] links = new int[maxLinks + 1];
+        links[0] = dis.readInt();
+        for (int i = 1; i <= links[0]; i++)
+            links[i] = dis.readInt();
+
+        return links;
+    }
+
+    /**
+     * Beam search within single level of the graph. Returns max-heap of up to ef closest points.
+     */
+    protected DistanceHeap searchLayer(float[] query, int queryOffset, int entry, int ef, int level, VisitedSet visitedSet) {
+        visitedSet.reset(size);
+
+        DistanceHeap candidates = new DistanceHeap(ef, false);
+        DistanceHeap results = new DistanceHeap(ef, true);
+
+        float d = distance(query, queryOffset, entry);
+        visitedSet.visit(entry);
+        candidates.push(entry, d);
+        results.push(entry, d);
+
+        while (candidates.size() > 0) {
+            float candidateDistance = candidates.peekDistance();
+            if (results.size() >= ef && candidateDistance > results.peekDistance())
+                break;
+
+            int candidate = candidates.pop();
+            int[] neighbours = linksOf(candidate, level);
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int n = neighbours[i];
+                if (!visitedSet.visit(n))
+                    continue;
+
+                float nd = distance(query, queryOffset, n);
+                if (results.size() < ef || nd < results.peekDistance()) {
+                    candidates.push(n, nd);
+                    results.push(n, nd);
+                    if (results.size() > ef)
+                        results.pop();
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Neighbours selection heuristic: candidate is accepted only if it's closer to the base point than to any of already
+     * accepted neighbours, so links are spread in different directions. Remaining slots are filled with closest rejected candidates.
+     *
+     * @param baseOffset offset of base point within vectors
+     * @param sorted candidate ids, closest first
+     * @param maxLinks
+     * @return
+     */
+    protected int[] selectNeighbours(int baseOffset, int[] sorted, int maxLinks) {
+        if (sorted.length <= maxLinks)
+            return sorted;
+
+        int[] selected = new int[maxLinks];
+        int cnt = 0;
+        boolean[] accepted = new boolean[sorted.length];
+        for (int c = 0; c < sorted.length && cnt < maxLinks; c++) {
+            int candidate = sorted[c];
+            float d = distance(vectors, baseOffset, candidate);
+
+            boolean good = true;
+            for (int s = 0; s < cnt; s++) {
+                if (distance(vectors, candidate * dimensions, selected[s]) < d) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                selected[cnt++] = candidate;
+                accepted[c] = true;
+            }
+        }
+
+        for (int c = 0; c < sorted.length && cnt < maxLinks; c++)
+            if (!accepted[c])
+                selected[cnt++] = sorted[c];
+
+        return selected;
+    }
+
+    /**
+     * This method adds link from node to newNode, pruning node's links if limit is exceeded
+     */
+    protected void connect(int node, int newNode, int level, int maxLinks) {
+        int[] nodeLinks = linksOf(node, level);
+        if (nodeLinks[0] < maxLinks) {
+            nodeLinks[++nodeLinks[0]] = newNode;
+            return;
+        }
+
+        int offset = node * dimensions;
+        DistanceHeap heap = new DistanceHeap(maxLinks + 1, true);
+        for (int i = 1; i <= nodeLinks[0]; i++)
+            heap.push(nodeLinks[i], distance(vectors, offset, nodeLinks[i]));
+
+        heap.push(newNode, distance(vectors, offset, newNode));
+
+        int[] pruned = selectNeighbours(offset, heap.sortedIds(), maxLinks);
+        nodeLinks[0] = pruned.length;
+        System.arraycopy(pruned, 0, nodeLinks, 1, pruned.length);
+    }
+
+    protected int[] linksOf(int node, int level) {
+        return level == 0 ? links0[node] : links[node][level - 1];
+    }
+
+    /**
+     * Cosine distance between query and stored point. Both are expected to be unit vectors.
+     */
+    protected float distance(float[] query, int queryOffset, int node) {
+        int offset = node * dimensions;
+        float dot = 0.0f;
+        for (int e = 0; e < dimensions; e++)
+            dot += query[queryOffset + e] * vectors[offset + e];
+
+        return 1.0f - dot;
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity <= levels.length)
+            return;
+
+        int newCapacity = Math.max(capacity, levels.length + (levels.length >> 1));
+        vectors = Arrays.copyOf(vectors, newCapacity * dimensions);
+        levels = Arrays.copyOf(levels, newCapacity);
+        links0 = Arrays.copyOf(links0, newCapacity);
+        links = Arrays.copyOf(links, newCapacity);
+    }
+
+    protected VisitedSet visitedSet() {
+        VisitedSet set = visited.get();
+        if (set == null) {
+            set = new VisitedSet();
+            visited.set(set);
+        }
+
+        return set;
+    }
+
+    protected synchronized ExecutorService executorService() {
+        if (executorService == null)
+            executorService = MultiThreadUtils.newExecutorService();
+
+        return executorService;
+    }
+
+    /**
+     * This method shuts down thread pool used by searchBatch(). Index itself stays usable: pool is created again
+     * upon next searchBatch() call.
+     */
+    @Override
+    public synchronized void close() {
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+
+    /**
+     * Visited marks for graph traversal. Marks are reset in O(1) by bumping generation counter.
+     */
+    protected static class VisitedSet {
+        private int[] marks = new int[0];
+        private int generation = 0;
+
+        protected void reset(int size) {
+            if (marks.length < size)
+                marks = Arrays.copyOf(marks, Math.max(size, marks.length * 2));
+
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return TRUE if node wasn't visited before
+         */
+        protected boolean visit(int node) {
+            if (marks[node] == generation)
+                return false;
+
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    /**
+     * Binary heap of (id, distance) pairs, without boxing. Either min-heap or max-heap by distance.
+     */
+    protected static class DistanceHeap {
+        private int[] ids;
+        private float[] distances;
+        private int size = 0;
+        private final boolean max;
+
+        protected DistanceHeap(int capacity, boolean max) {
+            this.ids = new int[Math.max(capacity, 1) + 1];
+            this.distances = new float[ids.length];
+            this.max = max;
+        }
+
+        protected int size() {
+            return size;
+        }
+
+        protected float peekDistance() {
+            return distances[0];
+        }
+
+        protected void push(int id, float distance) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(distance, distances[parent]))
+                    break;
+
+                ids[i] = ids[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+
+            ids[i] = id;
+            distances[i] = distance;
+        }
+
+        protected int pop() {
+            int result = ids[0];
+            size--;
+            if (size > 0) {
+                int id = ids[size];
+                float distance = distances[size];
+
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size)
+                        break;
+
+                    if (child + 1 < size && before(distances[child + 1], distances[child]))
+                        child++;
+
+                    if (!before(distances[child], distance))
+                        break;
+
+                    ids[i] = ids[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+
+                ids[i] = id;
+                distances[i] = distance;
+            }
+
+            return result;
+        }
+
+        /**
+         * This method drains the heap, and returns ids sorted by distance, closest first
+         */
+        protected int[] sortedIds() {
+            int[] result = new int[size];
+            if (max) {
+                for (int e = result.length - 1; e >= 0; e--)
+                    result[e] = pop();
+            } else {
+                for (int e = 0; e < result.length; e++)
+                    result[e] = pop();
+            }
+
+            return result;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
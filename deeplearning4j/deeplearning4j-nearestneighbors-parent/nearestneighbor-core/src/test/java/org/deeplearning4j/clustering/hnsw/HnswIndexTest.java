@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.hnsw;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HnswIndexTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private int numPoints = 2000;
+    private int dimensions = 16;
+
+    private INDArray points;
+    private HnswIndex index;
+
+    @Before
+    public void setUp() {
+        Nd4j.getRandom().setSeed(12345);
+        points = Nd4j.randn(DataType.FLOAT, numPoints, dimensions);
+
+        index = new HnswIndex(dimensions, 12, 100, 119L);
+        index.addAll(points);
+    }
+
+    @Test
+    public void testExactMatch() {
+        for (int e = 0; e < 100; e++) {
+            int[] result = index.search(points.getRow(e), 1);
+            assertEquals(1, result.length);
+            assertEquals(e, result[0]);
+        }
+    }
+
+    @Test
+    public void testRecall() {
+        int k = 10;
+        int numQueries = 50;
+        INDArray queries = Nd4j.randn(DataType.FLOAT, numQueries, dimensions);
+
+        INDArray normalized = points.divColumnVector(points.norm2(1).reshape(numPoints, 1));
+
+        int found = 0;
+        for (int q = 0; q < numQueries; q++) {
+            INDArray similarity = normalized.mmul(Transforms.unitVec(queries.getRow(q)).reshape(dimensions, 1));
+            INDArray sorted = Nd4j.sortWithIndices(similarity.reshape(numPoints).dup(), 0, false)[0];
+
+            Set<Integer> exact = new HashSet<>();
+            for (int e = 0; e < k; e++)
+                exact.add(sorted.getInt(e));
+
+            for (int id : index.search(queries.getRow(q), k))
+                if (exact.contains(id))
+                    found++;
+        }
+
+        double recall = found / (double) (k * numQueries);
+        assertTrue("Recall was " + recall, recall >= 0.9);
+    }
+
+    @Test
+    public void testSearchOrder() {
+        float[] distances = new float[10];
+        index.search(points.getRow(7).toFloatVector(), 10, distances);
+
+        for (int e = 1; e < distances.length; e++)
+            assertTrue(distances[e - 1] <= distances[e]);
+    }
+
+    @Test
+    public void testBatchSearch() {
+        INDArray queries = points.get(NDArrayIndex.interval(0, 32), NDArrayIndex.all());
+        int[][] batch = index.searchBatch(queries, 5);
+
+        assertEquals(32, batch.length);
+        for (int e = 0; e < batch.length; e++)
+            assertArrayEquals(index.search(queries.getRow(e), 5), batch[e]);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        File file = testDir.newFile("hnsw.bin");
+        index.save(file);
+
+        HnswIndex restored = HnswIndex.load(file);
+        assertEquals(index.getSize(), restored.getSize());
+        assertEquals(index.getDimensions(), restored.getDimensions());
+        assertEquals(index.getEf(), restored.getEf());
+
+        for (int e = 0; e < 20; e++)
+            assertArrayEquals(index.search(points.getRow(e), 10), restored.search(points.getRow(e), 10));
+    }
+}
@@ -19,6 +19,7 @@ package org.deeplearning4j.models.word2vec;
 import com.google.common.primitives.Doubles;
 import org.apache.commons.io.FileUtils;
 import org.nd4j.linalg.io.ClassPathResource;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.BatchedSkipGram;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.CBOW;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
@@ -167,6 +168,61 @@ public class Word2VecTests {
         assertTrue(sim > 0.65f);
     }
 
+    @Test
+    public void testWord2VecBatchedSkipGram() throws Exception {
+        SentenceIterator iter = new BasicLineIterator(inputFile.getAbsolutePath());
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        Word2Vec vec = new Word2Vec.Builder().minWordFrequency(1).iterations(5).learningRate(0.025).layerSize(150)
+                        .seed(42).sampling(0).negativeSample(10).useHierarchicSoftmax(false).windowSize(5)
+                        .modelUtils(new BasicModelUtils<VocabWord>()).useAdaGrad(false).iterate(iter).workers(8)
+                        .tokenizerFactory(t).elementsLearningAlgorithm(new BatchedSkipGram<VocabWord>()).build();
+
+        vec.fit();
+
+        Collection<String> lst = vec.wordsNearest("day", 10);
+        log.info(Arrays.toString(lst.toArray()));
+
+        double sim = vec.similarity("day", "night");
+        log.info("Day/night similarity: " + sim);
+
+        assertTrue(lst.contains("night"));
+        assertTrue(sim > 0.6f);
+    }
+
+    /**
+     * Throughput comparison of SkipGram and BatchedSkipGram on the same corpus and configuration
+     */
+    @Ignore
+    @Test
+    public void testBatchedSkipGramThroughput() throws Exception {
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        List<SkipGram<VocabWord>> algorithms = new ArrayList<>();
+        algorithms.add(new SkipGram<VocabWord>());
+        algorithms.add(new BatchedSkipGram<VocabWord>());
+
+        for (SkipGram<VocabWord> algorithm : algorithms) {
+            SentenceIterator iter = new BasicLineIterator(inputFile.getAbsolutePath());
+
+            Word2Vec vec = new Word2Vec.Builder().minWordFrequency(1).iterations(1).epochs(3).learningRate(0.025)
+                            .layerSize(150).seed(42).sampling(0).negativeSample(10).useHierarchicSoftmax(false)
+                            .windowSize(5).useAdaGrad(false).iterate(iter).workers(8).tokenizerFactory(t)
+                            .elementsLearningAlgorithm(algorithm).build();
+
+            long time = System.currentTimeMillis();
+            vec.fit();
+            time = System.currentTimeMillis() - time;
+
+            long words = vec.getVocab().totalWordOccurrences() * 3;
+            log.info("{}: {} words/sec, day/night similarity: {}", algorithm.getCodeName(),
+                            words * 1000 / Math.max(1, time), vec.similarity("day", "night"));
+        }
+    }
+
 
     @Test
     public void testWord2VecMultiEpoch() throws Exception {
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.scatter.ScatterAdd;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.nd4j.linalg.util.DeviceLocalNDArray;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Skip-Gram implementation with shared negative samples (pSGNScc, see Ji et al., "Parallelizing Word2Vec in Shared
+ * and Distributed Memory").
+ *
+ * Several consecutive windows of a sequence are learned at once, and all context words of these windows are trained
+ * against the same set of negative samples, drawn once per batch. So negative samples of the whole batch go through
+ * single GEMM without any masked out pairs, and each context word is paired with target word of its own window via
+ * row-wise dot product. Updates are computed with two more GEMMs, and applied to syn0 and syn1Neg with one ScatterAdd
+ * op each.
+ *
+ * Arrays used for a batch of windows are allocated once per thread, and reused for all batches via views of the
+ * actual batch size, so nothing but real contexts and outputs is computed or scattered.
+ *
+ * PLEASE NOTE: hierarchic softmax isn't batched. If it's enabled, or negative sampling is disabled, this
+ * implementation falls back to SkipGram.
+ */
+public class BatchedSkipGram<T extends SequenceElement> extends SkipGram<T> {
+    public static final int DEFAULT_WINDOWS_PER_BATCH = 8;
+
+    protected int windowsPerBatch = DEFAULT_WINDOWS_PER_BATCH;
+    protected ThreadLocal<WindowBatch> windowBatches = new ThreadLocal<>();
+
+    /**
+     * Dummy construction is required for reflection
+     */
+    public BatchedSkipGram() {
+
+    }
+
+    /**
+     * @param windowsPerBatch number of windows learned with the same GEMM calls
+     */
+    public BatchedSkipGram(int windowsPerBatch) {
+        Preconditions.checkArgument(windowsPerBatch > 0, "Number of windows per batch should be positive, got %s",
+                        windowsPerBatch);
+        this.windowsPerBatch = windowsPerBatch;
+    }
+
+    /**
+     * Returns implementation code name
+     *
+     * @return
+     */
+    @Override
+    public String getCodeName() {
+        return "BatchedSkipGram";
+    }
+
+    /**
+     * Learns sequence using SkipGram algorithm, windowsPerBatch windows at a time
+     *
+     * @param sequence
+     * @param nextRandom
+     * @param learningRate
+     */
+    @Override
+    public double learnSequence(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom, double learningRate) {
+        if (configuration.isUseHierarchicSoftmax() || negative <= 0)
+            return super.learnSequence(sequence, nextRandom, learningRate);
+
+        Sequence<T> tempSequence = sequence;
+        if (sampling > 0)
+            tempSequence = applySubsampling(sequence, nextRandom);
+
+        int currentWindow = window;
+
+        if (variableWindows != null && variableWindows.length != 0) {
+            currentWindow = variableWindows[RandomUtils.nextInt(variableWindows.length)];
+        }
+
+        WindowBatch batch = windowBatch();
+        List<T> sentence = tempSequence.getElements();
+        int[] contexts = new int[currentWindow * 2];
+        for (int i = 0; i < sentence.size(); i++) {
+            nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+            int b = (int) nextRandom.get() % currentWindow;
+
+            T word = sentence.get(i);
+            if (!isTrainable(word))
+                continue;
+
+            int cnt = 0;
+            int end = currentWindow * 2 + 1 - b;
+            for (int a = b; a < end; a++) {
+                if (a != currentWindow) {
+                    int c = i - currentWindow + a;
+                    if (c >= 0 && c < sentence.size()) {
+                        T lastWord = sentence.get(c);
+                        if (isTrainable(lastWord) && lastWord.getIndex() != word.getIndex())
+                            contexts[cnt++] = lastWord.getIndex();
+                    }
+                }
+            }
+
+            if (cnt > 0) {
+                addWindow(batch, word.getIndex(), contexts, cnt, nextRandom, learningRate);
+                if (batch.numWindows == batch.maxWindows)
+                    learnBatch(batch);
+            }
+        }
+
+        // learning rate might be different for next sequence, so leftovers aren't carried over
+        if (batch.numWindows > 0)
+            learnBatch(batch);
+
+        return 0.0;
+    }
+
+    protected boolean isTrainable(T element) {
+        return element != null && element.getIndex() >= 0 && !element.getLabel().equals("STOP")
+                        && !element.getLabel().equals("UNK");
+    }
+
+    /**
+     * This method returns batch buffers of the current thread
+     */
+    protected WindowBatch windowBatch() {
+        if (syn1Neg == null) {
+            ((InMemoryLookupTable<T>) lookupTable).initNegative();
+            syn1Neg = new DeviceLocalNDArray(((InMemoryLookupTable<T>) lookupTable).getSyn1Neg());
+        }
+
+        WindowBatch batch = windowBatches.get();
+        if (batch == null) {
+            int maxWindow = window;
+            if (variableWindows != null)
+                for (int w : variableWindows)
+                    maxWindow = Math.max(maxWindow, w);
+
+            INDArray syn0 = this.syn0.get();
+            batch = new WindowBatch(windowsPerBatch, maxWindow * 2, (int) negative, syn0.columns(), syn0.dataType());
+            windowBatches.set(batch);
+        }
+
+        return batch;
+    }
+
+    /**
+     * This method adds single window to the batch: each context word becomes a row of the batch, paired with target
+     * word of the window. Negative samples are drawn when the first window is added, and are shared by the whole batch
+     *
+     * @param batch    batch of current thread
+     * @param target   index of target word
+     * @param contexts indices of context words
+     * @param cnt      number of context words
+     * @param nextRandom
+     * @param alpha    learning rate
+     */
+    protected void addWindow(WindowBatch batch, int target, int[] contexts, int cnt, AtomicLong nextRandom,
+                    double alpha) {
+        if (batch.numWindows == 0) {
+            INDArray table = this.table.get();
+            int numWords = vocabCache.numWords();
+            for (int e = 0; e < batch.numNegatives; e++) {
+                nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+                int idx = (int) Math.abs((nextRandom.get() >> 16) % table.length());
+                int sample = (int) table.getDouble(idx);
+                if (sample <= 0 || sample >= numWords)
+                    sample = (int) (nextRandom.get() % (numWords - 1)) + 1;
+
+                batch.negatives[e] = sample;
+            }
+
+            batch.alpha = alpha;
+        }
+
+        System.arraycopy(contexts, 0, batch.contexts, batch.numContexts, cnt);
+        Arrays.fill(batch.targets, batch.numContexts, batch.numContexts + cnt, target);
+
+        batch.numContexts += cnt;
+        batch.numWindows++;
+    }
+
+    /**
+     * This method does negative sampling update for all windows of the batch at once, and resets the batch
+     *
+     * @param batch batch of current thread
+     */
+    protected void learnBatch(WindowBatch batch) {
+        INDArray syn0 = this.syn0.get();
+        INDArray syn1Neg = this.syn1Neg.get();
+
+        int rows = batch.numContexts;
+        int negatives = batch.numNegatives;
+
+        // exact size views of per-thread buffers. outputs are target word per context, followed by negative samples
+        INDArray contextIndices = batch.contextIndices.get(NDArrayIndex.interval(0, rows));
+        INDArray outputIndices = batch.outputIndices.get(NDArrayIndex.interval(0, rows + negatives));
+        INDArray in = batch.in.get(NDArrayIndex.interval(0, rows), NDArrayIndex.all());
+        INDArray out = batch.out.get(NDArrayIndex.interval(0, rows + negatives), NDArrayIndex.all());
+        INDArray targets = batch.out.get(NDArrayIndex.interval(0, rows), NDArrayIndex.all());
+        INDArray negativeRows = batch.out.get(NDArrayIndex.interval(rows, rows + negatives), NDArrayIndex.all());
+        INDArray gTarget = batch.gTarget.get(NDArrayIndex.interval(0, rows));
+        INDArray gNegative = batch.gNegative.get(NDArrayIndex.interval(0, rows), NDArrayIndex.all());
+        INDArray deltaIn = batch.deltaIn.get(NDArrayIndex.interval(0, rows), NDArrayIndex.all());
+        INDArray deltaOut = batch.deltaOut.get(NDArrayIndex.interval(0, rows + negatives), NDArrayIndex.all());
+        INDArray deltaTargets = batch.deltaOut.get(NDArrayIndex.interval(0, rows), NDArrayIndex.all());
+        INDArray deltaNegatives = batch.deltaOut.get(NDArrayIndex.interval(rows, rows + negatives), NDArrayIndex.all());
+
+        int[] outputs = batch.prepare();
+        Nd4j.pullRows(syn0, in, 1, Arrays.copyOf(batch.contexts, rows));
+        Nd4j.pullRows(syn1Neg, out, 1, outputs);
+
+        // g = (1 - sigmoid(in . target)) * alpha, one value per context, since each context has its own target
+        in.mul(targets, deltaIn).sum(gTarget, 1);
+        Transforms.sigmoid(gTarget, false).rsubi(1.0).muli(batch.alpha);
+        INDArray gTargetColumn = gTarget.reshape(rows, 1);
+
+        // g = (0 - sigmoid(in * negatives^T)) * alpha, negative sample equal to the target of context is skipped
+        gemm(in, negativeRows, gNegative, false, true);
+        Transforms.sigmoid(gNegative, false).muli(-batch.alpha);
+        for (int r = 0; r < rows; r++)
+            for (int e = 0; e < negatives; e++)
+                if (batch.negatives[e] == batch.targets[r])
+                    gNegative.putScalar(r, e, 0.0);
+
+        gemm(gNegative, in, deltaNegatives, true, false);
+        deltaTargets.assign(in).muliColumnVector(gTargetColumn);
+
+        gemm(gNegative, negativeRows, deltaIn, false, false);
+        deltaIn.addi(targets.muliColumnVector(gTargetColumn));
+
+        // duplicate indices are accumulated
+        Nd4j.getExecutioner().exec(new ScatterAdd(syn0, contextIndices, deltaIn));
+        Nd4j.getExecutioner().exec(new ScatterAdd(syn1Neg, outputIndices, deltaOut));
+
+        batch.reset();
+    }
+
+    /**
+     * c = op(a) * op(b), where c is a view of 'c' ordered buffer. Its transpose has default 'f' strides, so result is
+     * computed as c^T = op(b)^T * op(a)^T right into the view
+     */
+    protected static void gemm(INDArray a, INDArray b, INDArray c, boolean transposeA, boolean transposeB) {
+        Nd4j.gemm(b, a, c.transpose(), !transposeB, !transposeA, 1.0, 0.0);
+    }
+
+    /**
+     * Reusable per-thread buffers for a batch of windows. Buffers are allocated for the largest possible batch,
+     * and only views of actual batch size are used.
+     */
+    protected static class WindowBatch {
+        protected final int maxWindows;
+        protected final int maxContexts;
+        protected final int numNegatives;
+
+        // context word of each row, and target word of its window
+        protected final int[] contexts;
+        protected final int[] targets;
+        protected final int[] negatives;
+        protected double alpha;
+
+        protected final INDArray contextIndices;
+        protected final INDArray outputIndices;
+        protected final INDArray in;
+        protected final INDArray out;
+        protected final INDArray gTarget;
+        protected final INDArray gNegative;
+        protected final INDArray deltaIn;
+        protected final INDArray deltaOut;
+
+        protected int numWindows;
+        protected int numContexts;
+
+        protected WindowBatch(int maxWindows, int maxWindowContexts, int numNegatives, long vectorLength,
+                        DataType dataType) {
+            this.maxWindows = maxWindows;
+            this.maxContexts = maxWindows * maxWindowContexts;
+            this.numNegatives = numNegatives;
+            int maxOutputs = maxContexts + numNegatives;
+
+            contexts = new int[maxContexts];
+            targets = new int[maxContexts];
+            negatives = new int[numNegatives];
+
+            contextIndices = Nd4j.create(DataType.INT, maxContexts);
+            outputIndices = Nd4j.create(DataType.INT, maxOutputs);
+            in = Nd4j.createUninitialized(dataType, new long[] {maxContexts, vectorLength}, 'c');
+            out = Nd4j.createUninitialized(dataType, new long[] {maxOutputs, vectorLength}, 'c');
+            gTarget = Nd4j.createUninitialized(dataType, new long[] {maxContexts}, 'c');
+            gNegative = Nd4j.createUninitialized(dataType, new long[] {maxContexts, numNegatives}, 'c');
+            deltaIn = Nd4j.createUninitialized(dataType, new long[] {maxContexts, vectorLength}, 'c');
+            deltaOut = Nd4j.createUninitialized(dataType, new long[] {maxOutputs, vectorLength}, 'c');
+        }
+
+        /**
+         * This method copies indices of used rows to index arrays
+         *
+         * @return indices of output rows: target word per context, followed by negative samples
+         */
+        protected int[] prepare() {
+            int[] outputs = new int[numContexts + numNegatives];
+            System.arraycopy(targets, 0, outputs, 0, numContexts);
+            System.arraycopy(negatives, 0, outputs, numContexts, numNegatives);
+
+            for (int e = 0; e < numContexts; e++)
+                contextIndices.putScalar(e, contexts[e]);
+
+            for (int e = 0; e < outputs.length; e++)
+                outputIndices.putScalar(e, outputs[e]);
+
+            return outputs;
+        }
+
+        protected void reset() {
+            numWindows = 0;
+            numContexts = 0;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.deeplearning4j.models.sequencevectors.SequenceVectors;
 import org.deeplearning4j.models.sequencevectors.interfaces.SequenceElementFactory;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.sequencevectors.serialization.VocabWordFactory;
+import org.deeplearning4j.models.word2vec.MappedWord2Vec;
 import org.deeplearning4j.models.word2vec.StaticWord2Vec;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.Word2Vec;
@@ -2609,6 +2610,78 @@ public class WordVectorSerializer {
         return word2Vec;
     }
 
+    /**
+     * This method saves word vectors into memory-mappable format, suitable for loadMappedModel()
+     *
+     * @param vectors word vectors to be saved
+     * @param file destination file
+     * @throws IOException
+     */
+    public static void writeMappedModel(@NonNull WordVectors vectors, @NonNull File file) throws IOException {
+        VocabCache<? extends SequenceElement> vocab = vectors.vocab();
+        int numWords = vocab.numWords();
+        if (numWords == 0)
+            throw new ND4JIllegalStateException("Can't save empty model");
+
+        int layerSize = (int) vectors.getWordVectorMatrix(vocab.wordAtIndex(0)).length();
+
+        try (MappedWord2Vec.Writer writer = new MappedWord2Vec.Writer(file, layerSize)) {
+            for (int e = 0; e < numWords; e++) {
+                String word = vocab.wordAtIndex(e);
+                writer.addWord(word, vectors.getWordVectorMatrix(word).toFloatVector());
+            }
+        }
+    }
+
+    /**
+     * This method converts binary (Google-like) or CSV word2vec model into memory-mappable format, one word at a time,
+     * so source model is never loaded into memory as whole.
+     *
+     * @param source source model file
+     * @param binary TRUE if source model is binary, FALSE if it's CSV
+     * @param target destination file
+     * @throws IOException
+     */
+    public static void convertToMappedModel(@NonNull File source, boolean binary, @NonNull File target) throws IOException {
+        if (!source.exists() || source.isDirectory())
+            throw new FileNotFoundException("File [" + source.getAbsolutePath() + "] was not found");
+
+        MappedWord2Vec.Writer writer = null;
+        try (Reader reader = binary ? new BinaryReader(source) : new CSVReader(source)) {
+            while (reader.hasNext()) {
+                Pair<VocabWord, float[]> pair = reader.next();
+                if (writer == null)
+                    writer = new MappedWord2Vec.Writer(target, pair.getSecond().length);
+
+                writer.addWord(pair.getFirst().getLabel(), pair.getSecond());
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (writer != null)
+                writer.close();
+        }
+
+        if (writer == null)
+            throw new ND4JIllegalStateException("Source model [" + source.getAbsolutePath() + "] has no words");
+    }
+
+    /**
+     * This method loads word vectors saved with writeMappedModel() or convertToMappedModel().
+     * Vectors aren't read into memory, but mapped from the file, so loading takes constant time.
+     *
+     * PLEASE NOTE: Returned model provides lookup and similarity methods only: vocab() and lookupTable() aren't available.
+     *
+     * @param file memory-mappable model file
+     * @return
+     * @throws IOException
+     */
+    public static MappedWord2Vec loadMappedModel(@NonNull File file) throws IOException {
+        return MappedWord2Vec.load(file);
+    }
+
 
     protected interface Reader extends AutoCloseable {
         boolean hasNext();
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.clustering.hnsw.HnswIndex;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This is HNSW-based implementation for wordsNearest methods, suited for large vocabularies and multiple consequent calls.
+ * Instead of brute-force comparison against every word, approximate nearest neighbours graph is used,
+ * so query cost grows roughly logarithmically with vocabulary size.
+ *
+ * Index is built upon first call to wordsNearest, or can be restored from file with loadIndex() method.
+ * Recall/speed tradeoff is controlled with ef parameter, see setEf()
+ *
+ * PLEASE NOTE: Index keeps its own copy of vectors, so memory use will be roughly doubled.
+ * PLEASE NOTE: Results are approximate. Use BasicModelUtils if exact results are required.
+ */
+@Slf4j
+public class HnswModelUtils<T extends SequenceElement> extends BasicModelUtils<T> {
+    protected final int m;
+    protected final int efConstruction;
+    protected volatile int ef;
+
+    protected volatile HnswIndex index;
+
+    public HnswModelUtils() {
+        this(HnswIndex.DEFAULT_M, HnswIndex.DEFAULT_EF_CONSTRUCTION, HnswIndex.DEFAULT_EF);
+    }
+
+    /**
+     * @param m max number of links per graph node. Larger values improve recall at cost of memory and build time.
+     * @param efConstruction size of candidates list used during index build
+     * @param ef size of candidates list used during search
+     */
+    public HnswModelUtils(int m, int efConstruction, int ef) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.ef = ef;
+    }
+
+    @Override
+    public void init(@NonNull WeightLookupTable<T> lookupTable) {
+        super.init(lookupTable);
+        synchronized (this) {
+            if (index != null)
+                index.close();
+
+            index = null;
+        }
+    }
+
+    /**
+     * This method sets size of candidates list used during search: larger values mean better recall and slower queries
+     *
+     * @param ef
+     */
+    public void setEf(int ef) {
+        this.ef = ef;
+        if (index != null)
+            index.setEf(ef);
+    }
+
+    protected synchronized void checkIndex() {
+        // build new index if it wasn't created before
+        if (index == null) {
+            int numWords = vocabCache.numWords();
+            int layerSize = lookupTable.layerSize();
+
+            log.info("Building HNSW index for {} words...", numWords);
+            long time = System.currentTimeMillis();
+
+            HnswIndex newIndex = new HnswIndex(layerSize, m, efConstruction, 119L);
+            newIndex.setEf(ef);
+
+            // ids within index are equal to vocab indices
+            for (int e = 0; e < numWords; e++) {
+                INDArray vector = lookupTable.vector(vocabCache.wordAtIndex(e));
+                newIndex.add(vector == null ? new float[layerSize] : vector.toFloatVector());
+            }
+
+            log.info("HNSW index built in {} ms", System.currentTimeMillis() - time);
+            index = newIndex;
+        }
+    }
+
+    /**
+     * This method saves HNSW index to file, so it doesn't have to be rebuilt next time
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void saveIndex(@NonNull File file) throws IOException {
+        checkIndex();
+        index.save(file);
+    }
+
+    /**
+     * This method restores HNSW index previously saved with saveIndex() for the same model
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void loadIndex(@NonNull File file) throws IOException {
+        HnswIndex restored = HnswIndex.load(file);
+        if (restored.getSize() != vocabCache.numWords() || restored.getDimensions() != lookupTable.layerSize())
+            throw new ND4JIllegalStateException("HNSW index doesn't match model: index has " + restored.getSize()
+                            + " vectors of length " + restored.getDimensions());
+
+        restored.setEf(ef);
+        synchronized (this) {
+            if (index != null)
+                index.close();
+
+            index = restored;
+        }
+    }
+
+    /**
+     * Words nearest to given vector, based on HNSW index
+     *
+     * @param words vector
+     * @param top number of words to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(@NonNull INDArray words, int top) {
+        checkIndex();
+
+        // a few extra points, to address UNK/STOP removal
+        return toLabels(index.search(words, top + 2), top);
+    }
+
+    /**
+     * This method returns nearest words for each row of given matrix. Queries are executed in parallel.
+     *
+     * @param queries 2D matrix, one query vector per row
+     * @param top number of words to return per query
+     * @return
+     */
+    public List<Collection<String>> wordsNearestBatch(@NonNull INDArray queries, int top) {
+        checkIndex();
+
+        int[][] ids = index.searchBatch(queries, top + 2);
+        List<Collection<String>> result = new ArrayList<>(ids.length);
+        for (int[] row : ids)
+            result.add(toLabels(row, top));
+
+        return result;
+    }
+
+    protected Collection<String> toLabels(int[] ids, int top) {
+        List<String> result = new ArrayList<>(top);
+        for (int id : ids) {
+            String word = vocabCache.wordAtIndex(id);
+            if (word != null && !word.equals("UNK") && !word.equals("STOP"))
+                result.add(word);
+
+            if (result.size() >= top)
+                break;
+        }
+
+        return result;
+    }
+}
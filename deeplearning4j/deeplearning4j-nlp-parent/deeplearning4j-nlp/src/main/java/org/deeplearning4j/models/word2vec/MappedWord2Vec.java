@@ -0,0 +1,747 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.word2vec;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.util.MappedModelSerializer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This is special limited Word2Vec implementation, that serves vectors straight from memory-mapped file.
+ *
+ * Neither vocabulary nor vectors are materialized in heap: vectors matrix is mapped into DataBuffer as is,
+ * and words are looked up via binary search over sorted index stored in the same file.
+ * So model loading takes constant time, and processes using the same file on one host share physical memory.
+ * Mapping is private (copy-on-write), so file can be read-only, and in-place changes to vectors never reach the file.
+ * Mappings are held until {@link #close()} is called.
+ *
+ * File layout:
+ * 1) float32 vectors matrix, numWords x layerSize, native byte order, at offset 0
+ * 2) float32 L2 norms of vectors
+ * 3) int64 offsets of words within strings block, numWords + 1 values
+ * 4) int32 indices of words, sorted by their UTF-8 bytes
+ * 5) UTF-8 bytes of words
+ * 6) metadata block and trailer
+ *
+ * Use WordVectorSerializer.writeMappedModel() or WordVectorSerializer.convertToMappedModel() to create such file,
+ * and WordVectorSerializer.loadMappedModel() to load it.
+ *
+ * PLEASE NOTE: This implementation DOES NOT provide vocab(), lookupTable(), accuracy() and similarWordsInVocabTo() methods.
+ * PLEASE NOTE: Memory-mapped models are supported on CPU backend only. Vectors larger than 2GB can't be mapped
+ * by JVM, so they are read into memory instead.
+ */
+@Slf4j
+public class MappedWord2Vec implements WordVectors, Closeable {
+    public static final byte[] MAGIC = "DL4JW2VM".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+
+    protected static final int TRAILER_LENGTH = 8 + 8;
+    protected static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    @Getter
+    private long numWords;
+    @Getter
+    private int layerSize;
+    private String unk = null;
+
+    private INDArray syn0;
+    private INDArray norms;
+
+    private LongBuffer offsets;
+    private IntBuffer sorted;
+    private ByteBuffer strings;
+
+    // all mappings backing this model, released in close()
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+
+    private MappedWord2Vec() {
+
+    }
+
+    /**
+     * This method loads previously saved model from file
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static MappedWord2Vec load(@NonNull File file) throws IOException {
+        if (Nd4j.getExecutioner().type() != OpExecutioner.ExecutionerType.NATIVE_CPU)
+            throw new UnsupportedOperationException("Memory-mapped models are supported on CPU backend only");
+
+        MappedWord2Vec w2v = new MappedWord2Vec();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (raf.length() < TRAILER_LENGTH)
+                throw new ND4JIllegalStateException("File [" + file.getAbsolutePath() + "] isn't memory-mappable word vectors model");
+
+            raf.seek(raf.length() - TRAILER_LENGTH);
+            long metaOffset = raf.readLong();
+            byte[] magic = new byte[MAGIC.length];
+            raf.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic))
+                throw new ND4JIllegalStateException("File [" + file.getAbsolutePath() + "] isn't memory-mappable word vectors model");
+
+            raf.seek(metaOffset);
+            int version = raf.readInt();
+            if (version != VERSION)
+                throw new ND4JIllegalStateException("Unsupported model file version: " + version);
+
+            w2v.numWords = raf.readLong();
+            w2v.layerSize = raf.readInt();
+            boolean littleEndian = raf.readBoolean();
+            long normsOffset = raf.readLong();
+            long offsetsOffset = raf.readLong();
+            long sortedOffset = raf.readLong();
+            long stringsOffset = raf.readLong();
+
+            if (littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN))
+                throw new ND4JIllegalStateException("Model file was saved on platform with different byte order");
+
+            try {
+                // mappings stay valid after channel is closed
+                w2v.offsets = w2v.map(channel, offsetsOffset, (w2v.numWords + 1) * 8).asLongBuffer();
+                w2v.sorted = w2v.map(channel, sortedOffset, w2v.numWords * 4).asIntBuffer();
+                w2v.strings = w2v.map(channel, stringsOffset, metaOffset - stringsOffset);
+
+                if (w2v.numWords > 0)
+                    w2v.loadVectors(file, channel, normsOffset);
+            } catch (IOException | RuntimeException e) {
+                w2v.close();
+                throw e;
+            }
+        }
+
+        return w2v;
+    }
+
+    /**
+     * This method maps vectors and norms into DataBuffers, or reads them into memory if they can't be mapped
+     */
+    private void loadVectors(File file, FileChannel channel, long normsOffset) throws IOException {
+        long length = numWords * layerSize;
+        long mappedBytes = normsOffset + numWords * 4;
+
+        if (mappedBytes <= Integer.MAX_VALUE) {
+            long address = new BytePointer(map(channel, 0, mappedBytes)).address();
+
+            DataBuffer buffer = Nd4j.createBuffer(new PagedPointer(address).withOffset(0, length), length, DataType.FLOAT);
+            syn0 = Nd4j.create(buffer, new long[] {numWords, layerSize});
+
+            DataBuffer normsBuffer = Nd4j.createBuffer(new PagedPointer(address).withOffset(normsOffset, numWords), numWords, DataType.FLOAT);
+            norms = Nd4j.create(normsBuffer, new long[] {numWords, 1});
+        } else {
+            log.warn("Vectors of model [{}] are larger than 2GB, reading them into memory instead of mapping",
+                            file.getAbsolutePath());
+
+            syn0 = Nd4j.createUninitialized(DataType.FLOAT, new long[] {numWords, layerSize}, 'c');
+            read(file, channel, 0, syn0);
+
+            norms = Nd4j.createUninitialized(DataType.FLOAT, new long[] {numWords, 1}, 'c');
+            read(file, channel, normsOffset, norms);
+        }
+    }
+
+    private MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, position, size);
+        buffer.order(ByteOrder.nativeOrder());
+        mappings.add(buffer);
+        return buffer;
+    }
+
+    private static void read(File file, FileChannel channel, long offset, INDArray target) throws IOException {
+        long bytes = target.length() * 4;
+        PagedPointer pointer = new PagedPointer(target.data().address());
+        for (long position = 0; position < bytes; position += CHUNK_SIZE) {
+            long length = Math.min(CHUNK_SIZE, bytes - position);
+            ByteBuffer chunk = new BytePointer(pointer.withOffset(position, length)).asByteBuffer();
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, offset + position + chunk.position()) < 0)
+                    throw new EOFException("Unexpected end of file [" + file.getAbsolutePath() + "]");
+            }
+        }
+    }
+
+    /**
+     * This method unmaps model file. Model (and any views of its vectors) can't be used after this call.
+     */
+    @Override
+    public synchronized void close() {
+        syn0 = null;
+        norms = null;
+        offsets = null;
+        sorted = null;
+        strings = null;
+
+        for (MappedByteBuffer mapping : mappings)
+            MappedModelSerializer.unmap(mapping);
+
+        mappings.clear();
+    }
+
+    @Override
+    public String getUNK() {
+        return unk;
+    }
+
+    @Override
+    public void setUNK(String newUNK) {
+        this.unk = newUNK;
+    }
+
+    /**
+     * Returns true if the model has this word in the vocab
+     *
+     * @param word the word to test for
+     * @return true if the model has the word in the vocab
+     */
+    @Override
+    public boolean hasWord(String word) {
+        return indexOf(word) >= 0;
+    }
+
+    /**
+     * This method returns index of the word, or -1 if word doesn't exist in this model
+     *
+     * @param word
+     * @return
+     */
+    @Override
+    public int indexOf(String word) {
+        if (word == null)
+            return -1;
+
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+
+        int low = 0;
+        int high = (int) numWords - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int idx = sorted.get(mid);
+            int cmp = compareWord(idx, key);
+
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return idx;
+        }
+
+        return -1;
+    }
+
+    /**
+     * This method returns word stored at given index
+     *
+     * @param index
+     * @return
+     */
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= numWords)
+            return null;
+
+        long start = offsets.get(index);
+        int length = (int) (offsets.get(index + 1) - start);
+        byte[] bytes = new byte[length];
+        for (int e = 0; e < length; e++)
+            bytes[e] = strings.get((int) start + e);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Unsigned lexicographical comparison of stored word and key, same order as used by writer
+     */
+    private int compareWord(int index, byte[] key) {
+        int start = (int) offsets.get(index);
+        int length = (int) (offsets.get(index + 1) - start);
+
+        int limit = Math.min(length, key.length);
+        for (int e = 0; e < limit; e++) {
+            int a = strings.get(start + e) & 0xFF;
+            int b = key[e] & 0xFF;
+            if (a != b)
+                return a - b;
+        }
+
+        return length - key.length;
+    }
+
+    protected static int compareBytes(byte[] a, byte[] b) {
+        int limit = Math.min(a.length, b.length);
+        for (int e = 0; e < limit; e++) {
+            int x = a[e] & 0xFF;
+            int y = b[e] & 0xFF;
+            if (x != y)
+                return x - y;
+        }
+
+        return a.length - b.length;
+    }
+
+    private int indexOrUnk(String word) {
+        int idx = indexOf(word);
+        if (idx < 0 && getUNK() != null)
+            idx = indexOf(getUNK());
+
+        return idx;
+    }
+
+    /**
+     * Get the word vector for a given matrix
+     *
+     * @param word the word to get the matrix for
+     * @return the ndarray for this word
+     */
+    @Override
+    public INDArray getWordVectorMatrix(String word) {
+        int idx = indexOrUnk(word);
+        if (idx < 0)
+            return null;
+
+        // we return copy here, so vector stays valid after model is closed
+        return syn0.getRow(idx).dup();
+    }
+
+    @Override
+    public double[] getWordVector(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : vector.toDoubleVector();
+    }
+
+    @Override
+    public INDArray getWordVectorMatrixNormalized(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : Transforms.unitVec(vector);
+    }
+
+    /**
+     * This method returns 2D array, where each row represents corresponding word/label
+     *
+     * @param labels
+     * @return
+     */
+    @Override
+    public INDArray getWordVectors(@NonNull Collection<String> labels) {
+        int[] indices = indicesOf(labels);
+        if (indices.length == 0)
+            return Nd4j.empty(DataType.FLOAT);
+
+        return Nd4j.pullRows(syn0, 1, indices);
+    }
+
+    /**
+     * This method returns mean vector, built from words/labels passed in
+     *
+     * @param labels
+     * @return
+     */
+    @Override
+    public INDArray getWordVectorsMean(Collection<String> labels) {
+        return getWordVectors(labels).mean(0);
+    }
+
+    private int[] indicesOf(Collection<String> labels) {
+        int[] indices = new int[labels.size()];
+        int cnt = 0;
+        for (String label : labels) {
+            int idx = indexOrUnk(label);
+            if (idx >= 0)
+                indices[cnt++] = idx;
+        }
+
+        return Arrays.copyOf(indices, cnt);
+    }
+
+    /**
+     * Returns the similarity of 2 words
+     *
+     * @param label1 the first word
+     * @param label2 the second word
+     * @return a normalized similarity (cosine similarity)
+     */
+    @Override
+    public double similarity(String label1, String label2) {
+        if (label1 == null || label2 == null)
+            return Double.NaN;
+
+        int idx1 = indexOf(label1);
+        int idx2 = indexOf(label2);
+        if (idx1 < 0 || idx2 < 0) {
+            log.debug("Unknown token requested: [{}] / [{}]", label1, label2);
+            return Double.NaN;
+        }
+
+        if (idx1 == idx2)
+            return 1.0;
+
+        return Transforms.cosineSim(syn0.getRow(idx1), syn0.getRow(idx2));
+    }
+
+    /**
+     * Words nearest to given vector, by cosine similarity. Computed as single matrix-vector product over mapped vectors.
+     *
+     * @param words vector to compare with
+     * @param top number of words to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(@NonNull INDArray words, int top) {
+        INDArray query = words.castTo(DataType.FLOAT).reshape(layerSize, 1);
+        double norm = query.norm2Number().doubleValue();
+
+        INDArray similarity = syn0.mmul(query).divi(norms);
+        if (norm > 0)
+            similarity.divi(norm);
+
+        return topWords(similarity, top, Collections.<Integer>emptySet());
+    }
+
+    /**
+     * Words nearest to given vector, by dot product
+     *
+     * @param words vector to compare with
+     * @param top number of words to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearestSum(@NonNull INDArray words, int top) {
+        INDArray query = words.castTo(DataType.FLOAT).reshape(layerSize, 1);
+        return topWords(syn0.mmul(query), top, Collections.<Integer>emptySet());
+    }
+
+    @Override
+    public Collection<String> wordsNearestSum(String word, int n) {
+        int idx = indexOf(word);
+        if (idx < 0)
+            return Collections.emptyList();
+
+        return topWords(syn0.mmul(syn0.getRow(idx).reshape(layerSize, 1)), n, Collections.singleton(idx));
+    }
+
+    @Override
+    public Collection<String> wordsNearestSum(Collection<String> positive, Collection<String> negative, int top) {
+        INDArray query = Nd4j.create(DataType.FLOAT, layerSize, 1);
+        Set<Integer> exclude = new HashSet<>();
+        for (String s : positive) {
+            int idx = indexOf(s);
+            if (idx >= 0) {
+                query.addi(syn0.getRow(idx).reshape(layerSize, 1));
+                exclude.add(idx);
+            }
+        }
+
+        for (String s : negative) {
+            int idx = indexOf(s);
+            if (idx >= 0) {
+                query.subi(syn0.getRow(idx).reshape(layerSize, 1));
+                exclude.add(idx);
+            }
+        }
+
+        return topWords(syn0.mmul(query), top, exclude);
+    }
+
+    /**
+     * Words nearest based on positive and negative words
+     *
+     * @param positive the positive words
+     * @param negative the negative words
+     * @param top      the top n words
+     * @return the words nearest the mean of the words
+     */
+    @Override
+    public Collection<String> wordsNearest(@NonNull Collection<String> positive, @NonNull Collection<String> negative, int top) {
+        INDArray query = Nd4j.create(DataType.FLOAT, layerSize, 1);
+        Set<Integer> exclude = new HashSet<>();
+        for (String s : positive) {
+            int idx = indexOf(s);
+            if (idx >= 0) {
+                query.addi(syn0.getRow(idx).reshape(layerSize, 1).div(norms.getDouble(idx)));
+                exclude.add(idx);
+            }
+        }
+
+        for (String s : negative) {
+            int idx = indexOf(s);
+            if (idx >= 0) {
+                query.subi(syn0.getRow(idx).reshape(layerSize, 1).div(norms.getDouble(idx)));
+                exclude.add(idx);
+            }
+        }
+
+        if (exclude.isEmpty())
+            return Collections.emptyList();
+
+        INDArray similarity = syn0.mmul(query).divi(norms);
+        return topWords(similarity, top, exclude);
+    }
+
+    /**
+     * Get the top n words most similar to the given word
+     *
+     * @param word the word to compare
+     * @param n    the n to get
+     * @return the top n words
+     */
+    @Override
+    public Collection<String> wordsNearest(String word, int n) {
+        return wordsNearest(Collections.singletonList(word), Collections.<String>emptyList(), n);
+    }
+
+    /**
+     * This method picks top N indices from similarity column, and returns corresponding words, most similar first
+     */
+    protected List<String> topWords(INDArray similarity, int top, Set<Integer> exclude) {
+        final float[] values = similarity.toFloatVector();
+
+        PriorityQueue<Integer> queue = new PriorityQueue<>(top + 1, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Float.compare(values[o1], values[o2]);
+            }
+        });
+
+        for (int e = 0; e < values.length; e++) {
+            if (Float.isNaN(values[e]) || exclude.contains(e))
+                continue;
+
+            if (queue.size() < top) {
+                queue.add(e);
+            } else if (top > 0 && values[e] > values[queue.peek()]) {
+                queue.poll();
+                queue.add(e);
+            }
+        }
+
+        LinkedList<String> result = new LinkedList<>();
+        while (!queue.isEmpty())
+            result.addFirst(wordAtIndex(queue.poll()));
+
+        return result;
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Map<String, Double> accuracy(List<String> questions) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public List<String> similarWordsInVocabTo(String word, double accuracy) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Vocab for the vectors
+     * PLEASE NOTE: This method is not available in this implementation, since vocabulary isn't materialized.
+     * Use indexOf() and wordAtIndex() instead.
+     *
+     * @return
+     */
+    @Override
+    public VocabCache vocab() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use indexOf() and wordAtIndex() instead");
+    }
+
+    /**
+     * Lookup table for the vectors
+     * PLEASE NOTE: This method is not available in this implementation.
+     *
+     * @return
+     */
+    @Override
+    public WeightLookupTable lookupTable() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Specifies ModelUtils to be used to access model
+     * PLEASE NOTE: This method has no effect in this implementation.
+     *
+     * @param utils
+     */
+    @Override
+    public void setModelUtils(ModelUtils utils) {
+        // no-op
+    }
+
+
+    /**
+     * This class writes word vectors into memory-mappable format, one word at a time,
+     * so source model doesn't have to be materialized in memory.
+     */
+    public static class Writer implements Closeable {
+        private final FileOutputStream fos;
+        private final FileChannel channel;
+        private final int layerSize;
+        private final ByteBuffer row;
+
+        private final List<byte[]> words = new ArrayList<>();
+        private float[] norms = new float[1024];
+
+        public Writer(@NonNull File file, int layerSize) throws IOException {
+            if (layerSize < 1)
+                throw new ND4JIllegalStateException("Layer size should be positive value");
+
+            this.fos = new FileOutputStream(file);
+            this.channel = fos.getChannel();
+            this.layerSize = layerSize;
+            this.row = ByteBuffer.allocateDirect(layerSize * 4).order(ByteOrder.nativeOrder());
+        }
+
+        /**
+         * This method appends word and its vector to the file. Words get indices in order of addition.
+         *
+         * @param word
+         * @param vector
+         * @throws IOException
+         */
+        public void addWord(@NonNull String word, @NonNull float[] vector) throws IOException {
+            if (vector.length != layerSize)
+                throw new ND4JIllegalStateException("Vector length [" + vector.length + "] doesn't match layer size [" + layerSize + "]");
+
+            double norm = 0.0;
+            row.clear();
+            for (float v : vector) {
+                row.putFloat(v);
+                norm += v * v;
+            }
+            row.flip();
+
+            while (row.hasRemaining())
+                channel.write(row);
+
+            if (words.size() == norms.length)
+                norms = Arrays.copyOf(norms, norms.length * 2);
+
+            // zero vectors get unit norm, so similarity is just 0 for them
+            norms[words.size()] = norm > 0 ? (float) Math.sqrt(norm) : 1.0f;
+            words.add(word.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                final int numWords = words.size();
+
+                long normsOffset = align(channel.position());
+                channel.position(normsOffset);
+                ByteBuffer buffer = ByteBuffer.allocate(numWords * 4).order(ByteOrder.nativeOrder());
+                for (int e = 0; e < numWords; e++)
+                    buffer.putFloat(norms[e]);
+                write(buffer);
+
+                long offsetsOffset = align(channel.position());
+                channel.position(offsetsOffset);
+                buffer = ByteBuffer.allocate((numWords + 1) * 8).order(ByteOrder.nativeOrder());
+                long offset = 0;
+                for (byte[] word : words) {
+                    buffer.putLong(offset);
+                    offset += word.length;
+                }
+                buffer.putLong(offset);
+                write(buffer);
+
+                Integer[] order = new Integer[numWords];
+                for (int e = 0; e < numWords; e++)
+                    order[e] = e;
+
+                Arrays.sort(order, new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer o1, Integer o2) {
+                        return compareBytes(words.get(o1), words.get(o2));
+                    }
+                });
+
+                long sortedOffset = align(channel.position());
+                channel.position(sortedOffset);
+                buffer = ByteBuffer.allocate(numWords * 4).order(ByteOrder.nativeOrder());
+                for (int e = 0; e < numWords; e++) {
+                    if (e > 0 && compareBytes(words.get(order[e - 1]), words.get(order[e])) == 0)
+                        throw new ND4JIllegalStateException("Duplicate word: [" + new String(words.get(order[e]), StandardCharsets.UTF_8) + "]");
+
+                    buffer.putInt(order[e]);
+                }
+                write(buffer);
+
+                long stringsOffset = channel.position();
+                for (byte[] word : words)
+                    write(ByteBuffer.wrap(word));
+
+                long metaOffset = channel.position();
+                DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos));
+                dos.writeInt(VERSION);
+                dos.writeLong(numWords);
+                dos.writeInt(layerSize);
+                dos.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+                dos.writeLong(normsOffset);
+                dos.writeLong(offsetsOffset);
+                dos.writeLong(sortedOffset);
+                dos.writeLong(stringsOffset);
+
+                dos.writeLong(metaOffset);
+                dos.write(MAGIC);
+                dos.flush();
+            } finally {
+                channel.close();
+                fos.close();
+            }
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            if (buffer.position() > 0)
+                buffer.flip();
+
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+
+        private static long align(long position) {
+            return position + (8 - position % 8) % 8;
+        }
+    }
+}
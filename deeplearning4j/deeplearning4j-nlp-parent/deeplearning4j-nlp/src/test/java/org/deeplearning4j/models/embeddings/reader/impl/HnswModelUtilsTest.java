@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HnswModelUtilsTest {
+    private static final int NUM_WORDS = 500;
+    private static final int LAYER_SIZE = 16;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private InMemoryLookupTable<VocabWord> lookupTable;
+
+    @Before
+    public void setUp() {
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        for (int e = 0; e < NUM_WORDS; e++) {
+            VocabWord word = new VocabWord(1.0, "word_" + e);
+            word.setIndex(e);
+            cache.addToken(word);
+            cache.addWordToIndex(e, word.getLabel());
+        }
+
+        lookupTable = new InMemoryLookupTable.Builder<VocabWord>().vectorLength(LAYER_SIZE).cache(cache)
+                        .seed(119).build();
+        lookupTable.resetWeights(true);
+    }
+
+    @Test
+    public void testWordsNearestRecall() {
+        HnswModelUtils<VocabWord> hnsw = new HnswModelUtils<>();
+        hnsw.init(lookupTable);
+
+        // copies, since BasicModelUtils normalizes syn0 in place
+        List<INDArray> queries = new ArrayList<>();
+        for (int e = 0; e < 20; e++)
+            queries.add(lookupTable.vector("word_" + (e * 7)).dup());
+
+        List<Collection<String>> approximate = new ArrayList<>();
+        for (INDArray query : queries)
+            approximate.add(hnsw.wordsNearest(query, 10));
+
+        BasicModelUtils<VocabWord> basic = new BasicModelUtils<>();
+        basic.init(lookupTable);
+
+        int found = 0;
+        for (int e = 0; e < queries.size(); e++) {
+            Collection<String> exact = basic.wordsNearest(queries.get(e), 10);
+            assertEquals(10, approximate.get(e).size());
+            assertTrue(approximate.get(e).contains("word_" + (e * 7)));
+
+            for (String word : approximate.get(e))
+                if (exact.contains(word))
+                    found++;
+        }
+
+        double recall = found / (double) (queries.size() * 10);
+        assertTrue("Recall was " + recall, recall >= 0.9);
+
+        hnsw.index.close();
+    }
+
+    @Test
+    public void testWordsNearestBatch() {
+        HnswModelUtils<VocabWord> hnsw = new HnswModelUtils<>();
+        hnsw.init(lookupTable);
+
+        INDArray queries = Nd4j.create(8, LAYER_SIZE);
+        for (int e = 0; e < 8; e++)
+            queries.putRow(e, lookupTable.vector("word_" + (e * 11)));
+
+        List<Collection<String>> batch = hnsw.wordsNearestBatch(queries, 5);
+        assertEquals(8, batch.size());
+        for (int e = 0; e < 8; e++)
+            assertEquals(new ArrayList<>(hnsw.wordsNearest(queries.getRow(e), 5)), new ArrayList<>(batch.get(e)));
+
+        // pool is released on close, and created again if index is used after that
+        hnsw.index.close();
+        assertEquals(batch, hnsw.wordsNearestBatch(queries, 5));
+
+        hnsw.index.close();
+    }
+
+    @Test
+    public void testSaveLoadIndex() throws Exception {
+        File file = new File(testDir.newFolder(), "hnsw.bin");
+
+        HnswModelUtils<VocabWord> original = new HnswModelUtils<>();
+        original.init(lookupTable);
+
+        INDArray query = lookupTable.vector("word_42").dup();
+        Collection<String> expected = original.wordsNearest(query, 10);
+        original.saveIndex(file);
+
+        HnswModelUtils<VocabWord> restored = new HnswModelUtils<>();
+        restored.init(lookupTable);
+        restored.loadIndex(file);
+
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(restored.wordsNearest(query, 10)));
+
+        original.index.close();
+        restored.index.close();
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.word2vec;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class MappedWord2VecTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private WordVectors word2vec;
+    private MappedWord2Vec mapped;
+
+    @Before
+    public void setUp() throws Exception {
+        File source = new ClassPathResource("vec.bin").getFile();
+        word2vec = WordVectorSerializer.readWord2VecModel(source);
+
+        File target = testDir.newFile("vec.mmap");
+        WordVectorSerializer.convertToMappedModel(source, true, target);
+        mapped = WordVectorSerializer.loadMappedModel(target);
+    }
+
+    @Test
+    public void testLookups_1() {
+        assertEquals(word2vec.vocab().numWords(), mapped.getNumWords());
+
+        for (int e = 0; e < word2vec.vocab().numWords(); e++) {
+            String word = word2vec.vocab().wordAtIndex(e);
+            assertTrue(mapped.hasWord(word));
+            assertEquals(word, mapped.wordAtIndex(mapped.indexOf(word)));
+
+            INDArray exp = word2vec.getWordVectorMatrix(word);
+            INDArray array = mapped.getWordVectorMatrix(word);
+            assertArrayEquals(exp.toFloatVector(), array.toFloatVector(), 1e-5f);
+        }
+
+        assertFalse(mapped.hasWord("NonExistentWord"));
+        assertNull(mapped.getWordVectorMatrix("NonExistentWord"));
+        assertEquals(-1, mapped.indexOf("NonExistentWord"));
+    }
+
+    @Test
+    public void testSimilarity_1() {
+        assertEquals(word2vec.similarity("Adam", "is"), mapped.similarity("Adam", "is"), 1e-4);
+        assertEquals(1.0, mapped.similarity("Adam", "Adam"), 1e-5);
+        assertTrue(Double.isNaN(mapped.similarity("Adam", "NonExistentWord")));
+    }
+
+    @Test
+    public void testWordsNearest_1() {
+        val exp = word2vec.wordsNearest("Adam", 5);
+        val result = mapped.wordsNearest("Adam", 5);
+
+        log.info("Expected: {}; Mapped: {}", exp, result);
+        assertEquals(5, result.size());
+        assertEquals(exp.iterator().next(), result.iterator().next());
+        assertFalse(result.contains("Adam"));
+    }
+
+    @Test
+    public void testWordsNearest_2() {
+        val vector = mapped.getWordVectorMatrix("Adam");
+        val result = mapped.wordsNearest(vector, 1);
+
+        assertEquals(Collections.singletonList("Adam"), result);
+    }
+
+    @Test
+    public void testWriteMappedModel_1() throws Exception {
+        File target = testDir.newFile("vec2.mmap");
+        WordVectorSerializer.writeMappedModel(word2vec, target);
+
+        val restored = WordVectorSerializer.loadMappedModel(target);
+        assertEquals(mapped.getNumWords(), restored.getNumWords());
+        assertEquals(mapped.getLayerSize(), restored.getLayerSize());
+        assertEquals(mapped.getWordVectors(Arrays.asList("Adam", "is")), restored.getWordVectors(Arrays.asList("Adam", "is")));
+    }
+
+    @Test
+    public void testReadOnlyFile_1() throws Exception {
+        File target = testDir.newFile("vec3.mmap");
+        WordVectorSerializer.writeMappedModel(word2vec, target);
+        assertTrue(target.setWritable(false));
+
+        INDArray exp = mapped.getWordVectorMatrix("Adam");
+        try (MappedWord2Vec restored = WordVectorSerializer.loadMappedModel(target)) {
+            assertEquals(exp, restored.getWordVectorMatrix("Adam"));
+        }
+
+        // loaded again after previous model was closed
+        try (MappedWord2Vec restored = WordVectorSerializer.loadMappedModel(target)) {
+            assertEquals(exp, restored.getWordVectorMatrix("Adam"));
+            assertEquals(mapped.wordsNearest("Adam", 3), restored.wordsNearest("Adam", 3));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.nn.api.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+
+/**
+ * Interface for layers that can produce row-sparse gradients for some of their parameters, i.e. embedding layers,
+ * where only rows of the weight matrix for indices present in the current minibatch receive non-zero gradients.<br>
+ * For such parameters the updater applies (lazy) updates only to the rows returned by {@link #getSparseGradientRows(String)}:
+ * updater state (Adam moments, AdaGrad history etc) and L1/L2 terms for all other rows are left untouched.
+ * <br>
+ * Contract: gradient view rows that are not returned by {@link #getSparseGradientRows(String)} must be zero.
+ */
+public interface SparseGradientLayer extends Layer {
+
+    /**
+     * @param paramName Name of the parameter
+     * @return True if gradient for the given parameter is row-sparse, and should be updated lazily
+     */
+    boolean isSparseGradient(String paramName);
+
+    /**
+     * This method returns sorted unique indices of the rows touched during the last backprop pass,
+     * for the given 2d parameter of shape [numRows, numColumns]
+     *
+     * @param paramName Name of the parameter
+     * @return Row indices, or null if they are not available (i.e. no backprop was done yet). In this case dense update will be used
+     */
+    int[] getSparseGradientRows(String paramName);
+}
@@ -50,10 +50,12 @@ import java.util.Map;
 @EqualsAndHashCode(callSuper = true)
 public class EmbeddingLayer extends FeedForwardLayer {
     private boolean hasBias = true; //Default for pre-0.9.2 implementations
+    private boolean sparseGradients = false;
 
     private EmbeddingLayer(Builder builder) {
         super(builder);
         this.hasBias = builder.hasBias;
+        this.sparseGradients = builder.sparseGradients;
         initializeConstraints(builder);
     }
 
@@ -103,6 +105,7 @@ public class EmbeddingLayer extends FeedForwardLayer {
     public static class Builder extends FeedForwardLayer.Builder<Builder> {
 
         private boolean hasBias = false;
+        private boolean sparseGradients = false;
 
         /**
          * If true: include bias parameters in the layer. False (default): no bias.
@@ -114,6 +117,21 @@ public class EmbeddingLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: gradients for the embedding weights are treated as row-sparse - only rows for indices present in the
+         * current minibatch are zeroed/updated, and updater state (Adam moments, AdaGrad history, etc) of all other rows
+         * is left untouched ("lazy" updates). This makes iteration cost proportional to the number of distinct indices
+         * in minibatch instead of vocabulary size.<br>
+         * PLEASE NOTE: for updaters with state this is not exactly equivalent to dense updates, as moment decay
+         * and L1/L2 regularization are applied only to the rows that are present in minibatch. Default: false.
+         *
+         * @param sparseGradients If true: use sparse gradients and lazy updates for embedding weights
+         */
+        public Builder sparseGradients(boolean sparseGradients) {
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public EmbeddingLayer build() {
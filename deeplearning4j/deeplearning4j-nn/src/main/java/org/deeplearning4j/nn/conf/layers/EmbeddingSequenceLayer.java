@@ -52,10 +52,12 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
     private int inputLength = 1; // By default only use one index to embed
     private boolean hasBias = false;
     private boolean inferInputLength = false; // use input length as provided by input data
+    private boolean sparseGradients = false;
 
     private EmbeddingSequenceLayer(Builder builder) {
         super(builder);
         this.hasBias = builder.hasBias;
+        this.sparseGradients = builder.sparseGradients;
         this.inputLength = builder.inputLength;
         this.inferInputLength = builder.inferInputLength;
         initializeConstraints(builder);
@@ -113,6 +115,7 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
     public static class Builder extends FeedForwardLayer.Builder<Builder> {
 
         private boolean hasBias = false;
+        private boolean sparseGradients = false;
         private int inputLength = 1;
         private boolean inferInputLength = true;
 
@@ -149,6 +152,21 @@ public class EmbeddingSequenceLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * If true: gradients for the embedding weights are treated as row-sparse - only rows for indices present in the
+         * current minibatch are zeroed/updated, and updater state (Adam moments, AdaGrad history, etc) of all other rows
+         * is left untouched ("lazy" updates). This makes iteration cost proportional to the number of distinct indices
+         * in minibatch instead of vocabulary size.<br>
+         * PLEASE NOTE: for updaters with state this is not exactly equivalent to dense updates, as moment decay
+         * and L1/L2 regularization are applied only to the rows that are present in minibatch. Default: false.
+         *
+         * @param sparseGradients If true: use sparse gradients and lazy updates for embedding weights
+         */
+        public Builder sparseGradients(boolean sparseGradients) {
+            this.sparseGradients = sparseGradients;
+            return this;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public EmbeddingSequenceLayer build() {
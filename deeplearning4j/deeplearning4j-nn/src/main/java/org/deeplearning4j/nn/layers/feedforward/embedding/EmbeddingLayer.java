@@ -21,6 +21,7 @@ import lombok.val;
 import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
 import org.nd4j.linalg.primitives.Pair;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
@@ -38,13 +39,16 @@ import org.deeplearning4j.nn.workspace.ArrayType;
  * with all but one value being zero).<br>
  * <b>Note</b>: can only be used as the first layer for a network<br>
  * <b>Note 2</b>: For a given example index i, the output is activationFunction(weights.getRow(i) + bias), hence the
- * weight rows can be considered a vector/embedding for each example.
+ * weight rows can be considered a vector/embedding for each example.<br>
+ * <b>Note 3</b>: if configured with sparse gradients, only rows for indices present in the minibatch are updated.
  * @author Alex Black
  */
 @Slf4j
-public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer> {
+public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingLayer> implements SparseGradientLayer {
     private static final int[] DIM_1 = new int[]{1};
 
+    private final SparseRowGradient sparseRows = new SparseRowGradient();
+
     public EmbeddingLayer(NeuralNetConfiguration conf) {
         super(conf);
     }
@@ -61,7 +65,12 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         }
 
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
+        boolean sparse = layerConf().isSparseGradients();
+        if (sparse) {
+            sparseRows.clear(weightGradients);
+        } else {
+            weightGradients.assign(0);
+        }
 
         // FIXME: int cast
         int[] indexes = new int[(int) input.length()];
@@ -69,6 +78,9 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
             indexes[i] = input.getInt(i, 0);
         }
 
+        if (sparse)
+            sparseRows.touched(indexes);
+
         ScatterUpdate op = new ScatterUpdate(weightGradients, delta, indexes, DIM_1, ScatterUpdate.UpdateOp.ADD);
         Nd4j.getExecutioner().exec(op);
 
@@ -133,6 +145,16 @@ public class EmbeddingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.
         return ret;
     }
 
+    @Override
+    public boolean isSparseGradient(String paramName) {
+        return layerConf().isSparseGradients() && DefaultParamInitializer.WEIGHT_KEY.equals(paramName);
+    }
+
+    @Override
+    public int[] getSparseGradientRows(String paramName) {
+        return isSparseGradient(paramName) ? sparseRows.getRows() : null;
+    }
+
     @Override
     public boolean hasBias() {
         return layerConf().hasBias();
@@ -19,6 +19,7 @@ package org.deeplearning4j.nn.layers.feedforward.embedding;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.deeplearning4j.exception.DL4JInvalidInputException;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
@@ -48,9 +49,12 @@ import static org.nd4j.linalg.api.shape.Shape.hasDefaultStridesForShape;
  * @author Max Pumperla
  */
 @Slf4j
-public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingSequenceLayer> {
+public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.EmbeddingSequenceLayer>
+                implements SparseGradientLayer {
     private static final int[] WEIGHT_DIM = new int[]{1};
 
+    private final SparseRowGradient sparseRows = new SparseRowGradient();
+
     public EmbeddingSequenceLayer(NeuralNetConfiguration conf) {
         super(conf);
     }
@@ -79,7 +83,12 @@ public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf
         delta = delta.reshape('c',inputLength * numSamples, nOut);
 
         INDArray weightGradients = gradientViews.get(DefaultParamInitializer.WEIGHT_KEY);
-        weightGradients.assign(0);
+        if (layerConf().isSparseGradients()) {
+            sparseRows.clear(weightGradients);
+            sparseRows.touched(indexes);
+        } else {
+            weightGradients.assign(0);
+        }
 
         if (!hasDefaultStridesForShape(input))
             input = workspaceMgr.dup(ArrayType.ACTIVATIONS, input, 'f');
@@ -183,6 +192,16 @@ public class EmbeddingSequenceLayer extends BaseLayer<org.deeplearning4j.nn.conf
         return ret;
     }
 
+    @Override
+    public boolean isSparseGradient(String paramName) {
+        return layerConf().isSparseGradients() && DefaultParamInitializer.WEIGHT_KEY.equals(paramName);
+    }
+
+    @Override
+    public int[] getSparseGradientRows(String paramName) {
+        return isSparseGradient(paramName) ? sparseRows.getRows() : null;
+    }
+
     @Override
     public boolean hasBias() {
         return layerConf().hasBias();
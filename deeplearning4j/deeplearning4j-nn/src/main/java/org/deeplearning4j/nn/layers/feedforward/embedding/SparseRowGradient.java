@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.nn.layers.feedforward.embedding;
+
+import lombok.NonNull;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+
+/**
+ * This class tracks rows of embedding weight gradients touched during backprop, so that gradient view can be cleared
+ * and updated row-by-row instead of as whole [vocabSize, vectorSize] array.
+ * Used by embedding layers configured with sparse gradients, see {@link org.deeplearning4j.nn.api.layers.SparseGradientLayer}
+ */
+class SparseRowGradient {
+    private static final int[] DIM_1 = new int[]{1};
+
+    private INDArray clearedView;
+    private int[] rows;
+
+    /**
+     * This method zeroes rows of the given weight gradients view touched during previous backprop pass.
+     * If previous rows are unknown, or gradient view was replaced since then, whole view is zeroed.
+     *
+     * @param weightGradients weight gradients view, shape [vocabSize, vectorSize]
+     */
+    void clear(@NonNull INDArray weightGradients) {
+        if (weightGradients != clearedView || rows == null) {
+            weightGradients.assign(0);
+            clearedView = weightGradients;
+        } else if (rows.length > 0) {
+            INDArray zeros = Nd4j.zeros(weightGradients.dataType(), rows.length, weightGradients.size(1));
+            Nd4j.getExecutioner().exec(new ScatterUpdate(weightGradients, zeros, rows, DIM_1, ScatterUpdate.UpdateOp.ASSIGN));
+        }
+
+        rows = null;
+    }
+
+    /**
+     * This method stores indices used in current backprop pass
+     *
+     * @param indexes embedding indices, possibly with duplicates
+     */
+    void touched(@NonNull int[] indexes) {
+        int[] sorted = Arrays.copyOf(indexes, indexes.length);
+        Arrays.sort(sorted);
+
+        int cnt = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1])
+                sorted[cnt++] = sorted[i];
+        }
+
+        rows = cnt == sorted.length ? sorted : Arrays.copyOf(sorted, cnt);
+    }
+
+    /**
+     * @return sorted unique rows touched during last backprop pass, or null if unknown
+     */
+    int[] getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.nn.layers.recurrent;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.workspace.ArrayType;
+import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.activations.impl.ActivationSigmoid;
+import org.nd4j.linalg.activations.impl.ActivationTanH;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.pairwise.arithmetic.OldMulOp;
+import org.nd4j.linalg.api.ops.impl.transforms.same.TimesOneMinus;
+import org.nd4j.linalg.api.ops.impl.transforms.strict.Tanh;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.nd4j.linalg.indexing.NDArrayIndex.all;
+import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
+
+/**
+ * Fused LSTM implementation for CPU backend (no peephole connections, sigmoid gates, tanh activation).
+ *
+ * Unlike {@link LSTMHelpers}, which does a few mmuls and a dozen of elementwise ops with per-step allocations for each
+ * time step, this helper:
+ * - computes input projections for all time steps with one GEMM, before the recurrence starts
+ * - keeps all per-step state in a handful of arrays allocated once per call, laid out as [size, minibatch, time] in
+ *   'f' order, so each time step is a contiguous [size, minibatch] block usable directly by GEMM
+ * - applies the sigmoid to forget, output and input modulation gates with a single op, since they're adjacent
+ * - computes input weight, recurrent weight and bias gradients, and epsilons, with one GEMM each after the
+ *   backward recurrence, instead of per time step
+ *
+ * So the recurrence loop itself is one GEMM plus a few elementwise ops per time step, over preallocated memory.
+ * This matters for small minibatches, where per-op overhead dominates the actual math.
+ *
+ * PLEASE NOTE: results of backprop are valid only for {@link FwdPassReturn} produced by this helper. For anything
+ * else helper returns null, and default implementation is used.
+ */
+public class FusedLSTMHelper implements LSTMHelper {
+
+    /**
+     * Forward pass state of the fused implementation. All arrays have shape [size, minibatch, timeSeriesLength]
+     * and 'f' order.
+     */
+    protected static class FusedFwdPassReturn extends FwdPassReturn {
+        // input, transposed: [nIn, m, T]
+        protected INDArray inputT;
+        // gate activations: [4 * nOut, m, T], order: [i, f, o, g]
+        protected INDArray ifogT;
+        // memory cell state, after masking: [nOut, m, T]
+        protected INDArray cellT;
+        // memory cell activations, before masking: [nOut, m, T]
+        protected INDArray cellActT;
+        // output activations: [nOut, m, T]
+        protected INDArray outputT;
+    }
+
+    @Override
+    public boolean checkSupported(IActivation gateActivationFn, IActivation activationFn,
+                    boolean hasPeepholeConnections) {
+        return gateActivationFn instanceof ActivationSigmoid && activationFn instanceof ActivationTanH
+                        && !hasPeepholeConnections;
+    }
+
+    @Override
+    public FwdPassReturn activate(final Layer layer, final NeuralNetConfiguration conf,
+                    final IActivation gateActivationFn, final INDArray input, final INDArray recurrentWeights,
+                    final INDArray inputWeights, final INDArray biases, final boolean training,
+                    final INDArray prevOutputActivations, final INDArray prevMemCellState, boolean forBackprop,
+                    boolean forwards, final String inputWeightKey, INDArray maskArray,
+                    final boolean hasPeepholeConnections, final LayerWorkspaceMgr workspaceMgr) {
+        IActivation afn = ((org.deeplearning4j.nn.conf.layers.BaseLayer) conf.getLayer()).getActivationFn();
+        if (!forwards || input.rank() != 3 || !checkSupported(gateActivationFn, afn, hasPeepholeConnections))
+            return null;
+
+        int hiddenLayerSize = (int) recurrentWeights.size(0);
+        int miniBatchSize = (int) input.size(0);
+        int timeSeriesLength = (int) input.size(2);
+        DataType dataType = input.dataType();
+        ArrayType workingMem = forBackprop ? ArrayType.BP_WORKING_MEM : ArrayType.FF_WORKING_MEM;
+
+        INDArray recurrentWeightsIFOG = recurrentWeights.get(all(), interval(0, 4 * hiddenLayerSize));
+
+        FusedFwdPassReturn toReturn = new FusedFwdPassReturn();
+
+        // one copy of the input, so that input for each time step is a contiguous [nIn, m] block
+        toReturn.inputT = workspaceMgr.dup(workingMem, input.permute(1, 0, 2), 'f');
+        INDArray inputT2d = toReturn.inputT.reshape('f', input.size(1), (long) miniBatchSize * timeSeriesLength);
+
+        // input projections for all time steps at once
+        toReturn.ifogT = workspaceMgr.createUninitialized(workingMem, dataType,
+                        new long[] {4 * hiddenLayerSize, miniBatchSize, timeSeriesLength}, 'f');
+        INDArray ifogT2d = toReturn.ifogT.reshape('f', 4 * hiddenLayerSize, (long) miniBatchSize * timeSeriesLength);
+        Nd4j.gemm(inputWeights, inputT2d, ifogT2d, true, false, 1.0, 0.0);
+        ifogT2d.addiColumnVector(biases.reshape(4 * hiddenLayerSize, 1));
+
+        long[] stateShape = new long[] {hiddenLayerSize, miniBatchSize, timeSeriesLength};
+        toReturn.cellT = workspaceMgr.createUninitialized(workingMem, dataType, stateShape, 'f');
+        toReturn.outputT = workspaceMgr.createUninitialized(workingMem, dataType, stateShape, 'f');
+        if (forBackprop)
+            toReturn.cellActT = workspaceMgr.createUninitialized(workingMem, dataType, stateShape, 'f');
+
+        INDArray scratch = workspaceMgr.createUninitialized(workingMem, dataType,
+                        new long[] {hiddenLayerSize, miniBatchSize}, 'f');
+        INDArray cellActScratch = forBackprop ? null
+                        : workspaceMgr.createUninitialized(workingMem, dataType,
+                                        new long[] {hiddenLayerSize, miniBatchSize}, 'f');
+
+        for (int t = 0; t < timeSeriesLength; t++) {
+            INDArray ifog = toReturn.ifogT.tensorAlongDimension(t, 0, 1);
+            INDArray prevCell;
+            if (t == 0) {
+                Nd4j.gemm(recurrentWeightsIFOG, prevOutputActivations, ifog, true, true, 1.0, 1.0);
+                prevCell = prevMemCellState.transpose();
+            } else {
+                Nd4j.gemm(recurrentWeightsIFOG, toReturn.outputT.tensorAlongDimension(t - 1, 0, 1), ifog, true,
+                                false, 1.0, 1.0);
+                prevCell = toReturn.cellT.tensorAlongDimension(t - 1, 0, 1);
+            }
+
+            INDArray inputActivations = ifog.get(interval(0, hiddenLayerSize), all());
+            INDArray forgetGateActivations = ifog.get(interval(hiddenLayerSize, 2 * hiddenLayerSize), all());
+            INDArray outputGateActivations = ifog.get(interval(2 * hiddenLayerSize, 3 * hiddenLayerSize), all());
+            INDArray inputModGateActivations = ifog.get(interval(3 * hiddenLayerSize, 4 * hiddenLayerSize), all());
+
+            // f, o and g gates are adjacent, so one op covers all three of them
+            afn.getActivation(inputActivations, training);
+            gateActivationFn.getActivation(ifog.get(interval(hiddenLayerSize, 4 * hiddenLayerSize), all()), training);
+
+            INDArray cell = toReturn.cellT.tensorAlongDimension(t, 0, 1);
+            Nd4j.getExecutioner().exec(new OldMulOp(forgetGateActivations, prevCell, cell));
+            Nd4j.getExecutioner().exec(new OldMulOp(inputModGateActivations, inputActivations, scratch));
+            cell.addi(scratch);
+
+            INDArray cellAct = forBackprop ? toReturn.cellActT.tensorAlongDimension(t, 0, 1) : cellActScratch;
+            Nd4j.getExecutioner().exec(new Tanh(cell, cellAct));
+
+            INDArray output = toReturn.outputT.tensorAlongDimension(t, 0, 1);
+            Nd4j.getExecutioner().exec(new OldMulOp(cellAct, outputGateActivations, output));
+
+            if (maskArray != null) {
+                // same as default implementation: masked steps have zero activations AND zero memory cell state
+                INDArray timeStepMaskRow = maskArray.getColumn(t).reshape(1, miniBatchSize);
+                output.muliRowVector(timeStepMaskRow);
+                cell.muliRowVector(timeStepMaskRow);
+            }
+        }
+
+        toReturn.fwdPassOutput = workspaceMgr.createUninitialized(ArrayType.ACTIVATIONS, dataType,
+                        new long[] {miniBatchSize, hiddenLayerSize, timeSeriesLength}, 'f');
+        toReturn.fwdPassOutput.assign(toReturn.outputT.permute(1, 0, 2));
+
+        toReturn.lastAct = toReturn.fwdPassOutput.tensorAlongDimension(timeSeriesLength - 1, 1, 0);
+        toReturn.lastMemCell = toReturn.cellT.tensorAlongDimension(timeSeriesLength - 1, 0, 1).transpose();
+        toReturn.prevAct = prevOutputActivations;
+        toReturn.prevMemCell = prevMemCellState;
+
+        return toReturn;
+    }
+
+    @Override
+    public Pair<Gradient, INDArray> backpropGradient(final NeuralNetConfiguration conf,
+                    final IActivation gateActivationFn, final INDArray input, final INDArray recurrentWeights,
+                    final INDArray inputWeights, final INDArray epsilon, final boolean truncatedBPTT,
+                    final int tbpttBackwardLength, final FwdPassReturn fwdPass, final boolean forwards,
+                    final String inputWeightKey, final String recurrentWeightKey, final String biasWeightKey,
+                    final Map<String, INDArray> gradientViews, INDArray maskArray,
+                    final boolean hasPeepholeConnections, final LayerWorkspaceMgr workspaceMgr) {
+        if (!(fwdPass instanceof FusedFwdPassReturn) || epsilon.rank() != 3)
+            return null;
+
+        FusedFwdPassReturn fwd = (FusedFwdPassReturn) fwdPass;
+        int hiddenLayerSize = (int) recurrentWeights.size(0);
+        int prevLayerSize = (int) inputWeights.size(0);
+        int miniBatchSize = (int) epsilon.size(0);
+        int timeSeriesLength = (int) epsilon.size(2);
+        long columns = (long) miniBatchSize * timeSeriesLength;
+        DataType dataType = epsilon.dataType();
+
+        int endIdx = 0;
+        if (truncatedBPTT)
+            endIdx = Math.max(0, timeSeriesLength - tbpttBackwardLength);
+
+        INDArray recurrentWeightsIFOG = recurrentWeights.get(all(), interval(0, 4 * hiddenLayerSize));
+
+        // epsilons are copied once, and then used as accumulators for dL/dOut of each time step
+        INDArray nablaOutT = workspaceMgr.dup(ArrayType.BP_WORKING_MEM, epsilon.permute(1, 0, 2), 'f');
+
+        INDArray deltaT = workspaceMgr.createUninitialized(ArrayType.BP_WORKING_MEM, dataType,
+                        new long[] {4 * hiddenLayerSize, miniBatchSize, timeSeriesLength}, 'f');
+        if (endIdx > 0)
+            deltaT.get(all(), all(), interval(0, endIdx)).assign(0);
+
+        INDArray nablaCellState = workspaceMgr.createUninitialized(ArrayType.BP_WORKING_MEM, dataType,
+                        new long[] {hiddenLayerSize, miniBatchSize}, 'f');
+        INDArray nablaCellStateNext = workspaceMgr.createUninitialized(ArrayType.BP_WORKING_MEM, dataType,
+                        new long[] {hiddenLayerSize, miniBatchSize}, 'f');
+        INDArray scratch = workspaceMgr.createUninitialized(ArrayType.BP_WORKING_MEM, dataType,
+                        new long[] {hiddenLayerSize, miniBatchSize}, 'f');
+
+        for (int t = timeSeriesLength - 1; t >= endIdx; t--) {
+            INDArray ifog = fwd.ifogT.tensorAlongDimension(t, 0, 1);
+            INDArray ai = ifog.get(interval(0, hiddenLayerSize), all());
+            INDArray af = ifog.get(interval(hiddenLayerSize, 2 * hiddenLayerSize), all());
+            INDArray ao = ifog.get(interval(2 * hiddenLayerSize, 3 * hiddenLayerSize), all());
+            INDArray ag = ifog.get(interval(3 * hiddenLayerSize, 4 * hiddenLayerSize), all());
+
+            INDArray delta = deltaT.tensorAlongDimension(t, 0, 1);
+            INDArray deltai = delta.get(interval(0, hiddenLayerSize), all());
+            INDArray deltaf = delta.get(interval(hiddenLayerSize, 2 * hiddenLayerSize), all());
+            INDArray deltao = delta.get(interval(2 * hiddenLayerSize, 3 * hiddenLayerSize), all());
+            INDArray deltag = delta.get(interval(3 * hiddenLayerSize, 4 * hiddenLayerSize), all());
+
+            INDArray nablaOut = nablaOutT.tensorAlongDimension(t, 0, 1);
+            if (t != timeSeriesLength - 1)
+                Nd4j.gemm(recurrentWeightsIFOG, deltaT.tensorAlongDimension(t + 1, 0, 1), nablaOut, false, false,
+                                1.0, 1.0);
+
+            INDArray timeStepMaskRow = maskArray == null ? null : maskArray.getColumn(t).reshape(1, miniBatchSize);
+            INDArray cellAct = fwd.cellActT.tensorAlongDimension(t, 0, 1);
+
+            //Output gate deltas: nablaOut * tanh(c) * sigmoid'(zo)
+            Nd4j.getExecutioner().exec(new TimesOneMinus(ao, deltao));
+            deltao.muli(nablaOut).muli(cellAct);
+
+            //Memory cell error: nablaOut * o * tanh'(c) + f(t+1) * nablaCellState(t+1)
+            //tanh' is computed from masked memory cell state, same as default implementation does
+            Nd4j.getExecutioner().exec(new OldMulOp(cellAct, cellAct, nablaCellState));
+            if (timeStepMaskRow != null)
+                nablaCellState.muliRowVector(timeStepMaskRow);
+            nablaCellState.rsubi(1.0).muli(ao).muli(nablaOut);
+            if (t != timeSeriesLength - 1) {
+                INDArray nextForgetGateAs = fwd.ifogT.tensorAlongDimension(t + 1, 0, 1)
+                                .get(interval(hiddenLayerSize, 2 * hiddenLayerSize), all());
+                Nd4j.getExecutioner().exec(new OldMulOp(nextForgetGateAs, nablaCellStateNext, scratch));
+                nablaCellState.addi(scratch);
+            }
+
+            //Forget gate delta: nablaCellState * c(t-1) * sigmoid'(zf)
+            INDArray prevMemCellState = t == 0 ? fwd.prevMemCell.transpose()
+                            : fwd.cellT.tensorAlongDimension(t - 1, 0, 1);
+            Nd4j.getExecutioner().exec(new TimesOneMinus(af, deltaf));
+            deltaf.muli(nablaCellState).muli(prevMemCellState);
+
+            //Input modulation gate delta: nablaCellState * i * sigmoid'(zg)
+            Nd4j.getExecutioner().exec(new TimesOneMinus(ag, deltag));
+            deltag.muli(nablaCellState).muli(ai);
+
+            //Network input delta: nablaCellState * g * tanh'(zi)
+            Nd4j.getExecutioner().exec(new OldMulOp(ai, ai, deltai));
+            deltai.rsubi(1.0).muli(nablaCellState).muli(ag);
+
+            if (timeStepMaskRow != null)
+                delta.muliRowVector(timeStepMaskRow);
+
+            INDArray tmp = nablaCellStateNext;
+            nablaCellStateNext = nablaCellState;
+            nablaCellState = tmp;
+        }
+
+        INDArray deltaT2d = deltaT.reshape('f', 4 * hiddenLayerSize, columns);
+
+        INDArray iwGradientsOut = gradientViews.get(inputWeightKey);
+        INDArray rwGradientsOut = gradientViews.get(recurrentWeightKey);
+        INDArray bGradientsOut = gradientViews.get(biasWeightKey);
+
+        // input weights: sum over time steps of x(t)^T * delta(t), as single GEMM
+        Nd4j.gemm(fwd.inputT.reshape('f', prevLayerSize, columns), deltaT2d, iwGradientsOut, false, true, 1.0, 0.0);
+
+        // recurrent weights: sum over time steps of out(t-1)^T * delta(t), where out(-1) is previous state
+        Nd4j.gemm(fwd.prevAct, deltaT.tensorAlongDimension(0, 0, 1), rwGradientsOut, true, true, 1.0, 0.0);
+        if (timeSeriesLength > 1) {
+            INDArray outputT2d = fwd.outputT.reshape('f', hiddenLayerSize, columns);
+            Nd4j.gemm(outputT2d.get(all(), interval(0, columns - miniBatchSize)),
+                            deltaT2d.get(all(), interval(miniBatchSize, columns)), rwGradientsOut, false, true, 1.0,
+                            1.0);
+        }
+
+        bGradientsOut.assign(deltaT2d.sum(1).reshape(bGradientsOut.shape()));
+
+        // epsilons for the layer below, for all time steps as single GEMM
+        INDArray epsilonNextT = workspaceMgr.createUninitialized(ArrayType.BP_WORKING_MEM, dataType,
+                        new long[] {prevLayerSize, miniBatchSize, timeSeriesLength}, 'f');
+        Nd4j.gemm(inputWeights, deltaT2d, epsilonNextT.reshape('f', prevLayerSize, columns), false, false, 1.0, 0.0);
+
+        INDArray epsilonNext = workspaceMgr.createUninitialized(ArrayType.ACTIVATION_GRAD, dataType,
+                        new long[] {miniBatchSize, prevLayerSize, timeSeriesLength}, 'f');
+        epsilonNext.assign(epsilonNextT.permute(1, 0, 2));
+
+        Gradient retGradient = new DefaultGradient();
+        retGradient.gradientForVariable().put(inputWeightKey, iwGradientsOut);
+        retGradient.gradientForVariable().put(recurrentWeightKey, rwGradientsOut);
+        retGradient.gradientForVariable().put(biasWeightKey, bGradientsOut);
+
+        return new Pair<>(retGradient, epsilonNext);
+    }
+
+    @Override
+    public Map<String, Long> helperMemoryUse() {
+        // all memory is allocated per call, via workspace manager
+        return Collections.emptyMap();
+    }
+}
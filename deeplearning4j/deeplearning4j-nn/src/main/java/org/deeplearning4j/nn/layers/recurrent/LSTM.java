@@ -17,6 +17,7 @@
 package org.deeplearning4j.nn.layers.recurrent;
 
 import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.config.DL4JSystemProperties;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.MaskState;
 import org.deeplearning4j.nn.conf.CacheMode;
@@ -78,6 +79,11 @@ public class LSTM extends BaseRecurrentLayer<org.deeplearning4j.nn.conf.layers.L
                             + "For more information, please refer to: https://deeplearning4j.org/cudnn", t);
                 }
             }
+        } else if (!Boolean.parseBoolean(System.getProperty(DL4JSystemProperties.DISABLE_FUSED_LSTM_HELPER_PROPERTY))) {
+            helper = new FusedLSTMHelper();
+            if (!helper.checkSupported(layerConf().getGateActivationFn(), layerConf().getActivationFn(), false)) {
+                helper = null;
+            }
         }
     }
 
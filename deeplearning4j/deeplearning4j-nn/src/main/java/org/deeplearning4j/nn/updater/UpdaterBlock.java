@@ -21,26 +21,35 @@ import lombok.Data;
 import lombok.val;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Trainable;
+import org.deeplearning4j.nn.api.TrainingConfig;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.BaseLayer;
 import org.deeplearning4j.nn.layers.FrozenLayer;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.custom.ScatterUpdate;
+import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.GradientUpdater;
 import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * UpdaterBlock: used in {@link BaseMultiLayerUpdater}, this class implements updating (i.e., Adam, RMSProp, Momentum,
- * etc) across multiple contiguous layers/parameters, as described in the {@link BaseMultiLayerUpdater} javadoc.
+ * etc) across multiple contiguous layers/parameters, as described in the {@link BaseMultiLayerUpdater} javadoc.<br>
+ * Blocks consisting of a single parameter with row-sparse gradients (see {@link SparseGradientLayer}) are updated lazily:
+ * only gradient and updater state rows touched in the last backprop pass are gathered, updated and scattered back.
  *
  * @author Alex Black
  */
 @Data
 public class UpdaterBlock {
+    private static final int[] DIM_1 = new int[]{1};
+
     private int paramOffsetStart;
     private int paramOffsetEnd;
     private int updaterViewOffsetStart;
@@ -155,6 +164,16 @@ public class UpdaterBlock {
             return;
         }
 
+        if (!externalGradient && layersAndVariablesInBlock.size() == 1) {
+            ParamState p = layersAndVariablesInBlock.get(0);
+            SparseGradientLayer sparseLayer = UpdaterUtils.getSparseGradientLayer(p.getLayer(), p.getParamName());
+            int[] rows = sparseLayer == null ? null : sparseLayer.getSparseGradientRows(p.getParamName());
+            if (rows != null) {
+                updateSparse(p, rows, iteration, epoch);
+                return;
+            }
+        }
+
         //Apply the updater itself
         gradientUpdater.applyUpdater(blockGradViewArray, iteration, epoch);
 
@@ -176,6 +195,70 @@ public class UpdaterBlock {
         }
     }
 
+    /**
+     * Lazy update of the 2d parameter with row-sparse gradient: gradient rows and matching updater state rows are
+     * gathered into temporary arrays, updated (inc. L1/L2) and scattered back. All other rows of gradient and updater
+     * state are left as is, so cost of this method depends on number of rows touched, not on the parameter size.
+     *
+     * @param p    Parameter state. Must be the only parameter in this block
+     * @param rows Sorted unique row indices touched in the last backprop pass
+     */
+    protected void updateSparse(ParamState p, int[] rows, int iteration, int epoch) {
+        if (rows.length == 0)
+            return;
+
+        String paramName = p.getParamName();
+        long[] shape = p.getLayer().paramTable(false).get(paramName).shape();
+        long length = p.getGradView().length();
+        long rowsLength = rows.length * shape[1];
+
+        INDArray gradient = reshapeView(p.getGradView(), shape);
+        INDArray gradientRows = Nd4j.pullRows(gradient, 1, rows, 'c');
+
+        //Updater state consists of one or more components, each having the same length as the gradient
+        int numStates = updaterView == null ? 0 : (int) (updaterView.length() / length);
+        INDArray[] states = new INDArray[numStates];
+        INDArray[] stateRows = new INDArray[numStates];
+        INDArray stateRowsView = null;
+        if (numStates > 0) {
+            stateRowsView = Nd4j.createUninitialized(updaterView.dataType(), 1, numStates * rowsLength);
+            for (int c = 0; c < numStates; c++) {
+                states[c] = reshapeView(updaterView.get(NDArrayIndex.point(0),
+                                NDArrayIndex.interval(c * length, (c + 1) * length)), shape);
+                stateRows[c] = stateRowsView.get(NDArrayIndex.point(0),
+                                NDArrayIndex.interval(c * rowsLength, (c + 1) * rowsLength))
+                                .reshape('c', rows.length, shape[1]);
+                Nd4j.pullRows(states[c], stateRows[c], 1, rows);
+            }
+        }
+
+        //Temporary updater instance operating on gathered rows only
+        TrainingConfig conf = p.getLayer().getConfig();
+        GradientUpdater rowsUpdater = conf.getUpdaterByParam(paramName).instantiate(stateRowsView, false);
+        rowsUpdater.applyUpdater(gradientRows.reshape('c', 1, rowsLength), iteration, epoch);
+
+        if (conf.getL1ByParam(paramName) > 0 || conf.getL2ByParam(paramName) > 0) {
+            INDArray paramRows = Nd4j.pullRows(reshapeView(p.getParamView(), shape), 1, rows, 'c');
+            postApply(p.getLayer(), paramName, gradientRows, paramRows);
+        }
+
+        scatter(gradient, gradientRows, rows);
+        for (int c = 0; c < numStates; c++)
+            scatter(states[c], stateRows[c], rows);
+    }
+
+    private static INDArray reshapeView(INDArray rowVectorView, long[] shape) {
+        //Parameters, gradients and updater state are stored as 'f' order views of the flattened arrays
+        INDArray ret = Shape.newShapeNoCopy(rowVectorView, shape, true);
+        if (ret == null)
+            throw new IllegalStateException("Could not reshape view array to shape " + Arrays.toString(shape));
+        return ret;
+    }
+
+    private static void scatter(INDArray target, INDArray rowsArray, int[] rows) {
+        Nd4j.getExecutioner().exec(new ScatterUpdate(target, rowsArray, rows, DIM_1, ScatterUpdate.UpdateOp.ASSIGN));
+    }
+
     /**
      * Apply L1 and L2 regularization, if necessary. Note that L1/L2 may differ for different layers in the same block
      *
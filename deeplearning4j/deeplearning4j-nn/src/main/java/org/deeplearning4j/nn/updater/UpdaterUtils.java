@@ -18,6 +18,8 @@ package org.deeplearning4j.nn.updater;
 
 import org.deeplearning4j.nn.api.Trainable;
 import org.deeplearning4j.nn.api.TrainingConfig;
+import org.deeplearning4j.nn.api.layers.SparseGradientLayer;
+import org.deeplearning4j.nn.graph.vertex.GraphVertex;
 import org.nd4j.linalg.learning.config.IUpdater;
 
 /**
@@ -37,6 +39,7 @@ public class UpdaterUtils {
         //(b) If one or more of the params are pretrainable params, they are in the same layer
         //    This last point is necessary as we don't want to modify the pretrain gradient/updater state during
         //    backprop, or modify the pretrain gradient/updater state of one layer while training another
+        //(c) Neither of params has sparse gradients: these are updated lazily, in their own blocks
         if (!u1.equals(u2)) {
             //Different updaters or different config
             return false;
@@ -51,6 +54,24 @@ public class UpdaterUtils {
             return layer1 == layer2 && isPretrainParam1 && isPretrainParam2;
         }
 
-        return true;
+        return getSparseGradientLayer(layer1, param1) == null && getSparseGradientLayer(layer2, param2) == null;
+    }
+
+    /**
+     * This method returns layer with row-sparse gradients for the given parameter, if any
+     *
+     * @param layer Layer or graph vertex
+     * @param param Parameter name
+     * @return Layer, or null if the given parameter doesn't have sparse gradients
+     */
+    public static SparseGradientLayer getSparseGradientLayer(Trainable layer, String param) {
+        Trainable t = layer;
+        if (t instanceof GraphVertex && ((GraphVertex) t).hasLayer())
+            t = ((GraphVertex) t).getLayer();
+
+        if (t instanceof SparseGradientLayer && ((SparseGradientLayer) t).isSparseGradient(param))
+            return (SparseGradientLayer) t;
+
+        return null;
     }
 }
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.optimize.solvers.accumulation;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.optimize.solvers.accumulation.encoding.ResidualPostProcessor;
+import org.deeplearning4j.optimize.solvers.accumulation.encoding.ThresholdAlgorithm;
+import org.deeplearning4j.optimize.solvers.accumulation.encoding.ThresholdAlgorithmReducer;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.AtomicThrowable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * This MessageHandler implementation splits flattened updates into fixed-size chunks, and encodes/sends them one by one.
+ * Encoded chunks are delivered by a separate thread, so encoding of chunk N+1 overlaps with delivery of chunk N,
+ * and receivers decode each chunk into corresponding region of their updates.
+ *
+ * Each chunk has its own threshold/sparsity state: ThresholdAlgorithm and ResidualPostProcessor instances are cloned per chunk.
+ *
+ * PLEASE NOTE: This handler does NOT provide any network connectivity, and works only with {@link EncodedGradientsAccumulator}
+ * PLEASE NOTE: updates array is expected to be contiguous
+ * PLEASE NOTE: sender thread is stopped with shutdown(), and started again upon next broadcastUpdates() call
+ */
+@Slf4j
+public class ChunkedEncodingHandler extends EncodingHandler {
+    public static final long DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024L;
+
+    @Getter
+    protected final long chunkSize;
+
+    // one handler per chunk, each of them keeps its own thread-local encoding state
+    protected volatile EncodingHandler[] chunkHandlers;
+
+    protected final BlockingQueue<EncodedChunk> outgoing = new LinkedBlockingQueue<>();
+    protected final AtomicThrowable senderThrowable = new AtomicThrowable();
+    protected transient Thread sender;
+    protected volatile boolean stopped = false;
+
+    public ChunkedEncodingHandler(final ThresholdAlgorithm thresholdAlgorithm, final ResidualPostProcessor residualPostProcessor,
+                                  Double boundary, boolean encodingDebugMode) {
+        this(thresholdAlgorithm, residualPostProcessor, boundary, encodingDebugMode, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedEncodingHandler(final ThresholdAlgorithm thresholdAlgorithm, final ResidualPostProcessor residualPostProcessor,
+                                  Double boundary, boolean encodingDebugMode, long chunkSize) {
+        super(thresholdAlgorithm, residualPostProcessor, boundary, encodingDebugMode);
+
+        if (chunkSize < 16)
+            throw new ND4JIllegalStateException("Chunk size should be at least 16 elements");
+
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void initialize(@NonNull GradientsAccumulator accumulator) {
+        if (!(accumulator instanceof EncodedGradientsAccumulator))
+            throw new ND4JIllegalStateException("ChunkedEncodingHandler can be used only with EncodedGradientsAccumulator");
+
+        super.initialize(accumulator);
+
+        startSender();
+    }
+
+    protected synchronized void startSender() {
+        if (sender == null) {
+            stopped = false;
+            sender = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    deliveryLoop();
+                }
+            });
+            sender.setName("ChunkedEncodingHandler-sender");
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    /**
+     * This method stops sender thread, and waits for its termination.
+     * Chunks that weren't delivered yet are discarded.
+     */
+    public synchronized void shutdown() {
+        if (sender == null)
+            return;
+
+        stopped = true;
+        sender.interrupt();
+        try {
+            sender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sender = null;
+
+        // nobody is going to deliver these, so we're releasing anyone who waits for them
+        EncodedChunk chunk;
+        while ((chunk = outgoing.poll()) != null)
+            chunk.latch.countDown();
+    }
+
+    protected void deliveryLoop() {
+        while (!stopped) {
+            EncodedChunk chunk;
+            try {
+                chunk = outgoing.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                sendChunk(chunk.message, chunk.offset);
+            } catch (Exception e) {
+                senderThrowable.setIfFirst(e);
+            } finally {
+                chunk.latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * This method delivers single encoded chunk to the accumulator
+     *
+     * @param message encoded chunk
+     * @param offset offset of the chunk within updates array
+     */
+    protected void sendChunk(INDArray message, long offset) {
+        ((EncodedGradientsAccumulator) accumulator).receiveUpdate(message, offset);
+    }
+
+    protected EncodingHandler[] chunkHandlers(long length) {
+        int numChunks = (int) ((length + chunkSize - 1) / chunkSize);
+        if (chunkHandlers == null) {
+            synchronized (this) {
+                if (chunkHandlers == null) {
+                    EncodingHandler[] handlers = new EncodingHandler[numChunks];
+                    for (int i = 0; i < numChunks; i++) {
+                        handlers[i] = new EncodingHandler(initialThresholdAlgorithm, initialResidualPostProcessor, boundary, encodingDebugMode);
+                        handlers[i].initialize(accumulator);
+                    }
+
+                    chunkHandlers = handlers;
+                }
+            }
+        }
+
+        if (chunkHandlers.length != numChunks)
+            throw new ND4JIllegalStateException("Updates length changed: expected " + chunkHandlers.length + " chunks, got " + numChunks);
+
+        return chunkHandlers;
+    }
+
+    @Override
+    public boolean broadcastUpdates(INDArray updates, int iterationNumber, int epochNumber) {
+        long length = updates.lengthLong();
+        EncodingHandler[] handlers = chunkHandlers(length);
+
+        // sender might have been stopped by previous shutdown() call
+        if (sender == null)
+            startSender();
+
+        CountDownLatch latch = new CountDownLatch(handlers.length);
+        boolean sent = false;
+        for (int i = 0; i < handlers.length; i++) {
+            long offset = i * chunkSize;
+            INDArray chunk = chunkOf(updates, offset, Math.min(chunkSize, length - offset));
+
+            // while we're encoding this chunk, previous one is being delivered
+            INDArray message = handlers[i].encodeUpdates(iterationNumber, epochNumber, chunk);
+            if (message != null) {
+                outgoing.add(new EncodedChunk(message, offset, latch));
+                sent = true;
+            } else
+                latch.countDown();
+        }
+
+        // encoded messages might live in workspace, so we're not leaving until all of them are delivered
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        if (senderThrowable.isTriggered())
+            throw new RuntimeException(senderThrowable.get());
+
+        return sent;
+    }
+
+    @Override
+    public ThresholdAlgorithm getAverageThresholdAlgorithm() {
+        EncodingHandler[] handlers = chunkHandlers;
+        if (handlers == null)
+            return null;
+
+        List<ThresholdAlgorithm> all = new ArrayList<>();
+        for (EncodingHandler handler : handlers) {
+            all.addAll(handler.allThreadThresholdAlgorithms.values());
+            handler.thresholdAlgorithm = new ThreadLocal<>();
+            handler.allThreadThresholdAlgorithms.clear();
+        }
+
+        if (all.isEmpty())
+            return null;
+
+        ThresholdAlgorithmReducer r = all.get(0).newReducer();
+        for (ThresholdAlgorithm ta : all)
+            r.add(ta);
+
+        return r.getFinalResult();
+    }
+
+    /**
+     * This method returns contiguous region of given array as separate row vector, without copying data
+     *
+     * @param array contiguous array
+     * @param offset offset of the region, in elements
+     * @param length length of the region, in elements
+     * @return
+     */
+    protected static INDArray chunkOf(@NonNull INDArray array, long offset, long length) {
+        Preconditions.checkState(array.elementWiseStride() == 1, "Updates array should be contiguous");
+        Preconditions.checkArgument(offset >= 0 && offset + length <= array.lengthLong(), "Chunk [%s, %s) is out of bounds for length %s",
+                        offset, offset + length, array.lengthLong());
+
+        if (offset == 0 && length == array.lengthLong())
+            return array;
+
+        DataBuffer buffer = array.data();
+        DataBuffer original = buffer.originalDataBuffer() == null ? buffer : buffer.originalDataBuffer();
+        long base = buffer.originalDataBuffer() == null ? 0 : buffer.originalOffset();
+
+        return Nd4j.create(Nd4j.createBuffer(original, base + offset, length), new long[] {1, length});
+    }
+
+    protected static class EncodedChunk {
+        protected final INDArray message;
+        protected final long offset;
+        protected final CountDownLatch latch;
+
+        protected EncodedChunk(INDArray message, long offset, CountDownLatch latch) {
+            this.message = message;
+            this.offset = offset;
+            this.latch = latch;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.compression.ThresholdCompression;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.primitives.Pair;
 import org.nd4j.linalg.util.AtomicThrowable;
 
 import java.util.ArrayList;
@@ -63,7 +64,7 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
     protected int parties;
     @Getter
     protected MessageHandler handler;
-    protected List<BlockingQueue<INDArray>> messages = new ArrayList<>();
+    protected List<BlockingQueue<Pair<INDArray, Long>>> messages = new ArrayList<>();
     protected List<MemoryWorkspace> workspaces = new ArrayList<>();
     protected List<ReentrantLock> locks = new ArrayList<>();
 
@@ -136,7 +137,7 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
         int curDev = Nd4j.getAffinityManager().getDeviceForCurrentThread();
 
         for (int i = 0; i < parties; i++) {
-            messages.add(new LinkedBlockingQueue<INDArray>(queueSize));
+            messages.add(new LinkedBlockingQueue<Pair<INDArray, Long>>(queueSize));
 
             // we don't want device index to step out of boundaries here
             int cDevice = numDevices > 1 ? i % numDevices : 0;
@@ -276,6 +277,36 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
 
     }
 
+    /**
+     * This method decodes all messages available for current worker into given updates array
+     *
+     * @param updates
+     * @return number of decoded messages
+     */
+    protected int decodeMessages(INDArray updates) {
+        int cnt = 0;
+        while (!messages.get(index.get()).isEmpty()) {
+            Pair<INDArray, Long> message = messages.get(index.get()).poll();
+            INDArray compressed = message.getFirst();
+
+            // chunked messages are decoded into corresponding region of updates
+            long length = compressed.data().getInt(1);
+            INDArray target = ChunkedEncodingHandler.chunkOf(updates, message.getSecond(), length);
+
+            int encoding = compressed.data().getInt(3);
+            if (encoding == ThresholdCompression.FLEXIBLE_ENCODING)
+                Nd4j.getExecutioner().thresholdDecode(compressed, target);
+            else if (encoding == ThresholdCompression.BITMAP_ENCODING)
+                Nd4j.getExecutioner().bitmapDecode(compressed, target);
+            else
+                throw new DL4JInvalidConfigException("Unknown compression header received: " + encoding);
+
+            cnt++;
+        }
+
+        return cnt;
+    }
+
     /**
      * This method applies accumulated updates via given StepFunction
      *
@@ -291,20 +322,7 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
             Nd4j.getMemoryManager().memset(updates);
             //updates.assign(0.0);
 
-            int cnt = 0;
-            while (!messages.get(index.get()).isEmpty()) {
-                INDArray compressed = messages.get(index.get()).poll();
-
-                int encoding = compressed.data().getInt(3);
-                if (encoding == ThresholdCompression.FLEXIBLE_ENCODING)
-                    Nd4j.getExecutioner().thresholdDecode(compressed, updates);
-                else if (encoding == ThresholdCompression.BITMAP_ENCODING)
-                    Nd4j.getExecutioner().bitmapDecode(compressed, updates);
-                else
-                    throw new DL4JInvalidConfigException("Unknown compression header received: " + encoding);
-
-                cnt++;
-            }
+            int cnt = decodeMessages(updates);
 
             if (cnt > 0 && isDebug)
                 log.info("Local updates to be applied: {}", cnt);
@@ -356,20 +374,7 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
             Nd4j.getMemoryManager().memset(updates);
             //updates.assign(0.0);
 
-            int cnt = 0;
-            while (!messages.get(index.get()).isEmpty()) {
-                INDArray compressed = messages.get(index.get()).poll();
-
-                int encoding = compressed.data().getInt(3);
-                if (encoding == ThresholdCompression.FLEXIBLE_ENCODING)
-                    Nd4j.getExecutioner().thresholdDecode(compressed, updates);
-                else if (encoding == ThresholdCompression.BITMAP_ENCODING)
-                    Nd4j.getExecutioner().bitmapDecode(compressed, updates);
-                else
-                    throw new DL4JInvalidConfigException("Unknown compression header received: " + encoding);
-
-                cnt++;
-            }
+            int cnt = decodeMessages(updates);
 
             if (cnt > 0 && isDebug)
                 log.info("Local updates to be applied: {}", cnt);
@@ -484,6 +489,16 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
      */
     @Override
     public void receiveUpdate(INDArray array) {
+        receiveUpdate(array, 0L);
+    }
+
+    /**
+     * This method accepts encoded chunk of updates, and puts it to the queue, which is used in backpropagation loop
+     *
+     * @param array encoded chunk
+     * @param offset offset of the chunk within updates array, in elements
+     */
+    public void receiveUpdate(INDArray array, long offset) {
         try {
             // we're replicating COMPRESSED MESSAGES, decompression will be thread-local
             for (int i = 0; i < parties; i++) {
@@ -505,7 +520,7 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
 
                     INDArray compressed = array.unsafeDuplication();
                     try {
-                        messages.get(i).put(compressed);
+                        messages.get(i).put(Pair.makePair(compressed, offset));
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                         log.warn("Something bad at index_{}", i);
@@ -539,6 +554,10 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
         for (int i = 0; i < parties; i++) {
             messages.get(i).clear();
         }
+
+        // stop chunk delivery thread, it'll be started again if accumulator is used after reset
+        if (handler instanceof ChunkedEncodingHandler)
+            ((ChunkedEncodingHandler) handler).shutdown();
     }
 
     @Override
@@ -555,6 +574,7 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
         protected MessageHandler handler;
         protected Double boundary = null;
         protected boolean encodingDebugMode;
+        protected long chunkSize = 0;
 
         /**
          * This
@@ -635,10 +655,29 @@ public class EncodedGradientsAccumulator implements GradientsAccumulator, Regist
             return this;
         }
 
+        /**
+         * This method enables pipelined encoding: updates are encoded and sent in chunks of given size,
+         * so encoding of next chunk overlaps with delivery of previous one. See {@link ChunkedEncodingHandler}
+         *
+         * Default value: 0 (updates are encoded as a whole)
+         * @param chunkSize number of elements per chunk
+         * @return
+         */
+        public Builder encodingChunkSize(long chunkSize) {
+            if (chunkSize < 0)
+                throw new DL4JInvalidConfigException("Chunk size should be non-negative value");
+
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
         public EncodedGradientsAccumulator build() {
             if (handler == null) {
                 Preconditions.checkNotNull(thresholdAlgorithm, "Both threshold algorithm and handler are null - one or the other must be set");
-                handler = new EncodingHandler(thresholdAlgorithm, residualPostProcessor, boundary, encodingDebugMode);
+                if (chunkSize > 0)
+                    handler = new ChunkedEncodingHandler(thresholdAlgorithm, residualPostProcessor, boundary, encodingDebugMode, chunkSize);
+                else
+                    handler = new EncodingHandler(thresholdAlgorithm, residualPostProcessor, boundary, encodingDebugMode);
             }
 
             EncodedGradientsAccumulator accumulator = new EncodedGradientsAccumulator(parties, handler, initialMemory, queueSize, boundary, encodingDebugMode);
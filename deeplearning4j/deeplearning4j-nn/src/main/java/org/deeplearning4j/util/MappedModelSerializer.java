@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.pointers.PagedPointer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Utility class suited to save/restore neural net models in uncompressed, memory-mappable container.
+ *
+ * Unlike zip files produced by {@link ModelSerializer}, parameters here are stored as raw bytes in native byte order
+ * at offset 0 of the file (so they are page-aligned), followed by configuration JSON and small trailer.
+ * Restoring such a model maps the file into memory and uses the mapped region as parameters DataBuffer directly,
+ * so there's no deserialization and no copy: cold start is nearly instant, and JVMs on the same host
+ * that load the same file share physical pages.
+ *
+ * Mapping is private (copy-on-write): pages are shared until they are modified, and in-place changes to parameters
+ * (i.e. fit() calls) never reach the file. Mapping is held until {@link #release(Model)} is called for the model.
+ *
+ * PLEASE NOTE: Only parameters and configuration are stored: updater state and normalizers are not included.
+ * PLEASE NOTE: Memory-mapped loading is supported on CPU backend only. Parameters larger than 2GB can't be mapped
+ * by JVM, so they are read into memory instead.
+ */
+@Slf4j
+public class MappedModelSerializer {
+    public static final byte[] MAGIC = "DL4JMMAP".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+
+    public static final String TYPE_MULTI_LAYER_NETWORK = "MultiLayerNetwork";
+    public static final String TYPE_COMPUTATION_GRAPH = "ComputationGraph";
+
+    // trailer: offset of metadata block, followed by magic
+    protected static final int TRAILER_LENGTH = 8 + 8;
+    protected static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    // mappings are kept reachable here, since unmapping them while model is in use would crash JVM
+    private static final Map<Model, MappedByteBuffer> MAPPINGS =
+                    Collections.synchronizedMap(new IdentityHashMap<Model, MappedByteBuffer>());
+
+    private MappedModelSerializer() {}
+
+    /**
+     * This method returns TRUE if current backend supports memory-mapped models
+     *
+     * @return
+     */
+    public static boolean isSupported() {
+        return Nd4j.getExecutioner().type() == OpExecutioner.ExecutionerType.NATIVE_CPU;
+    }
+
+    /**
+     * Write a model to a file, in memory-mappable format
+     *
+     * @param model the model to write. MultiLayerNetwork and ComputationGraph are supported
+     * @param file  the file to write to
+     * @throws IOException
+     */
+    public static void writeModel(@NonNull Model model, @NonNull File file) throws IOException {
+        checkSupported();
+
+        String type;
+        String json;
+        if (model instanceof MultiLayerNetwork) {
+            type = TYPE_MULTI_LAYER_NETWORK;
+            json = ((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson();
+        } else if (model instanceof ComputationGraph) {
+            type = TYPE_COMPUTATION_GRAPH;
+            json = ((ComputationGraph) model).getConfiguration().toJson();
+        } else
+            throw new ND4JIllegalStateException("Unsupported model type: " + model.getClass().getSimpleName());
+
+        INDArray params = model.params();
+        if (params != null && (params.isView() || params.ordering() != 'c' || params.elementWiseStride() != 1))
+            params = params.dup('c');
+
+        Nd4j.getExecutioner().commit();
+
+        long numParams = params == null ? 0 : params.length();
+        DataType dataType = params == null ? Nd4j.dataType() : params.dataType();
+
+        try (FileOutputStream fos = new FileOutputStream(file); FileChannel channel = fos.getChannel()) {
+            // parameters go first, so they start at page boundary
+            long paramsBytes = 0;
+            if (params != null) {
+                paramsBytes = numParams * Nd4j.sizeOfDataType(dataType);
+                PagedPointer pointer = new PagedPointer(params.data().address());
+                for (long position = 0; position < paramsBytes; position += CHUNK_SIZE) {
+                    long length = Math.min(CHUNK_SIZE, paramsBytes - position);
+                    ByteBuffer chunk = new BytePointer(pointer.withOffset(position, length)).asByteBuffer();
+                    while (chunk.hasRemaining())
+                        channel.write(chunk);
+                }
+            }
+
+            // 8 bytes alignment for metadata
+            long metaOffset = paramsBytes + (8 - paramsBytes % 8) % 8;
+            channel.position(metaOffset);
+
+            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos));
+            dos.writeInt(VERSION);
+            dos.writeUTF(type);
+            dos.writeUTF(dataType.name());
+            dos.writeBoolean(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+            dos.writeLong(numParams);
+
+            byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+            dos.writeInt(jsonBytes.length);
+            dos.write(jsonBytes);
+
+            dos.writeLong(metaOffset);
+            dos.write(MAGIC);
+            dos.flush();
+        }
+    }
+
+    /**
+     * Restore a MultiLayerNetwork from memory-mappable file. Parameters are not copied, but mapped from the file.
+     *
+     * @param file the file to load from
+     * @return the loaded multi layer network
+     * @throws IOException
+     */
+    public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull File file) throws IOException {
+        Header header = readHeader(file);
+        if (!TYPE_MULTI_LAYER_NETWORK.equals(header.type))
+            throw new ND4JIllegalStateException("File contains " + header.type
+                            + ", use MappedModelSerializer.restoreComputationGraph instead");
+
+        MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(header.json));
+        MappedByteBuffer mapping = mapFile(file, header);
+        network.init(getParameters(file, header, mapping), false);
+        register(network, mapping);
+        return network;
+    }
+
+    /**
+     * Restore a ComputationGraph from memory-mappable file. Parameters are not copied, but mapped from the file.
+     *
+     * @param file the file to load from
+     * @return the loaded computation graph
+     * @throws IOException
+     */
+    public static ComputationGraph restoreComputationGraph(@NonNull File file) throws IOException {
+        Header header = readHeader(file);
+        if (!TYPE_COMPUTATION_GRAPH.equals(header.type))
+            throw new ND4JIllegalStateException("File contains " + header.type
+                            + ", use MappedModelSerializer.restoreMultiLayerNetwork instead");
+
+        ComputationGraph graph = new ComputationGraph(ComputationGraphConfiguration.fromJson(header.json));
+        MappedByteBuffer mapping = mapFile(file, header);
+        graph.init(getParameters(file, header, mapping), false);
+        register(graph, mapping);
+        return graph;
+    }
+
+    /**
+     * This method checks if given file is memory-mappable model container
+     *
+     * @param file
+     * @return
+     */
+    public static boolean isMappedModel(@NonNull File file) {
+        if (!file.isFile() || file.length() < TRAILER_LENGTH)
+            return false;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(file.length() - MAGIC.length);
+            byte[] magic = new byte[MAGIC.length];
+            raf.readFully(magic);
+            return Arrays.equals(MAGIC, magic);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method unmaps parameters of the model restored by this class. Model (and any arrays obtained from it)
+     * can't be used after this call.
+     *
+     * @param model
+     * @return true if model had mapping to release
+     */
+    public static boolean release(@NonNull Model model) {
+        MappedByteBuffer mapping = MAPPINGS.remove(model);
+        if (mapping == null)
+            return false;
+
+        unmap(mapping);
+        return true;
+    }
+
+    protected static void register(Model model, MappedByteBuffer mapping) {
+        if (mapping != null)
+            MAPPINGS.put(model, mapping);
+    }
+
+    /**
+     * This method maps parameters region of the file, or returns null if it can't be mapped
+     */
+    protected static MappedByteBuffer mapFile(File file, Header header) throws IOException {
+        if (header.numParams == 0)
+            return null;
+
+        checkSupported();
+
+        if (header.littleEndian != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN))
+            throw new ND4JIllegalStateException("Model file was saved on platform with different byte order");
+
+        long paramsBytes = header.numParams * Nd4j.sizeOfDataType(header.dataType);
+        if (paramsBytes > Integer.MAX_VALUE) {
+            log.warn("Parameters of model [{}] are larger than 2GB, reading them into memory instead of mapping",
+                            file.getAbsolutePath());
+            return null;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // mapping stays valid after channel is closed
+            return channel.map(FileChannel.MapMode.PRIVATE, 0, paramsBytes);
+        }
+    }
+
+    protected static INDArray getParameters(File file, Header header, MappedByteBuffer mapping) throws IOException {
+        if (header.numParams == 0)
+            return null;
+
+        if (mapping != null) {
+            PagedPointer pointer = new PagedPointer(new BytePointer(mapping).address()).withOffset(0, header.numParams);
+            DataBuffer buffer = Nd4j.createBuffer(pointer, header.numParams, header.dataType);
+            return Nd4j.create(buffer, new long[] {1, header.numParams});
+        }
+
+        INDArray params = Nd4j.createUninitialized(header.dataType, 1, header.numParams);
+        long paramsBytes = header.numParams * Nd4j.sizeOfDataType(header.dataType);
+        PagedPointer pointer = new PagedPointer(params.data().address());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            for (long position = 0; position < paramsBytes; position += CHUNK_SIZE) {
+                long length = Math.min(CHUNK_SIZE, paramsBytes - position);
+                ByteBuffer chunk = new BytePointer(pointer.withOffset(position, length)).asByteBuffer();
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, position + chunk.position()) < 0)
+                        throw new EOFException("Unexpected end of file [" + file.getAbsolutePath() + "]");
+                }
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * JVM has no public API to unmap files, so cleaner is invoked via reflection. If that fails, mapping is released
+     * once buffer is garbage collected.
+     */
+    public static void unmap(@NonNull MappedByteBuffer mapping) {
+        try {
+            try {
+                // java 9+
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), mapping);
+            } catch (NoSuchMethodException e) {
+                // java 8
+                Method cleanerMethod = mapping.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(mapping);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to unmap model file, it will be unmapped once garbage collected", e);
+        }
+    }
+
+    protected static Header readHeader(File file) throws IOException {
+        if (!isMappedModel(file))
+            throw new ND4JIllegalStateException("File [" + file.getAbsolutePath() + "] isn't memory-mappable model");
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(file.length() - TRAILER_LENGTH);
+            long metaOffset = raf.readLong();
+            raf.seek(metaOffset);
+
+            Header header = new Header();
+            int version = raf.readInt();
+            if (version != VERSION)
+                throw new ND4JIllegalStateException("Unsupported model file version: " + version);
+
+            header.type = raf.readUTF();
+            header.dataType = DataType.valueOf(raf.readUTF());
+            header.littleEndian = raf.readBoolean();
+            header.numParams = raf.readLong();
+
+            byte[] jsonBytes = new byte[raf.readInt()];
+            raf.readFully(jsonBytes);
+            header.json = new String(jsonBytes, StandardCharsets.UTF_8);
+
+            return header;
+        }
+    }
+
+    protected static void checkSupported() {
+        if (!isSupported())
+            throw new UnsupportedOperationException("Memory-mapped models are supported on CPU backend only");
+    }
+
+    protected static class Header {
+        protected String type;
+        protected DataType dataType;
+        protected boolean littleEndian;
+        protected long numParams;
+        protected String json;
+    }
+}
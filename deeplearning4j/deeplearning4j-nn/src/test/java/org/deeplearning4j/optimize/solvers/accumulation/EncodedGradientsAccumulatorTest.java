@@ -23,6 +23,10 @@ import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -88,6 +92,84 @@ public class EncodedGradientsAccumulatorTest {
     }
 
 
+    /**
+     * Here we ensure that chunked encoding delivers each chunk into the right region of updates
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChunkedEncoding1() throws Exception {
+        int numParams = 10000;
+        int chunkSize = 1000;
+
+        ChunkedEncodingHandler handler = new ChunkedEncodingHandler(new FixedThresholdAlgorithm(1e-3), null, null, false, chunkSize);
+
+        val bufferSize = EncodedGradientsAccumulator.getOptimalBufferSize(numParams, 1, 16);
+        EncodedGradientsAccumulator accumulator = new EncodedGradientsAccumulator(1, handler, bufferSize, 16, null, false);
+        accumulator.touch();
+
+        INDArray grad = Nd4j.create(1, numParams);
+        int[] positions = new int[] {0, 999, 1000, 4321, 9999};
+        for (int p : positions)
+            grad.putScalar(p, p % 2 == 0 ? 2e-3 : -2e-3);
+
+        assertTrue(handler.broadcastUpdates(grad, 0, 0));
+
+        INDArray updates = Nd4j.create(1, numParams);
+        int cnt = accumulator.decodeMessages(updates);
+        assertEquals(numParams / chunkSize, cnt);
+
+        INDArray expUpdates = Nd4j.create(1, numParams);
+        INDArray expResidual = Nd4j.create(1, numParams);
+        for (int p : positions) {
+            expUpdates.putScalar(p, p % 2 == 0 ? 1e-3 : -1e-3);
+            expResidual.putScalar(p, p % 2 == 0 ? 1e-3 : -1e-3);
+        }
+
+        assertEquals(expUpdates, updates);
+        assertEquals(expResidual, grad);
+    }
+
+
+    /**
+     * Here we ensure that sender thread is stopped on reset, and started again if handler is used after that
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChunkedEncodingShutdown1() throws Exception {
+        int numParams = 10000;
+        int chunkSize = 1000;
+
+        ChunkedEncodingHandler handler = new ChunkedEncodingHandler(new FixedThresholdAlgorithm(1e-3), null, null, false, chunkSize);
+
+        val bufferSize = EncodedGradientsAccumulator.getOptimalBufferSize(numParams, 1, 16);
+        EncodedGradientsAccumulator accumulator = new EncodedGradientsAccumulator(1, handler, bufferSize, 16, null, false);
+        accumulator.touch();
+
+        Thread sender = handler.sender;
+        assertNotNull(sender);
+        assertTrue(sender.isAlive());
+
+        accumulator.reset();
+        assertNull(handler.sender);
+        assertFalse(sender.isAlive());
+        accumulator.touch();
+
+        INDArray grad = Nd4j.create(1, numParams);
+        grad.putScalar(4321, 2e-3);
+        assertTrue(handler.broadcastUpdates(grad, 0, 0));
+        assertNotNull(handler.sender);
+
+        INDArray updates = Nd4j.create(1, numParams);
+        assertEquals(numParams / chunkSize, accumulator.decodeMessages(updates));
+        assertEquals(1e-3, updates.getDouble(4321), 1e-5);
+
+        handler.shutdown();
+        assertNull(handler.sender);
+    }
+
+
     protected INDArray getGradients(int length, int numPositives, double value) {
         INDArray grad = Nd4j.create(length);
 
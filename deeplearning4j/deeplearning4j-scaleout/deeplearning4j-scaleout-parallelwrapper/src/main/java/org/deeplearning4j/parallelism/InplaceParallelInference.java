@@ -31,6 +31,7 @@ import org.nd4j.linalg.factory.Nd4j;
 
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -77,6 +78,8 @@ public class InplaceParallelInference extends ParallelInference {
     public synchronized void updateModel(@NonNull Model model) {
         for (val h:holders)
             h.updateModel(model);
+
+        this.model = model;
     }
 
     @Override
@@ -95,6 +98,21 @@ public class InplaceParallelInference extends ParallelInference {
         return selector.output(input, inputMasks);
     }
 
+    /**
+     * PLEASE NOTE: In INPLACE mode inference happens in the calling thread, so returned future is already completed
+     */
+    @Override
+    public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks) {
+        CompletableFuture<INDArray[]> future = new CompletableFuture<>();
+        try {
+            future.complete(output(input, inputMasks));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
 
     protected static class ModelSelector {
         // this map stores collection of shared
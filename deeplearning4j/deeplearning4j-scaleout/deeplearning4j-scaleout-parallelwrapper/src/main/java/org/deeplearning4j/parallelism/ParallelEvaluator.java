@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.AsyncDataSetIterator;
+import org.deeplearning4j.datasets.iterator.AsyncMultiDataSetIterator;
+import org.deeplearning4j.datasets.iterator.impl.SingletonDataSetIterator;
+import org.deeplearning4j.datasets.iterator.impl.SingletonMultiDataSetIterator;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.evaluation.IEvaluation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.SerializationUtils;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class performs evaluation of MultiLayerNetwork or ComputationGraph using multiple model replicas.
+ *
+ * Minibatches are read from the iterator by the calling thread (optionally, with asynchronous prefetch), and
+ * dispatched to worker threads via bounded queue, so data loading is pipelined with inference. Each worker uses its
+ * own copy of the given IEvaluation instances, and all copies are merged into the original instances once the
+ * iterator is exhausted. So result is the same as for single-threaded {@link MultiLayerNetwork#doEvaluation(DataSetIterator, IEvaluation[])},
+ * up to the order in which minibatches were evaluated.
+ *
+ * PLEASE NOTE: Replicas share parameters with the original model on single-device systems, so model should not be
+ * trained while evaluation is in progress.
+ */
+@Slf4j
+public class ParallelEvaluator {
+    public final static int DEFAULT_NUM_WORKERS =
+                    Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    public final static int DEFAULT_PREFETCH_SIZE = 2;
+
+    // marks end of data for a worker
+    private static final Object END = new Object();
+
+    protected Model model;
+    protected int workers;
+    protected int prefetchSize;
+    protected int queueLimit;
+
+    protected ParallelEvaluator() {
+        //
+    }
+
+    /**
+     * This method performs evaluation on the given DataSetIterator, and returns given IEvaluation instances
+     *
+     * @param iterator    Data to evaluate on
+     * @param evaluations IEvaluation instances
+     * @return The input IEvaluation instances, after evaluation
+     */
+    @SafeVarargs
+    public final <T extends IEvaluation> T[] evaluate(@NonNull DataSetIterator iterator, @NonNull T... evaluations) {
+        if (!iterator.hasNext() && iterator.resetSupported())
+            iterator.reset();
+
+        boolean async = prefetchSize > 0 && iterator.asyncSupported();
+        // no workspaces here: DataSets are passed to other threads, and can stay in the queue for a while
+        DataSetIterator iter = async ? new AsyncDataSetIterator(iterator, prefetchSize, false) : iterator;
+        try {
+            return execute(iter, evaluations);
+        } finally {
+            if (async)
+                ((AsyncDataSetIterator) iter).shutdown();
+        }
+    }
+
+    /**
+     * This method performs evaluation on the given MultiDataSetIterator, and returns given IEvaluation instances
+     *
+     * @param iterator    Data to evaluate on
+     * @param evaluations IEvaluation instances
+     * @return The input IEvaluation instances, after evaluation
+     */
+    @SafeVarargs
+    public final <T extends IEvaluation> T[] evaluate(@NonNull MultiDataSetIterator iterator, @NonNull T... evaluations) {
+        if (!iterator.hasNext() && iterator.resetSupported())
+            iterator.reset();
+
+        boolean async = prefetchSize > 0 && iterator.asyncSupported();
+        MultiDataSetIterator iter = async ? new AsyncMultiDataSetIterator(iterator, prefetchSize, false) : iterator;
+        try {
+            return execute(iter, evaluations);
+        } finally {
+            if (async)
+                ((AsyncMultiDataSetIterator) iter).shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T extends IEvaluation> T[] execute(Iterator<?> iterator, T[] evaluations) {
+        if (evaluations.length == 0)
+            throw new IllegalStateException("At least one IEvaluation instance should be provided");
+
+        BlockingQueue<Object> queue = new LinkedBlockingQueue<>(queueLimit);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        int numDevices = Nd4j.getAffinityManager().getNumberOfDevices();
+        int currentDevice = Nd4j.getAffinityManager().getDeviceForCurrentThread();
+        boolean assignedRoot = false;
+
+        EvaluationWorker[] zoo = new EvaluationWorker[workers];
+        for (int i = 0; i < workers; i++) {
+            int cDevice = i % numDevices;
+            boolean cRoot = !assignedRoot && cDevice == currentDevice;
+            assignedRoot |= cRoot;
+
+            // root worker uses original IEvaluation instances, everyone else - empty copies of them
+            IEvaluation[] evals = cRoot ? evaluations : copyOf(evaluations);
+
+            zoo[i] = new EvaluationWorker(i, queue, evals, cRoot, numDevices > 1, failure);
+            Nd4j.getAffinityManager().attachThreadToDevice(zoo[i], cDevice);
+            zoo[i].start();
+        }
+
+        try {
+            while (iterator.hasNext() && failure.get() == null) {
+                Object next = iterator.next();
+                if (next == null)
+                    continue;
+
+                Nd4j.getExecutioner().commit(); //Commit before passing data to other thread
+                put(queue, next, failure);
+            }
+
+            for (int i = 0; i < workers; i++)
+                put(queue, END, failure);
+
+            for (EvaluationWorker w : zoo) {
+                // if anything failed, end markers might be not delivered
+                if (failure.get() != null)
+                    w.interrupt();
+                w.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            // no-op for workers that finished normally
+            for (EvaluationWorker w : zoo)
+                w.interrupt();
+        }
+
+        if (failure.get() != null)
+            throw new RuntimeException("Evaluation failed", failure.get());
+
+        for (EvaluationWorker w : zoo) {
+            if (w.evaluations == evaluations)
+                continue;
+
+            for (int e = 0; e < evaluations.length; e++)
+                evaluations[e].merge(w.evaluations[e]);
+        }
+
+        return evaluations;
+    }
+
+    /**
+     * This method puts element into the queue, unless one of workers failed
+     */
+    private static void put(BlockingQueue<Object> queue, Object element, AtomicReference<Throwable> failure)
+                    throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(element, 10, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    /**
+     * This method creates empty copies of given IEvaluation instances, with the same configuration
+     */
+    protected static IEvaluation[] copyOf(IEvaluation[] evaluations) {
+        IEvaluation[] copy = new IEvaluation[evaluations.length];
+        for (int e = 0; e < evaluations.length; e++) {
+            copy[e] = SerializationUtils.fromByteArray(SerializationUtils.toByteArray(evaluations[e]));
+            copy[e].reset();
+        }
+
+        return copy;
+    }
+
+
+    public static class Builder {
+        private Model model;
+        private int workers = DEFAULT_NUM_WORKERS;
+        private int prefetchSize = DEFAULT_PREFETCH_SIZE;
+        private int queueLimit = -1;
+
+        public Builder(@NonNull Model model) {
+            if (!(model instanceof MultiLayerNetwork) && !(model instanceof ComputationGraph))
+                throw new IllegalStateException("Only MultiLayerNetwork and ComputationGraph are supported, got "
+                                + model.getClass().getSimpleName());
+
+            this.model = model;
+        }
+
+        /**
+         * This method defines, how many model replicas will be used for evaluation
+         *
+         * @param workers
+         * @return
+         */
+        public Builder workers(int workers) {
+            if (workers < 1)
+                throw new IllegalStateException("Workers should be positive value");
+
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * This method defines, how many minibatches will be prefetched asynchronously from the iterator.
+         * 0 disables asynchronous prefetch, so data is loaded by the calling thread only.
+         *
+         * Default value: 2
+         *
+         * @param prefetchSize
+         * @return
+         */
+        public Builder prefetchSize(int prefetchSize) {
+            if (prefetchSize < 0)
+                throw new IllegalStateException("Prefetch size should be non-negative value");
+
+            this.prefetchSize = prefetchSize;
+            return this;
+        }
+
+        /**
+         * This method defines, how many minibatches can wait for workers.
+         *
+         * Default value: 2 * workers
+         *
+         * @param limit
+         * @return
+         */
+        public Builder queueLimit(int limit) {
+            if (limit < 1)
+                throw new IllegalStateException("Queue limit should be positive value");
+
+            this.queueLimit = limit;
+            return this;
+        }
+
+        /**
+         * This method builds new ParallelEvaluator instance
+         *
+         * @return
+         */
+        public ParallelEvaluator build() {
+            ParallelEvaluator evaluator = new ParallelEvaluator();
+            evaluator.model = this.model;
+            evaluator.workers = this.workers;
+            evaluator.prefetchSize = this.prefetchSize;
+            evaluator.queueLimit = this.queueLimit > 0 ? this.queueLimit : 2 * this.workers;
+
+            return evaluator;
+        }
+    }
+
+
+    /**
+     * This class evaluates minibatches from the queue with its own model replica
+     */
+    private class EvaluationWorker extends Thread {
+        private final BlockingQueue<Object> queue;
+        private final IEvaluation[] evaluations;
+        private final boolean rootDevice;
+        private final boolean duplicateParams;
+        private final AtomicReference<Throwable> failure;
+
+        private EvaluationWorker(int id, BlockingQueue<Object> queue, IEvaluation[] evaluations, boolean rootDevice,
+                        boolean duplicateParams, AtomicReference<Throwable> failure) {
+            this.queue = queue;
+            this.evaluations = evaluations;
+            this.rootDevice = rootDevice;
+            this.duplicateParams = duplicateParams;
+            this.failure = failure;
+
+            this.setDaemon(true);
+            this.setName("EvaluationThread-" + id);
+        }
+
+        /**
+         * This method creates model replica. Parameters are shared with the original model, unless replica lives
+         * on other device
+         */
+        protected Model replicateModel() {
+            if (rootDevice)
+                return model;
+
+            INDArray params;
+            synchronized (ParallelEvaluator.this) {
+                params = duplicateParams ? model.params().unsafeDuplication(true) : model.params();
+                Nd4j.getExecutioner().commit();
+            }
+
+            if (model instanceof ComputationGraph) {
+                ComputationGraph graph = new ComputationGraph(ComputationGraphConfiguration
+                                .fromJson(((ComputationGraph) model).getConfiguration().toJson()));
+                graph.init(params, false);
+                return graph;
+            } else {
+                MultiLayerNetwork network = new MultiLayerNetwork(MultiLayerConfiguration
+                                .fromJson(((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson()));
+                network.init(params, false);
+                return network;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Model replica = replicateModel();
+
+                while (true) {
+                    Object next = queue.take();
+                    if (next == END)
+                        break;
+
+                    if (failure.get() != null)
+                        continue;
+
+                    if (replica instanceof ComputationGraph) {
+                        ComputationGraph graph = (ComputationGraph) replica;
+                        if (next instanceof DataSet)
+                            graph.doEvaluation(new SingletonDataSetIterator((DataSet) next), evaluations);
+                        else
+                            graph.doEvaluation(new SingletonMultiDataSetIterator((MultiDataSet) next), evaluations);
+                    } else {
+                        MultiLayerNetwork network = (MultiLayerNetwork) replica;
+                        if (next instanceof DataSet)
+                            network.doEvaluation(new SingletonDataSetIterator((DataSet) next), evaluations);
+                        else
+                            network.doEvaluation(new SingletonMultiDataSetIterator((MultiDataSet) next), evaluations);
+                    }
+
+                    Nd4j.getExecutioner().commit();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("Evaluation worker failed", t);
+                failure.compareAndSet(null, t);
+            }
+        }
+    }
+}
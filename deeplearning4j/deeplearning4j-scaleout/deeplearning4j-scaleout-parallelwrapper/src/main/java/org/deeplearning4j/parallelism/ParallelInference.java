@@ -24,14 +24,22 @@ import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.BatchLatencyTracker;
+import org.deeplearning4j.parallelism.inference.CompletionDispatcher;
+import org.deeplearning4j.parallelism.inference.InferenceCallback;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.LoadBalanceMode;
+import org.deeplearning4j.parallelism.inference.observers.AdaptiveInferenceObservable;
+import org.deeplearning4j.parallelism.inference.observers.AsyncInferenceObserver;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObserver;
 import org.deeplearning4j.parallelism.inference.observers.BatchedInferenceObservable;
+import org.nd4j.evaluation.IEvaluation;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
 
@@ -39,10 +47,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Observer;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -60,6 +71,9 @@ public class ParallelInference {
     protected InferenceMode inferenceMode;
     protected int queueLimit;
     protected LoadBalanceMode loadBalanceMode = LoadBalanceMode.FIFO;
+    protected long latencyTarget;
+    protected int[] batchBuckets;
+    protected boolean padBatches;
 
     // this queue holds data for inference
     private BlockingQueue<InferenceObservable> observables;
@@ -68,6 +82,9 @@ public class ParallelInference {
 
     private InferenceWorker[] zoo;
     private ObservablesProvider provider;
+    private BatchLatencyTracker latencyTracker;
+    private CompletionDispatcher dispatcher;
+    private final Object dispatcherLock = new Object();
 
 
 
@@ -91,10 +108,10 @@ public class ParallelInference {
         if (zoo != null) {
             for (val w: zoo)
                 w.updateModel(model);
-        } else {
-            // if zoo wasn't initalized yet - just replace model
-            this.model = model;
         }
+
+        // if zoo wasn't initalized yet - that's all we need, otherwise it's used by evaluate() calls
+        this.model = model;
     }
 
     /**
@@ -119,6 +136,10 @@ public class ParallelInference {
     protected void init() {
         observables = new LinkedBlockingQueue<>(queueLimit);
 
+        // tracker should be available before workers start, since they report forward pass times into it
+        if (inferenceMode == InferenceMode.BATCHED && latencyTarget > 0)
+            latencyTracker = batchBuckets == null ? new BatchLatencyTracker(batchLimit) : new BatchLatencyTracker(batchBuckets);
+
         int numDevices = Nd4j.getAffinityManager().getNumberOfDevices();
         int currentDevice = Nd4j.getAffinityManager().getDeviceForCurrentThread();
         AtomicBoolean assignedRoot = new AtomicBoolean(false);
@@ -138,8 +159,27 @@ public class ParallelInference {
 
 
         if (inferenceMode == InferenceMode.BATCHED) {
-            log.info("Initializing ObservablesProvider...");
-            provider = new ObservablesProvider(nanos, batchLimit, observables);
+            if (latencyTracker != null) {
+                log.info("Initializing AdaptiveObservablesProvider...");
+                provider = new AdaptiveObservablesProvider(latencyTarget, latencyTracker, padBatches, observables);
+            } else {
+                log.info("Initializing ObservablesProvider...");
+                provider = new ObservablesProvider(nanos, batchLimit, observables);
+            }
+        }
+    }
+
+    /**
+     * This method returns completion thread for async requests, starting it on first call
+     */
+    protected CompletionDispatcher getDispatcher() {
+        synchronized (dispatcherLock) {
+            if (dispatcher == null) {
+                dispatcher = new CompletionDispatcher();
+                dispatcher.start();
+            }
+
+            return dispatcher;
         }
     }
 
@@ -164,6 +204,18 @@ public class ParallelInference {
         }
         zoo = null;
 
+        synchronized (dispatcherLock) {
+            if (dispatcher != null) {
+                dispatcher.shutdown();
+                try {
+                    dispatcher.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dispatcher = null;
+            }
+        }
+
         System.gc();
     }
 
@@ -230,22 +282,8 @@ public class ParallelInference {
     public INDArray[] output(INDArray[] input, INDArray[] inputMasks){
         Nd4j.getExecutioner().commit(); //Commit before passing input to other thread
 
-        // basically, depending on model type we either throw stuff to specific model, or wait for batch
         BasicInferenceObserver observer = new BasicInferenceObserver();
-        InferenceObservable observable;
-
-        if (inferenceMode == InferenceMode.SEQUENTIAL) {
-            observable = new BasicInferenceObservable(input, inputMasks);
-            observable.addObserver(observer);
-            try {
-                observables.put(observable);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(e);
-            }
-        } else {
-            observable = provider.setInput(observer, input, inputMasks);
-        }
+        InferenceObservable observable = submit(observer, input, inputMasks);
 
         try {
             // submit query to processing
@@ -260,6 +298,101 @@ public class ParallelInference {
         return observable.getOutput();
     }
 
+    /**
+     * Generate predictions/output from the network asynchronously: this method returns immediately,
+     * and returned future is completed once output is available.
+     *
+     * PLEASE NOTE: Futures are completed from single completion thread, so dependent actions should return quickly
+     * PLEASE NOTE: Calling thread can be blocked only if internal queue is full, see Builder.queueLimit()
+     *
+     * @param input Input to the network
+     * @return Future for output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray... input) {
+        return outputAsync(input, (INDArray[]) null);
+    }
+
+    /**
+     * Generate predictions/outputs from the network asynchronously, optionally using input masks for predictions
+     *
+     * @param input      Input to the network
+     * @param inputMasks Input masks for the network. May be null.
+     * @return Future for output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks) {
+        Nd4j.getExecutioner().commit(); //Commit before passing input to other thread
+
+        AsyncInferenceObserver observer = new AsyncInferenceObserver(getDispatcher());
+        submit(observer, input, inputMasks);
+
+        return observer.getFuture();
+    }
+
+    /**
+     * Generate predictions/outputs from the network asynchronously, and pass them to the callback once available
+     *
+     * @param input      Input to the network
+     * @param inputMasks Input masks for the network. May be null.
+     * @param callback   Callback to be invoked with output or exception
+     */
+    public void outputAsync(INDArray[] input, INDArray[] inputMasks, @NonNull final InferenceCallback callback) {
+        outputAsync(input, inputMasks).whenComplete((output, throwable) -> {
+            if (throwable != null)
+                callback.onError(throwable);
+            else
+                callback.onOutput(output);
+        });
+    }
+
+    /**
+     * This method performs evaluation of the current model on the given data, using the same number of model
+     * replicas as used for inference. See {@link ParallelEvaluator} for details.
+     *
+     * PLEASE NOTE: Evaluation uses its own replicas and threads, and doesn't go through inference queue
+     *
+     * @param iterator    Data to evaluate on
+     * @param evaluations IEvaluation instances
+     * @return The input IEvaluation instances, after evaluation
+     */
+    @SafeVarargs
+    public final <T extends IEvaluation> T[] evaluate(@NonNull DataSetIterator iterator, @NonNull T... evaluations) {
+        return new ParallelEvaluator.Builder(model).workers(workers).build().evaluate(iterator, evaluations);
+    }
+
+    /**
+     * This method performs evaluation of the current model on the given data, using the same number of model
+     * replicas as used for inference. See {@link ParallelEvaluator} for details.
+     *
+     * @param iterator    Data to evaluate on
+     * @param evaluations IEvaluation instances
+     * @return The input IEvaluation instances, after evaluation
+     */
+    @SafeVarargs
+    public final <T extends IEvaluation> T[] evaluate(@NonNull MultiDataSetIterator iterator, @NonNull T... evaluations) {
+        return new ParallelEvaluator.Builder(model).workers(workers).build().evaluate(iterator, evaluations);
+    }
+
+    /**
+     * This method passes input to the workers, and returns observable that'll hold output
+     */
+    protected InferenceObservable submit(@NonNull Observer observer, INDArray[] input, INDArray[] inputMasks) {
+        // basically, depending on model type we either throw stuff to specific model, or wait for batch
+        if (inferenceMode == InferenceMode.SEQUENTIAL) {
+            InferenceObservable observable = new BasicInferenceObservable(input, inputMasks);
+            observable.addObserver(observer);
+            try {
+                observables.put(observable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+
+            return observable;
+        } else {
+            return provider.setInput(observer, input, inputMasks);
+        }
+    }
+
 
     public static class Builder {
         private Model model;
@@ -268,6 +401,9 @@ public class ParallelInference {
         private InferenceMode inferenceMode = DEFAULT_INFERENCE_MODE;
         private int queueLimit = DEFAULT_QUEUE_LIMIT;
         protected LoadBalanceMode loadBalanceMode = LoadBalanceMode.FIFO;
+        private long latencyTarget = 0L;
+        private int[] batchBuckets;
+        private boolean padBatches = false;
 
         public Builder(@NonNull Model model) {
             this.model = model;
@@ -353,6 +489,64 @@ public class ParallelInference {
             return this;
         }
 
+        /**
+         * This method enables adaptive batching for BATCHED inference mode: instead of fixed batchLimit,
+         * batch size and time spent waiting for more inputs are derived from target latency and
+         * forward pass times measured for each batch size bucket.
+         *
+         * PLEASE NOTE: This value has no effect in SEQUENTIAL and INPLACE inference modes
+         * PLEASE NOTE: batchLimit still defines largest batch size, unless batchBuckets are specified
+         *
+         * @param time target latency, 0 to disable adaptive batching
+         * @param timeUnit
+         * @return
+         */
+        public Builder latencyTarget(long time, @NonNull TimeUnit timeUnit) {
+            if (time < 0)
+                throw new IllegalStateException("Latency target should be non-negative value");
+
+            this.latencyTarget = timeUnit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * This method defines batch sizes used by adaptive batching.
+         * By default powers of 2 up to batchLimit are used, i.e. 1, 2, 4, 8, 16, 32
+         *
+         * PLEASE NOTE: This value has effect only if latencyTarget is set
+         *
+         * @param buckets
+         * @return
+         */
+        public Builder batchBuckets(@NonNull int... buckets) {
+            if (buckets.length < 1)
+                throw new IllegalStateException("At least one batch size bucket should be defined");
+
+            for (int b : buckets)
+                if (b < 1)
+                    throw new IllegalStateException("Batch size buckets should be positive values");
+
+            this.batchBuckets = buckets;
+            return this;
+        }
+
+        /**
+         * This method enables padding of batches up to closest batch size bucket, so model sees
+         * only a few distinct batch shapes, and workspaces can be reused between iterations.
+         * Padded examples are dropped from the output.
+         *
+         * PLEASE NOTE: This value has effect only if latencyTarget is set
+         *
+         * Default value: false
+         *
+         * @param reallyPad
+         * @return
+         */
+        public Builder padBatches(boolean reallyPad) {
+            this.padBatches = reallyPad;
+            return this;
+        }
+
         /**
          * This method builds new ParallelInference instance
          *
@@ -377,6 +571,9 @@ public class ParallelInference {
                 inference.model = this.model;
                 inference.workers = this.workers;
                 inference.loadBalanceMode = this.loadBalanceMode;
+                inference.latencyTarget = this.latencyTarget;
+                inference.batchBuckets = this.batchBuckets;
+                inference.padBatches = this.padBatches;
 
                 inference.init();
 
@@ -477,6 +674,10 @@ public class ParallelInference {
                     if (request != null) {
                         counter.incrementAndGet();
 
+                        // in adaptive mode we might want to wait a bit, if there's room for more inputs within latency target
+                        if (provider instanceof AdaptiveObservablesProvider && request instanceof AdaptiveInferenceObservable)
+                            ((AdaptiveObservablesProvider) provider).awaitBatch((AdaptiveInferenceObservable) request);
+
                         // FIXME: get rid of instanceof here, model won't change during runtime anyway
                         if (isCG) {
                             List<Pair<INDArray[],INDArray[]>> batches = request.getInputBatches();
@@ -486,8 +687,11 @@ public class ParallelInference {
                                     try {
                                         modelLock.readLock().lock();
 
+                                        long time = System.nanoTime();
                                         INDArray[] output = ((ComputationGraph) replicatedModel).output(false, inBatch.getFirst(), inBatch.getSecond());
                                         out.add(output);
+
+                                        reportTime(inBatch.getFirst()[0], System.nanoTime() - time);
                                     } finally {
                                         Nd4j.getExecutioner().commit();
                                         modelLock.readLock().unlock();
@@ -508,8 +712,11 @@ public class ParallelInference {
                                     try {
                                         modelLock.readLock().lock();
 
+                                        long time = System.nanoTime();
                                         INDArray output = ((MultiLayerNetwork) replicatedModel).output(f, false, fm, null);
                                         out.add(new INDArray[]{output});
+
+                                        reportTime(f, System.nanoTime() - time);
                                     } finally {
                                         Nd4j.getExecutioner().commit();
                                         modelLock.readLock().unlock();
@@ -536,6 +743,11 @@ public class ParallelInference {
             }
         }
 
+        protected void reportTime(INDArray features, long time) {
+            if (latencyTracker != null && features.size(0) <= Integer.MAX_VALUE)
+                latencyTracker.record((int) features.size(0), time);
+        }
+
         protected void shutdown() {
             shouldWork.set(false);
             while (!isStopped.get()) {
@@ -550,7 +762,7 @@ public class ParallelInference {
         private long nanos;
         private int batchLimit;
 
-        private volatile BatchedInferenceObservable currentObservable;
+        protected volatile BatchedInferenceObservable currentObservable;
         private final Object locker = new Object();
 
         protected ObservablesProvider(long nanos, int batchLimit, @NonNull BlockingQueue<InferenceObservable> queue) {
@@ -570,13 +782,17 @@ public class ParallelInference {
         protected InferenceObservable setInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask) {
             synchronized (locker) {
                 boolean isNew = false;
-                if (currentObservable == null || currentObservable.getCounter() >= batchLimit
-                                || currentObservable.isLocked()) {
+                if (currentObservable == null || isFull(currentObservable, input) || currentObservable.isLocked()) {
                     isNew = true;
-                    currentObservable = new BatchedInferenceObservable();
+                    currentObservable = createObservable();
                 }
 
                 currentObservable.addInput(input, inputMask);
+
+                // async observers consume output from other thread, so they need to know their position in advance
+                if (observer instanceof AsyncInferenceObserver)
+                    ((AsyncInferenceObserver) observer).setPosition(currentObservable.getPosition());
+
                 currentObservable.addObserver(observer);
 
                 try {
@@ -590,5 +806,87 @@ public class ParallelInference {
                 return currentObservable;
             }
         }
+
+        /**
+         * This method returns max number of inputs that can be put into single batch at this moment
+         *
+         * @return
+         */
+        protected int currentBatchLimit() {
+            return batchLimit;
+        }
+
+        /**
+         * This method checks if given input can't be added to the batch anymore
+         *
+         * @param observable current batch
+         * @param input input to be added
+         * @return
+         */
+        protected boolean isFull(@NonNull BatchedInferenceObservable observable, INDArray[] input) {
+            return observable.getCounter() >= currentBatchLimit();
+        }
+
+        protected BatchedInferenceObservable createObservable() {
+            return new BatchedInferenceObservable();
+        }
+    }
+
+
+    /**
+     * This ObservablesProvider picks batch size from target latency and measured forward pass times:
+     * half of latency target is reserved for forward pass, and the rest can be spent on waiting for more inputs.
+     */
+    protected static class AdaptiveObservablesProvider extends ObservablesProvider {
+        private static final long MAX_PARK_NANOS = 100000L;
+
+        private final long latencyTarget;
+        private final BatchLatencyTracker tracker;
+        private final boolean padBatches;
+
+        protected AdaptiveObservablesProvider(long latencyTarget, @NonNull BatchLatencyTracker tracker, boolean padBatches,
+                        @NonNull BlockingQueue<InferenceObservable> queue) {
+            super(latencyTarget, tracker.getMaxBucket(), queue);
+            this.latencyTarget = latencyTarget;
+            this.tracker = tracker;
+            this.padBatches = padBatches;
+        }
+
+        @Override
+        protected int currentBatchLimit() {
+            return tracker.maxBatchSize(latencyTarget / 2);
+        }
+
+        /**
+         * Batch size buckets and latency measurements are in examples, so batch is cut once the next input wouldn't fit.
+         * Input larger than the limit still gets a batch of its own.
+         */
+        @Override
+        protected boolean isFull(@NonNull BatchedInferenceObservable observable, INDArray[] input) {
+            long examples = observable.getNumExamples();
+            return examples > 0 && examples + input[0].size(0) > currentBatchLimit();
+        }
+
+        @Override
+        protected BatchedInferenceObservable createObservable() {
+            return new AdaptiveInferenceObservable(tracker, padBatches);
+        }
+
+        /**
+         * This method blocks worker until given batch is full, or until waiting any longer would violate latency target.
+         * Waiting stops immediately if newer batch was opened already, since this one won't get new inputs anymore.
+         *
+         * @param observable
+         */
+        protected void awaitBatch(@NonNull AdaptiveInferenceObservable observable) {
+            int limit = currentBatchLimit();
+            long deadline = observable.getCreationTime() + latencyTarget - tracker.estimate(limit);
+
+            long now;
+            while (observable == currentObservable && observable.getNumExamples() < limit
+                            && (now = System.nanoTime()) < deadline) {
+                LockSupport.parkNanos(Math.min(deadline - now, MAX_PARK_NANOS));
+            }
+        }
     }
 }
@@ -101,6 +101,8 @@ public class ParallelWrapper implements AutoCloseable {
     protected int workers = 2;
     protected int prefetchSize = 2;
     protected int averagingFrequency = 1;
+    protected int averagingShards = 0;
+    protected ShardedAverager averager;
     protected Trainer[] zoo;
     protected TrainerContext trainerContext;
     protected AtomicLong iterationsCounter = new AtomicLong(0);
@@ -183,6 +185,11 @@ public class ParallelWrapper implements AutoCloseable {
             executorService = null;
         }
 
+        if (averager != null) {
+            averager.close();
+            averager = null;
+        }
+
         if (gradientsAccumulator != null)
             gradientsAccumulator.reset();
     }
@@ -351,7 +358,7 @@ public class ParallelWrapper implements AutoCloseable {
             score += zoo[cnt].getModel().score();
         }
 
-        Nd4j.averageAndPropagate(null, params);
+        averageAndPropagate(params);
 
 
         score /= Math.min(workers, locker.get());
@@ -363,6 +370,22 @@ public class ParallelWrapper implements AutoCloseable {
         return score;
     }
 
+    /**
+     * This method averages given arrays, and propagates result to all of them,
+     * using sharded averaging if it was enabled via Builder.averagingShards()
+     */
+    private void averageAndPropagate(List<INDArray> arrays) {
+        // sharded averaging works on host memory only, so multi-device setups stick to the backend implementation
+        if (averagingShards > 0 && Nd4j.getAffinityManager().getNumberOfDevices() == 1) {
+            if (averager == null)
+                averager = new ShardedAverager(averagingShards);
+
+            averager.averageAndPropagate(arrays);
+        } else {
+            Nd4j.averageAndPropagate(null, arrays);
+        }
+    }
+
     private void averageUpdatersState(AtomicInteger locker, double score) {
         // averaging updaters state
         if (model instanceof MultiLayerNetwork) {
@@ -378,7 +401,7 @@ public class ParallelWrapper implements AutoCloseable {
                         batchSize += workerModel.batchSize();
                     }
 
-                    Nd4j.averageAndPropagate(null, updaters);
+                    averageAndPropagate(updaters);
                 }
             }
 
@@ -395,7 +418,7 @@ public class ParallelWrapper implements AutoCloseable {
                         updaters.add(workerModel.getUpdater().getStateViewArray());
                         batchSize += workerModel.batchSize();
                     }
-                    Nd4j.averageAndPropagate(null, updaters);
+                    averageAndPropagate(updaters);
                 }
             }
 
@@ -676,6 +699,7 @@ public class ParallelWrapper implements AutoCloseable {
         protected int workers = Nd4j.getAffinityManager().getNumberOfDevices();
         protected int prefetchSize = 16;
         protected int averagingFrequency = 1;
+        protected int averagingShards = 0;
         protected boolean reportScore = false;
         protected boolean averageUpdaters = true;
         protected boolean legacyAveraging = true;
@@ -787,6 +811,27 @@ public class ParallelWrapper implements AutoCloseable {
             return this;
         }
 
+        /**
+         * This method enables sharded averaging: params and updater state are split into given number of disjoint
+         * shards, and each shard is averaged by its own thread, concurrently with other shards.
+         * 0 means single-threaded averaging of whole arrays.
+         *
+         * Default value: 0
+         *
+         * PLEASE NOTE: This method is suitable for parameters averaging training only. For gradients sharing mechanism it'll be ignored
+         * PLEASE NOTE: This option is ignored if more than one device is available
+         *
+         * @param shards number of shards, i.e. number of physical cores available for averaging
+         * @return
+         */
+        public Builder averagingShards(int shards) {
+            if (shards < 0)
+                throw new IllegalStateException("Number of averaging shards should be non-negative value");
+
+            this.averagingShards = shards;
+            return this;
+        }
+
         /**
          * This method enables/disables updaters averaging.
          *
@@ -889,6 +934,7 @@ public class ParallelWrapper implements AutoCloseable {
         public ParallelWrapper build() {
             ParallelWrapper wrapper = new ParallelWrapper(model, workers, prefetchSize);
             wrapper.averagingFrequency = this.averagingFrequency;
+            wrapper.averagingShards = this.averagingShards;
             wrapper.reportScore = this.reportScore;
             wrapper.averageUpdaters = this.averageUpdaters;
             wrapper.legacyAveraging = this.legacyAveraging;
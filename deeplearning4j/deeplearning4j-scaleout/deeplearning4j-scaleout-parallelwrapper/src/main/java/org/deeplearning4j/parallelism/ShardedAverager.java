@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class averages equally-sized flat arrays (i.e. model params or updater state of multiple replicas), and
+ * propagates result back to all of them, in the same way as {@link Nd4j#averageAndPropagate(INDArray, java.util.Collection)} does.
+ *
+ * Arrays are split into disjoint shards, and each shard is reduced and broadcast by its own thread, concurrently with
+ * other shards. That's reduce-scatter + all-gather scheme of ring all-reduce, applied to replicas sharing memory.
+ *
+ * PLEASE NOTE: All arrays are expected to be in host memory, so this class isn't suitable for multi-device setups
+ */
+@Slf4j
+public class ShardedAverager implements AutoCloseable {
+    // shards smaller than this aren't worth separate task
+    public static final long MIN_SHARD_LENGTH = 8192;
+
+    private final int shards;
+    private final ExecutorService executor;
+
+    /**
+     * @param shards Number of shards, and threads used for averaging
+     */
+    public ShardedAverager(int shards) {
+        Preconditions.checkArgument(shards > 0, "Number of shards should be positive, got %s", shards);
+        this.shards = shards;
+
+        final AtomicInteger counter = new AtomicInteger(0);
+        this.executor = Executors.newFixedThreadPool(shards, new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable r) {
+                Thread t = Executors.defaultThreadFactory().newThread(r);
+                t.setName("ParallelWrapper averaging thread " + counter.getAndIncrement());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * This method averages given arrays, and propagates result to all of them.
+     * Method returns once all shards are done.
+     *
+     * @param arrays contiguous vectors of equal length
+     */
+    public void averageAndPropagate(@NonNull final List<INDArray> arrays) {
+        if (arrays.size() < 2)
+            return;
+
+        final long length = arrays.get(0).length();
+        for (INDArray array : arrays) {
+            Preconditions.checkArgument(array.isVector() && array.elementWiseStride() == 1,
+                            "Only contiguous vectors can be averaged, got array with shape %s", array.shape());
+            Preconditions.checkArgument(array.length() == length,
+                            "All arrays should have equal length: expected %s, got %s", length, array.length());
+        }
+
+        int numShards = (int) Math.max(1, Math.min(shards, length / MIN_SHARD_LENGTH));
+        if (numShards == 1) {
+            averageShard(arrays, 0, length);
+            return;
+        }
+
+        long shardLength = (length + numShards - 1) / numShards;
+        List<Future<?>> futures = new ArrayList<>(numShards);
+        for (int s = 0; s < numShards; s++) {
+            final long start = s * shardLength;
+            final long end = Math.min(length, start + shardLength);
+            if (start >= end)
+                break;
+
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    averageShard(arrays, start, end);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> f : futures)
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Averaging failed", e.getCause());
+        }
+    }
+
+    /**
+     * This method averages elements [start, end) of given arrays
+     */
+    protected void averageShard(List<INDArray> arrays, long start, long end) {
+        int n = arrays.size();
+        INDArray[] views = new INDArray[n];
+        for (int i = 0; i < n; i++) {
+            INDArray array = arrays.get(i);
+            if (start == 0 && end == array.length())
+                views[i] = array;
+            else if (array.rank() == 1)
+                views[i] = array.get(NDArrayIndex.interval(start, end));
+            else if (array.rows() == 1)
+                views[i] = array.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end));
+            else
+                views[i] = array.get(NDArrayIndex.interval(start, end), NDArrayIndex.point(0));
+        }
+
+        Nd4j.averageAndPropagate(null, views);
+        Nd4j.getExecutioner().commit();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+/**
+ * This class keeps track of forward pass times per batch size bucket, and is used by adaptive BATCHED inference
+ * to decide how large a batch can be, and how long a batch can wait for more inputs, without violating target latency.
+ *
+ * For every bucket we keep exponentially weighted mean and mean absolute deviation of measured forward pass time,
+ * and use mean + 3 * deviation as a conservative estimate of tail (~p99) latency.
+ */
+@Slf4j
+public class BatchLatencyTracker {
+    public static final double DEFAULT_DECAY = 0.1;
+
+    private final int[] buckets;
+    private final double decay;
+
+    private final double[] mean;
+    private final double[] deviation;
+    private final long[] samples;
+
+    public BatchLatencyTracker(int batchLimit) {
+        this(defaultBuckets(batchLimit));
+    }
+
+    public BatchLatencyTracker(@NonNull int[] buckets) {
+        this(buckets, DEFAULT_DECAY);
+    }
+
+    public BatchLatencyTracker(@NonNull int[] buckets, double decay) {
+        if (buckets.length < 1)
+            throw new IllegalStateException("At least one batch size bucket should be defined");
+
+        if (decay <= 0.0 || decay > 1.0)
+            throw new IllegalStateException("Decay should be in range (0, 1]");
+
+        this.buckets = Arrays.copyOf(buckets, buckets.length);
+        Arrays.sort(this.buckets);
+
+        if (this.buckets[0] < 1)
+            throw new IllegalStateException("Batch size buckets should be positive values");
+
+        this.decay = decay;
+        this.mean = new double[buckets.length];
+        this.deviation = new double[buckets.length];
+        this.samples = new long[buckets.length];
+    }
+
+    /**
+     * This method builds power-of-2 buckets up to batchLimit, i.e. 1, 2, 4, 8... batchLimit
+     *
+     * @param batchLimit
+     * @return
+     */
+    public static int[] defaultBuckets(int batchLimit) {
+        if (batchLimit < 1)
+            throw new IllegalStateException("Batch limit should be positive value");
+
+        int cnt = 0;
+        for (int b = 1; b < batchLimit; b <<= 1)
+            cnt++;
+
+        int[] result = new int[cnt + 1];
+        int e = 0;
+        for (int b = 1; b < batchLimit; b <<= 1)
+            result[e++] = b;
+
+        result[e] = batchLimit;
+        return result;
+    }
+
+    /**
+     * This method returns copy of batch size buckets, in ascending order
+     *
+     * @return
+     */
+    public int[] getBuckets() {
+        return Arrays.copyOf(buckets, buckets.length);
+    }
+
+    /**
+     * This method returns largest bucket size
+     *
+     * @return
+     */
+    public int getMaxBucket() {
+        return buckets[buckets.length - 1];
+    }
+
+    /**
+     * This method returns smallest bucket that can hold given number of examples.
+     * If batchSize exceeds largest bucket, batchSize is returned as is.
+     *
+     * @param batchSize
+     * @return
+     */
+    public int bucketFor(int batchSize) {
+        int idx = bucketIndex(batchSize);
+        return idx < 0 ? batchSize : buckets[idx];
+    }
+
+    protected int bucketIndex(int batchSize) {
+        for (int e = 0; e < buckets.length; e++)
+            if (buckets[e] >= batchSize)
+                return e;
+
+        return -1;
+    }
+
+    /**
+     * This method stores measured forward pass time for given batch size.
+     * Batches larger than the largest bucket (i.e. single oversized input) are ignored, since they'd skew its estimate.
+     *
+     * @param batchSize number of examples in batch, including padding
+     * @param nanos forward pass time, in nanoseconds
+     */
+    public synchronized void record(int batchSize, long nanos) {
+        int idx = bucketIndex(batchSize);
+        if (idx < 0)
+            return;
+
+        if (samples[idx] == 0) {
+            mean[idx] = nanos;
+            deviation[idx] = 0.0;
+        } else {
+            double diff = nanos - mean[idx];
+            mean[idx] += decay * diff;
+            deviation[idx] += decay * (Math.abs(diff) - deviation[idx]);
+        }
+
+        samples[idx]++;
+    }
+
+    /**
+     * This method returns estimated tail forward pass time for given batch size, in nanoseconds.
+     * If there were no measurements for the bucket yet, estimate is extrapolated linearly from closest smaller measured bucket.
+     *
+     * @param batchSize
+     * @return estimated time, or 0 if nothing was measured yet
+     */
+    public synchronized long estimate(int batchSize) {
+        int idx = bucketIndex(batchSize);
+        if (idx < 0)
+            idx = buckets.length - 1;
+
+        if (samples[idx] > 0)
+            return (long) (mean[idx] + 3.0 * deviation[idx]);
+
+        for (int e = idx - 1; e >= 0; e--) {
+            if (samples[e] > 0)
+                return (long) ((mean[e] + 3.0 * deviation[e]) * buckets[idx] / buckets[e]);
+        }
+
+        return 0L;
+    }
+
+    /**
+     * This method returns largest bucket size which is expected to fit into given time budget.
+     *
+     * PLEASE NOTE: Only one bucket above the largest measured one is considered, so batch size grows gradually
+     * while measurements are collected.
+     *
+     * @param budgetNanos
+     * @return
+     */
+    public synchronized int maxBatchSize(long budgetNanos) {
+        int result = buckets[0];
+        for (int e = 0; e < buckets.length; e++) {
+            if (samples[e] == 0) {
+                // first unmeasured bucket is used for exploration, but only if smaller bucket fits
+                if (e == 0 || samples[e - 1] > 0)
+                    result = buckets[e];
+
+                break;
+            }
+
+            if (mean[e] + 3.0 * deviation[e] > budgetNanos)
+                break;
+
+            result = buckets[e];
+        }
+
+        return result;
+    }
+
+    /**
+     * This method returns number of measurements stored for given batch size bucket
+     *
+     * @param batchSize
+     * @return
+     */
+    public synchronized long getNumberOfSamples(int batchSize) {
+        int idx = bucketIndex(batchSize);
+        return idx < 0 ? 0 : samples[idx];
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.parallelism.inference.observers.AsyncInferenceObserver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This thread completes asynchronous inference requests.
+ *
+ * Inference workers (multiple producers) hand finished observers over via lock-free queue, and this thread (single consumer)
+ * completes futures and callbacks, so user code never runs on inference workers, and no monitors are involved in handoff.
+ */
+@Slf4j
+public class CompletionDispatcher extends Thread implements Runnable {
+    private final Queue<AsyncInferenceObserver> queue = new ConcurrentLinkedQueue<>();
+    private volatile boolean shouldWork = true;
+
+    public CompletionDispatcher() {
+        this.setDaemon(true);
+        this.setName("InferenceCompletionThread");
+    }
+
+    /**
+     * This method hands finished observer over to this thread
+     *
+     * @param observer
+     */
+    public void enqueue(@NonNull AsyncInferenceObserver observer) {
+        queue.add(observer);
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+        while (shouldWork || !queue.isEmpty()) {
+            AsyncInferenceObserver observer = queue.poll();
+            if (observer == null) {
+                // unpark() issued before park() is not lost, so no extra synchronization is needed here
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                observer.complete();
+            } catch (Throwable t) {
+                log.error("Failed to complete inference request", t);
+            }
+        }
+    }
+
+    /**
+     * This method stops this thread, once all pending requests are completed
+     */
+    public void shutdown() {
+        shouldWork = false;
+        LockSupport.unpark(this);
+    }
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * This interface describes callback for asynchronous ParallelInference output.
+ *
+ * PLEASE NOTE: Callbacks are invoked from ParallelInference completion thread, so they should return quickly
+ */
+public interface InferenceCallback {
+
+    /**
+     * This method is called once output for the input is available
+     *
+     * @param output
+     */
+    void onOutput(INDArray[] output);
+
+    /**
+     * This method is called if inference failed for the input
+     *
+     * @param throwable
+     */
+    void onError(Throwable throwable);
+}
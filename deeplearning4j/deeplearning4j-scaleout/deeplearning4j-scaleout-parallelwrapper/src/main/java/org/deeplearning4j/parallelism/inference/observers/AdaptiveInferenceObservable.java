@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference.observers;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.deeplearning4j.parallelism.inference.BatchLatencyTracker;
+import org.deeplearning4j.parallelism.inference.InferenceObservable;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class extends BATCHED inference use case with latency-driven batching:
+ * it remembers when the batch was opened, and optionally pads merged batches up to the
+ * closest batch size bucket, so model sees only a few distinct input shapes and workspaces get reused.
+ */
+@Slf4j
+public class AdaptiveInferenceObservable extends BatchedInferenceObservable implements InferenceObservable {
+    @Getter
+    private final long creationTime;
+    private final BatchLatencyTracker tracker;
+    private final boolean padBatches;
+
+    // actual (non-padded) number of examples per output batch
+    private final List<Long> batchSizes = new ArrayList<>();
+
+    public AdaptiveInferenceObservable(@NonNull BatchLatencyTracker tracker, boolean padBatches) {
+        super();
+        this.creationTime = System.nanoTime();
+        this.tracker = tracker;
+        this.padBatches = padBatches;
+    }
+
+    @Override
+    public List<Pair<INDArray[], INDArray[]>> getInputBatches() {
+        List<Pair<INDArray[], INDArray[]>> batches = super.getInputBatches();
+        List<Pair<INDArray[], INDArray[]>> result = new ArrayList<>(batches.size());
+
+        batchSizes.clear();
+        for (val batch : batches) {
+            long size = batch.getFirst()[0].size(0);
+            batchSizes.add(size);
+
+            if (!padBatches || size > Integer.MAX_VALUE) {
+                result.add(batch);
+                continue;
+            }
+
+            int bucket = tracker.bucketFor((int) size);
+            if (bucket == size) {
+                result.add(batch);
+                continue;
+            }
+
+            result.add(new Pair<>(pad(batch.getFirst(), bucket), pad(batch.getSecond(), bucket)));
+        }
+
+        return result;
+    }
+
+    @Override
+    public void setOutputBatches(List<INDArray[]> output) {
+        // padded rows are always at the tail of the batch, so we just cut them off before splitting
+        if (padBatches) {
+            List<INDArray[]> trimmed = new ArrayList<>(output.size());
+            for (int e = 0; e < output.size(); e++) {
+                INDArray[] arrays = output.get(e);
+                long size = batchSizes.get(e);
+                INDArray[] cut = new INDArray[arrays.length];
+                for (int i = 0; i < arrays.length; i++)
+                    cut[i] = trim(arrays[i], size);
+
+                trimmed.add(cut);
+            }
+            output = trimmed;
+        }
+
+        super.setOutputBatches(output);
+    }
+
+    protected static INDArray[] pad(INDArray[] arrays, int bucket) {
+        if (arrays == null)
+            return null;
+
+        INDArray[] result = new INDArray[arrays.length];
+        for (int e = 0; e < arrays.length; e++) {
+            INDArray array = arrays[e];
+            if (array == null || array.size(0) >= bucket) {
+                result[e] = array;
+                continue;
+            }
+
+            val shape = array.shape().clone();
+            shape[0] = bucket;
+
+            INDArray padded = Nd4j.createUninitialized(array.dataType(), shape, array.ordering());
+            padded.get(rowsInterval(array.rank(), 0, array.size(0))).assign(array);
+            padded.get(rowsInterval(array.rank(), array.size(0), bucket)).assign(0.0);
+
+            result[e] = padded;
+        }
+
+        return result;
+    }
+
+    protected static INDArray trim(INDArray array, long size) {
+        if (array == null || array.size(0) == size)
+            return array;
+
+        return array.get(rowsInterval(array.rank(), 0, size));
+    }
+
+    private static INDArrayIndex[] rowsInterval(int rank, long from, long to) {
+        INDArrayIndex[] indices = new INDArrayIndex[rank];
+        indices[0] = NDArrayIndex.interval(from, to);
+        for (int e = 1; e < rank; e++)
+            indices[e] = NDArrayIndex.all();
+
+        return indices;
+    }
+}
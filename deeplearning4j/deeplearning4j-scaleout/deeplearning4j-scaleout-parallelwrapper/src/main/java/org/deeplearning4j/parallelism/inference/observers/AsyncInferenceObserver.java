@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference.observers;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.parallelism.inference.CompletionDispatcher;
+import org.deeplearning4j.parallelism.inference.InferenceObservable;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Observer implementation for asynchronous inference: instead of blocking the caller,
+ * it hands itself over to CompletionDispatcher, which completes the future.
+ */
+@Slf4j
+public class AsyncInferenceObserver implements Observer {
+    @Getter
+    private final CompletableFuture<INDArray[]> future = new CompletableFuture<>();
+    private final CompletionDispatcher dispatcher;
+
+    private volatile InferenceObservable observable;
+    private volatile int position = -1;
+
+    public AsyncInferenceObserver(@NonNull CompletionDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * This method sets position of the input within batched observable.
+     * Must be called before observer is attached to the observable.
+     *
+     * @param position
+     */
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    @Override
+    public void update(Observable o, Object arg) {
+        this.observable = (InferenceObservable) o;
+        dispatcher.enqueue(this);
+    }
+
+    /**
+     * This method completes the future with output or exception. Called from CompletionDispatcher thread.
+     */
+    public void complete() {
+        try {
+            INDArray[] output;
+            if (position >= 0 && observable instanceof BatchedInferenceObservable)
+                output = ((BatchedInferenceObservable) observable).getOutput(position);
+            else
+                output = observable.getOutput();
+
+            future.complete(output);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
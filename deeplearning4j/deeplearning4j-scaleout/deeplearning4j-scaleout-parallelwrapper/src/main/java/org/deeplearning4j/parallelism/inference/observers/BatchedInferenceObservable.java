@@ -33,6 +33,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -46,6 +47,7 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
     private List<INDArray[]> inputMasks = new ArrayList<>();
     private List<INDArray[]> outputs = new ArrayList<>();
     private AtomicInteger counter = new AtomicInteger(0);
+    private AtomicLong numExamples = new AtomicLong(0);
     private ThreadLocal<Integer> position = new ThreadLocal<>();
     private List<int[]> outputBatchInputArrays = new ArrayList<>();
 
@@ -65,6 +67,7 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
             inputs.add(input);
             this.inputMasks.add(inputMasks);
             position.set(counter.getAndIncrement());
+            numExamples.addAndGet(input[0].size(0));
 
             if (isReadLocked.get())
                 realLocker.readLock().unlock();
@@ -218,10 +221,29 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         position.set(pos);
     }
 
+    /**
+     * This method returns position of the last input added from the calling thread
+     *
+     * @return
+     */
+    public int getPosition() {
+        return position.get();
+    }
+
     public int getCounter() {
         return counter.get();
     }
 
+    /**
+     * This method returns total number of examples added so far. Unlike {@link #getCounter()}, multi-example
+     * inputs are counted by their size
+     *
+     * @return
+     */
+    public long getNumExamples() {
+        return numExamples.get();
+    }
+
 
 
     public boolean isLocked() {
@@ -242,4 +264,16 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         checkOutputException();
         return outputs.get(position.get());
     }
+
+    /**
+     * This method returns output for specific input position. Unlike {@link #getOutput()} it doesn't rely on
+     * calling thread, so it can be used when output is consumed from a different thread.
+     *
+     * @param position position of the input, as returned by {@link #getPosition()}
+     * @return
+     */
+    public INDArray[] getOutput(int position) {
+        checkOutputException();
+        return outputs.get(position);
+    }
 }
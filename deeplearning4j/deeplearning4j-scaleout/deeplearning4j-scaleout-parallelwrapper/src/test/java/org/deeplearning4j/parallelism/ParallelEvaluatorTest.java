@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism;
+
+import lombok.val;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.evaluation.classification.Evaluation;
+import org.nd4j.evaluation.classification.ROCMultiClass;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.dataset.adapter.MultiDataSetIteratorAdapter;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class ParallelEvaluatorTest {
+
+    @Test
+    public void testMultiLayerNetwork() {
+        val conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(4).nOut(10).activation(Activation.TANH).build())
+                .layer(new OutputLayer.Builder().nIn(10).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .build();
+
+        val net = new MultiLayerNetwork(conf);
+        net.init();
+        net.fit(new IrisDataSetIterator(10, 150));
+
+        val expEval = new Evaluation(3);
+        val expRoc = new ROCMultiClass(0);
+        net.doEvaluation(new IrisDataSetIterator(7, 150), expEval, expRoc);
+
+        for (int workers : new int[] {1, 3}) {
+            for (int prefetch : new int[] {0, 2}) {
+                val evaluator = new ParallelEvaluator.Builder(net)
+                        .workers(workers)
+                        .prefetchSize(prefetch)
+                        .build();
+
+                val eval = new Evaluation(3);
+                val roc = new ROCMultiClass(0);
+                val result = evaluator.evaluate(new IrisDataSetIterator(7, 150), eval, roc);
+
+                assertSame(eval, result[0]);
+                assertEquals(150, eval.getNumRowCounter(), 0.0);
+                assertEquals(expEval.stats(), eval.stats());
+                assertEquals(expRoc.calculateAverageAUC(), roc.calculateAverageAUC(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testComputationGraph() {
+        val conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("dense", new DenseLayer.Builder().nIn(4).nOut(10).activation(Activation.TANH).build(), "in")
+                .addLayer("out", new OutputLayer.Builder().nIn(10).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build(), "dense")
+                .setOutputs("out")
+                .build();
+
+        val graph = new ComputationGraph(conf);
+        graph.init();
+        graph.fit(new IrisDataSetIterator(10, 150));
+
+        val expected = graph.evaluate(new IrisDataSetIterator(7, 150));
+
+        val evaluator = new ParallelEvaluator.Builder(graph)
+                .workers(3)
+                .build();
+
+        val evalDs = evaluator.evaluate(new IrisDataSetIterator(7, 150), new Evaluation(3))[0];
+        assertEquals(expected.stats(), evalDs.stats());
+
+        val evalMds = evaluator.evaluate(new MultiDataSetIteratorAdapter(new IrisDataSetIterator(7, 150)),
+                new Evaluation(3))[0];
+        assertEquals(expected.stats(), evalMds.stats());
+    }
+
+    @Test
+    public void testParallelInferenceEntryPoint() {
+        val conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(new OutputLayer.Builder().nIn(4).nOut(3).activation(Activation.SOFTMAX)
+                        .lossFunction(LossFunctions.LossFunction.MCXENT).build())
+                .build();
+
+        val net = new MultiLayerNetwork(conf);
+        net.init();
+
+        val expected = net.evaluate(new IrisDataSetIterator(10, 150));
+
+        val inference = new ParallelInference.Builder(net)
+                .workers(2)
+                .build();
+
+        try {
+            val eval = inference.evaluate(new IrisDataSetIterator(10, 150), new Evaluation(3))[0];
+            assertEquals(expected.stats(), eval.stats());
+        } finally {
+            inference.shutdown();
+        }
+    }
+}
@@ -32,6 +32,8 @@ import org.nd4j.linalg.io.ClassPathResource;
 import org.deeplearning4j.datasets.iterator.impl.MnistDataSetIterator;
 import org.deeplearning4j.eval.Evaluation;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.BatchLatencyTracker;
+import org.deeplearning4j.parallelism.inference.InferenceCallback;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.observers.BasicInferenceObserver;
@@ -49,7 +51,11 @@ import org.nd4j.linalg.primitives.Pair;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
@@ -936,4 +942,175 @@ public class ParallelInferenceTest {
             assertArrayEquals(e, a);
         }
     }
+
+    @Test(timeout = 60000L)
+    public void testInferenceAdaptiveBatched() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).activation(Activation.SOFTMAX).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        final List<INDArray> in = new ArrayList<>();
+        final List<INDArray> exp = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            INDArray arr = Nd4j.rand(1 + (i % 3), nIn);
+            in.add(arr);
+            exp.add(net.output(arr));
+        }
+
+        for (boolean pad : new boolean[]{false, true}) {
+            final ParallelInference inf = new ParallelInference.Builder(net)
+                    .inferenceMode(InferenceMode.BATCHED)
+                    .latencyTarget(50, TimeUnit.MILLISECONDS)
+                    .batchBuckets(1, 2, 4, 8, 16)
+                    .padBatches(pad)
+                    .workers(2)
+                    .build();
+
+            final INDArray[] act = new INDArray[in.size()];
+            final AtomicInteger failedCount = new AtomicInteger(0);
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                final int thread = t;
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = thread; i < in.size(); i += 8)
+                                act[i] = inf.output(in.get(i));
+                        } catch (Exception e) {
+                            log.error("", e);
+                            failedCount.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+
+            for (Thread t : threads)
+                t.join();
+
+            assertEquals(0, failedCount.get());
+            for (int i = 0; i < in.size(); i++)
+                assertEquals(exp.get(i), act[i]);
+
+            inf.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptiveBatchingCountsExamples() throws Exception {
+        BatchLatencyTracker tracker = new BatchLatencyTracker(new int[] {1, 2, 4, 8});
+        for (int size : tracker.getBuckets())
+            tracker.record(size, 1000L);
+
+        LinkedBlockingQueue<InferenceObservable> queue = new LinkedBlockingQueue<>();
+        ParallelInference.AdaptiveObservablesProvider provider = new ParallelInference.AdaptiveObservablesProvider(
+                        TimeUnit.SECONDS.toNanos(10), tracker, true, queue);
+        assertEquals(8, provider.currentBatchLimit());
+
+        // 3 + 3 examples fit into limit of 8, third request of 3 examples has to go into next batch
+        for (int e = 0; e < 3; e++)
+            provider.setInput(new BasicInferenceObserver(), Nd4j.rand(3, 10));
+
+        assertEquals(2, queue.size());
+        BatchedInferenceObservable first = (BatchedInferenceObservable) queue.take();
+        BatchedInferenceObservable second = (BatchedInferenceObservable) queue.take();
+        assertEquals(2, first.getCounter());
+        assertEquals(6, first.getNumExamples());
+        assertEquals(3, second.getNumExamples());
+
+        // merged batch is padded up to the closest bucket
+        List<Pair<INDArray[], INDArray[]>> batches = first.getInputBatches();
+        assertEquals(1, batches.size());
+        assertArrayEquals(new long[] {8, 10}, batches.get(0).getFirst()[0].shape());
+
+        // single request above the limit still gets a batch of its own
+        provider.setInput(new BasicInferenceObserver(), Nd4j.rand(12, 10));
+        assertEquals(1, queue.size());
+        assertEquals(12, ((BatchedInferenceObservable) queue.take()).getNumExamples());
+    }
+
+    @Test(timeout = 60000L)
+    public void testOutputAsync() throws Exception {
+        int nIn = 10;
+
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .activation(Activation.TANH)
+                .seed(12345)
+                .list()
+                .layer(new DenseLayer.Builder().nIn(nIn).nOut(5).build())
+                .layer(new OutputLayer.Builder().nIn(5).nOut(5).activation(Activation.SOFTMAX).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        List<INDArray> in = new ArrayList<>();
+        List<INDArray> exp = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            INDArray arr = Nd4j.rand(1, nIn);
+            in.add(arr);
+            exp.add(net.output(arr));
+        }
+
+        for (InferenceMode m : InferenceMode.values()) {
+            log.info("Starting: m={}", m);
+            ParallelInference inf = new ParallelInference.Builder(net)
+                    .inferenceMode(m)
+                    .batchLimit(16)
+                    .workers(2)
+                    .build();
+
+            List<CompletableFuture<INDArray[]>> futures = new ArrayList<>();
+            for (INDArray arr : in)
+                futures.add(inf.outputAsync(arr));
+
+            final CountDownLatch latch = new CountDownLatch(in.size());
+            final INDArray[] callbackOut = new INDArray[in.size()];
+            final AtomicInteger failedCount = new AtomicInteger(0);
+            for (int i = 0; i < in.size(); i++) {
+                final int idx = i;
+                inf.outputAsync(new INDArray[]{in.get(i)}, null, new InferenceCallback() {
+                    @Override
+                    public void onOutput(INDArray[] output) {
+                        callbackOut[idx] = output[0];
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        failedCount.incrementAndGet();
+                        latch.countDown();
+                    }
+                });
+            }
+
+            for (int i = 0; i < in.size(); i++)
+                assertEquals(exp.get(i), futures.get(i).get()[0]);
+
+            latch.await();
+            assertEquals(0, failedCount.get());
+            for (int i = 0; i < in.size(); i++)
+                assertEquals(exp.get(i), callbackOut[i]);
+
+            // errors should be propagated through the future as well
+            try {
+                inf.outputAsync(Nd4j.ones(1, nIn + 1)).get();
+                fail("Expected exception");
+            } catch (ExecutionException e) {
+                //OK
+            }
+
+            inf.shutdown();
+        }
+    }
 }
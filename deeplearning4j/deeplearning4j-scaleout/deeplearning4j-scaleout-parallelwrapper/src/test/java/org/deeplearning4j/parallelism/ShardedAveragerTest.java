@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+public class ShardedAveragerTest {
+
+    @Test
+    public void testAveraging() {
+        int length = (int) ShardedAverager.MIN_SHARD_LENGTH * 5 + 17;
+
+        for (char order : new char[] {'c', 'f'}) {
+            for (int replicas : new int[] {2, 6}) {
+                List<INDArray> arrays = new ArrayList<>();
+                INDArray expected = Nd4j.create(1, length);
+                for (int i = 0; i < replicas; i++) {
+                    INDArray array = Nd4j.rand(new int[] {1, length}).dup(order);
+                    expected.addi(array);
+                    arrays.add(array);
+                }
+                expected.divi(replicas);
+
+                try (ShardedAverager averager = new ShardedAverager(4)) {
+                    averager.averageAndPropagate(arrays);
+                }
+
+                for (INDArray array : arrays)
+                    assertTrue(order + "/" + replicas, expected.equalsWithEps(array, 1e-5));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallArrays() {
+        List<INDArray> arrays = new ArrayList<>();
+        arrays.add(Nd4j.create(new double[] {1, 2, 3}));
+        arrays.add(Nd4j.create(new double[] {3, 4, 5}));
+
+        try (ShardedAverager averager = new ShardedAverager(8)) {
+            averager.averageAndPropagate(arrays);
+        }
+
+        INDArray expected = Nd4j.create(new double[] {2, 3, 4});
+        assertTrue(expected.equalsWithEps(arrays.get(0), 1e-5));
+        assertTrue(expected.equalsWithEps(arrays.get(1), 1e-5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLengthMismatch() {
+        List<INDArray> arrays = new ArrayList<>();
+        arrays.add(Nd4j.create(1, 10));
+        arrays.add(Nd4j.create(1, 11));
+
+        try (ShardedAverager averager = new ShardedAverager(2)) {
+            averager.averageAndPropagate(arrays);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@Slf4j
+public class BatchLatencyTrackerTest {
+
+    @Test
+    public void testDefaultBuckets() {
+        assertArrayEquals(new int[] {1, 2, 4, 8, 16, 32}, BatchLatencyTracker.defaultBuckets(32));
+        assertArrayEquals(new int[] {1, 2, 4, 8, 16, 20}, BatchLatencyTracker.defaultBuckets(20));
+        assertArrayEquals(new int[] {1}, BatchLatencyTracker.defaultBuckets(1));
+    }
+
+    @Test
+    public void testBucketFor() {
+        BatchLatencyTracker tracker = new BatchLatencyTracker(new int[] {8, 1, 4});
+
+        assertEquals(1, tracker.bucketFor(1));
+        assertEquals(4, tracker.bucketFor(2));
+        assertEquals(4, tracker.bucketFor(4));
+        assertEquals(8, tracker.bucketFor(5));
+        assertEquals(12, tracker.bucketFor(12));
+    }
+
+    @Test
+    public void testBatchSizeGrowth() {
+        BatchLatencyTracker tracker = new BatchLatencyTracker(16);
+
+        // nothing measured yet - we start from smallest bucket
+        assertEquals(1, tracker.maxBatchSize(1000L));
+
+        tracker.record(1, 100L);
+        assertEquals(2, tracker.maxBatchSize(1000L));
+
+        tracker.record(2, 200L);
+        tracker.record(4, 400L);
+        tracker.record(8, 1500L);
+        assertEquals(4, tracker.maxBatchSize(1000L));
+
+        // largest measured bucket fits, so next one gets explored
+        assertEquals(16, tracker.maxBatchSize(2000L));
+    }
+
+    @Test
+    public void testEstimate() {
+        BatchLatencyTracker tracker = new BatchLatencyTracker(16);
+        assertEquals(0L, tracker.estimate(4));
+
+        tracker.record(2, 200L);
+        assertEquals(200L, tracker.estimate(2));
+
+        // unmeasured buckets are extrapolated from smaller ones
+        assertEquals(800L, tracker.estimate(8));
+        assertEquals(0L, tracker.estimate(1));
+
+        tracker.record(2, 300L);
+        assertEquals(2, tracker.getNumberOfSamples(2));
+
+        // mean 210, deviation 10
+        assertEquals(240L, tracker.estimate(2));
+    }
+
+    @Test
+    public void testOversizedBatchIgnored() {
+        BatchLatencyTracker tracker = new BatchLatencyTracker(16);
+        tracker.record(16, 1600L);
+
+        // single oversized input must not skew estimate for the largest bucket
+        tracker.record(32, 100000L);
+        assertEquals(1, tracker.getNumberOfSamples(16));
+        assertEquals(1600L, tracker.estimate(16));
+    }
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.spark.api.worker;
+
+import lombok.Data;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Serializable;
+
+/**
+ * Difference between current parameters and those in a previously broadcast {@link NetBroadcastTuple}, usually
+ * stored with reduced precision, plus current updater state. Workers reconstruct current parameters as
+ * base parameters + delta, so network configuration and full parameters don't have to be broadcast every round.
+ * Updater state (i.e. second moment estimates) is too sensitive for reduced precision, so it's kept as is.
+ */
+@Data
+public class NetDeltaBroadcastTuple implements Serializable {
+
+    private final INDArray parametersDelta;
+    private final INDArray updaterState;
+
+    public NetDeltaBroadcastTuple(INDArray parametersDelta, INDArray updaterState) {
+        this.parametersDelta = parametersDelta;
+        this.updaterState = updaterState;
+    }
+}
@@ -55,6 +55,7 @@ import org.deeplearning4j.spark.impl.paramavg.aggregator.ParameterAveragingEleme
 import org.deeplearning4j.spark.impl.paramavg.stats.ParameterAveragingTrainingMasterStats;
 import org.deeplearning4j.spark.util.SparkUtils;
 import org.deeplearning4j.util.UIDProvider;
+import org.nd4j.linalg.api.buffer.DataType;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSet;
@@ -66,6 +67,7 @@ import org.nd4j.shade.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -79,9 +81,11 @@ import static com.google.common.base.Preconditions.checkArgument;
  */
 @Data
 @JsonIgnoreProperties({"stats", "listeners", "iterationCount", "rng", "lastExportedRDDId", "lastRDDExportPath",
-                "trainingMasterUID"})
+                "trainingMasterUID", "baseBroadcast", "baseParams", "baseUpdaterState", "lastBroadcastParams",
+                "pendingRound", "aggregationExecutor"})
 @EqualsAndHashCode(exclude = {"stats", "listeners", "iterationCount", "rng", "lastExportedRDDId", "lastRDDExportPath",
-                "trainingMasterUID"})
+                "trainingMasterUID", "baseBroadcast", "baseParams", "baseUpdaterState", "lastBroadcastParams",
+                "pendingRound", "aggregationExecutor"})
 @Slf4j
 public class ParameterAveragingTrainingMaster
                 extends BaseTrainingMaster<ParameterAveragingTrainingResult, ParameterAveragingTrainingWorker>
@@ -98,6 +102,16 @@ public class ParameterAveragingTrainingMaster
     protected int aggregationDepth;
     protected int prefetchNumBatches;
     protected int iterationCount = 0;
+    protected boolean overlapAveraging;
+    protected boolean deltaBroadcast;
+
+    //State for delta broadcast and overlapped averaging. Valid within single fit call only
+    protected transient Broadcast<NetBroadcastTuple> baseBroadcast;
+    protected transient INDArray baseParams;
+    protected transient INDArray baseUpdaterState;
+    protected transient INDArray lastBroadcastParams;
+    protected transient PendingRound pendingRound;
+    protected transient ExecutorService aggregationExecutor;
 
     protected Collection<TrainingHook> trainingHookList;
 
@@ -118,6 +132,8 @@ public class ParameterAveragingTrainingMaster
         this.averagingFrequency = builder.averagingFrequency;
         this.aggregationDepth = builder.aggregationDepth;
         this.prefetchNumBatches = builder.prefetchNumBatches;
+        this.overlapAveraging = builder.overlapAveraging;
+        this.deltaBroadcast = builder.deltaBroadcast;
         this.repartition = builder.repartition;
         this.repartitionStrategy = builder.repartitionStrategy;
         this.storageLevel = builder.storageLevel;
@@ -279,36 +295,57 @@ public class ParameterAveragingTrainingMaster
 
     @Override
     public ParameterAveragingTrainingWorker getWorkerInstance(SparkDl4jMultiLayer network) {
-        NetBroadcastTuple tuple = new NetBroadcastTuple(network.getNetwork().getLayerWiseConfigurations(),
-                        network.getNetwork().params(), network.getNetwork().getUpdater().getStateViewArray());
-
-        if (collectTrainingStats)
-            stats.logBroadcastStart();
-        Broadcast<NetBroadcastTuple> broadcast = network.getSparkContext().broadcast(tuple);
-        if (collectTrainingStats)
-            stats.logBroadcastEnd();
-
-        WorkerConfiguration configuration = new WorkerConfiguration(false, rddDataSetNumExamples, batchSizePerWorker,
-                        averagingFrequency, prefetchNumBatches, collectTrainingStats);
-        return new ParameterAveragingTrainingWorker(broadcast, saveUpdater, configuration, trainingHookList, listeners,
-                        getRouterProvider());
+        MultiLayerNetwork net = network.getNetwork();
+        return getWorkerInstance(network.getSparkContext(), net.getLayerWiseConfigurations(), null, net.params(),
+                        net.getUpdater().getStateViewArray());
     }
 
     @Override
     public ParameterAveragingTrainingWorker getWorkerInstance(SparkComputationGraph graph) {
-        NetBroadcastTuple tuple = new NetBroadcastTuple(graph.getNetwork().getConfiguration(),
-                        graph.getNetwork().params(), graph.getNetwork().getUpdater().getStateViewArray());
+        ComputationGraph net = graph.getNetwork();
+        return getWorkerInstance(graph.getSparkContext(), null, net.getConfiguration(), net.params(),
+                        net.getUpdater().getStateViewArray());
+    }
 
+    protected ParameterAveragingTrainingWorker getWorkerInstance(JavaSparkContext sc, MultiLayerConfiguration conf,
+                    ComputationGraphConfiguration graphConf, INDArray params, INDArray updaterState) {
         if (collectTrainingStats)
             stats.logBroadcastStart();
-        Broadcast<NetBroadcastTuple> broadcast = graph.getSparkContext().broadcast(tuple);
+
+        Broadcast<NetBroadcastTuple> broadcast;
+        Broadcast<NetDeltaBroadcastTuple> delta = null;
+        if (deltaBroadcast) {
+            if (baseBroadcast == null) {
+                //First round of this fit: full configuration and parameters are broadcast, and reused by next rounds
+                baseParams = params.dup();
+                baseUpdaterState = (updaterState == null ? null : updaterState.dup());
+                baseBroadcast = sc.broadcast(new NetBroadcastTuple(conf, graphConf, baseParams, baseUpdaterState));
+                lastBroadcastParams = baseParams;
+            } else {
+                INDArray paramsDelta = params.sub(baseParams).castTo(DataType.HALF);
+                INDArray currUpdaterState = (updaterState == null ? null : updaterState.dup());
+                delta = sc.broadcast(new NetDeltaBroadcastTuple(paramsDelta, currUpdaterState));
+                //Workers start from base + reduced precision delta, not from exact current parameters
+                lastBroadcastParams = baseParams.add(paramsDelta.castTo(baseParams.dataType()));
+            }
+            broadcast = baseBroadcast;
+        } else {
+            //With overlapped averaging, network parameters are modified while next round may still be reading broadcast value
+            if (overlapAveraging) {
+                params = params.dup();
+                updaterState = (updaterState == null ? null : updaterState.dup());
+            }
+            broadcast = sc.broadcast(new NetBroadcastTuple(conf, graphConf, params, updaterState));
+            lastBroadcastParams = params;
+        }
+
         if (collectTrainingStats)
             stats.logBroadcastEnd();
 
-        WorkerConfiguration configuration = new WorkerConfiguration(true, rddDataSetNumExamples, batchSizePerWorker,
-                        averagingFrequency, prefetchNumBatches, collectTrainingStats);
-        return new ParameterAveragingTrainingWorker(broadcast, saveUpdater, configuration, trainingHookList, listeners,
-                        getRouterProvider());
+        WorkerConfiguration configuration = new WorkerConfiguration(graphConf != null, rddDataSetNumExamples,
+                        batchSizePerWorker, averagingFrequency, prefetchNumBatches, collectTrainingStats);
+        return new ParameterAveragingTrainingWorker(broadcast, delta, saveUpdater, configuration, trainingHookList,
+                        listeners, getRouterProvider());
     }
 
     protected int numObjectsEachWorker(int numExamplesEachRddObject) {
@@ -395,8 +432,15 @@ public class ParameterAveragingTrainingMaster
         JavaRDD<DataSet>[] splits = getSplitRDDs(trainingData, (int) totalDataSetObjectCount, rddDataSetNumExamples);
 
         int splitNum = 1;
-        for (JavaRDD<DataSet> split : splits) {
-            doIteration(network, split, splitNum++, splits.length);
+        try {
+            for (JavaRDD<DataSet> split : splits) {
+                doIteration(network, split, splitNum++, splits.length);
+            }
+
+            //Results of the last split, if overlapped averaging is used
+            finishPendingRound();
+        } finally {
+            finishTraining();
         }
 
         if (collectTrainingStats)
@@ -423,8 +467,15 @@ public class ParameterAveragingTrainingMaster
                         getSplitRDDs(trainingDataPaths, (int) totalDataSetObjectCount, dataSetObjectsNumExamples);
 
         int splitNum = 1;
-        for (JavaRDD<String> split : splits) {
-            doIterationPaths(network, graph, split, splitNum++, splits.length, dataSetObjectsNumExamples, dsLoader, mdsLoader);
+        try {
+            for (JavaRDD<String> split : splits) {
+                doIterationPaths(network, graph, split, splitNum++, splits.length, dataSetObjectsNumExamples, dsLoader, mdsLoader);
+            }
+
+            //Results of the last split, if overlapped averaging is used
+            finishPendingRound();
+        } finally {
+            finishTraining();
         }
 
         if (collectTrainingStats)
@@ -470,8 +521,15 @@ public class ParameterAveragingTrainingMaster
                         getSplitRDDs(trainingData, (int) totalDataSetObjectCount, rddDataSetNumExamples);
 
         int splitNum = 1;
-        for (JavaRDD<MultiDataSet> split : splits) {
-            doIteration(graph, split, splitNum++, splits.length);
+        try {
+            for (JavaRDD<MultiDataSet> split : splits) {
+                doIteration(graph, split, splitNum++, splits.length);
+            }
+
+            //Results of the last split, if overlapped averaging is used
+            finishPendingRound();
+        } finally {
+            finishTraining();
         }
 
         if (collectTrainingStats)
@@ -657,20 +715,111 @@ public class ParameterAveragingTrainingMaster
 
 
     protected void processResults(SparkDl4jMultiLayer network, SparkComputationGraph graph,
-                    JavaRDD<ParameterAveragingTrainingResult> results, int splitNum, int totalSplits) {
+                    final JavaRDD<ParameterAveragingTrainingResult> results, int splitNum, int totalSplits) {
+        //Parameters workers started from: averaged result is applied as a difference from these
+        INDArray startParams = (overlapAveraging || deltaBroadcast ? lastBroadcastParams : null);
+
+        if (!overlapAveraging) {
+            if (collectTrainingStats)
+                stats.logAggregateStartTime();
+            ParameterAveragingAggregationTuple tuple = aggregate(results);
+            if (collectTrainingStats)
+                stats.logAggregationEndTime();
+
+            applyResults(network, graph, tuple, startParams, splitNum, totalSplits);
+            return;
+        }
+
+        //Stale-by-one averaging: aggregation (hence training) of this split runs in background, while results of
+        // previous split are applied, and next split is broadcast and submitted from current parameters
+        Future<ParameterAveragingAggregationTuple> future =
+                        getAggregationExecutor().submit(new Callable<ParameterAveragingAggregationTuple>() {
+                            @Override
+                            public ParameterAveragingAggregationTuple call() {
+                                return aggregate(results);
+                            }
+                        });
+
+        finishPendingRound();
+        pendingRound = new PendingRound(network, graph, future, startParams, splitNum, totalSplits);
+    }
+
+    protected ParameterAveragingAggregationTuple aggregate(JavaRDD<ParameterAveragingTrainingResult> results) {
         //Need to do parameter averaging, and where necessary also do averaging of the updaters
         //Let's do all of this in ONE step, such that we don't have extra synchronization costs
+        return results.treeAggregate(null, new ParameterAveragingElementAddFunction(),
+                        new ParameterAveragingElementCombineFunction(), this.aggregationDepth);
+    }
 
-        if (collectTrainingStats)
-            stats.logAggregateStartTime();
-        ParameterAveragingAggregationTuple tuple =
-                        results.treeAggregate(null, new ParameterAveragingElementAddFunction(),
-                                        new ParameterAveragingElementCombineFunction(), this.aggregationDepth);
+    /**
+     * This method waits for aggregation of the previous split (if overlapped averaging is used), and applies its results
+     */
+    protected void finishPendingRound() {
+        if (pendingRound == null)
+            return;
+
+        PendingRound round = pendingRound;
+        pendingRound = null;
+
+        ParameterAveragingAggregationTuple tuple;
+        try {
+            tuple = round.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error during parameter aggregation", e.getCause());
+        }
+
+        applyResults(round.network, round.graph, tuple, round.startParams, round.splitNum, round.totalSplits);
+    }
+
+    /**
+     * This method is called once training is over, successfully or not: it drops aggregation that wasn't applied
+     * (if training failed), state used by delta broadcast, and aggregation threads
+     */
+    protected void finishTraining() {
+        if (pendingRound != null) {
+            pendingRound.future.cancel(true);
+            pendingRound = null;
+        }
+
+        baseBroadcast = null;
+        baseParams = null;
+        baseUpdaterState = null;
+        lastBroadcastParams = null;
+
+        if (aggregationExecutor != null) {
+            aggregationExecutor.shutdownNow();
+            aggregationExecutor = null;
+        }
+    }
+
+    protected ExecutorService getAggregationExecutor() {
+        if (aggregationExecutor == null) {
+            //At most 2 splits are in flight: one being aggregated, and next one being trained
+            aggregationExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setName("ParameterAveragingTrainingMaster aggregation thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return aggregationExecutor;
+    }
+
+    /**
+     * @param startParams If not null: averaged parameters are applied as difference from these, i.e. to parameters
+     *                    that might have been updated by other split in the meantime
+     */
+    protected void applyResults(SparkDl4jMultiLayer network, SparkComputationGraph graph,
+                    ParameterAveragingAggregationTuple tuple, INDArray startParams, int splitNum, int totalSplits) {
         INDArray params = tuple.getParametersSum();
         int aggCount = tuple.getAggregationsCount();
         SparkTrainingStats aggregatedStats = tuple.getSparkTrainingStats();
-        if (collectTrainingStats)
-            stats.logAggregationEndTime();
 
 
         if (collectTrainingStats)
@@ -683,14 +832,20 @@ public class ParameterAveragingTrainingMaster
 
             if (network != null) {
                 MultiLayerNetwork net = network.getNetwork();
-                net.setParameters(params);
+                if (startParams != null)
+                    net.params().addi(params.subi(startParams));
+                else
+                    net.setParameters(params);
                 if (updaterState != null)
                     net.getUpdater().setStateViewArray(null, updaterState, false);
 
                 network.setScore(tuple.getScoreSum() / tuple.getAggregationsCount());
             } else {
                 ComputationGraph g = graph.getNetwork();
-                g.setParams(params);
+                if (startParams != null)
+                    g.params().addi(params.subi(startParams));
+                else
+                    g.setParams(params);
                 if (updaterState != null)
                     g.getUpdater().setStateViewArray(updaterState);
 
@@ -750,6 +905,29 @@ public class ParameterAveragingTrainingMaster
         return new VanillaStatsStorageRouterProvider();
     }
 
+    /**
+     * Split submitted for training, with its aggregation still in progress
+     */
+    protected static class PendingRound {
+        protected final SparkDl4jMultiLayer network;
+        protected final SparkComputationGraph graph;
+        protected final Future<ParameterAveragingAggregationTuple> future;
+        protected final INDArray startParams;
+        protected final int splitNum;
+        protected final int totalSplits;
+
+        protected PendingRound(SparkDl4jMultiLayer network, SparkComputationGraph graph,
+                        Future<ParameterAveragingAggregationTuple> future, INDArray startParams, int splitNum,
+                        int totalSplits) {
+            this.network = network;
+            this.graph = graph;
+            this.future = future;
+            this.startParams = startParams;
+            this.splitNum = splitNum;
+            this.totalSplits = totalSplits;
+        }
+    }
+
 
     public static class Builder {
         protected boolean saveUpdater;
@@ -759,6 +937,8 @@ public class ParameterAveragingTrainingMaster
         protected int averagingFrequency = 5;
         protected int aggregationDepth = 2;
         protected int prefetchNumBatches = 0;
+        protected boolean overlapAveraging = false;
+        protected boolean deltaBroadcast = false;
         protected Repartition repartition = Repartition.Always;
         protected RepartitionStrategy repartitionStrategy = RepartitionStrategy.Balanced;
         protected StorageLevel storageLevel = StorageLevel.MEMORY_ONLY_SER();
@@ -885,6 +1065,38 @@ public class ParameterAveragingTrainingMaster
             return this;
         }
 
+        /**
+         * If enabled, aggregation of each split's results overlaps with training of the next split (stale-by-one
+         * averaging): the next split starts from parameters that don't yet include the previous split's update, and
+         * each averaged update is applied as a difference from the parameters the split started from.<br>
+         * This amortizes fixed per-split costs (job scheduling, broadcast, aggregation on the driver), at the cost
+         * of one split of staleness.
+         * <p>
+         * Default: false
+         *
+         * @param overlapAveraging If true: overlap aggregation of each split with training of the next one
+         */
+        public Builder overlapAveraging(boolean overlapAveraging) {
+            this.overlapAveraging = overlapAveraging;
+            return this;
+        }
+
+        /**
+         * If enabled, network configuration and parameters are broadcast in full only once per fit call. For
+         * subsequent splits only the difference between current and initial parameters (in half precision) and
+         * current updater state are broadcast.<br>
+         * <b>NOTE</b>: Workers start each split from parameters rounded this way, while averaged updates are applied
+         * to exact parameters on the driver, so rounding errors don't accumulate.
+         * <p>
+         * Default: false
+         *
+         * @param deltaBroadcast If true: broadcast parameter differences instead of full network
+         */
+        public Builder deltaBroadcast(boolean deltaBroadcast) {
+            this.deltaBroadcast = deltaBroadcast;
+            return this;
+        }
+
         /**
          * Set whether the updater (i.e., historical state for momentum, adagrad, etc should be saved).
          * <b>NOTE</b>: This can <b>double</b> (or more) the amount of network traffic in each direction, but might
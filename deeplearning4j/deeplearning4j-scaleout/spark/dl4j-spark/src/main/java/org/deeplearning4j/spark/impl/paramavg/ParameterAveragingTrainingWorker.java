@@ -34,6 +34,7 @@ import org.deeplearning4j.spark.api.TrainingHook;
 import org.deeplearning4j.spark.api.WorkerConfiguration;
 import org.deeplearning4j.spark.api.stats.SparkTrainingStats;
 import org.deeplearning4j.spark.api.worker.NetBroadcastTuple;
+import org.deeplearning4j.spark.api.worker.NetDeltaBroadcastTuple;
 import org.deeplearning4j.spark.impl.listeners.VanillaStatsStorageRouter;
 import org.deeplearning4j.spark.impl.paramavg.stats.ParameterAveragingTrainingWorkerStats;
 import org.deeplearning4j.util.UIDProvider;
@@ -57,6 +58,7 @@ import java.util.List;
 public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<ParameterAveragingTrainingResult> {
 
     private final Broadcast<NetBroadcastTuple> broadcast;
+    private final Broadcast<NetDeltaBroadcastTuple> deltaBroadcast;
     private final boolean saveUpdater;
     private Collection<TrainingHook> trainingHooks;
     private final WorkerConfiguration configuration;
@@ -67,8 +69,21 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
     public ParameterAveragingTrainingWorker(Broadcast<NetBroadcastTuple> broadcast, boolean saveUpdater,
                     WorkerConfiguration configuration, Collection<TrainingHook> trainingHooks,
                     Collection<TrainingListener> listeners, StatsStorageRouterProvider routerProvider) {
+        this(broadcast, null, saveUpdater, configuration, trainingHooks, listeners, routerProvider);
+    }
+
+    /**
+     * @param broadcast      Network configuration, and base parameters/updater state
+     * @param deltaBroadcast Difference between current and base parameters, and current updater state. May be null, if base
+     *                       parameters are current ones
+     */
+    public ParameterAveragingTrainingWorker(Broadcast<NetBroadcastTuple> broadcast,
+                    Broadcast<NetDeltaBroadcastTuple> deltaBroadcast, boolean saveUpdater,
+                    WorkerConfiguration configuration, Collection<TrainingHook> trainingHooks,
+                    Collection<TrainingListener> listeners, StatsStorageRouterProvider routerProvider) {
 
         this.broadcast = broadcast;
+        this.deltaBroadcast = deltaBroadcast;
         this.saveUpdater = saveUpdater;
         this.configuration = configuration;
         this.trainingHooks = trainingHooks;
@@ -109,16 +124,17 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
         if (configuration.isCollectTrainingStats())
             stats.logBroadcastGetValueStart();
         NetBroadcastTuple tuple = broadcast.getValue();
+        NetDeltaBroadcastTuple delta = deltaBroadcast == null ? null : deltaBroadcast.getValue();
         if (configuration.isCollectTrainingStats())
             stats.logBroadcastGetValueEnd();
 
         //Don't want to have shared configuration object: each may update its iteration count (for LR schedule etc) individually
         MultiLayerNetwork net = new MultiLayerNetwork(tuple.getConfiguration().clone());
         //Can't have shared parameter array across executors for parameter averaging, hence the 'true' for clone parameters array arg
-        net.init(tuple.getParameters().unsafeDuplication(), false);
+        net.init(withDelta(tuple.getParameters(), delta == null ? null : delta.getParametersDelta()), false);
 
         if (tuple.getUpdaterState() != null) {
-            net.setUpdater(new MultiLayerUpdater(net, tuple.getUpdaterState().unsafeDuplication(), net.getLayerWiseConfigurations().isLegacyBatchScaledL2())); //Can't have shared updater state
+            net.setUpdater(new MultiLayerUpdater(net, getUpdaterState(tuple, delta), net.getLayerWiseConfigurations().isLegacyBatchScaledL2())); //Can't have shared updater state
         }
 
         Nd4j.getExecutioner().commit();
@@ -139,16 +155,17 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
         if (configuration.isCollectTrainingStats())
             stats.logBroadcastGetValueStart();
         NetBroadcastTuple tuple = broadcast.getValue();
+        NetDeltaBroadcastTuple delta = deltaBroadcast == null ? null : deltaBroadcast.getValue();
         if (configuration.isCollectTrainingStats())
             stats.logBroadcastGetValueEnd();
 
         //Don't want to have shared configuration object: each may update its iteration count (for LR schedule etc) individually
         ComputationGraph net = new ComputationGraph(tuple.getGraphConfiguration().clone());
         //Can't have shared parameter array across executors for parameter averaging, hence the 'true' for clone parameters array arg
-        net.init(tuple.getParameters().unsafeDuplication(), false);
+        net.init(withDelta(tuple.getParameters(), delta == null ? null : delta.getParametersDelta()), false);
 
         if (tuple.getUpdaterState() != null) {
-            net.setUpdater(new ComputationGraphUpdater(net, tuple.getUpdaterState().unsafeDuplication(), net.getConfiguration().isLegacyBatchScaledL2())); //Again: can't have shared updater state
+            net.setUpdater(new ComputationGraphUpdater(net, getUpdaterState(tuple, delta), net.getConfiguration().isLegacyBatchScaledL2())); //Again: can't have shared updater state
         }
 
         Nd4j.getExecutioner().commit();
@@ -161,6 +178,25 @@ public class ParameterAveragingTrainingWorker extends BaseTrainingWorker<Paramet
         return net;
     }
 
+    /**
+     * Returns copy of the base array, with delta (if any) added
+     */
+    private static INDArray withDelta(INDArray base, INDArray delta) {
+        INDArray out = base.unsafeDuplication();
+        if (delta != null)
+            out.addi(delta.castTo(out.dataType()));
+        return out;
+    }
+
+    /**
+     * Returns copy of the current updater state: from delta broadcast if available, from base broadcast otherwise
+     */
+    private static INDArray getUpdaterState(NetBroadcastTuple tuple, NetDeltaBroadcastTuple delta) {
+        if (delta != null && delta.getUpdaterState() != null)
+            return delta.getUpdaterState().unsafeDuplication();
+        return tuple.getUpdaterState().unsafeDuplication();
+    }
+
     private void configureListeners(Model m, int counter) {
         if (trainingListeners != null) {
             List<TrainingListener> list = new ArrayList<>(trainingListeners.size());
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package org.deeplearning4j.spark.util.data;
+
+import lombok.NonNull;
+import org.apache.spark.api.java.JavaRDD;
+import org.deeplearning4j.spark.util.data.stats.AddStatsFn;
+import org.deeplearning4j.spark.util.data.stats.MergeStatsFn;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.DistributionStats;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.MinMaxStats;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
+
+/**
+ * Utilities for calculating normalizer statistics over distributed data sets in a single pass.
+ * Statistics are gathered for each partition independently, and merged afterwards.<br>
+ * Usage:
+ * <pre>
+ * {@code
+ *      DistributionStats stats = SparkNormalizerStats.distributionStats(trainData, false);
+ *      NormalizerStandardize normalizer = new NormalizerStandardize(stats.getMean(), stats.getStd());
+ * }
+ * </pre>
+ */
+public class SparkNormalizerStats {
+
+    private SparkNormalizerStats() {
+    }
+
+    /**
+     * Calculate means and standard deviations of features (or labels) of the given data
+     *
+     * @param data   data to calculate statistics for
+     * @param labels if true, statistics will be calculated for labels, otherwise for features
+     * @return statistics suitable for NormalizerStandardize
+     */
+    public static DistributionStats distributionStats(@NonNull JavaRDD<DataSet> data, boolean labels) {
+        return fit(data, new DistributionStats.Builder(), labels);
+    }
+
+    /**
+     * Calculate lower and upper bounds of features (or labels) of the given data
+     *
+     * @param data   data to calculate statistics for
+     * @param labels if true, statistics will be calculated for labels, otherwise for features
+     * @return statistics suitable for NormalizerMinMaxScaler
+     */
+    public static MinMaxStats minMaxStats(@NonNull JavaRDD<DataSet> data, boolean labels) {
+        return fit(data, new MinMaxStats.Builder(), labels);
+    }
+
+    /**
+     * Calculate statistics of features (or labels) of the given data, using given builder
+     *
+     * @param data   data to calculate statistics for
+     * @param empty  empty builder, used as initial value for each partition
+     * @param labels if true, statistics will be calculated for labels, otherwise for features
+     * @return statistics
+     */
+    public static <S extends NormalizerStats> S fit(@NonNull JavaRDD<DataSet> data, @NonNull NormalizerStats.Builder<S> empty,
+                    boolean labels) {
+        NormalizerStats.Builder<S> result = data.aggregate(empty, new AddStatsFn<S>(labels), new MergeStatsFn<S>());
+        return result.build();
+    }
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package org.deeplearning4j.spark.util.data.stats;
+
+import org.apache.spark.api.java.function.Function2;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
+
+/**
+ * Function used to add features or labels of a DataSet to the normalizer statistics of a partition
+ */
+public class AddStatsFn<S extends NormalizerStats> implements Function2<NormalizerStats.Builder<S>, DataSet, NormalizerStats.Builder<S>> {
+    private final boolean labels;
+
+    public AddStatsFn(boolean labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public NormalizerStats.Builder<S> call(NormalizerStats.Builder<S> builder, DataSet dataSet) throws Exception {
+        return labels ? builder.addLabels(dataSet) : builder.addFeatures(dataSet);
+    }
+}
@@ -570,4 +570,61 @@ public class TestCompareParameterAveragingSparkVsSingleMachine {
             }
         }
     }
+
+    @Test
+    public void testDeltaBroadcastAndOverlapAveraging() {
+        //Idea: with a single executor and fixed RNG seed, splits are identical between runs. Delta broadcast only
+        // rounds the parameters delta to half precision, so results should match the default broadcast closely.
+        //Overlapped averaging applies each round one split late, so here we only check that training proceeds
+        int miniBatchSizePerWorker = 10;
+
+        JavaSparkContext sc = getContext(1);
+        try {
+            List<DataSet> list = getOneDataSetAsIndividalExamples(3 * miniBatchSizePerWorker, 12345);
+            JavaRDD<DataSet> rdd = sc.parallelize(list);
+
+            INDArray initialParams = null;
+            INDArray expectedParams = null;
+            for (boolean[] flags : new boolean[][] {{false, false}, {true, false}, {false, true}, {true, true}}) {
+                ParameterAveragingTrainingMaster tm = new ParameterAveragingTrainingMaster.Builder(1)
+                                .averagingFrequency(1).batchSizePerWorker(miniBatchSizePerWorker)
+                                .workerPrefetchNumBatches(0).rngSeed(12345)
+                                .rddTrainingApproach(RDDTrainingApproach.Direct)
+                                .deltaBroadcast(flags[0]).overlapAveraging(flags[1]).build();
+
+                SparkDl4jMultiLayer sparkNet = new SparkDl4jMultiLayer(sc, getConf(12345, new Sgd(0.5)), tm);
+                if (initialParams == null)
+                    initialParams = sparkNet.getNetwork().params().dup();
+                assertEquals(initialParams, sparkNet.getNetwork().params());
+
+                sparkNet.fit(rdd);
+                INDArray finalParams = sparkNet.getNetwork().params().dup();
+
+                assertNotEquals(initialParams, finalParams);
+                assertFalse(Double.isNaN(finalParams.sumNumber().doubleValue()));
+                assertTrue(sparkNet.getScore() > 0.0);
+
+                if (expectedParams == null)
+                    expectedParams = finalParams;
+                else if (!flags[1])
+                    assertTrue(expectedParams.equalsWithEps(finalParams, 1e-2));
+
+                //Training state is reset between fit calls, so second fit should work the same way
+                sparkNet.fit(rdd);
+                assertNotEquals(finalParams, sparkNet.getNetwork().params());
+
+                //No aggregation threads or broadcast state should outlive fit call
+                assertNull(tm.pendingRound);
+                assertNull(tm.aggregationExecutor);
+                assertNull(tm.baseBroadcast);
+                assertNull(tm.baseParams);
+
+                ParameterAveragingTrainingMaster restored =
+                                ParameterAveragingTrainingMaster.fromJson(tm.toJson());
+                assertEquals(tm, restored);
+            }
+        } finally {
+            sc.stop();
+        }
+    }
 }
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.spark.util;
+
+import org.apache.spark.api.java.JavaRDD;
+import org.deeplearning4j.spark.BaseSparkTest;
+import org.deeplearning4j.spark.util.data.SparkNormalizerStats;
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.DistributionStats;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.MinMaxStats;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestNormalizerStats extends BaseSparkTest {
+
+    @Test
+    public void testStatsMatchLocal() {
+        Nd4j.getRandom().setSeed(12345);
+
+        List<DataSet> list = new ArrayList<>();
+        DistributionStats.Builder expDist = new DistributionStats.Builder();
+        MinMaxStats.Builder expMinMax = new MinMaxStats.Builder();
+        for (int i = 0; i < 20; i++) {
+            DataSet ds = new DataSet(Nd4j.rand(DataType.DOUBLE, 8, 4).muli(i + 1), Nd4j.rand(DataType.DOUBLE, 8, 2));
+            list.add(ds);
+            expDist.addFeatures(ds);
+            expMinMax.addLabels(ds);
+        }
+
+        JavaRDD<DataSet> rdd = sc.parallelize(list, 4);
+
+        DistributionStats dist = SparkNormalizerStats.distributionStats(rdd, false);
+        DistributionStats exp = expDist.build();
+        assertEquals(exp.getMean(), dist.getMean());
+        assertEquals(exp.getStd(), dist.getStd());
+
+        MinMaxStats minMax = SparkNormalizerStats.minMaxStats(rdd, true);
+        assertEquals(expMinMax.build().getLower(), minMax.getLower());
+    }
+}
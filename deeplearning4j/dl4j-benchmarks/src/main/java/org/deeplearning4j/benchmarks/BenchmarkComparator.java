@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NonNull;
+import org.nd4j.shade.jackson.databind.JsonNode;
+import org.nd4j.shade.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * This class compares two JMH JSON result files (i.e. produced by {@link BenchmarkRunner}), and reports
+ * relative change of every benchmark present in both of them.
+ *
+ * <pre>
+ *     java -cp benchmarks.jar org.deeplearning4j.benchmarks.BenchmarkComparator baseline.json current.json [thresholdPercent]
+ * </pre>
+ *
+ * Exit code is 1 if at least one benchmark regressed by more than threshold (10% by default).
+ */
+public class BenchmarkComparator {
+    public static final double DEFAULT_THRESHOLD = 10.0;
+
+    @Data
+    @AllArgsConstructor
+    public static class Comparison {
+        private String benchmark;
+        private String unit;
+        private double baseline;
+        private double current;
+        /** change in percents, positive values are always improvements, regardless of benchmark mode */
+        private double improvement;
+
+        public boolean isRegression(double thresholdPercent) {
+            return improvement < -thresholdPercent;
+        }
+    }
+
+    private BenchmarkComparator() {
+        // no instances
+    }
+
+    /**
+     * This method compares scores of benchmarks present in both result files. Benchmarks with different params are matched separately.
+     *
+     * @param baseline baseline results file
+     * @param current current results file
+     * @return comparisons, sorted by benchmark name
+     * @throws IOException
+     */
+    public static List<Comparison> compare(@NonNull File baseline, @NonNull File current) throws IOException {
+        Map<String, JsonNode> base = load(baseline);
+        Map<String, JsonNode> curr = load(current);
+
+        List<Comparison> result = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> e : curr.entrySet()) {
+            JsonNode b = base.get(e.getKey());
+            if (b == null)
+                continue;
+
+            JsonNode c = e.getValue();
+            double bScore = b.get("primaryMetric").get("score").asDouble();
+            double cScore = c.get("primaryMetric").get("score").asDouble();
+
+            // throughput is "higher is better", all other modes measure time
+            boolean higherIsBetter = "thrpt".equals(c.get("mode").asText());
+            double change = (cScore - bScore) / bScore * 100.0;
+
+            result.add(new Comparison(e.getKey(), c.get("primaryMetric").get("scoreUnit").asText(), bScore, cScore,
+                            higherIsBetter ? change : -change));
+        }
+
+        return result;
+    }
+
+    protected static Map<String, JsonNode> load(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        if (!root.isArray())
+            throw new IOException("File [" + file + "] doesn't look like JMH JSON result");
+
+        Map<String, JsonNode> result = new TreeMap<>();
+        for (JsonNode node : root) {
+            StringBuilder key = new StringBuilder(node.get("benchmark").asText());
+            JsonNode params = node.get("params");
+            if (params != null) {
+                // params are sorted to get stable key
+                Map<String, String> sorted = new TreeMap<>();
+                Iterator<Map.Entry<String, JsonNode>> iterator = params.fields();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, JsonNode> p = iterator.next();
+                    sorted.put(p.getKey(), p.getValue().asText());
+                }
+
+                key.append(sorted);
+            }
+
+            result.put(key.toString(), node);
+        }
+
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparator <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+        int regressions = 0;
+        for (Comparison c : compare(new File(args[0]), new File(args[1]))) {
+            boolean regression = c.isRegression(threshold);
+            if (regression)
+                regressions++;
+
+            System.out.println(String.format("%-100s %12.3f -> %12.3f %-8s %+7.2f%% %s", c.getBenchmark(), c.getBaseline(),
+                            c.getCurrent(), c.getUnit(), c.getImprovement(), regression ? "REGRESSION" : ""));
+        }
+
+        System.out.println(regressions + " regression(s) above " + threshold + "%");
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks jar. Accepts the same arguments as JMH itself, i.e.
+ * <pre>
+ *     java -jar benchmarks.jar GemmBenchmark -p size=512
+ * </pre>
+ *
+ * Unlike plain JMH, results are written as JSON to {@link #DEFAULT_RESULT_FILE} unless -rf/-rff are given,
+ * so they can be compared against baseline with {@link BenchmarkComparator}.
+ */
+@Slf4j
+public class BenchmarkRunner {
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+        // no instances
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+
+        // informational modes are handled by JMH as is
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                        || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue())
+            builder.resultFormat(ResultFormatType.JSON);
+
+        if (!cmd.getResult().hasValue())
+            builder.result(DEFAULT_RESULT_FILE);
+
+        log.info("Backend: {}; data type: {}", Nd4j.getBackend().getClass().getSimpleName(), Nd4j.dataType());
+
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.datavec;
+
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
+import org.datavec.api.split.FileSplit;
+import org.deeplearning4j.datasets.datavec.RecordReaderDataSetIterator;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of RecordReaderDataSetIterator over CSVRecordReader: one benchmark invocation is one full pass over generated CSV file.
+ * Operations per second are epochs per second, so records per second is score * numRecords.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordReaderIteratorBenchmark {
+
+    @Param({"10000"})
+    public int numRecords;
+
+    @Param({"32", "256"})
+    public int numColumns;
+
+    @Param({"64"})
+    public int batchSize;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("rrdsi_benchmark", ".csv");
+        file.deleteOnExit();
+
+        Random random = new Random(119);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            for (int r = 0; r < numRecords; r++) {
+                StringBuilder builder = new StringBuilder();
+                for (int c = 0; c < numColumns; c++)
+                    builder.append(random.nextFloat()).append(',');
+
+                // last column is class label
+                builder.append(random.nextInt(10));
+                writer.write(builder.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) throws Exception {
+        RecordReader reader = new CSVRecordReader();
+        reader.initialize(new FileSplit(file));
+
+        RecordReaderDataSetIterator iterator = new RecordReaderDataSetIterator(reader, batchSize, numColumns, 10);
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            blackhole.consume(ds);
+        }
+
+        reader.close();
+    }
+}
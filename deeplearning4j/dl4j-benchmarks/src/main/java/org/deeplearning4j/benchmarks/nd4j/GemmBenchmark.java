@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.nd4j;
+
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Square matrix multiplication via Nd4j.gemm, with and without transposition
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GemmBenchmark {
+
+    @Param({"FLOAT", "DOUBLE"})
+    public DataType dataType;
+
+    @Param({"128", "512", "1024"})
+    public int size;
+
+    private INDArray a;
+    private INDArray b;
+    private INDArray c;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        a = Nd4j.rand(dataType, size, size);
+        b = Nd4j.rand(dataType, size, size);
+        // gemm requires result to be 'f' ordered
+        c = Nd4j.createUninitialized(dataType, new long[] {size, size}, 'f');
+    }
+
+    @Benchmark
+    public INDArray gemm() {
+        return Nd4j.gemm(a, b, c, false, false, 1.0, 0.0);
+    }
+
+    @Benchmark
+    public INDArray gemmTransposed() {
+        return Nd4j.gemm(a, b, c, true, true, 1.0, 0.0);
+    }
+}
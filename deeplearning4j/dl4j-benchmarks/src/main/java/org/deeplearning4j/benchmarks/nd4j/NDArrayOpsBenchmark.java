@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.nd4j;
+
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.strict.Tanh;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elementwise, broadcast and reduction ops over [rows, columns] matrices
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NDArrayOpsBenchmark {
+
+    @Param({"FLOAT", "DOUBLE"})
+    public DataType dataType;
+
+    @Param({"64", "1024"})
+    public int rows;
+
+    @Param({"1024"})
+    public int columns;
+
+    private INDArray x;
+    private INDArray y;
+    private INDArray z;
+    private INDArray row;
+    private INDArray column;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        x = Nd4j.rand(dataType, rows, columns);
+        y = Nd4j.rand(dataType, rows, columns);
+        z = Nd4j.create(dataType, rows, columns);
+        row = Nd4j.rand(dataType, 1, columns);
+        column = Nd4j.rand(dataType, rows, 1);
+    }
+
+    @Benchmark
+    public INDArray add() {
+        return x.add(y, z);
+    }
+
+    @Benchmark
+    public INDArray mul() {
+        return x.mul(y, z);
+    }
+
+    @Benchmark
+    public INDArray tanh() {
+        return Nd4j.getExecutioner().execAndReturn(new Tanh(x, z));
+    }
+
+    @Benchmark
+    public INDArray addRowVector() {
+        return x.addRowVector(row);
+    }
+
+    @Benchmark
+    public INDArray mulColumnVector() {
+        return x.mulColumnVector(column);
+    }
+
+    @Benchmark
+    public INDArray sumAlongRows() {
+        return x.sum(1);
+    }
+
+    @Benchmark
+    public INDArray maxAlongColumns() {
+        return x.max(0);
+    }
+
+    @Benchmark
+    public double sumAll() {
+        return x.sumNumber().doubleValue();
+    }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.nn;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.zoo.model.LeNet;
+import org.deeplearning4j.zoo.model.SimpleCNN;
+import org.deeplearning4j.zoo.model.TextGenerationLSTM;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MultiLayerNetwork.fit() and output() for a few zoo models, on random data of fixed batch size.
+ * Score is time per single minibatch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ZooModelBenchmark {
+
+    @Param({"LeNet", "SimpleCNN", "TextGenerationLSTM"})
+    public String model;
+
+    @Param({"32"})
+    public int batchSize;
+
+    private MultiLayerNetwork network;
+    private DataSet dataSet;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+
+        int numClasses = 10;
+        INDArray features;
+        INDArray labels;
+        switch (model) {
+            case "LeNet":
+                network = (MultiLayerNetwork) LeNet.builder().numClasses(numClasses).inputShape(new int[] {1, 28, 28})
+                                .build().init();
+                features = Nd4j.rand(batchSize, 28 * 28);
+                labels = oneHot(batchSize, numClasses);
+                break;
+            case "SimpleCNN":
+                network = (MultiLayerNetwork) SimpleCNN.builder().numClasses(numClasses).build().init();
+                features = Nd4j.rand(new int[] {batchSize, 3, 48, 48});
+                labels = oneHot(batchSize, numClasses);
+                break;
+            case "TextGenerationLSTM":
+                int characters = 47;
+                int length = 40;
+                network = (MultiLayerNetwork) TextGenerationLSTM.builder().totalUniqueCharacters(characters)
+                                .maxLength(length).inputShape(new int[] {length, characters}).build().init();
+                features = Nd4j.rand(new int[] {batchSize, characters, length});
+                labels = Nd4j.create(batchSize, characters, length);
+                for (int i = 0; i < batchSize; i++)
+                    for (int t = 0; t < length; t++)
+                        labels.putScalar(new int[] {i, (i + t) % characters, t}, 1.0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+
+        dataSet = new DataSet(features, labels);
+    }
+
+    private static INDArray oneHot(int batchSize, int numClasses) {
+        INDArray labels = Nd4j.create(batchSize, numClasses);
+        for (int i = 0; i < batchSize; i++)
+            labels.putScalar(i, i % numClasses, 1.0);
+
+        return labels;
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fit() {
+        network.fit(dataSet);
+        return network;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return network.output(dataSet.getFeatures());
+    }
+}
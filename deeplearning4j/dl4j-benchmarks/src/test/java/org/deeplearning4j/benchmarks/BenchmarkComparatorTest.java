@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BenchmarkComparatorTest {
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private File write(String name, double gemmScore, double iterScore) throws Exception {
+        String json = "[" +
+                "{\"benchmark\":\"GemmBenchmark.gemm\",\"mode\":\"avgt\",\"params\":{\"size\":\"512\",\"dataType\":\"FLOAT\"}," +
+                "\"primaryMetric\":{\"score\":" + gemmScore + ",\"scoreUnit\":\"us/op\"}}," +
+                "{\"benchmark\":\"GemmBenchmark.gemm\",\"mode\":\"avgt\",\"params\":{\"dataType\":\"FLOAT\",\"size\":\"128\"}," +
+                "\"primaryMetric\":{\"score\":10.0,\"scoreUnit\":\"us/op\"}}," +
+                "{\"benchmark\":\"RecordReaderIteratorBenchmark.iterate\",\"mode\":\"thrpt\"," +
+                "\"primaryMetric\":{\"score\":" + iterScore + ",\"scoreUnit\":\"ops/s\"}}" +
+                "]";
+
+        File file = testDir.newFile(name);
+        FileUtils.writeStringToFile(file, json, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        File baseline = write("baseline.json", 100.0, 20.0);
+        File current = write("current.json", 120.0, 22.0);
+
+        List<BenchmarkComparator.Comparison> result = BenchmarkComparator.compare(baseline, current);
+        assertEquals(3, result.size());
+
+        for (BenchmarkComparator.Comparison c : result) {
+            if (c.getBenchmark().startsWith("GemmBenchmark.gemm{dataType=FLOAT, size=512}")) {
+                // 20% slower
+                assertEquals(-20.0, c.getImprovement(), 1e-9);
+                assertTrue(c.isRegression(BenchmarkComparator.DEFAULT_THRESHOLD));
+            } else if (c.getBenchmark().startsWith("RecordReaderIteratorBenchmark")) {
+                // 10% more throughput
+                assertEquals(10.0, c.getImprovement(), 1e-9);
+                assertFalse(c.isRegression(BenchmarkComparator.DEFAULT_THRESHOLD));
+            } else {
+                assertEquals(0.0, c.getImprovement(), 1e-9);
+            }
+        }
+    }
+}
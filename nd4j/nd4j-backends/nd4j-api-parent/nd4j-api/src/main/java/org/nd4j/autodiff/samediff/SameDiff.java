@@ -34,6 +34,7 @@ import org.nd4j.autodiff.functions.DifferentialFunction;
 import org.nd4j.autodiff.functions.DifferentialFunctionFactory;
 import org.nd4j.autodiff.loss.LossReduce;
 import org.nd4j.autodiff.samediff.flow.FlowPath;
+import org.nd4j.autodiff.samediff.plan.ExecutionPlan;
 import org.nd4j.autodiff.samediff.serde.FlatBuffersMapper;
 import org.nd4j.autodiff.util.cloner.DataBufferFastCloner;
 import org.nd4j.autodiff.util.cloner.INDArrayFastCloner;
@@ -106,6 +107,7 @@ import java.io.*;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -10662,11 +10664,148 @@ public class SameDiff {
 
     private Pair<Map<SDVariable, DifferentialFunction>, List<DifferentialFunction>> exec_cache;
 
+    public static final int DEFAULT_EXECUTION_PLAN_CACHE_SIZE = 8;
+
+    // compiled execution plans, key is placeholders shapes/outputs signature. least recently used plans are evicted
+    private transient Map<String, ExecutionPlan> executionPlans;
+    private int executionPlanCacheSize = DEFAULT_EXECUTION_PLAN_CACHE_SIZE;
+
+    // pool for concurrent execution of independent branches, null if disabled
+    private transient ForkJoinPool executionPool;
+    private long parallelBatchThreshold;
+
     /**
      * Clear the execution cache, if it is present
      */
     public void clearExecutionCache(){
         exec_cache = null;
+        synchronized (this) {
+            releaseExecutionPlans();
+        }
+    }
+
+    /**
+     * This method sets max number of compiled execution plans kept by {@link #execCompiled(Map, String...)}.
+     * Each plan holds its own intermediate arrays, so with many distinct placeholders shapes (i.e. variable minibatch
+     * or sequence length) cache size bounds memory used by plans. Least recently used plan is released once the limit
+     * is reached. Default is {@link #DEFAULT_EXECUTION_PLAN_CACHE_SIZE}
+     *
+     * @param cacheSize max number of cached plans, positive value
+     */
+    public synchronized void setExecutionPlanCacheSize(int cacheSize) {
+        Preconditions.checkArgument(cacheSize > 0, "Execution plan cache size must be positive, got %s", cacheSize);
+        executionPlanCacheSize = cacheSize;
+        releaseExecutionPlans();
+    }
+
+    /**
+     * @return number of compiled execution plans currently cached
+     */
+    public synchronized int getNumExecutionPlans() {
+        return executionPlans == null ? 0 : executionPlans.size();
+    }
+
+    private void releaseExecutionPlans() {
+        if (executionPlans == null)
+            return;
+
+        for (val plan : executionPlans.values())
+            plan.release();
+
+        executionPlans = null;
+    }
+
+    private Map<String, ExecutionPlan> createPlanCache() {
+        final int cacheSize = executionPlanCacheSize;
+        return new LinkedHashMap<String, ExecutionPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ExecutionPlan> eldest) {
+                if (size() <= cacheSize)
+                    return false;
+
+                eldest.getValue().release();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Execute the graph using compiled execution plan for the given placeholders shapes.<br>
+     * First call for each placeholders shape signature executes the graph in regular way, and compiles the plan:
+     * ops order, shapes and intermediate arrays are resolved once, and subsequent calls with the same shapes just
+     * run the cached plan. Plans are dropped if graph is modified, or on {@link #clearExecutionCache()} call.
+     * Number of cached plans is bounded, see {@link #setExecutionPlanCacheSize(int)}.
+     * <p>
+     * PLEASE NOTE: Graphs with control flow ops can't be compiled, so they're executed via {@link #execWithPlaceHolder(Map)}
+     * PLEASE NOTE: Unlike other exec methods, arrays of intermediate variables are not updated by this method
+     * See {@link #setParallelExecution(int, long)} for concurrent execution of independent branches.
+     *
+     * @param placeholders placeholder arrays
+     * @param outputs      names of variables to return. If none given - outputs of the last op in the graph are returned
+     * @return Map of output arrays. These arrays are not reused by subsequent calls
+     */
+    public synchronized Map<String, INDArray> execCompiled(@NonNull Map<String, INDArray> placeholders, String... outputs) {
+        if (executionPlans == null)
+            executionPlans = createPlanCache();
+
+        val pool = executionPool;
+        boolean concurrent = pool != null && minibatchSize(placeholders) <= parallelBatchThreshold;
+        val signature = ExecutionPlan.signature(placeholders, outputs) + (concurrent ? "|concurrent" : "");
+
+        ExecutionPlan plan = executionPlans.get(signature);
+        if (plan != null && (plan.getNumFunctions() != functionInstancesById.size() || plan.getNumVariables() != variableMap.size())) {
+            // graph was modified after compilation
+            releaseExecutionPlans();
+            executionPlans = createPlanCache();
+            plan = null;
+        }
+
+        if (plan == null) {
+            plan = ExecutionPlan.compile(this, placeholders, concurrent, outputs);
+            if (plan == null) {
+                execWithPlaceHolder(placeholders);
+
+                val names = outputs == null || outputs.length == 0 ? ExecutionPlan.defaultOutputs(this) : outputs;
+                Map<String, INDArray> result = new LinkedHashMap<>();
+                for (val name : names)
+                    result.put(name, getArrForVarName(name).dup());
+
+                return result;
+            }
+
+            executionPlans.put(signature, plan);
+        }
+
+        return concurrent ? plan.execute(placeholders, pool) : plan.execute(placeholders);
+    }
+
+    /**
+     * This method enables concurrent execution of independent graph branches (i.e. Inception towers or multi-head
+     * subgraphs) in {@link #execCompiled(Map, String...)}.<br>
+     * Branches are executed concurrently only if minibatch size (dimension 0 of placeholders) doesn't exceed maxBatchSize:
+     * with large minibatches single op already saturates all cores.
+     *
+     * @param numThreads   max number of ops executed at the same time. 0 disables concurrent execution
+     * @param maxBatchSize max minibatch size for concurrent execution
+     */
+    public void setParallelExecution(int numThreads, long maxBatchSize) {
+        Preconditions.checkArgument(numThreads >= 0, "Number of threads must be non-negative, got %s", numThreads);
+
+        if (executionPool != null)
+            executionPool.shutdown();
+
+        executionPool = numThreads > 0 ? new ForkJoinPool(numThreads) : null;
+        parallelBatchThreshold = maxBatchSize;
+        clearExecutionCache();
+    }
+
+    private static long minibatchSize(Map<String, INDArray> placeholders) {
+        long size = 0;
+        for (val array : placeholders.values())
+            if (array.rank() > 0)
+                size = Math.max(size, array.size(0));
+
+        return size;
     }
 
     /**
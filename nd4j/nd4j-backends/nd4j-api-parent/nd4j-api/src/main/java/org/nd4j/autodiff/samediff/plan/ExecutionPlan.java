@@ -0,0 +1,827 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.plan;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.*;
+import org.nd4j.linalg.api.ops.impl.controlflow.If;
+import org.nd4j.linalg.api.ops.impl.controlflow.While;
+import org.nd4j.linalg.api.ops.impl.controlflow.compat.*;
+import org.nd4j.linalg.api.ops.impl.meta.ElementwiseChain;
+import org.nd4j.linalg.api.ops.impl.shape.tensorops.BaseTensorOp;
+import org.nd4j.linalg.api.ops.impl.transforms.gradient.GradientBackwardsMarker;
+import org.nd4j.linalg.api.ops.impl.transforms.temp.ExternalErrorsFunction;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class holds "compiled" SameDiff graph for a fixed placeholders shapes signature.
+ *
+ * Compilation does the following things once:
+ * 1) Freezes topological order of ops, and drops ops that aren't required for requested outputs
+ * 2) Resolves output shapes for all ops, by executing graph once in regular way
+ * 3) Plans intermediate arrays through liveness analysis: variable array is released right after its last consumer,
+ *    and released arrays are reused by following ops with the same shape & data type
+ *
+ * After that, each execution just binds arrays to the ops in order, without graph interpretation, shape calculation
+ * or allocations, except for the output arrays, that are allocated per call and are safe to use after subsequent calls.
+ *
+ * Sequential plans also fuse chains of elementwise ops (i.e. bias add followed by activation function), where each op
+ * consumes result of the previous one and nothing else needs it. Such chains are executed via {@link ElementwiseChain},
+ * so intermediate results are never materialized, and whole chain is one pass over memory.
+ *
+ * Plan compiled for concurrent execution tracks dependencies between ops, and {@link #execute(Map, ForkJoinPool)}
+ * dispatches independent branches (i.e. Inception towers or multi-head subgraphs) to the pool as soon as their inputs
+ * are ready. Since ops of different branches run at the same time, intermediate arrays aren't shared in this mode.
+ *
+ * PLEASE NOTE: Graphs with control flow ops (If/While/Switch/Merge/Enter/Exit etc) and TensorArray ops can't be compiled.
+ * PLEASE NOTE: Ops of the graph are shared by all plans compiled for the same SameDiff instance, so compilation and
+ * executions of all these plans are serialized on that SameDiff instance.
+ */
+@Slf4j
+public class ExecutionPlan {
+    @Getter
+    protected final String signature;
+    protected final SameDiff sameDiff;
+
+    // graph size at compilation time, used to detect modifications of the graph
+    @Getter
+    protected final int numFunctions;
+    @Getter
+    protected final int numVariables;
+
+    protected final String[] varNames;
+    protected final DifferentialFunction[] ops;
+    protected final int[][] opInputs;
+    protected final int[][] opOutputs;
+
+    // dependencies between ops, used for concurrent execution only
+    @Getter
+    protected final boolean concurrent;
+    protected final int[][] successors;
+    protected final int[] numDependencies;
+
+    // index of the last op of elementwise chain each op belongs to. equals to op index for ops that aren't fused
+    protected final int[] chainEnd;
+    @Getter
+    protected final int numChains;
+
+    protected final int[] placeholders;
+    protected final long[][] placeholderShapes;
+    protected final int[] externals;
+    @Getter
+    protected final String[] outputs;
+    protected final int[] outputIds;
+    protected final boolean[] isOutput;
+
+    // output arrays descriptors, since outputs are allocated per call
+    protected final DataType[] outputTypes;
+    protected final long[][] outputShapes;
+    protected final char[] outputOrders;
+
+    // pre-allocated intermediate arrays, indexed by variable id. variables with disjoint lifetimes share the same array
+    protected final INDArray[] buffers;
+    @Getter
+    protected final int numBuffers;
+
+    // set once intermediate arrays are released, plan can't be executed after that
+    @Getter
+    protected volatile boolean released = false;
+
+    protected ExecutionPlan(String signature, SameDiff sameDiff, int numFunctions, int numVariables, String[] varNames,
+                    DifferentialFunction[] ops, int[][] opInputs, int[][] opOutputs, int[] placeholders,
+                    long[][] placeholderShapes, int[] externals, String[] outputs, int[] outputIds,
+                    DataType[] outputTypes, long[][] outputShapes, char[] outputOrders, INDArray[] buffers, int numBuffers,
+                    int[] chainEnd, boolean concurrent) {
+        this.signature = signature;
+        this.sameDiff = sameDiff;
+        this.numFunctions = numFunctions;
+        this.numVariables = numVariables;
+        this.varNames = varNames;
+        this.ops = ops;
+        this.opInputs = opInputs;
+        this.opOutputs = opOutputs;
+        this.placeholders = placeholders;
+        this.placeholderShapes = placeholderShapes;
+        this.externals = externals;
+        this.outputs = outputs;
+        this.outputIds = outputIds;
+        this.outputTypes = outputTypes;
+        this.outputShapes = outputShapes;
+        this.outputOrders = outputOrders;
+        this.buffers = buffers;
+        this.numBuffers = numBuffers;
+        this.chainEnd = chainEnd;
+
+        int chains = 0;
+        for (int i = 0; i < ops.length; i++)
+            if (chainEnd[i] > i && (i == 0 || chainEnd[i - 1] < i))
+                chains++;
+        this.numChains = chains;
+
+        this.isOutput = new boolean[varNames.length];
+        for (int v : outputIds)
+            isOutput[v] = true;
+
+        this.concurrent = concurrent;
+        this.successors = new int[ops.length][];
+        this.numDependencies = new int[ops.length];
+        if (concurrent) {
+            int[] producer = new int[varNames.length];
+            Arrays.fill(producer, -1);
+            for (int i = 0; i < ops.length; i++)
+                for (int v : opOutputs[i])
+                    producer[v] = i;
+
+            List<Set<Integer>> next = new ArrayList<>();
+            for (int i = 0; i < ops.length; i++)
+                next.add(new LinkedHashSet<Integer>());
+
+            for (int i = 0; i < ops.length; i++) {
+                Set<Integer> dependencies = new HashSet<>();
+                for (int v : opInputs[i])
+                    if (producer[v] >= 0)
+                        dependencies.add(producer[v]);
+
+                numDependencies[i] = dependencies.size();
+                for (int d : dependencies)
+                    next.get(d).add(i);
+            }
+
+            for (int i = 0; i < ops.length; i++)
+                successors[i] = toArray(new ArrayList<>(next.get(i)));
+        }
+    }
+
+    /**
+     * This method builds signature string for given placeholders and outputs, which is used as cache key for plans
+     *
+     * @param placeholders
+     * @param outputs
+     * @return
+     */
+    public static String signature(@NonNull Map<String, INDArray> placeholders, String... outputs) {
+        List<String> names = new ArrayList<>(placeholders.keySet());
+        Collections.sort(names);
+
+        StringBuilder builder = new StringBuilder();
+        for (String name : names) {
+            INDArray array = placeholders.get(name);
+            builder.append(name).append(':').append(array.dataType()).append(Arrays.toString(array.shape())).append(';');
+        }
+
+        builder.append("->");
+        if (outputs != null)
+            for (String output : outputs)
+                builder.append(output).append(';');
+
+        return builder.toString();
+    }
+
+    /**
+     * This method returns names of output variables of the last op in the graph
+     *
+     * @param sameDiff
+     * @return
+     */
+    public static String[] defaultOutputs(@NonNull SameDiff sameDiff) {
+        DifferentialFunction[] functions = sameDiff.functions();
+        for (int i = functions.length - 1; i >= 0; i--) {
+            if (functions[i] instanceof SDVariable || functions[i] instanceof GradientBackwardsMarker)
+                continue;
+
+            return sameDiff.getOutputsForFunction(functions[i]);
+        }
+
+        throw new ND4JIllegalStateException("Graph has no ops to execute");
+    }
+
+    /**
+     * This method checks if given graph can be compiled
+     *
+     * @param sameDiff
+     * @return
+     */
+    public static boolean isCompilable(@NonNull SameDiff sameDiff) {
+        for (DifferentialFunction function : sameDiff.functions()) {
+            if (function instanceof If || function instanceof While || function instanceof BaseTensorOp
+                            || function instanceof Enter || function instanceof Exit || function instanceof Merge
+                            || function instanceof Switch || function instanceof LoopCond
+                            || function instanceof NextIteration || function instanceof GradientBackwardsMarker
+                            || function instanceof ExternalErrorsFunction)
+                return false;
+
+            if (function instanceof DynamicCustomOp && ((DynamicCustomOp) function).isInplaceCall())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * This method compiles execution plan for given graph and placeholders shapes.
+     * Graph is executed once in regular way during compilation, to resolve shapes.
+     *
+     * @param sameDiff graph to compile
+     * @param placeholders placeholder arrays
+     * @param outputs names of variables to be returned by execution. If none given - outputs of the last op are used
+     * @return compiled plan, or null if graph can't be compiled
+     */
+    public static ExecutionPlan compile(@NonNull SameDiff sameDiff, @NonNull Map<String, INDArray> placeholders, String... outputs) {
+        return compile(sameDiff, placeholders, false, outputs);
+    }
+
+    /**
+     * This method compiles execution plan for given graph and placeholders shapes.
+     * Graph is executed once in regular way during compilation, to resolve shapes.
+     *
+     * @param sameDiff graph to compile
+     * @param placeholders placeholder arrays
+     * @param concurrent if true, plan will be suitable for {@link #execute(Map, ForkJoinPool)}
+     * @param outputs names of variables to be returned by execution. If none given - outputs of the last op are used
+     * @return compiled plan, or null if graph can't be compiled
+     */
+    public static ExecutionPlan compile(@NonNull SameDiff sameDiff, @NonNull Map<String, INDArray> placeholders,
+                    boolean concurrent, String... outputs) {
+        return compile(sameDiff, placeholders, concurrent, !concurrent, outputs);
+    }
+
+    /**
+     * This method compiles execution plan for given graph and placeholders shapes.
+     * Graph is executed once in regular way during compilation, to resolve shapes.
+     *
+     * @param sameDiff graph to compile
+     * @param placeholders placeholder arrays
+     * @param concurrent if true, plan will be suitable for {@link #execute(Map, ForkJoinPool)}
+     * @param fuse if true, chains of elementwise ops will be fused. Ignored for concurrent plans
+     * @param outputs names of variables to be returned by execution. If none given - outputs of the last op are used
+     * @return compiled plan, or null if graph can't be compiled
+     */
+    public static ExecutionPlan compile(@NonNull SameDiff sameDiff, @NonNull Map<String, INDArray> placeholders,
+                    boolean concurrent, boolean fuse, String... outputs) {
+        // warm-up run binds arrays to the same op instances other plans are using
+        synchronized (sameDiff) {
+            return compileUnsafe(sameDiff, placeholders, concurrent, fuse, outputs);
+        }
+    }
+
+    protected static ExecutionPlan compileUnsafe(SameDiff sameDiff, Map<String, INDArray> placeholders, boolean concurrent,
+                    boolean fuse, String... outputs) {
+        if (!isCompilable(sameDiff)) {
+            log.debug("Graph contains control flow ops, compilation skipped");
+            return null;
+        }
+
+        String signature = signature(placeholders, outputs);
+        if (outputs == null || outputs.length == 0)
+            outputs = defaultOutputs(sameDiff);
+
+        for (String output : outputs)
+            if (sameDiff.getVariable(output) == null)
+                throw new ND4JIllegalStateException("No variable found for output " + output);
+
+        // warm-up run resolves all shapes and gives us arrays for all variables
+        sameDiff.execWithPlaceHolder(placeholders);
+
+        DifferentialFunction[] functions = sameDiff.functions();
+
+        // reverse pass over topologically sorted ops gives us ops required for outputs
+        Set<String> required = new HashSet<>(Arrays.asList(outputs));
+        List<DifferentialFunction> planned = new ArrayList<>();
+        for (int i = functions.length - 1; i >= 0; i--) {
+            DifferentialFunction function = functions[i];
+            if (function instanceof SDVariable)
+                continue;
+
+            String[] outNames = sameDiff.getOutputsForFunction(function);
+            boolean isRequired = false;
+            if (outNames != null)
+                for (String name : outNames)
+                    if (required.contains(name)) {
+                        isRequired = true;
+                        break;
+                    }
+
+            if (!isRequired)
+                continue;
+
+            planned.add(function);
+            String[] inNames = sameDiff.getInputsForFunction(function);
+            if (inNames != null)
+                required.addAll(Arrays.asList(inNames));
+        }
+        Collections.reverse(planned);
+
+        // assigning ids to variables
+        final Map<String, Integer> ids = new LinkedHashMap<>();
+        int[][] opInputs = new int[planned.size()][];
+        int[][] opOutputs = new int[planned.size()][];
+        for (int i = 0; i < planned.size(); i++) {
+            opInputs[i] = idsFor(ids, sameDiff.getInputsForFunction(planned.get(i)));
+            opOutputs[i] = idsFor(ids, sameDiff.getOutputsForFunction(planned.get(i)));
+        }
+        int[] outputIds = idsFor(ids, outputs);
+
+        String[] varNames = ids.keySet().toArray(new String[ids.size()]);
+        int numVars = varNames.length;
+
+        boolean[] produced = new boolean[numVars];
+        int[] lastUse = new int[numVars];
+        int[] numUses = new int[numVars];
+        Arrays.fill(lastUse, -1);
+        for (int i = 0; i < planned.size(); i++) {
+            for (int v : opOutputs[i])
+                produced[v] = true;
+            for (int v : opInputs[i]) {
+                lastUse[v] = i;
+                numUses[v]++;
+            }
+        }
+
+        boolean[] isOutput = new boolean[numVars];
+        for (int v : outputIds)
+            isOutput[v] = true;
+
+        int[] chainEnd = new int[planned.size()];
+        for (int i = 0; i < chainEnd.length; i++)
+            chainEnd[i] = i;
+
+        if (fuse && !concurrent) {
+            for (int i = planned.size() - 2; i >= 0; i--)
+                if (isChainable(sameDiff, planned, opInputs, opOutputs, varNames, isOutput, numUses, i))
+                    chainEnd[i] = chainEnd[i + 1];
+        }
+
+        // everything that's not produced by planned ops is either placeholder, or variable/constant
+        List<Integer> placeholderIds = new ArrayList<>();
+        List<Integer> externalIds = new ArrayList<>();
+        for (int v = 0; v < numVars; v++) {
+            if (produced[v])
+                continue;
+
+            if (sameDiff.isPlaceHolder(varNames[v])) {
+                if (!placeholders.containsKey(varNames[v]))
+                    throw new ND4JIllegalStateException("No array provided for placeholder " + varNames[v]);
+
+                placeholderIds.add(v);
+            } else
+                externalIds.add(v);
+        }
+
+        long[][] placeholderShapes = new long[placeholderIds.size()][];
+        for (int i = 0; i < placeholderShapes.length; i++)
+            placeholderShapes[i] = placeholders.get(varNames[placeholderIds.get(i)]).shape();
+
+        DataType[] outputTypes = new DataType[outputIds.length];
+        long[][] outputShapes = new long[outputIds.length][];
+        char[] outputOrders = new char[outputIds.length];
+        for (int i = 0; i < outputIds.length; i++) {
+            INDArray array = sameDiff.getArrForVarName(varNames[outputIds[i]]);
+            if (array == null)
+                throw new ND4JIllegalStateException("No array was produced for output " + varNames[outputIds[i]]);
+
+            outputTypes[i] = array.dataType();
+            outputShapes[i] = array.shape();
+            outputOrders[i] = array.ordering();
+        }
+
+        // memory planning: intermediate array goes back to the pool once its last consumer is executed.
+        // for concurrent plans sequential order means nothing, so arrays aren't shared there
+        INDArray[] buffers = new INDArray[numVars];
+        Map<String, Deque<INDArray>> pool = new HashMap<>();
+        int numBuffers = 0;
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (int i = 0; i < planned.size(); i++) {
+                // elementwise chain writes everything into result of its last op, so it's allocated at the head of
+                // the chain, before any inputs of the chain are released. intermediate results get no arrays at all
+                boolean isHead = i == 0 || chainEnd[i - 1] < i;
+                for (int v : opOutputs[chainEnd[i]]) {
+                    if (isOutput[v] || !isHead)
+                        continue;
+
+                    INDArray array = sameDiff.getArrForVarName(varNames[v]);
+                    if (array == null) {
+                        log.debug("No array was produced for variable {}, compilation skipped", varNames[v]);
+                        return null;
+                    }
+
+                    Deque<INDArray> free = pool.get(bufferKey(array));
+                    if (free != null && !free.isEmpty()) {
+                        buffers[v] = free.pop();
+                    } else {
+                        buffers[v] = Nd4j.createUninitialized(array.dataType(), array.shape(), array.ordering());
+                        numBuffers++;
+                    }
+                }
+
+                // outputs nobody consumes can be released right away, but only after all outputs of this op were assigned
+                if (concurrent)
+                    continue;
+
+                for (int v : opOutputs[i])
+                    if (!isOutput[v] && lastUse[v] < i && buffers[v] != null)
+                        release(pool, buffers[v]);
+
+                for (int v : distinct(opInputs[i]))
+                    if (produced[v] && !isOutput[v] && lastUse[v] == i && buffers[v] != null)
+                        release(pool, buffers[v]);
+            }
+        }
+
+        log.debug("Compiled plan for signature [{}]: {} ops out of {}, {} intermediate buffers", signature,
+                        planned.size(), functions.length, numBuffers);
+
+        return new ExecutionPlan(signature, sameDiff, functions.length, sameDiff.variables().size(), varNames,
+                        planned.toArray(new DifferentialFunction[planned.size()]), opInputs, opOutputs,
+                        toArray(placeholderIds), placeholderShapes, toArray(externalIds), outputs, outputIds,
+                        outputTypes, outputShapes, outputOrders, buffers, numBuffers, chainEnd, concurrent);
+    }
+
+    /**
+     * This method checks if op i and op i + 1 can be executed as parts of the same elementwise chain
+     */
+    protected static boolean isChainable(SameDiff sameDiff, List<DifferentialFunction> planned, int[][] opInputs,
+                    int[][] opOutputs, String[] varNames, boolean[] isOutput, int[] numUses, int i) {
+        if (!isChainMember(sameDiff, planned.get(i), opInputs[i], opOutputs[i], varNames)
+                        || !isChainMember(sameDiff, planned.get(i + 1), opInputs[i + 1], opOutputs[i + 1], varNames))
+            return false;
+
+        // intermediate result must be X of the next op, and nobody else should need it
+        int v = opOutputs[i][0];
+        if (isOutput[v] || numUses[v] != 1 || opInputs[i + 1][0] != v)
+            return false;
+
+        // intermediate results are stored within final result array
+        INDArray current = sameDiff.getArrForVarName(varNames[v]);
+        INDArray next = sameDiff.getArrForVarName(varNames[opOutputs[i + 1][0]]);
+        return current.dataType() == next.dataType() && Arrays.equals(current.shape(), next.shape());
+    }
+
+    protected static boolean isChainMember(SameDiff sameDiff, DifferentialFunction function, int[] inputs, int[] outputs,
+                    String[] varNames) {
+        if (!ElementwiseChain.isFusable(function) || outputs.length != 1 || inputs.length < 1 || inputs.length > 2)
+            return false;
+
+        INDArray x = sameDiff.getArrForVarName(varNames[inputs[0]]);
+        INDArray z = sameDiff.getArrForVarName(varNames[outputs[0]]);
+        if (x == null || z == null || !Arrays.equals(x.shape(), z.shape()))
+            return false;
+
+        // scalar & transform ops have single input, unless it's pairwise transform with inputs of the same shape
+        if (function instanceof Op && !(function instanceof BroadcastOp && !(function instanceof ScalarOp))) {
+            if (inputs.length == 1)
+                return true;
+
+            INDArray y = sameDiff.getArrForVarName(varNames[inputs[1]]);
+            return function instanceof TransformOp && y != null && Arrays.equals(y.shape(), z.shape());
+        }
+
+        return inputs.length == 2;
+    }
+
+    /**
+     * This method executes compiled plan
+     *
+     * @param placeholders placeholder arrays. Shapes must be equal to shapes used for compilation
+     * @return output arrays
+     */
+    public Map<String, INDArray> execute(@NonNull Map<String, INDArray> placeholders) {
+        // op instances are shared with other plans of the same graph
+        synchronized (sameDiff) {
+            Preconditions.checkState(!released, "This plan was released already");
+
+            INDArray[] arrays = bind(placeholders);
+
+            for (int i = 0; i < ops.length; i++) {
+                if (chainEnd[i] > i) {
+                    execChain(i, chainEnd[i], arrays);
+                    i = chainEnd[i];
+                } else
+                    execOp(i, arrays);
+            }
+
+            return collectOutputs(arrays);
+        }
+    }
+
+    /**
+     * This method executes compiled plan, running independent ops concurrently within given pool.
+     * Calling thread is blocked until all ops are executed.
+     *
+     * @param placeholders placeholder arrays. Shapes must be equal to shapes used for compilation
+     * @param pool pool to execute ops in
+     * @return output arrays
+     */
+    public Map<String, INDArray> execute(@NonNull Map<String, INDArray> placeholders, @NonNull final ForkJoinPool pool) {
+        // op instances are shared with other plans of the same graph
+        synchronized (sameDiff) {
+            Preconditions.checkState(concurrent, "This plan was compiled for sequential execution only");
+            Preconditions.checkState(!released, "This plan was released already");
+
+            final INDArray[] arrays = bind(placeholders);
+            final AtomicInteger[] pending = new AtomicInteger[ops.length];
+            for (int i = 0; i < ops.length; i++)
+                pending[i] = new AtomicInteger(numDependencies[i]);
+
+            final CountDownLatch latch = new CountDownLatch(ops.length);
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+
+            for (int i = 0; i < ops.length; i++)
+                if (numDependencies[i] == 0)
+                    pool.execute(new OpTask(i, arrays, pending, latch, error, pool));
+
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+
+            if (error.get() != null) {
+                if (error.get() instanceof RuntimeException)
+                    throw (RuntimeException) error.get();
+
+                throw new RuntimeException(error.get());
+            }
+
+            return collectOutputs(arrays);
+        }
+    }
+
+    /**
+     * This runnable executes op, and then its successors that became ready. First ready successor is executed in
+     * the same thread, so chains of ops don't go through the pool queue
+     */
+    protected class OpTask implements Runnable {
+        private final int op;
+        private final INDArray[] arrays;
+        private final AtomicInteger[] pending;
+        private final CountDownLatch latch;
+        private final AtomicReference<Throwable> error;
+        private final ForkJoinPool pool;
+
+        protected OpTask(int op, INDArray[] arrays, AtomicInteger[] pending, CountDownLatch latch,
+                        AtomicReference<Throwable> error, ForkJoinPool pool) {
+            this.op = op;
+            this.arrays = arrays;
+            this.pending = pending;
+            this.latch = latch;
+            this.error = error;
+            this.pool = pool;
+        }
+
+        @Override
+        public void run() {
+            int current = op;
+            while (current >= 0) {
+                // after failure we still walk the graph, so latch gets counted down for every op
+                if (error.get() == null) {
+                    try {
+                        execOp(current, arrays);
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
+                }
+
+                int next = -1;
+                for (int s : successors[current]) {
+                    if (pending[s].decrementAndGet() == 0) {
+                        if (next < 0)
+                            next = s;
+                        else
+                            pool.execute(new OpTask(s, arrays, pending, latch, error, pool));
+                    }
+                }
+
+                latch.countDown();
+                current = next;
+            }
+        }
+    }
+
+    protected INDArray[] bind(Map<String, INDArray> placeholders) {
+        INDArray[] arrays = new INDArray[varNames.length];
+
+        for (int i = 0; i < this.placeholders.length; i++) {
+            int v = this.placeholders[i];
+            INDArray array = placeholders.get(varNames[v]);
+            if (array == null)
+                throw new ND4JIllegalStateException("No array provided for placeholder " + varNames[v]);
+
+            Preconditions.checkArgument(Arrays.equals(placeholderShapes[i], array.shape()),
+                            "Placeholder %s shape %s doesn't match compiled shape %s", varNames[v], array.shape(), placeholderShapes[i]);
+            arrays[v] = array;
+        }
+
+        // variables & constants are fetched on every call, since they might be updated between calls
+        for (int v : externals) {
+            arrays[v] = sameDiff.getArrForVarName(varNames[v]);
+            if (arrays[v] == null)
+                throw new ND4JIllegalStateException("No array found for variable " + varNames[v]);
+        }
+
+        return arrays;
+    }
+
+    protected void execOp(int i, INDArray[] arrays) {
+        INDArray[] in = new INDArray[opInputs[i].length];
+        for (int e = 0; e < in.length; e++)
+            in[e] = arrays[opInputs[i][e]];
+
+        INDArray[] out = new INDArray[opOutputs[i].length];
+        for (int e = 0; e < out.length; e++) {
+            int v = opOutputs[i][e];
+            out[e] = isOutput[v] ? allocateOutput(v) : buffers[v];
+        }
+
+        execOp(ops[i], in, out);
+
+        for (int e = 0; e < out.length; e++)
+            arrays[opOutputs[i][e]] = out[e];
+    }
+
+    protected void execChain(int first, int last, INDArray[] arrays) {
+        List<DifferentialFunction> chain = new ArrayList<>();
+        INDArray[] secondaries = new INDArray[last - first + 1];
+        for (int i = first; i <= last; i++) {
+            chain.add(ops[i]);
+            if (opInputs[i].length > 1)
+                secondaries[i - first] = arrays[opInputs[i][1]];
+        }
+
+        int v = opOutputs[last][0];
+        INDArray z = isOutput[v] ? allocateOutput(v) : buffers[v];
+        arrays[v] = ElementwiseChain.exec(chain, arrays[opInputs[first][0]], secondaries, z);
+    }
+
+    protected Map<String, INDArray> collectOutputs(INDArray[] arrays) {
+        Map<String, INDArray> result = new LinkedHashMap<>();
+        for (int e = 0; e < outputIds.length; e++)
+            result.put(outputs[e], arrays[outputIds[e]]);
+
+        return result;
+    }
+
+    /**
+     * This method releases intermediate arrays of this plan. Plan can't be executed after this call.
+     * Output arrays returned by previous executions aren't affected.
+     */
+    public void release() {
+        synchronized (sameDiff) {
+            if (released)
+                return;
+
+            released = true;
+
+            // variables with disjoint lifetimes share arrays, so each array is released once
+            Set<INDArray> unique = Collections.newSetFromMap(new IdentityHashMap<INDArray, Boolean>());
+            for (int v = 0; v < buffers.length; v++) {
+                if (buffers[v] != null && unique.add(buffers[v]) && buffers[v].closeable())
+                    buffers[v].close();
+
+                buffers[v] = null;
+            }
+        }
+    }
+
+    /**
+     * @return number of ops executed by this plan
+     */
+    public int getNumOps() {
+        return ops.length;
+    }
+
+    protected INDArray allocateOutput(int v) {
+        for (int e = 0; e < outputIds.length; e++)
+            if (outputIds[e] == v)
+                return Nd4j.createUninitialized(outputTypes[e], outputShapes[e], outputOrders[e]);
+
+        throw new IllegalStateException("Variable " + varNames[v] + " isn't an output");
+    }
+
+    /**
+     * This method executes single op with given arrays. Actual output arrays are stored back into outputs array,
+     * because legacy ops with dimensions might allocate own result
+     */
+    protected void execOp(DifferentialFunction function, INDArray[] inputs, INDArray[] outputs) {
+        if (function instanceof DynamicCustomOp) {
+            DynamicCustomOp op = (DynamicCustomOp) function;
+            Preconditions.checkState(op.numInputArguments() == inputs.length && op.numOutputArguments() == outputs.length,
+                            "Op %s arguments don't match compiled plan", op.getOwnName());
+
+            for (int e = 0; e < inputs.length; e++)
+                op.setInputArgument(e, inputs[e]);
+
+            for (int e = 0; e < outputs.length; e++)
+                op.setOutputArgument(e, outputs[e]);
+
+            Nd4j.getExecutioner().exec(op);
+
+            for (int e = 0; e < outputs.length; e++)
+                outputs[e] = op.getOutputArgument(e);
+        } else if (function instanceof Op) {
+            Op op = (Op) function;
+            if (inputs.length > 0)
+                op.setX(inputs[0]);
+            if (inputs.length == 2)
+                op.setY(inputs[1]);
+            op.setZ(outputs[0]);
+
+            int[] axes = function.getDimensions();
+            if (axes == null)
+                Nd4j.getExecutioner().exec(op);
+            else if (op.isExecSpecial())
+                op.exec();
+            else if (op instanceof ReduceOp)
+                Nd4j.getExecutioner().exec((ReduceOp) op, axes);
+            else if (op instanceof BroadcastOp)
+                Nd4j.getExecutioner().exec((BroadcastOp) op, axes);
+            else if (op instanceof IndexAccumulation)
+                Nd4j.getExecutioner().exec((IndexAccumulation) op, axes);
+            else if (op instanceof TransformOp)
+                Nd4j.getExecutioner().exec((TransformOp) op, axes);
+            else
+                Nd4j.getExecutioner().exec(op);
+
+            outputs[0] = op.z();
+        } else
+            throw new IllegalStateException("Unknown function type: " + function.getClass().getName());
+    }
+
+    private static int[] idsFor(Map<String, Integer> ids, String[] names) {
+        if (names == null)
+            return new int[0];
+
+        int[] result = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Integer id = ids.get(names[i]);
+            if (id == null) {
+                id = ids.size();
+                ids.put(names[i], id);
+            }
+            result[i] = id;
+        }
+
+        return result;
+    }
+
+    private static int[] distinct(int[] values) {
+        Set<Integer> set = new LinkedHashSet<>();
+        for (int v : values)
+            set.add(v);
+
+        return toArray(new ArrayList<>(set));
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = list.get(i);
+
+        return result;
+    }
+
+    private static String bufferKey(INDArray array) {
+        return array.dataType() + Arrays.toString(array.shape()) + array.ordering();
+    }
+
+    private static void release(Map<String, Deque<INDArray>> pool, INDArray buffer) {
+        String key = bufferKey(buffer);
+        Deque<INDArray> free = pool.get(key);
+        if (free == null) {
+            free = new ArrayDeque<>();
+            pool.put(key, free);
+        }
+
+        free.push(buffer);
+    }
+}
@@ -18,9 +18,11 @@ package org.nd4j.evaluation.classification;
 
 import lombok.*;
 import org.apache.commons.lang3.ArrayUtils;
+import org.nd4j.base.Preconditions;
 import org.nd4j.evaluation.BaseEvaluation;
 import org.nd4j.evaluation.curves.PrecisionRecallCurve;
 import org.nd4j.evaluation.curves.RocCurve;
+import org.nd4j.evaluation.curves.TDigest;
 import org.nd4j.evaluation.serde.ROCSerializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.Op;
@@ -38,8 +40,10 @@ import org.nd4j.shade.jackson.annotation.JsonTypeInfo;
 import org.nd4j.shade.jackson.databind.annotation.JsonSerialize;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.nd4j.linalg.indexing.NDArrayIndex.all;
@@ -47,9 +51,10 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 
 /**
  * ROC (Receiver Operating Characteristic) for binary classifiers.<br>
- * ROC has 2 modes of operation:
+ * ROC has 3 modes of operation:
  * (a) Thresholded (less memory)<br>
- * (b) Exact (default; use numSteps == 0 to set. May not scale to very large datasets)
+ * (b) Exact (default; use numSteps == 0 to set. May not scale to very large datasets)<br>
+ * (c) Sketched (bounded memory; use {@link #sketched(int)} to create)
  *
  * <p>
  * Thresholded Is an approximate method, that (for large datasets) may use significantly less memory than exact..
@@ -60,6 +65,11 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
  * Note that in some cases (very skewed probability predictions, for example) the threshold approach can be inaccurate,
  * often underestimating the true area.
  * <p>
+ * Sketched mode keeps a {@link TDigest} of predicted probabilities for positive and negative examples. Memory use
+ * depends only on sketch compression, sketches of different instances can be merged, and since threshold points are
+ * based on data, accuracy is close to exact mode even for very skewed predictions. Curves and areas are estimates,
+ * with error decreasing as compression grows.
+ * <p>
  * The data is assumed to be binary classification - nColumns == 1 (single binary output variable) or nColumns == 2
  * (probability distribution over 2 classes, with column 1 being values for 'positive' examples)
  *
@@ -68,7 +78,8 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 @EqualsAndHashCode(callSuper = true,
                 exclude = {"auc", "auprc", "probAndLabel", "exactAllocBlockSize", "rocCurve", "prCurve"})
 @Data
-@ToString(exclude = {"probAndLabel", "exactAllocBlockSize", "rocCurve", "prCurve"})
+@ToString(exclude = {"probAndLabel", "exactAllocBlockSize", "rocCurve", "prCurve", "positiveSketch",
+                "negativeSketch"})
 @JsonIgnoreProperties({"probAndLabel", "exactAllocBlockSize"})
 @JsonSerialize(using = ROCSerializer.class)
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
@@ -91,6 +102,10 @@ public class ROC extends BaseEvaluation<ROC> {
     private boolean rocRemoveRedundantPts;
     private int exactAllocBlockSize;
 
+    private int sketchCompression;
+    private TDigest positiveSketch;
+    private TDigest negativeSketch;
+
     public ROC() {
         //Default to exact
         this(0);
@@ -139,6 +154,43 @@ public class ROC extends BaseEvaluation<ROC> {
         this.exactAllocBlockSize = exactAllocBlockSize;
     }
 
+    /**
+     * This method creates ROC instance working in sketched mode, with default compression
+     */
+    public static ROC sketched() {
+        return sketched(TDigest.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * This method creates ROC instance working in sketched mode
+     *
+     * @param compression Compression of the underlying sketches: larger values mean more accurate results and more memory
+     */
+    public static ROC sketched(int compression) {
+        return sketched(compression, true);
+    }
+
+    /**
+     * This method creates ROC instance working in sketched mode
+     *
+     * @param compression Compression of the underlying sketches: larger values mean more accurate results and more memory
+     * @param rocRemoveRedundantPts Usually set to true. If true,  remove any redundant points from ROC and P-R curves
+     */
+    public static ROC sketched(int compression, boolean rocRemoveRedundantPts) {
+        Preconditions.checkArgument(compression >= 10, "Compression should be >= 10, got %s", compression);
+        ROC roc = new ROC(0, rocRemoveRedundantPts);
+        roc.isExact = false;
+        roc.sketchCompression = compression;
+        return roc;
+    }
+
+    /**
+     * @return true if this instance works in sketched mode
+     */
+    public boolean isSketched() {
+        return sketchCompression > 0;
+    }
+
     protected INDArray getProbAndLabelUsed() {
         if (probAndLabel == null || exampleCount == 0) {
             return null;
@@ -170,6 +222,9 @@ public class ROC extends BaseEvaluation<ROC> {
 
         if (isExact) {
             probAndLabel = null;
+        } else if (isSketched()) {
+            positiveSketch = null;
+            negativeSketch = null;
         } else {
             double step = 1.0 / thresholdSteps;
             for (int i = 0; i <= thresholdSteps; i++) {
@@ -188,7 +243,11 @@ public class ROC extends BaseEvaluation<ROC> {
         StringBuilder sb = new StringBuilder();
         sb.append("AUC (Area under ROC Curve):                ").append(calculateAUC()).append("\n");
         sb.append("AUPRC (Area under Precision/Recall Curve): ").append(calculateAUCPR());
-        if(!isExact){
+        if (isSketched()) {
+            sb.append("\n");
+            sb.append("[Note: Sketched AUC/AUPRC calculation used with compression ").append(sketchCompression)
+                    .append("; values are estimates]");
+        } else if(!isExact){
             sb.append("\n");
             sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                     .append(" steps); accuracy may reduced compared to exact mode]");
@@ -267,6 +326,34 @@ public class ROC extends BaseEvaluation<ROC> {
             int countClass1CurrMinibatch = labelClass1.sumNumber().intValue();
             countActualPositive += countClass1CurrMinibatch;
             countActualNegative += labels.size(0) - countClass1CurrMinibatch;
+        } else if (isSketched()) {
+            //Sketched approach: add probabilities to sketch of the actual class
+            INDArray probClass1;
+            INDArray labelClass1;
+            if (singleOutput) {
+                probClass1 = predictions;
+                labelClass1 = labels;
+            } else {
+                probClass1 = predictions.getColumn(1);
+                labelClass1 = labels.getColumn(1);
+            }
+
+            if (positiveSketch == null) {
+                positiveSketch = new TDigest(sketchCompression);
+                negativeSketch = new TDigest(sketchCompression);
+            }
+
+            double[] prob = probClass1.dup().data().asDouble();
+            double[] label = labelClass1.dup().data().asDouble();
+            for (int i = 0; i < prob.length; i++) {
+                if (label[i] != 0.0) {
+                    positiveSketch.add(prob[i]);
+                    countActualPositive++;
+                } else {
+                    negativeSketch.add(prob[i]);
+                    countActualNegative++;
+                }
+            }
         } else {
             //Thresholded approach
             INDArray positivePredictedClassColumn;
@@ -440,6 +527,41 @@ public class ROC extends BaseEvaluation<ROC> {
             ArrayUtils.reverse(fpCountOut);
             ArrayUtils.reverse(fnCountOut);
 
+            if (rocRemoveRedundantPts) {
+                Pair<double[][], int[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
+                                fpCountOut, fnCountOut);
+                double[][] temp = pair.getFirst();
+                int[][] temp2 = pair.getSecond();
+                thresholdOut = temp[0];
+                precisionOut = temp[1];
+                recallOut = temp[2];
+                tpCountOut = temp2[0];
+                fpCountOut = temp2[1];
+                fnCountOut = temp2[2];
+            }
+        } else if (isSketched()) {
+            double[][] points = getSketchPoints();
+            int length = points[0].length;
+            thresholdOut = new double[length];
+            precisionOut = new double[length];
+            recallOut = new double[length];
+            tpCountOut = new int[length];
+            fpCountOut = new int[length];
+            fnCountOut = new int[length];
+
+            //Sketch points are in order of decreasing threshold: reverse to lowest to highest threshold
+            for (int i = 0; i < length; i++) {
+                int j = length - 1 - i;
+                double tpCount = points[1][j];
+                double fpCount = points[2][j];
+                thresholdOut[i] = points[0][j];
+                precisionOut[i] = tpCount + fpCount == 0.0 ? 1.0 : tpCount / (tpCount + fpCount);
+                recallOut[i] = countActualPositive == 0 ? 1.0 : tpCount / countActualPositive;
+                tpCountOut[i] = (int) Math.round(tpCount);
+                fpCountOut[i] = (int) Math.round(fpCount);
+                fnCountOut[i] = (int) (countActualPositive - tpCountOut[i]);
+            }
+
             if (rocRemoveRedundantPts) {
                 Pair<double[][], int[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
                                 fpCountOut, fnCountOut);
@@ -558,6 +680,27 @@ public class ROC extends BaseEvaluation<ROC> {
 
             this.rocCurve = new RocCurve(tOut, x_fpr_out, y_tpr_out);
 
+            return rocCurve;
+        } else if (isSketched()) {
+            double[][] points = getSketchPoints();
+            double[] tOut = points[0];
+            double[] x_fpr_out = new double[tOut.length];
+            double[] y_tpr_out = new double[tOut.length];
+            for (int i = 0; i < tOut.length; i++) {
+                x_fpr_out[i] = points[2][i] / countActualNegative;
+                y_tpr_out[i] = points[1][i] / countActualPositive;
+            }
+
+            if (rocRemoveRedundantPts) {
+                Pair<double[][], int[][]> p = removeRedundant(tOut, x_fpr_out, y_tpr_out, null, null, null);
+                double[][] temp = p.getFirst();
+                tOut = temp[0];
+                x_fpr_out = temp[1];
+                y_tpr_out = temp[2];
+            }
+
+            this.rocCurve = new RocCurve(tOut, x_fpr_out, y_tpr_out);
+
             return rocCurve;
         } else {
 
@@ -577,6 +720,53 @@ public class ROC extends BaseEvaluation<ROC> {
         }
     }
 
+    /**
+     * This method builds (threshold, true positive count, false positive count) points from positive and negative
+     * sketches, in order of decreasing threshold, starting from (1.0, 0, 0) and ending with (0.0, #pos, #neg).
+     * Points are placed at all breakpoints of both sketches: at each of them, counts are taken for values strictly
+     * above it, and then for values at or above it, so ties between classes get half credit when area is calculated.
+     */
+    private double[][] getSketchPoints() {
+        TDigest pos = positiveSketch == null ? new TDigest(sketchCompression) : positiveSketch;
+        TDigest neg = negativeSketch == null ? new TDigest(sketchCompression) : negativeSketch;
+
+        double[] posBreakpoints = pos.breakpoints();
+        double[] negBreakpoints = neg.breakpoints();
+        double[] all = Arrays.copyOf(posBreakpoints, posBreakpoints.length + negBreakpoints.length);
+        System.arraycopy(negBreakpoints, 0, all, posBreakpoints.length, negBreakpoints.length);
+        Arrays.sort(all);
+
+        double posTotal = pos.getTotalWeight();
+        double negTotal = neg.getTotalWeight();
+
+        List<double[]> points = new ArrayList<>();
+        points.add(new double[] {1.0, 0.0, 0.0});
+        for (int i = all.length - 1; i >= 0; i--) {
+            double t = all[i];
+            if (i < all.length - 1 && all[i + 1] == t)
+                continue;
+
+            double tpAbove = posTotal - pos.cdf(t, true);
+            double fpAbove = negTotal - neg.cdf(t, true);
+            points.add(new double[] {t, tpAbove, fpAbove});
+
+            double tpAtOrAbove = posTotal - pos.cdf(t, false);
+            double fpAtOrAbove = negTotal - neg.cdf(t, false);
+            if (tpAtOrAbove != tpAbove || fpAtOrAbove != fpAbove)
+                points.add(new double[] {t, tpAtOrAbove, fpAtOrAbove});
+        }
+        points.add(new double[] {0.0, posTotal, negTotal});
+
+        double[][] out = new double[3][points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = points.get(i);
+            out[0][i] = p[0];
+            out[1][i] = p[1];
+            out[2][i] = p[2];
+        }
+        return out;
+    }
+
     private static Pair<double[][], int[][]> removeRedundant(double[] threshold, double[] x, double[] y, int[] tpCount,
                                                              int[] fpCount, int[] fnCount) {
         double[] t_compacted = new double[threshold.length];
@@ -682,6 +872,9 @@ public class ROC extends BaseEvaluation<ROC> {
                             "Cannot merge ROC instances with different numbers of threshold steps ("
                                             + this.thresholdSteps + " vs. " + other.thresholdSteps + ")");
         }
+        if (this.isSketched() != other.isSketched()) {
+            throw new UnsupportedOperationException("Cannot merge sketched and non-sketched ROC instances");
+        }
         this.countActualPositive += other.countActualPositive;
         this.countActualNegative += other.countActualNegative;
         this.auc = null;
@@ -713,6 +906,15 @@ public class ROC extends BaseEvaluation<ROC> {
             probAndLabel.put(new INDArrayIndex[] {
                             interval(exampleCount, exampleCount + other.exampleCount), all()},
                             toPut);
+        } else if (isSketched()) {
+            if (other.positiveSketch != null) {
+                if (positiveSketch == null) {
+                    positiveSketch = new TDigest(sketchCompression);
+                    negativeSketch = new TDigest(sketchCompression);
+                }
+                positiveSketch.merge(other.positiveSketch);
+                negativeSketch.merge(other.negativeSketch);
+            }
         } else {
             for (Double d : this.counts.keySet()) {
                 CountsForThreshold cft = this.counts.get(d);
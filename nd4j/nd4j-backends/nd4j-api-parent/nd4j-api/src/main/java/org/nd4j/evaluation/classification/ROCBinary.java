@@ -19,9 +19,11 @@ package org.nd4j.evaluation.classification;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.val;
+import org.nd4j.base.Preconditions;
 import org.nd4j.evaluation.BaseEvaluation;
 import org.nd4j.evaluation.curves.PrecisionRecallCurve;
 import org.nd4j.evaluation.curves.RocCurve;
+import org.nd4j.evaluation.curves.TDigest;
 import org.nd4j.evaluation.serde.ROCArraySerializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
@@ -52,6 +54,7 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
     private int thresholdSteps;
     private boolean rocRemoveRedundantPts;
     private List<String> labels;
+    private int sketchCompression;
 
     public ROCBinary() {
         this(0);
@@ -73,6 +76,27 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         this.rocRemoveRedundantPts = rocRemoveRedundantPts;
     }
 
+    /**
+     * This method creates ROCBinary instance, with underlying {@link ROC} instances working in sketched mode with
+     * default compression. See {@link ROC#sketched(int)} for details.
+     */
+    public static ROCBinary sketched() {
+        return sketched(TDigest.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * This method creates ROCBinary instance, with underlying {@link ROC} instances working in sketched mode.
+     * See {@link ROC#sketched(int)} for details.
+     *
+     * @param compression Compression of the underlying sketches: larger values mean more accurate results and more memory
+     */
+    public static ROCBinary sketched(int compression) {
+        Preconditions.checkArgument(compression >= 10, "Compression should be >= 10, got %s", compression);
+        ROCBinary roc = new ROCBinary(0, true);
+        roc.sketchCompression = compression;
+        return roc;
+    }
+
 
     @Override
     public void reset() {
@@ -104,7 +128,8 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         if (underlying == null) {
             underlying = new ROC[n];
             for (int i = 0; i < n; i++) {
-                underlying[i] = new ROC(thresholdSteps, rocRemoveRedundantPts);
+                underlying[i] = sketchCompression > 0 ? ROC.sketched(sketchCompression, rocRemoveRedundantPts)
+                                : new ROC(thresholdSteps, rocRemoveRedundantPts);
             }
         }
 
@@ -329,7 +354,11 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
                                 getCountActualNegative(i)));
             }
 
-            if(thresholdSteps > 0){
+            if (sketchCompression > 0) {
+                sb.append("\n");
+                sb.append("[Note: Sketched AUC/AUPRC calculation used with compression ").append(sketchCompression)
+                        .append("; values are estimates]");
+            } else if(thresholdSteps > 0){
                 sb.append("\n");
                 sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                         .append(" steps); accuracy may reduced compared to exact mode]");
@@ -18,9 +18,11 @@ package org.nd4j.evaluation.classification;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.nd4j.base.Preconditions;
 import org.nd4j.evaluation.BaseEvaluation;
 import org.nd4j.evaluation.curves.PrecisionRecallCurve;
 import org.nd4j.evaluation.curves.RocCurve;
+import org.nd4j.evaluation.curves.TDigest;
 import org.nd4j.evaluation.serde.ROCArraySerializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.shade.jackson.databind.annotation.JsonSerialize;
@@ -44,6 +46,7 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
 
     private int thresholdSteps;
     private boolean rocRemoveRedundantPts;
+    private int sketchCompression;
     @JsonSerialize(using = ROCArraySerializer.class)
     private ROC[] underlying;
     private List<String> labels;
@@ -69,6 +72,27 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         this.rocRemoveRedundantPts = rocRemoveRedundantPts;
     }
 
+    /**
+     * This method creates ROCMultiClass instance, with underlying {@link ROC} instances working in sketched mode with
+     * default compression. See {@link ROC#sketched(int)} for details.
+     */
+    public static ROCMultiClass sketched() {
+        return sketched(TDigest.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * This method creates ROCMultiClass instance, with underlying {@link ROC} instances working in sketched mode.
+     * See {@link ROC#sketched(int)} for details.
+     *
+     * @param compression Compression of the underlying sketches: larger values mean more accurate results and more memory
+     */
+    public static ROCMultiClass sketched(int compression) {
+        Preconditions.checkArgument(compression >= 10, "Compression should be >= 10, got %s", compression);
+        ROCMultiClass roc = new ROCMultiClass(0, true);
+        roc.sketchCompression = compression;
+        return roc;
+    }
+
     @Override
     public void reset() {
         underlying = null;
@@ -112,7 +136,11 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
 
             sb.append("Average AUC: ").append(String.format("%-12." + printPrecision + "f", calculateAverageAUC()));
 
-            if(thresholdSteps > 0){
+            if (sketchCompression > 0) {
+                sb.append("\n");
+                sb.append("[Note: Sketched AUC/AUPRC calculation used with compression ").append(sketchCompression)
+                        .append("; values are estimates]");
+            } else if(thresholdSteps > 0){
                 sb.append("\n");
                 sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                         .append(" steps); accuracy may reduced compared to exact mode]");
@@ -152,7 +180,8 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         if (underlying == null) {
             underlying = new ROC[n];
             for (int i = 0; i < n; i++) {
-                underlying[i] = new ROC(thresholdSteps, rocRemoveRedundantPts);
+                underlying[i] = sketchCompression > 0 ? ROC.sketched(sketchCompression, rocRemoveRedundantPts)
+                                : new ROC(thresholdSteps, rocRemoveRedundantPts);
             }
         }
 
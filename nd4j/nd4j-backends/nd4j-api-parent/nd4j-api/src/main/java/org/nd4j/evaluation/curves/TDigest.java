@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.evaluation.curves;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import org.nd4j.base.Preconditions;
+import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch (merging t-digest, Dunning &amp; Ertl, "Computing extremely accurate quantiles using
+ * t-digests"), used by sketch-based evaluation classes, i.e. {@link org.nd4j.evaluation.classification.ROC#sketched(int)}.
+ *
+ * Values are summarized as a sorted list of centroids (mean, weight). Centroid size is limited by the arcsine scale
+ * function, so centroids near the tails are small (singletons, mostly), and number of centroids is roughly
+ * compression / 2, regardless of number of values added. Two digests are merged in O(compression) time and memory.
+ *
+ * For CDF estimation, centroids of weight 1 are treated as exact point masses, and all other centroids are spread
+ * uniformly between midpoints to their neighbours.
+ */
+@Data
+@EqualsAndHashCode(exclude = {"buffer", "bufferSize"})
+@JsonIgnoreProperties({"buffer", "bufferSize"})
+public class TDigest implements Serializable {
+    public static final int DEFAULT_COMPRESSION = 500;
+
+    private double compression;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // values added since last compression, all with weight 1
+    private double[] buffer;
+    private int bufferSize;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression Compression factor: larger values mean more accurate estimates, and more memory used
+     */
+    public TDigest(double compression) {
+        Preconditions.checkArgument(compression >= 10, "Compression should be >= 10, got %s", compression);
+        this.compression = compression;
+    }
+
+    /**
+     * This method adds single value to this digest
+     *
+     * @param value
+     */
+    public void add(double value) {
+        Preconditions.checkArgument(!Double.isNaN(value), "Can't add NaN to TDigest");
+        if (buffer == null)
+            buffer = new double[(int) Math.ceil(compression) * 2];
+
+        buffer[bufferSize++] = value;
+        totalWeight += 1;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        if (bufferSize == buffer.length)
+            compress();
+    }
+
+    /**
+     * This method merges other digest into this one. Other digest is left unchanged, except for being compressed.
+     *
+     * @param other
+     */
+    public void merge(@NonNull TDigest other) {
+        compress();
+        other.compress();
+        if (other.totalWeight == 0)
+            return;
+
+        totalWeight += other.totalWeight;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        mergeSorted(other.means, other.weights, other.means.length);
+    }
+
+    /**
+     * This method merges all buffered values into centroids
+     */
+    public void compress() {
+        if (bufferSize == 0)
+            return;
+
+        Arrays.sort(buffer, 0, bufferSize);
+        double[] bufferWeights = new double[bufferSize];
+        Arrays.fill(bufferWeights, 1.0);
+        int length = bufferSize;
+        bufferSize = 0;
+        mergeSorted(buffer, bufferWeights, length);
+    }
+
+    /**
+     * This method returns number of centroids, after compression
+     */
+    public int numCentroids() {
+        compress();
+        return means.length;
+    }
+
+    /**
+     * This method returns estimated weight of values below (or at, if inclusive) the given value
+     *
+     * @param value
+     * @param inclusive if true, values equal to the given one are counted as well
+     */
+    public double cdf(double value, boolean inclusive) {
+        compress();
+        if (totalWeight == 0 || value < min)
+            return 0.0;
+        if (value > max)
+            return totalWeight;
+
+        double result = 0.0;
+        for (int i = 0; i < means.length; i++) {
+            double lower = lowerBound(i);
+            double upper = upperBound(i);
+            if (weights[i] <= 1.0 || lower >= upper) {
+                // point mass
+                if (means[i] < value || (inclusive && means[i] == value))
+                    result += weights[i];
+            } else if (value >= upper) {
+                result += weights[i];
+            } else if (value > lower) {
+                result += weights[i] * (value - lower) / (upper - lower);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * This method returns sorted values where {@link #cdf(double, boolean)} changes its slope or jumps. Between any
+     * two consecutive breakpoints CDF estimate is linear.
+     */
+    public double[] breakpoints() {
+        compress();
+        if (totalWeight == 0)
+            return new double[0];
+
+        double[] out = new double[2 * means.length + 2];
+        int count = 0;
+        out[count++] = min;
+        out[count++] = max;
+        for (int i = 0; i < means.length; i++) {
+            double lower = lowerBound(i);
+            double upper = upperBound(i);
+            if (weights[i] <= 1.0 || lower >= upper) {
+                out[count++] = means[i];
+            } else {
+                out[count++] = lower;
+                out[count++] = upper;
+            }
+        }
+
+        Arrays.sort(out, 0, count);
+        return Arrays.copyOf(out, count);
+    }
+
+    private double lowerBound(int i) {
+        return i == 0 ? min : (means[i - 1] + means[i]) / 2.0;
+    }
+
+    private double upperBound(int i) {
+        return i == means.length - 1 ? max : (means[i] + means[i + 1]) / 2.0;
+    }
+
+    /**
+     * Merges current centroids with given sorted centroids, and rebuilds centroids so that each of them covers at
+     * most 1 unit of scale function
+     */
+    private void mergeSorted(double[] otherMeans, double[] otherWeights, int otherLength) {
+        int length = means.length + otherLength;
+        double[] sortedMeans = new double[length];
+        double[] sortedWeights = new double[length];
+        double total = 0.0;
+        int i = 0, j = 0;
+        for (int e = 0; e < length; e++) {
+            if (j >= otherLength || (i < means.length && means[i] <= otherMeans[j])) {
+                sortedMeans[e] = means[i];
+                sortedWeights[e] = weights[i++];
+            } else {
+                sortedMeans[e] = otherMeans[j];
+                sortedWeights[e] = otherWeights[j++];
+            }
+            total += sortedWeights[e];
+        }
+
+        double[] outMeans = new double[length];
+        double[] outWeights = new double[length];
+        int count = 0;
+
+        double weightSoFar = 0.0;
+        double kLeft = scale(0.0);
+        double currentMean = sortedMeans[0];
+        double currentWeight = sortedWeights[0];
+        for (int e = 1; e < length; e++) {
+            double proposedWeight = currentWeight + sortedWeights[e];
+            double kRight = scale((weightSoFar + proposedWeight) / total);
+            if (kRight - kLeft <= 1.0) {
+                currentMean += (sortedMeans[e] - currentMean) * sortedWeights[e] / proposedWeight;
+                currentWeight = proposedWeight;
+            } else {
+                outMeans[count] = currentMean;
+                outWeights[count++] = currentWeight;
+                weightSoFar += currentWeight;
+                kLeft = scale(weightSoFar / total);
+                currentMean = sortedMeans[e];
+                currentWeight = sortedWeights[e];
+            }
+        }
+        outMeans[count] = currentMean;
+        outWeights[count++] = currentWeight;
+
+        means = Arrays.copyOf(outMeans, count);
+        weights = Arrays.copyOf(outWeights, count);
+    }
+
+    private double scale(double q) {
+        q = Math.max(0.0, Math.min(1.0, q));
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+}
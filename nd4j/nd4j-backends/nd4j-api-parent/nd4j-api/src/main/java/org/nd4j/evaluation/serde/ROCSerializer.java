@@ -57,6 +57,16 @@ public class ROCSerializer extends JsonSerializer<ROC> {
         jsonGenerator.writeBooleanField("isExact", roc.isExact());
         jsonGenerator.writeNumberField("exampleCount", roc.getExampleCount());
         jsonGenerator.writeBooleanField("rocRemoveRedundantPts", roc.isRocRemoveRedundantPts());
+        if (roc.isSketched()) {
+            //Sketches are small, and unlike exact mode predictions, are stored so that instances can be merged later
+            jsonGenerator.writeNumberField("sketchCompression", roc.getSketchCompression());
+            if (roc.getPositiveSketch() != null) {
+                roc.getPositiveSketch().compress();
+                roc.getNegativeSketch().compress();
+                jsonGenerator.writeObjectField("positiveSketch", roc.getPositiveSketch());
+                jsonGenerator.writeObjectField("negativeSketch", roc.getNegativeSketch());
+            }
+        }
     }
 
     @Override
@@ -40,6 +40,7 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.AtomicBoolean;
 import org.nd4j.linalg.primitives.Optional;
 import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.metrics.OpMetrics;
 
 import java.util.*;
 
@@ -382,6 +383,8 @@ public class DefaultOpExecutioner implements OpExecutioner {
     }
 
     public long profilingHookIn(Op op, DataBuffer... tadBuffers) {
+        boolean sampled = OpMetrics.getInstance().onInvocation(op);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processOpCall(op, tadBuffers);
@@ -393,7 +396,7 @@ public class DefaultOpExecutioner implements OpExecutioner {
                 break;
             case DISABLED:
             default:
-                return 0L;
+                return sampled ? System.nanoTime() : 0L;
         }
 
         return System.nanoTime();
@@ -451,6 +454,8 @@ public class DefaultOpExecutioner implements OpExecutioner {
     }
 
     public long profilingHookIn(Op op) {
+        boolean sampled = OpMetrics.getInstance().onInvocation(op);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processOpCall(op);
@@ -462,16 +467,18 @@ public class DefaultOpExecutioner implements OpExecutioner {
                 break;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
-                return 0L;
+                return sampled ? System.nanoTime() : 0L;
             case DISABLED:
             default:
-                return 0L;
+                return sampled ? System.nanoTime() : 0L;
         }
 
         return System.nanoTime();
     }
 
     public long profilingHookIn(CustomOp op) {
+        boolean sampled = OpMetrics.getInstance().onInvocation(op);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processOpCall(op);
@@ -483,16 +490,20 @@ public class DefaultOpExecutioner implements OpExecutioner {
                 break;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
-                return 0L;
+                return sampled ? System.nanoTime() : 0L;
             case DISABLED:
             default:
-                return 0L;
+                return sampled ? System.nanoTime() : 0L;
         }
 
         return System.nanoTime();
     }
 
     public void profilingHookOut(Op op, long timeStart) {
+        // non-zero start time means either sampled invocation, or profiling mode that times all invocations
+        if (timeStart != 0L && OpMetrics.getInstance().isEnabled())
+            OpMetrics.getInstance().record(op, timeStart);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
@@ -529,6 +540,9 @@ public class DefaultOpExecutioner implements OpExecutioner {
 
 
     public void profilingHookOut(CustomOp op, long timeStart) {
+        if (timeStart != 0L && OpMetrics.getInstance().isEnabled())
+            OpMetrics.getInstance().record(op, timeStart);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
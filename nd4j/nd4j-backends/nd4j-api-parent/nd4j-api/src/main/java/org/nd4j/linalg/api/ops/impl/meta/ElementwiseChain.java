@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.api.ops.impl.meta;
+
+import lombok.NonNull;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.*;
+import org.nd4j.linalg.api.ops.impl.transforms.pairwise.arithmetic.*;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class executes chain of elementwise ops (transform, scalar, broadcast and pairwise ops) as a single pass over memory.
+ *
+ * Each op of the chain takes output of the previous op as its input X, and optionally has own secondary input Y
+ * (i.e. bias vector for bias-add). Instead of running each op over whole arrays, arrays are split into chunks of rows,
+ * small enough to stay in CPU cache, and the whole chain is applied to one chunk after another, in-place within result array.
+ * So intermediate results are never materialized, and memory traffic is one read of inputs plus one write of result,
+ * regardless of chain length.
+ *
+ * PLEASE NOTE: ops in chain must preserve data type, and must not change shape of the input.
+ * PLEASE NOTE: Chunking is applied to 'c' ordered arrays of rank 2+ only, other arrays are processed op by op as usual.
+ */
+public class ElementwiseChain {
+    /**
+     * Default number of elements per chunk. 32K floats/doubles fit into L2 cache of any modern CPU
+     */
+    public static final long DEFAULT_CHUNK_LENGTH = 32 * 1024;
+
+    private ElementwiseChain() {
+    }
+
+    /**
+     * This method checks if given op can be a part of elementwise chain
+     *
+     * @param function op to check
+     * @return
+     */
+    public static boolean isFusable(DifferentialFunction function) {
+        if (function instanceof DynamicCustomOp) {
+            // broadcastable pairwise arithmetic
+            return function instanceof AddOp || function instanceof SubOp || function instanceof MulOp
+                            || function instanceof DivOp || function instanceof RSubOp || function instanceof RDivOp
+                            || function instanceof RealDivOp || function instanceof SquaredDifferenceOp;
+        }
+
+        if (!(function instanceof Op) || function instanceof RandomOp || function instanceof TransformBoolOp
+                        || function instanceof BaseTransformBoolOp || function instanceof BaseScalarBoolOp
+                        || function instanceof BaseBroadcastBoolOp)
+            return false;
+
+        Op op = (Op) function;
+        int[] dimensions = function.getDimensions();
+
+        // exec special ops are usually not elementwise, i.e. softmax or ismax
+        if (op.isExecSpecial())
+            return false;
+
+        if (op instanceof ScalarOp || op instanceof TransformOp)
+            return dimensions == null;
+
+        // broadcast is fine, as long as it doesn't go along dimension 0, which we split into chunks
+        if (op instanceof BroadcastOp) {
+            if (dimensions == null)
+                return false;
+
+            for (int d : dimensions)
+                if (d == 0)
+                    return false;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * This method executes chain of ops, with default chunk length
+     *
+     * @param ops         elementwise ops
+     * @param x           input of the first op
+     * @param secondaries secondary inputs for each op, or nulls for ops that don't have them
+     * @param z           result array. Must have the same shape as x
+     * @return z
+     */
+    public static INDArray exec(@NonNull List<? extends DifferentialFunction> ops, @NonNull INDArray x, INDArray[] secondaries, @NonNull INDArray z) {
+        return exec(ops, x, secondaries, z, DEFAULT_CHUNK_LENGTH);
+    }
+
+    /**
+     * This method executes chain of ops
+     *
+     * @param ops         elementwise ops
+     * @param x           input of the first op
+     * @param secondaries secondary inputs for each op, or nulls for ops that don't have them
+     * @param z           result array. Must have the same shape as x
+     * @param chunkLength number of elements processed by whole chain at once
+     * @return z
+     */
+    public static INDArray exec(@NonNull List<? extends DifferentialFunction> ops, @NonNull INDArray x, INDArray[] secondaries,
+                    @NonNull INDArray z, long chunkLength) {
+        Preconditions.checkArgument(!ops.isEmpty(), "Chain must have at least 1 op");
+        Preconditions.checkArgument(secondaries == null || secondaries.length == ops.size(),
+                        "Number of secondary inputs must match number of ops: %s vs %s", secondaries == null ? 0 : secondaries.length, ops.size());
+        Preconditions.checkArgument(Arrays.equals(x.shape(), z.shape()), "Input and result shapes must be equal: %s vs %s", x.shape(), z.shape());
+        Preconditions.checkArgument(chunkLength > 0, "Chunk length must be positive, got %s", chunkLength);
+
+        boolean chunked = z.rank() >= 2 && z.size(0) > 1 && z.length() > chunkLength && z.ordering() == 'c' && x.ordering() == 'c';
+        if (!chunked) {
+            for (int e = 0; e < ops.size(); e++)
+                execOp(ops.get(e), e == 0 ? x : z, secondaries == null ? null : secondaries[e], z);
+
+            return z;
+        }
+
+        long rows = z.size(0);
+        long rowsPerChunk = Math.max(1, chunkLength / (z.length() / rows));
+        for (long start = 0; start < rows; start += rowsPerChunk) {
+            long end = Math.min(rows, start + rowsPerChunk);
+            INDArray zChunk = rowsOf(z, start, end);
+            INDArray xChunk = rowsOf(x, start, end);
+
+            for (int e = 0; e < ops.size(); e++)
+                execOp(ops.get(e), e == 0 ? xChunk : zChunk,
+                                secondaries == null ? null : secondaryChunk(secondaries[e], z, start, end), zChunk);
+        }
+
+        return z;
+    }
+
+    /**
+     * Secondary input is split into chunks only if it's defined per row. Otherwise it's broadcast over rows, and used as is.
+     */
+    protected static INDArray secondaryChunk(INDArray y, INDArray z, long start, long end) {
+        if (y == null)
+            return null;
+
+        if (y.rank() == z.rank() && y.size(0) == z.size(0) && y.size(0) > 1)
+            return rowsOf(y, start, end);
+
+        return y;
+    }
+
+    protected static INDArray rowsOf(INDArray array, long start, long end) {
+        INDArrayIndex[] indices = new INDArrayIndex[array.rank()];
+        indices[0] = NDArrayIndex.interval(start, end);
+        for (int i = 1; i < indices.length; i++)
+            indices[i] = NDArrayIndex.all();
+
+        return array.get(indices);
+    }
+
+    protected static void execOp(DifferentialFunction function, INDArray x, INDArray y, INDArray z) {
+        if (function instanceof DynamicCustomOp) {
+            DynamicCustomOp op = (DynamicCustomOp) function;
+            INDArray[] inputs = y == null ? new INDArray[] {x} : new INDArray[] {x, y};
+
+            if (op.numInputArguments() == inputs.length) {
+                for (int e = 0; e < inputs.length; e++)
+                    op.setInputArgument(e, inputs[e]);
+            } else {
+                for (INDArray array : op.inputArguments())
+                    op.removeInputArgument(array);
+                op.addInputArgument(inputs);
+            }
+
+            if (op.numOutputArguments() == 1) {
+                op.setOutputArgument(0, z);
+            } else {
+                for (INDArray array : op.outputArguments())
+                    op.removeOutputArgument(array);
+                op.addOutputArgument(z);
+            }
+
+            Nd4j.getExecutioner().exec(op);
+        } else {
+            Op op = (Op) function;
+            op.setX(x);
+            if (y != null)
+                op.setY(y);
+            op.setZ(z);
+
+            int[] dimensions = function.getDimensions();
+            if (op instanceof BroadcastOp && !(op instanceof ScalarOp) && dimensions != null)
+                Nd4j.getExecutioner().exec((BroadcastOp) op, dimensions);
+            else
+                Nd4j.getExecutioner().exec(op);
+        }
+    }
+}
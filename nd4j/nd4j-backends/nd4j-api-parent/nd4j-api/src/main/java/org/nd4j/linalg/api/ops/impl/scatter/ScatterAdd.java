@@ -19,6 +19,7 @@ package org.nd4j.linalg.api.ops.impl.scatter;
 import org.nd4j.autodiff.samediff.SDVariable;
 import org.nd4j.autodiff.samediff.SameDiff;
 import org.nd4j.imports.NoOpNameFoundException;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.ops.DynamicCustomOp;
 
 import java.util.ArrayList;
@@ -35,6 +36,18 @@ public class ScatterAdd extends DynamicCustomOp {
         super(null, sameDiff, new SDVariable[]{ref, indices, updates}, false);
     }
 
+    /**
+     * This constructor is used for direct execution: updates are added in-place to the rows of ref
+     *
+     * @param ref     array to be updated
+     * @param indices indices of rows, duplicates are accumulated
+     * @param updates one row of updates per index
+     */
+    public ScatterAdd(INDArray ref, INDArray indices, INDArray updates) {
+        super(null, new INDArray[]{ref, indices, updates}, new INDArray[]{ref}, null, (List<Integer>) null);
+        this.inplaceCall = true;
+    }
+
     public ScatterAdd(){}
 
     @Override
@@ -26,6 +26,7 @@ import org.nd4j.linalg.memory.MemcpyDirection;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides routines for performance tracking and holder for corresponding results
@@ -36,8 +37,8 @@ import java.util.Map;
 public class PerformanceTracker {
     private static final PerformanceTracker INSTANCE = new PerformanceTracker();
 
-    private Map<Integer, AveragingTransactionsHolder> bandwidth = new HashMap<>();
-    private Map<Integer, AveragingTransactionsHolder> operations = new HashMap<>();
+    private Map<Integer, AveragingTransactionsHolder> bandwidth = new ConcurrentHashMap<>();
+    private Map<Integer, AveragingTransactionsHolder> operations = new ConcurrentHashMap<>();
 
     private PerformanceTracker() {
         // we put in initial holders, one per device
@@ -20,12 +20,17 @@ import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.Setter;
+import org.nd4j.base.Preconditions;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.preprocessor.stats.NormalizerStats;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
 /**
  * Abstract base class for normalizers
  * that act upon {@link DataSet} instances
@@ -101,6 +106,82 @@ public abstract class AbstractDataSetNormalizer<S extends NormalizerStats> exten
      */
     @Override
     public void fit(DataSetIterator iterator) {
+        NormalizerStats.Builder[] builders = fitShard(iterator);
+
+        featureStats = (S) builders[0].build();
+        if (fitLabels) {
+            labelStats = (S) builders[1].build();
+        }
+    }
+
+    /**
+     * Fit the given model using multiple iterators, i.e. shards of the same data set, in parallel.
+     * Each shard is processed by a separate thread, and statistics of all shards are merged afterwards.
+     *
+     * @param shards iterators over the parts of the data to iterate over
+     */
+    public void fit(@NonNull List<? extends DataSetIterator> shards) {
+        Preconditions.checkArgument(!shards.isEmpty(), "At least one iterator is required");
+        if (shards.size() == 1) {
+            fit(shards.get(0));
+            return;
+        }
+
+        int numThreads = Math.min(shards.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = Executors.defaultThreadFactory().newThread(r);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        try {
+            List<Future<NormalizerStats.Builder[]>> futures = new ArrayList<>();
+            for (final DataSetIterator shard : shards) {
+                futures.add(executor.submit(new Callable<NormalizerStats.Builder[]>() {
+                    @Override
+                    public NormalizerStats.Builder[] call() throws Exception {
+                        return fitShard(shard);
+                    }
+                }));
+            }
+
+            NormalizerStats.Builder[] merged = null;
+            for (Future<NormalizerStats.Builder[]> future : futures) {
+                NormalizerStats.Builder[] builders = future.get();
+                if (merged == null) {
+                    merged = builders;
+                } else {
+                    merged[0].merge(builders[0]);
+                    if (fitLabels) {
+                        merged[1].merge(builders[1]);
+                    }
+                }
+            }
+
+            featureStats = (S) merged[0].build();
+            if (fitLabels) {
+                labelStats = (S) merged[1].build();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Gather statistics of features and labels over given iterator, without building them
+     */
+    protected NormalizerStats.Builder[] fitShard(DataSetIterator iterator) {
         S.Builder featureNormBuilder = newBuilder();
         S.Builder labelNormBuilder = newBuilder();
 
@@ -112,11 +193,9 @@ public abstract class AbstractDataSetNormalizer<S extends NormalizerStats> exten
                 labelNormBuilder.addLabels(next);
             }
         }
-        featureStats = (S) featureNormBuilder.build();
-        if (fitLabels) {
-            labelStats = (S) labelNormBuilder.build();
-        }
         iterator.reset();
+
+        return new NormalizerStats.Builder[] {featureNormBuilder, labelNormBuilder};
     }
 
     protected abstract S.Builder newBuilder();
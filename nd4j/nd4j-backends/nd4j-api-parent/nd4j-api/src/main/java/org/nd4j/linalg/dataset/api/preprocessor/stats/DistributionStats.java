@@ -19,6 +19,8 @@ package org.nd4j.linalg.dataset.api.preprocessor.stats;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSetUtil;
 import org.nd4j.linalg.dataset.api.preprocessor.NormalizerStandardize;
@@ -112,48 +114,64 @@ public class DistributionStats implements NormalizerStats {
         public Builder add(@NonNull INDArray data, INDArray mask) {
             data = DataSetUtil.tailor2d(data, mask);
 
-            // Using https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
             if (data == null) {
                 // Nothing to add. Either data is empty or completely masked. Just skip it, otherwise we will get
                 // null pointer exceptions.
                 return this;
             }
-            INDArray mean = data.mean(0);
-            INDArray variance = data.var(false, 0);
-            long count = data.size(0);
 
-            if (runningMean == null) {
-                // First batch
-                runningMean = mean;
-                runningVariance = variance;
-                runningCount = count;
-
-                if (data.size(0) == 1) {
-                    //Handle edge case: currently, reduction ops may return the same array
-                    //But we don't want to modify this array in-place later
-                    runningMean = runningMean.dup();
-                    runningVariance = runningVariance.dup();
+            return add(data.size(0), data.mean(0), data.var(false, 0));
+        }
+
+        /**
+         * Merge statistics gathered by another builder into this one, i.e. statistics of another shard of the same data.
+         * Other builder isn't modified.
+         */
+        @Override
+        public Builder merge(@NonNull NormalizerStats.Builder<DistributionStats> other) {
+            Preconditions.checkArgument(other instanceof Builder, "Unable to merge with %s", other.getClass());
+
+            Builder o = (Builder) other;
+            if (o.runningMean == null)
+                return this;
+
+            return add(o.runningCount, o.runningMean, o.runningVariance);
+        }
+
+        /**
+         * Add statistics of a group of rows, defined by number of rows, their mean and population variance
+         */
+        protected Builder add(long count, INDArray mean, INDArray variance) {
+            try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                if (runningMean == null) {
+                    // First batch. Copies are made, since reduction ops may return the same array for single row,
+                    // and we don't want to modify arrays of other builder either
+                    runningMean = mean.dup();
+                    runningVariance = variance.dup();
+                    runningCount = count;
+                    return this;
                 }
-            } else {
-                // Update running variance
-                INDArray deltaSquared = Transforms.pow(mean.subRowVector(runningMean), 2);
-                INDArray mB = variance.muli(count);
-                runningVariance.muli(runningCount).addiRowVector(mB)
-                                .addiRowVector(deltaSquared
-                                                .muli((float) (runningCount * count) / (runningCount + count)))
-                                .divi(runningCount + count);
-
-                // Update running count
-                runningCount += count;
-
-                // Update running mean
-                INDArray xMinusMean = data.subRowVector(runningMean);
-                runningMean.addi(xMinusMean.sum(0).divi(runningCount));
+
+                // Using https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Parallel_algorithm
+                long total = runningCount + count;
+                INDArray delta = mean.sub(runningMean);
+
+                runningVariance.muli(runningCount).addi(variance.mul(count))
+                                .addi(delta.mul(delta).muli((double) runningCount * count / total)).divi(total);
+                runningMean.addi(delta.muli((double) count / total));
+                runningCount = total;
             }
 
             return this;
         }
 
+        /**
+         * @return number of rows added so far
+         */
+        public long getCount() {
+            return runningCount;
+        }
+
         /**
          * Create a DistributionStats object from the data ingested so far. Can be used multiple times when updating
          * online.
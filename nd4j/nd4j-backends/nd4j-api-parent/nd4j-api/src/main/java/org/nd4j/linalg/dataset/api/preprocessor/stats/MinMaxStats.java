@@ -21,6 +21,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.nd4j.base.Preconditions;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSetUtil;
@@ -140,6 +141,31 @@ public class MinMaxStats implements NormalizerStats {
             return this;
         }
 
+        /**
+         * Merge bounds gathered by another builder into this one, i.e. bounds of another shard of the same data.
+         * Other builder isn't modified.
+         */
+        @Override
+        public MinMaxStats.Builder merge(@NonNull NormalizerStats.Builder<MinMaxStats> other) {
+            Preconditions.checkArgument(other instanceof MinMaxStats.Builder, "Unable to merge with %s", other.getClass());
+
+            MinMaxStats.Builder o = (MinMaxStats.Builder) other;
+            if (o.runningLower == null)
+                return this;
+
+            try (MemoryWorkspace workspace = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+                if (runningLower == null) {
+                    runningLower = o.runningLower.dup();
+                    runningUpper = o.runningUpper.dup();
+                } else {
+                    Transforms.min(runningLower, o.runningLower, false);
+                    Transforms.max(runningUpper, o.runningUpper, false);
+                }
+            }
+
+            return this;
+        }
+
         /**
          * Create a DistributionStats object from the data ingested so far. Can be used multiple times when updating
          * online.
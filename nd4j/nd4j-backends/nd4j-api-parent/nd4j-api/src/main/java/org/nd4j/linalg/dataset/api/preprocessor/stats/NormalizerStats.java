@@ -28,7 +28,7 @@ import java.io.Serializable;
  * @author Ede Meijer
  */
 public interface NormalizerStats extends Serializable {
-    interface Builder<S extends NormalizerStats> {
+    interface Builder<S extends NormalizerStats> extends Serializable {
         Builder<S> addFeatures(org.nd4j.linalg.dataset.api.DataSet dataSet);
 
         /**
@@ -44,6 +44,15 @@ public interface NormalizerStats extends Serializable {
          */
         Builder<S> add(INDArray data, INDArray mask);
 
+        /**
+         * Merge statistics gathered by another builder of the same type into this one. This allows to gather
+         * statistics for different parts of the data independently (i.e. in different threads or Spark partitions),
+         * and combine them afterwards. Other builder isn't modified.
+         *
+         * @param other builder to merge with
+         */
+        Builder<S> merge(Builder<S> other);
+
         /**
          * DynamicCustomOpsBuilder pattern
          * @return
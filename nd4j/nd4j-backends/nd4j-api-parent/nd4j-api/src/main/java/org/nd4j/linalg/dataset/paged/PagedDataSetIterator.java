@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.dataset.paged;
+
+import lombok.NonNull;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * DataSetIterator over minibatches stored in paged container file by {@link PagedDataSetWriter}.
+ * Unlike {@link org.nd4j.linalg.dataset.ExistingMiniBatchDataSetIterator}, no deserialization happens here:
+ * arrays are memory mapped, see {@link PagedDataSetReader} for details.
+ */
+public class PagedDataSetIterator implements DataSetIterator, Closeable {
+    private final transient PagedDataSetReader reader;
+    private final List<String> labels;
+    private DataSetPreProcessor preProcessor;
+    private int position;
+
+    public PagedDataSetIterator(@NonNull File file) throws IOException {
+        this(new PagedDataSetReader(file), null);
+    }
+
+    public PagedDataSetIterator(@NonNull PagedDataSetReader reader, List<String> labels) {
+        this.reader = reader;
+        this.labels = labels;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("Unable to load custom number of examples");
+    }
+
+    @Override
+    public int inputColumns() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        // arrays are views of page cache already, prefetch would only copy them
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+    }
+
+    @Override
+    public int batch() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < reader.numRecords();
+    }
+
+    @Override
+    public DataSet next() {
+        try {
+            DataSet ds = reader.getDataSet(position++);
+            if (preProcessor != null)
+                preProcessor.preProcess(ds);
+
+            return ds;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read record " + (position - 1), e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
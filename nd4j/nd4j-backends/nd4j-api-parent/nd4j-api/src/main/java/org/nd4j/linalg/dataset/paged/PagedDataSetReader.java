@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.dataset.paged;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.Pointer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * This class provides random access to minibatches stored by {@link PagedDataSetWriter}.
+ *
+ * In memory-mapped mode (default) uncompressed FLOAT, DOUBLE, INT and LONG arrays are returned as views of file
+ * mapping, so no deserialization and no copies happen: data is read from page cache on first access.
+ * Every read creates new private (copy-on-write) mapping, so in-place modifications (i.e. normalization) of returned
+ * arrays are allowed, and never reach the file or arrays returned by other reads. Mapping is released once all arrays
+ * backed by it are garbage collected. All other arrays are copied into newly allocated arrays.
+ *
+ * PLEASE NOTE: memory-mapped arrays are valid only while this reader is open. Use dup() on arrays that should outlive the reader.
+ * PLEASE NOTE: zero-copy mapping is available on CPU backend only, other backends will copy data to device anyway.
+ */
+@Slf4j
+public class PagedDataSetReader implements Closeable {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final boolean mmap;
+    private final long[] offsets;
+    private final long[] lengths;
+
+    // mapping is released as soon as MappedByteBuffer is garbage collected, and DataBuffers created from it don't
+    // hold references to it. So we keep mappings reachable for as long as any DataBuffer backed by them is reachable
+    private final ReferenceQueue<DataBuffer> releasedBuffers = new ReferenceQueue<>();
+    private final Set<MappingReference> liveMappings =
+                    Collections.newSetFromMap(new ConcurrentHashMap<MappingReference, Boolean>());
+    private volatile boolean closed;
+
+    public PagedDataSetReader(@NonNull File file) throws IOException {
+        this(file, true);
+    }
+
+    /**
+     * @param file File written by {@link PagedDataSetWriter}
+     * @param mmap If true, arrays will be memory mapped where possible. Otherwise all arrays are copied into new arrays.
+     */
+    public PagedDataSetReader(@NonNull File file, boolean mmap) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.mmap = mmap;
+
+        try {
+            ByteBuffer header = read(0, 13);
+            if (header.getLong() != PagedFormat.MAGIC)
+                throw new IOException("File " + file + " is not a paged DataSet container");
+
+            int version = header.getInt();
+            if (version > PagedFormat.VERSION)
+                throw new IOException("Unsupported paged DataSet container version: " + version);
+
+            if (header.get() != PagedFormat.nativeOrder())
+                throw new IOException("File " + file + " was written on a platform with different byte order");
+
+            ByteBuffer footer = read(channel.size() - 12, 12);
+            long indexOffset = footer.getLong();
+            if (footer.getInt() != (int) PagedFormat.MAGIC)
+                throw new IOException("File " + file + " has no index: PagedDataSetWriter wasn't closed properly?");
+
+            int numRecords = read(indexOffset, 4).getInt();
+            ByteBuffer index = read(indexOffset + 4, 16 * numRecords);
+            offsets = new long[numRecords];
+            lengths = new long[numRecords];
+            for (int i = 0; i < numRecords; i++) {
+                offsets[i] = index.getLong();
+                lengths[i] = index.getLong();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of records in this file
+     */
+    public int numRecords() {
+        return offsets.length;
+    }
+
+    /**
+     * @return true if record with the given index was written as MultiDataSet
+     */
+    public boolean isMultiDataSet(int idx) throws IOException {
+        checkIndex(idx);
+        return read(offsets[idx], 1).get() != 0;
+    }
+
+    /**
+     * This method returns record with the given index as DataSet
+     *
+     * @param idx
+     * @return
+     * @throws IOException
+     */
+    public DataSet getDataSet(int idx) throws IOException {
+        INDArray[][] groups = readGroups(idx);
+        for (INDArray[] g : groups) {
+            if (g != null && g.length > 1)
+                throw new IllegalStateException("Record " + idx + " contains MultiDataSet with multiple arrays, it can't be read as DataSet");
+        }
+
+        return new DataSet(first(groups[PagedFormat.GROUP_FEATURES]), first(groups[PagedFormat.GROUP_LABELS]),
+                        first(groups[PagedFormat.GROUP_FEATURES_MASK]), first(groups[PagedFormat.GROUP_LABELS_MASK]));
+    }
+
+    /**
+     * This method returns record with the given index as MultiDataSet. DataSet records are converted.
+     *
+     * @param idx
+     * @return
+     * @throws IOException
+     */
+    public MultiDataSet getMultiDataSet(int idx) throws IOException {
+        INDArray[][] groups = readGroups(idx);
+        return new MultiDataSet(groups[PagedFormat.GROUP_FEATURES], groups[PagedFormat.GROUP_LABELS],
+                        groups[PagedFormat.GROUP_FEATURES_MASK], groups[PagedFormat.GROUP_LABELS_MASK]);
+    }
+
+    protected INDArray[][] readGroups(int idx) throws IOException {
+        expungeReleased();
+
+        ByteBuffer record = record(idx);
+        boolean multiDataSet = record.get() != 0;
+
+        INDArray[][] groups = new INDArray[PagedFormat.NUM_GROUPS][];
+        for (int g = 0; g < groups.length; g++) {
+            int size = record.getInt();
+            groups[g] = size < 0 ? null : new INDArray[size];
+        }
+
+        // arrays are never allocated in workspaces: they are going to be used out of current scope
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            int numArrays = record.getInt();
+            for (int i = 0; i < numArrays; i++) {
+                int group = record.get();
+                int position = record.getInt();
+                byte[] typeName = new byte[record.getShort() & 0xFFFF];
+                record.get(typeName);
+                DataType dataType = DataType.valueOf(new String(typeName, UTF8));
+                char order = record.getChar();
+                long[] shape = new long[record.getInt()];
+                for (int e = 0; e < shape.length; e++)
+                    shape[e] = record.getLong();
+                byte compression = record.get();
+                long offset = record.getLong();
+                long storedLength = record.getLong();
+                long rawLength = record.getLong();
+
+                groups[group][position] = array(record, dataType, order, shape, compression, offset, storedLength, rawLength);
+            }
+        }
+
+        if (!multiDataSet) {
+            // DataSet always has 1 array per group
+            for (int g = 0; g < groups.length; g++) {
+                if (groups[g] != null && groups[g].length == 1 && groups[g][0] == null)
+                    groups[g] = null;
+            }
+        }
+
+        return groups;
+    }
+
+    private INDArray array(ByteBuffer record, DataType dataType, char order, long[] shape, byte compression,
+                    long offset, long storedLength, long rawLength) throws IOException {
+        if (rawLength == 0)
+            return Nd4j.empty(dataType);
+
+        ByteBuffer data = record.duplicate();
+        data.clear();
+        data.position((int) offset);
+        data.limit((int) (offset + storedLength));
+        data = data.slice().order(ByteOrder.nativeOrder());
+
+        long[] strides = Nd4j.getStrides(shape, order);
+        if (compression == PagedFormat.COMPRESSION_NONE && mmap && isMappable(dataType)) {
+            DataBuffer buffer = Nd4j.createBuffer(data, dataType, (int) (rawLength / Nd4j.sizeOfDataType(dataType)));
+            liveMappings.add(new MappingReference(buffer, record, releasedBuffers));
+            return Nd4j.create(buffer, shape, strides, 0, order);
+        }
+
+        INDArray array = Nd4j.createUninitialized(dataType, shape, order);
+        BytePointer source;
+        if (compression == PagedFormat.COMPRESSION_DEFLATE) {
+            source = new BytePointer(inflate(data, rawLength));
+        } else if (compression == PagedFormat.COMPRESSION_NONE) {
+            source = new BytePointer(data);
+        } else {
+            throw new IOException("Unknown compression type: " + compression);
+        }
+
+        Pointer.memcpy(array.data().addressPointer(), source, rawLength);
+        Nd4j.getAffinityManager().tagLocation(array, AffinityManager.Location.HOST);
+        return array;
+    }
+
+    protected boolean isMappable(DataType dataType) {
+        switch (dataType) {
+            case FLOAT:
+            case DOUBLE:
+            case INT:
+            case LONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    protected ByteBuffer record(int idx) throws IOException {
+        checkIndex(idx);
+
+        if (lengths[idx] > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("Records larger than 2GB aren't supported");
+
+        if (!mmap)
+            return read(offsets[idx], (int) lengths[idx]);
+
+        return channel.map(FileChannel.MapMode.PRIVATE, offsets[idx], lengths[idx]);
+    }
+
+    private void checkIndex(int idx) {
+        if (closed)
+            throw new IllegalStateException("Reader was closed already");
+
+        if (idx < 0 || idx >= offsets.length)
+            throw new IndexOutOfBoundsException("Record index " + idx + " is out of bounds [0, " + offsets.length + ")");
+    }
+
+    private void expungeReleased() {
+        Reference<? extends DataBuffer> ref;
+        while ((ref = releasedBuffers.poll()) != null)
+            liveMappings.remove(ref);
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        long p = position;
+        while (buffer.hasRemaining()) {
+            int cnt = channel.read(buffer, p);
+            if (cnt < 0)
+                throw new IOException("Unexpected end of file");
+            p += cnt;
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] inflate(ByteBuffer data, long rawLength) throws IOException {
+        byte[] input = new byte[data.remaining()];
+        data.get(input);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[(int) rawLength];
+            int cnt = 0;
+            while (cnt < output.length && !inflater.finished()) {
+                int c = inflater.inflate(output, cnt, output.length - cnt);
+                if (c == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                cnt += c;
+            }
+
+            if (cnt != output.length)
+                throw new IOException("Corrupted compressed array: expected " + rawLength + " bytes, got " + cnt);
+
+            return output;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted compressed array", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static class MappingReference extends WeakReference<DataBuffer> {
+        private final ByteBuffer mapping;
+
+        private MappingReference(DataBuffer buffer, ByteBuffer mapping, ReferenceQueue<DataBuffer> queue) {
+            super(buffer, queue);
+            this.mapping = mapping;
+        }
+    }
+
+    private static INDArray first(INDArray[] group) {
+        return group == null ? null : group[0];
+    }
+
+    /**
+     * This method closes the file. Memory-mapped arrays returned by this reader must not be used after that.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+        liveMappings.clear();
+        channel.close();
+        file.close();
+    }
+}
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.dataset.paged;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.dataset.api.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * This class writes pre-saved minibatches (DataSets and MultiDataSets) into single paged container file, that can be
+ * iterated later via {@link PagedDataSetReader} without deserialization: arrays are memory mapped.
+ * See {@link PagedFormat} for layout description.
+ *
+ * PLEASE NOTE: Compressed arrays can't be memory mapped, and will be inflated into new arrays on read.
+ * Compression makes sense only for highly compressible data (i.e. one-hot labels or masks), when disk bandwidth is the bottleneck.
+ */
+@Slf4j
+public class PagedDataSetWriter implements Closeable {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final boolean compress;
+
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Long> lengths = new ArrayList<>();
+    private long position;
+    private boolean closed;
+
+    public PagedDataSetWriter(@NonNull File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param file     Destination file. Existing file will be overwritten
+     * @param compress If true, arrays will be compressed with Deflate, if that makes them smaller
+     */
+    public PagedDataSetWriter(@NonNull File file, boolean compress) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+        this.compress = compress;
+
+        ByteBuffer header = ByteBuffer.allocate(PagedFormat.PAGE_SIZE);
+        header.putLong(PagedFormat.MAGIC).putInt(PagedFormat.VERSION).put(PagedFormat.nativeOrder());
+        header.rewind();
+        write(header, 0);
+        position = PagedFormat.PAGE_SIZE;
+    }
+
+    /**
+     * This method appends DataSet to the file
+     *
+     * @param dataSet
+     * @throws IOException
+     */
+    public synchronized void write(@NonNull DataSet dataSet) throws IOException {
+        writeRecord(false, new INDArray[][] {
+                        {dataSet.getFeatures()},
+                        {dataSet.getLabels()},
+                        {dataSet.getFeaturesMaskArray()},
+                        {dataSet.getLabelsMaskArray()}});
+    }
+
+    /**
+     * This method appends MultiDataSet to the file
+     *
+     * @param dataSet
+     * @throws IOException
+     */
+    public synchronized void write(@NonNull MultiDataSet dataSet) throws IOException {
+        writeRecord(true, new INDArray[][] {
+                        dataSet.getFeatures(),
+                        dataSet.getLabels(),
+                        dataSet.getFeaturesMaskArrays(),
+                        dataSet.getLabelsMaskArrays()});
+    }
+
+    /**
+     * @return number of records written so far
+     */
+    public synchronized int numRecords() {
+        return offsets.size();
+    }
+
+    protected void writeRecord(boolean multiDataSet, INDArray[][] groups) throws IOException {
+        if (closed)
+            throw new IllegalStateException("Writer was closed already");
+
+        // make sure all arrays were actually computed, and available on host
+        Nd4j.getExecutioner().commit();
+
+        List<Entry> entries = new ArrayList<>();
+        for (int g = 0; g < groups.length; g++) {
+            if (groups[g] == null)
+                continue;
+
+            for (int p = 0; p < groups[g].length; p++) {
+                if (groups[g][p] != null)
+                    entries.add(new Entry(g, p, groups[g][p], compress));
+            }
+        }
+
+        // header length doesn't depend on offsets, so we measure it first
+        long dataStart = PagedFormat.align(recordHeader(multiDataSet, groups, entries).length, PagedFormat.ARRAY_ALIGNMENT);
+        long end = dataStart;
+        for (Entry e : entries) {
+            e.offset = end;
+            end = PagedFormat.align(end + e.storedLength(), PagedFormat.ARRAY_ALIGNMENT);
+        }
+
+        long recordStart = position;
+        write(ByteBuffer.wrap(recordHeader(multiDataSet, groups, entries)), recordStart);
+        for (Entry e : entries)
+            write(e.data(), recordStart + e.offset);
+
+        offsets.add(recordStart);
+        lengths.add(end);
+        position = PagedFormat.align(recordStart + end, PagedFormat.PAGE_SIZE);
+    }
+
+    private byte[] recordHeader(boolean multiDataSet, INDArray[][] groups, List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+
+        dos.writeBoolean(multiDataSet);
+        for (INDArray[] group : groups)
+            dos.writeInt(group == null ? -1 : group.length);
+
+        dos.writeInt(entries.size());
+        for (Entry e : entries) {
+            dos.writeByte(e.group);
+            dos.writeInt(e.position);
+            dos.writeUTF(e.array.dataType().name());
+            dos.writeChar(e.array.ordering());
+            dos.writeInt(e.array.rank());
+            for (long s : e.array.shape())
+                dos.writeLong(s);
+            dos.writeByte(e.compressed == null ? PagedFormat.COMPRESSION_NONE : PagedFormat.COMPRESSION_DEFLATE);
+            dos.writeLong(e.offset);
+            dos.writeLong(e.storedLength());
+            dos.writeLong(e.rawLength);
+        }
+
+        dos.flush();
+        return bos.toByteArray();
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        long p = position;
+        while (buffer.hasRemaining())
+            p += channel.write(buffer, p);
+    }
+
+    /**
+     * This method writes records index and closes the file. Without this call file won't be readable.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+
+        try {
+            int numRecords = offsets.size();
+            ByteBuffer index = ByteBuffer.allocate(4 + 16 * numRecords + 12);
+            index.putInt(numRecords);
+            for (int i = 0; i < numRecords; i++)
+                index.putLong(offsets.get(i)).putLong(lengths.get(i));
+
+            // footer: index offset + magic
+            index.putLong(position).putInt((int) PagedFormat.MAGIC);
+            index.rewind();
+            write(index, position);
+        } finally {
+            closed = true;
+            channel.close();
+            file.close();
+        }
+    }
+
+    private static class Entry {
+        private final int group;
+        private final int position;
+        private final INDArray array;
+        private final long rawLength;
+        private final byte[] compressed;
+        private long offset;
+
+        private Entry(int group, int position, INDArray array, boolean compress) {
+            if (array.isCompressed())
+                Nd4j.getCompressor().autoDecompress(array);
+
+            // we need contiguous array with default strides, to store it as is
+            if (array.isView() || !Shape.hasDefaultStridesForShape(array))
+                array = array.dup(array.ordering());
+
+            this.group = group;
+            this.position = position;
+            this.array = array;
+            this.rawLength = array.isEmpty() ? 0 : array.length() * array.data().getElementSize();
+            this.compressed = compress && rawLength > 0 ? deflate(raw(), rawLength) : null;
+        }
+
+        private ByteBuffer raw() {
+            if (rawLength == 0)
+                return ByteBuffer.allocate(0);
+
+            Nd4j.getAffinityManager().ensureLocation(array, AffinityManager.Location.HOST);
+            ByteBuffer buffer = array.data().pointer().asByteBuffer().order(ByteOrder.nativeOrder());
+            buffer.limit((int) rawLength);
+            return buffer;
+        }
+
+        private ByteBuffer data() {
+            return compressed == null ? raw() : ByteBuffer.wrap(compressed);
+        }
+
+        private long storedLength() {
+            return compressed == null ? rawLength : compressed.length;
+        }
+
+        private static byte[] deflate(ByteBuffer raw, long rawLength) {
+            byte[] input = new byte[(int) rawLength];
+            raw.get(input);
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(input);
+                deflater.finish();
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                byte[] chunk = new byte[64 * 1024];
+                while (!deflater.finished()) {
+                    int cnt = deflater.deflate(chunk);
+                    bos.write(chunk, 0, cnt);
+
+                    // no point in compression, if it doesn't save anything
+                    if (bos.size() >= rawLength)
+                        return null;
+                }
+                return bos.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.dataset.paged;
+
+import java.nio.ByteOrder;
+
+/**
+ * Constants and layout description of the paged DataSet/MultiDataSet container, written by {@link PagedDataSetWriter}
+ * and read by {@link PagedDataSetReader}.
+ *
+ * Layout:
+ * <pre>
+ * [file header: magic, version, byte order]                       padded to PAGE_SIZE
+ * [record 0: record header | array 0 data | array 1 data | ...]  padded to PAGE_SIZE
+ * [record 1 ...]
+ * [index: number of records, record offsets, record lengths]
+ * [footer: index offset, magic]
+ * </pre>
+ * Record header contains group sizes (features, labels, features masks, labels masks; -1 for absent group) followed
+ * by one descriptor per array: group, position, data type, order, shape, compression, data offset and stored length.
+ * Array data is aligned to {@link #ARRAY_ALIGNMENT} bytes and stored in platform byte order, so uncompressed arrays
+ * can be used as memory mapped buffers without any copies or conversions.
+ */
+public class PagedFormat {
+    public static final long MAGIC = 0x4e44344a50414745L; // "ND4JPAGE"
+    public static final int VERSION = 1;
+
+    public static final int PAGE_SIZE = 4096;
+    public static final int ARRAY_ALIGNMENT = 64;
+
+    public static final int NUM_GROUPS = 4;
+    public static final int GROUP_FEATURES = 0;
+    public static final int GROUP_LABELS = 1;
+    public static final int GROUP_FEATURES_MASK = 2;
+    public static final int GROUP_LABELS_MASK = 3;
+
+    public static final byte COMPRESSION_NONE = 0;
+    public static final byte COMPRESSION_DEFLATE = 1;
+
+    public static final byte ORDER_LITTLE_ENDIAN = 0;
+    public static final byte ORDER_BIG_ENDIAN = 1;
+
+    private PagedFormat() {
+    }
+
+    static byte nativeOrder() {
+        return ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? ORDER_LITTLE_ENDIAN : ORDER_BIG_ENDIAN;
+    }
+
+    static long align(long position, long alignment) {
+        long rem = position % alignment;
+        return rem == 0 ? position : position + alignment - rem;
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.dataset.paged;
+
+import lombok.NonNull;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * MultiDataSetIterator over minibatches stored in paged container file by {@link PagedDataSetWriter}.
+ * Records written as DataSets are returned as MultiDataSets. See {@link PagedDataSetReader} for details.
+ */
+public class PagedMultiDataSetIterator implements MultiDataSetIterator, Closeable {
+    private final transient PagedDataSetReader reader;
+    private MultiDataSetPreProcessor preProcessor;
+    private int position;
+
+    public PagedMultiDataSetIterator(@NonNull File file) throws IOException {
+        this(new PagedDataSetReader(file));
+    }
+
+    public PagedMultiDataSetIterator(@NonNull PagedDataSetReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public MultiDataSet next(int num) {
+        throw new UnsupportedOperationException("Unable to load custom number of examples");
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return preProcessor;
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        // arrays are views of page cache already, prefetch would only copy them
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < reader.numRecords();
+    }
+
+    @Override
+    public MultiDataSet next() {
+        try {
+            MultiDataSet mds = reader.getMultiDataSet(position++);
+            if (preProcessor != null)
+                preProcessor.preProcess(mds);
+
+            return mds;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read record " + (position - 1), e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
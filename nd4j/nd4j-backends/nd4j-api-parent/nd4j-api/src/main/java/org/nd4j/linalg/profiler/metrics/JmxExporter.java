@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+
+/**
+ * This exporter registers op metrics as JMX beans, one bean per op class, named
+ * {@code org.nd4j:type=OpMetrics,op="<fully qualified op class name>"}. Beans are live views over counters, so export needs to be
+ * repeated only to register op classes that were executed for the first time since previous export.
+ */
+@Slf4j
+public class JmxExporter implements MetricsExporter {
+    public static final String DOMAIN = "org.nd4j";
+
+    private final MBeanServer server;
+
+    public JmxExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxExporter(@NonNull MBeanServer server) {
+        this.server = server;
+    }
+
+    public static ObjectName objectName(@NonNull OpStats stats) throws MalformedObjectNameException {
+        return new ObjectName(DOMAIN + ":type=OpMetrics,op=" + ObjectName.quote(stats.getName()));
+    }
+
+    @Override
+    public void export(@NonNull Collection<OpStats> stats) throws IOException {
+        for (OpStats s : stats) {
+            try {
+                ObjectName name = objectName(s);
+                if (!server.isRegistered(name))
+                    server.registerMBean(s, name);
+            } catch (InstanceAlreadyExistsException e) {
+                // names are unique per op class, so this is concurrent export that registered it first
+                log.debug("JMX bean for op {} is registered already", s.getName());
+            } catch (JMException e) {
+                throw new IOException("Unable to register JMX bean for op " + s.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * This method unregisters all beans registered for given op metrics
+     *
+     * @param stats
+     */
+    public void unregister(@NonNull Collection<OpStats> stats) {
+        for (OpStats s : stats) {
+            try {
+                ObjectName name = objectName(s);
+                if (server.isRegistered(name))
+                    server.unregisterMBean(name);
+            } catch (JMException e) {
+                log.warn("Unable to unregister JMX bean for op {}", s.getName(), e);
+            }
+        }
+    }
+}
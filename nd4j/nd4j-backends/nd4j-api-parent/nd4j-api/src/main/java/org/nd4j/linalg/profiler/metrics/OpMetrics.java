@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.config.ND4JSystemProperties;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.CustomOp;
+import org.nd4j.linalg.api.ops.Op;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class is lightweight always-on registry of per-op-class execution metrics, suitable for production use,
+ * unlike {@link org.nd4j.linalg.profiler.OpProfiler}.
+ *
+ * Every op invocation costs one atomic increment. Every N-th invocation of each op class is timed, and bytes touched
+ * and data type/order mismatches of its arguments are recorded. Total time spent in each op is extrapolated from samples.
+ * Collected metrics can be exported via {@link MetricsExporter}, i.e. as Prometheus text format or JMX beans.
+ *
+ * Sampling interval is configured via {@link ND4JSystemProperties#OP_METRICS_SAMPLING_INTERVAL} system property,
+ * or {@link #setSamplingInterval(int)}. Interval of 0 disables metrics.
+ */
+@Slf4j
+public class OpMetrics {
+    public static final int DEFAULT_SAMPLING_INTERVAL = 64;
+
+    private static final OpMetrics INSTANCE = new OpMetrics();
+
+    private final ConcurrentMap<String, OpStats> registry = new ConcurrentHashMap<>();
+
+    // lookup by class is lock-free, and doesn't allocate after first call for given class.
+    // stats are named by fully qualified class name, since simple names clash across packages (i.e. reduce and transform Max)
+    private final ClassValue<OpStats> stats = new ClassValue<OpStats>() {
+        @Override
+        protected OpStats computeValue(Class<?> type) {
+            OpStats created = new OpStats(type.getName());
+            OpStats existing = registry.putIfAbsent(type.getName(), created);
+            return existing == null ? created : existing;
+        }
+    };
+
+    private volatile boolean enabled;
+    private volatile long samplingMask;
+
+    private OpMetrics() {
+        int interval = DEFAULT_SAMPLING_INTERVAL;
+        String property = System.getProperty(ND4JSystemProperties.OP_METRICS_SAMPLING_INTERVAL);
+        if (property != null) {
+            try {
+                interval = Integer.parseInt(property.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Unable to parse {} system property value [{}], using default sampling interval of {}",
+                                ND4JSystemProperties.OP_METRICS_SAMPLING_INTERVAL, property, DEFAULT_SAMPLING_INTERVAL);
+            }
+        }
+
+        setSamplingInterval(interval);
+    }
+
+    public static OpMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * This method sets sampling interval: every N-th invocation of each op class will be timed.
+     * Interval is rounded up to the nearest power of 2. 0 disables metrics, 1 means every invocation is timed.
+     *
+     * @param interval
+     */
+    public void setSamplingInterval(int interval) {
+        if (interval < 0)
+            throw new IllegalArgumentException("Sampling interval can't be negative: " + interval);
+
+        if (interval == 0) {
+            enabled = false;
+            return;
+        }
+
+        long rounded = Long.highestOneBit(interval);
+        if (rounded < interval)
+            rounded <<= 1;
+
+        samplingMask = rounded - 1;
+        enabled = true;
+    }
+
+    public int getSamplingInterval() {
+        return enabled ? (int) (samplingMask + 1) : 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * This method registers invocation of the given op
+     *
+     * @param op
+     * @return true if this invocation should be timed
+     */
+    public boolean onInvocation(@NonNull Object op) {
+        return enabled && stats.get(op.getClass()).invocation(samplingMask);
+    }
+
+    /**
+     * This method stores results of sampled invocation of legacy op
+     *
+     * @param op
+     * @param timeStart System.nanoTime() value taken before op execution
+     */
+    public void record(@NonNull Op op, long timeStart) {
+        long time = System.nanoTime() - timeStart;
+        if (!enabled)
+            return;
+
+        INDArray x = op.x();
+        INDArray y = op.y();
+        INDArray z = op.z();
+
+        stats.get(op.getClass()).record(time, bytes(x) + bytes(y) + (z == x ? 0 : bytes(z)),
+                        typeMismatch(x, y) || typeMismatch(x, z), orderMismatch(x, y) || orderMismatch(x, z));
+    }
+
+    /**
+     * This method stores results of sampled invocation of custom op
+     *
+     * @param op
+     * @param timeStart System.nanoTime() value taken before op execution
+     */
+    public void record(@NonNull CustomOp op, long timeStart) {
+        long time = System.nanoTime() - timeStart;
+        if (!enabled)
+            return;
+
+        INDArray[] inputs = op.inputArguments();
+        INDArray[] outputs = op.outputArguments();
+
+        long bytes = 0;
+        boolean typeMismatch = false;
+        boolean orderMismatch = false;
+        INDArray first = inputs.length > 0 ? inputs[0] : null;
+        for (INDArray array : inputs) {
+            bytes += bytes(array);
+            typeMismatch |= typeMismatch(first, array);
+            orderMismatch |= orderMismatch(first, array);
+        }
+
+        for (INDArray array : outputs)
+            bytes += bytes(array);
+
+        stats.get(op.getClass()).record(time, bytes, typeMismatch, orderMismatch);
+    }
+
+    /**
+     * This method returns metrics for the given op class
+     */
+    public OpStats getStats(@NonNull Class<?> opClass) {
+        return stats.get(opClass);
+    }
+
+    /**
+     * This method returns metrics for all op classes seen so far
+     */
+    public Collection<OpStats> getStats() {
+        return Collections.unmodifiableCollection(registry.values());
+    }
+
+    /**
+     * This method returns N op classes with the highest estimated total time
+     *
+     * @param n
+     * @return
+     */
+    public List<OpStats> getTopByTime(int n) {
+        List<OpStats> list = new ArrayList<>(registry.values());
+        Collections.sort(list, new Comparator<OpStats>() {
+            @Override
+            public int compare(OpStats o1, OpStats o2) {
+                return Long.compare(o2.getEstimatedTimeNanos(), o1.getEstimatedTimeNanos());
+            }
+        });
+
+        return list.size() > n ? list.subList(0, n) : list;
+    }
+
+    /**
+     * This method passes current metrics to the given exporter
+     *
+     * @param exporter
+     * @throws IOException
+     */
+    public void export(@NonNull MetricsExporter exporter) throws IOException {
+        exporter.export(getStats());
+    }
+
+    /**
+     * This method resets all counters. Op classes stay registered.
+     */
+    public void reset() {
+        for (OpStats s : registry.values())
+            s.reset();
+    }
+
+    private static long bytes(INDArray array) {
+        if (array == null || array.isEmpty())
+            return 0;
+
+        return array.length() * array.data().getElementSize();
+    }
+
+    private static boolean typeMismatch(INDArray x, INDArray other) {
+        return x != null && other != null && x.dataType() != other.dataType();
+    }
+
+    private static boolean orderMismatch(INDArray x, INDArray other) {
+        return x != null && other != null && !x.isScalar() && !other.isScalar() && x.ordering() != other.ordering();
+    }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class holds counters for single op class. All updates are lock-free and allocation-free.
+ *
+ * Invocations are counted for every call, while time, bytes and mismatches are collected for sampled calls only.
+ * Latency histogram uses power-of-2 buckets: bucket i holds calls that took less than 2^i nanoseconds.
+ */
+public class OpStats implements OpStatsMBean {
+    public static final int NUM_BUCKETS = 40;
+
+    // fully qualified op class name
+    @Getter
+    private final String name;
+
+    private final AtomicLong invocations = new AtomicLong(0);
+    private final AtomicLong sampledInvocations = new AtomicLong(0);
+    private final AtomicLong sampledTimeNanos = new AtomicLong(0);
+    private final AtomicLong sampledBytes = new AtomicLong(0);
+    private final AtomicLong typeMismatches = new AtomicLong(0);
+    private final AtomicLong orderMismatches = new AtomicLong(0);
+    private final AtomicLongArray histogram = new AtomicLongArray(NUM_BUCKETS);
+
+    public OpStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * This method registers op invocation
+     *
+     * @param samplingMask sampling interval - 1
+     * @return true if this invocation should be sampled
+     */
+    public boolean invocation(long samplingMask) {
+        return (invocations.getAndIncrement() & samplingMask) == 0;
+    }
+
+    /**
+     * This method stores results of sampled invocation
+     *
+     * @param timeNanos     time spent
+     * @param bytes         number of bytes read and written by op
+     * @param typeMismatch  true if op arguments have different data types
+     * @param orderMismatch true if op arguments have different orders
+     */
+    public void record(long timeNanos, long bytes, boolean typeMismatch, boolean orderMismatch) {
+        if (timeNanos < 0)
+            timeNanos = 0;
+
+        sampledInvocations.incrementAndGet();
+        sampledTimeNanos.addAndGet(timeNanos);
+        sampledBytes.addAndGet(bytes);
+
+        if (typeMismatch)
+            typeMismatches.incrementAndGet();
+
+        if (orderMismatch)
+            orderMismatches.incrementAndGet();
+
+        histogram.incrementAndGet(bucketFor(timeNanos));
+    }
+
+    /**
+     * This method returns histogram bucket for given time
+     */
+    public static int bucketFor(long timeNanos) {
+        return Math.min(NUM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(timeNanos));
+    }
+
+    /**
+     * This method returns upper bound of the histogram bucket, in nanoseconds
+     */
+    public static long bucketBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    public long getBucketCount(int bucket) {
+        return histogram.get(bucket);
+    }
+
+    @Override
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    @Override
+    public long getSampledInvocations() {
+        return sampledInvocations.get();
+    }
+
+    @Override
+    public long getSampledTimeNanos() {
+        return sampledTimeNanos.get();
+    }
+
+    @Override
+    public long getSampledBytes() {
+        return sampledBytes.get();
+    }
+
+    @Override
+    public long getTypeMismatches() {
+        return typeMismatches.get();
+    }
+
+    @Override
+    public long getOrderMismatches() {
+        return orderMismatches.get();
+    }
+
+    /**
+     * This method returns total time spent in this op, extrapolated from sampled invocations
+     */
+    @Override
+    public long getEstimatedTimeNanos() {
+        long sampled = sampledInvocations.get();
+        if (sampled == 0)
+            return 0;
+
+        return (long) (sampledTimeNanos.get() * ((double) invocations.get() / sampled));
+    }
+
+    @Override
+    public long getMeanTimeNanos() {
+        long sampled = sampledInvocations.get();
+        return sampled == 0 ? 0 : sampledTimeNanos.get() / sampled;
+    }
+
+    public void reset() {
+        invocations.set(0);
+        sampledInvocations.set(0);
+        sampledTimeNanos.set(0);
+        sampledBytes.set(0);
+        typeMismatches.set(0);
+        orderMismatches.set(0);
+        for (int e = 0; e < NUM_BUCKETS; e++)
+            histogram.set(e, 0);
+    }
+
+    @Override
+    public String toString() {
+        return name + ": invocations=" + getInvocations() + ", sampled=" + getSampledInvocations() + ", meanTime="
+                        + getMeanTimeNanos() + "ns, estimatedTime=" + getEstimatedTimeNanos() + "ns";
+    }
+}
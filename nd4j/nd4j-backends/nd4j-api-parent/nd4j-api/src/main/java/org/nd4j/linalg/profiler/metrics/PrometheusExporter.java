@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collection;
+
+/**
+ * This exporter writes op metrics in Prometheus text exposition format, i.e. to be served by metrics HTTP endpoint.
+ * Series are labeled with fully qualified op class name, i.e. {@code op="org.nd4j.linalg.api.ops.impl.transforms.strict.Tanh"}
+ */
+public class PrometheusExporter implements MetricsExporter {
+    private final Writer writer;
+    private final String prefix;
+
+    public PrometheusExporter(@NonNull Writer writer) {
+        this(writer, "nd4j_op");
+    }
+
+    public PrometheusExporter(@NonNull Writer writer, @NonNull String prefix) {
+        this.writer = writer;
+        this.prefix = prefix;
+    }
+
+    /**
+     * This method returns current op metrics in Prometheus text format
+     */
+    public static String format(@NonNull Collection<OpStats> stats) {
+        StringWriter writer = new StringWriter();
+        try {
+            new PrometheusExporter(writer).export(stats);
+        } catch (IOException e) {
+            // StringWriter doesn't throw
+            throw new RuntimeException(e);
+        }
+
+        return writer.toString();
+    }
+
+    @Override
+    public void export(@NonNull Collection<OpStats> stats) throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        header(sb, "invocations_total", "counter", "Number of op invocations");
+        for (OpStats s : stats)
+            line(sb, "invocations_total", s, null, s.getInvocations());
+
+        header(sb, "estimated_time_seconds_total", "counter", "Time spent in op, extrapolated from sampled invocations");
+        for (OpStats s : stats)
+            line(sb, "estimated_time_seconds_total", s, null, s.getEstimatedTimeNanos() / 1e9);
+
+        header(sb, "sampled_bytes_total", "counter", "Bytes read and written by sampled invocations");
+        for (OpStats s : stats)
+            line(sb, "sampled_bytes_total", s, null, s.getSampledBytes());
+
+        header(sb, "type_mismatches_total", "counter", "Sampled invocations with arguments of different data types");
+        for (OpStats s : stats)
+            line(sb, "type_mismatches_total", s, null, s.getTypeMismatches());
+
+        header(sb, "order_mismatches_total", "counter", "Sampled invocations with arguments of different orders");
+        for (OpStats s : stats)
+            line(sb, "order_mismatches_total", s, null, s.getOrderMismatches());
+
+        header(sb, "time_seconds", "histogram", "Time spent in sampled invocations");
+        for (OpStats s : stats) {
+            long cumulative = 0;
+            for (int b = 0; b < OpStats.NUM_BUCKETS - 1; b++) {
+                cumulative += s.getBucketCount(b);
+                line(sb, "time_seconds_bucket", s, "le=\"" + (OpStats.bucketBound(b) / 1e9) + "\"", cumulative);
+            }
+            cumulative += s.getBucketCount(OpStats.NUM_BUCKETS - 1);
+            line(sb, "time_seconds_bucket", s, "le=\"+Inf\"", cumulative);
+            line(sb, "time_seconds_sum", s, null, s.getSampledTimeNanos() / 1e9);
+            line(sb, "time_seconds_count", s, null, cumulative);
+        }
+
+        writer.write(sb.toString());
+        writer.flush();
+    }
+
+    private void header(StringBuilder sb, String metric, String type, String help) {
+        sb.append("# HELP ").append(prefix).append('_').append(metric).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(prefix).append('_').append(metric).append(' ').append(type).append('\n');
+    }
+
+    private void line(StringBuilder sb, String metric, OpStats s, String extraLabel, Object value) {
+        sb.append(prefix).append('_').append(metric).append("{op=\"").append(s.getName()).append('"');
+        if (extraLabel != null)
+            sb.append(',').append(extraLabel);
+        sb.append("} ").append(value).append('\n');
+    }
+}
@@ -0,0 +1,326 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.autodiff.samediff.plan.ExecutionPlan;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for compiled SameDiff execution plans
+ */
+@Slf4j
+public class ExecutionPlanTest {
+    private DataType initialType;
+
+    @Before
+    public void before() {
+        Nd4j.create(1);
+        initialType = Nd4j.dataType();
+
+        Nd4j.setDataType(DataType.DOUBLE);
+        Nd4j.getRandom().setSeed(123);
+    }
+
+    @After
+    public void after() {
+        Nd4j.setDataType(initialType);
+    }
+
+    private SameDiff mlp() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 4);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable w0 = sd.var("w0", Nd4j.rand(4, 10));
+        SDVariable b0 = sd.var("b0", Nd4j.rand(1, 10));
+        SDVariable w1 = sd.var("w1", Nd4j.rand(10, 3));
+        SDVariable b1 = sd.var("b1", Nd4j.rand(1, 3));
+
+        SDVariable a0 = sd.tanh(in.mmul(w0).add(b0));
+        SDVariable z1 = a0.mmul(w1).add(b1);
+        sd.softmax("out", z1);
+        return sd;
+    }
+
+    @Test
+    public void testCompiledMatchesInterpreted() {
+        SameDiff sd = mlp();
+
+        for (int minibatch : new int[] {5, 7, 5}) {
+            for (int e = 0; e < 3; e++) {
+                INDArray input = Nd4j.rand(minibatch, 4);
+                Map<String, INDArray> placeholders = Collections.singletonMap("input", input);
+
+                INDArray exp = sd.execWithPlaceHolderAndEndResult(placeholders).dup();
+                Map<String, INDArray> result = sd.execCompiled(placeholders, "out");
+
+                assertEquals(1, result.size());
+                assertEquals(exp, result.get("out"));
+            }
+        }
+    }
+
+    @Test
+    public void testOutputsNotReused() {
+        SameDiff sd = mlp();
+
+        INDArray input1 = Nd4j.rand(5, 4);
+        INDArray input2 = Nd4j.rand(5, 4);
+
+        INDArray out1 = sd.execCompiled(Collections.singletonMap("input", input1)).get("out");
+        INDArray copy1 = out1.dup();
+        INDArray out2 = sd.execCompiled(Collections.singletonMap("input", input2)).get("out");
+
+        assertNotSame(out1, out2);
+        assertEquals(copy1, out1);
+        assertNotEquals(out1, out2);
+    }
+
+    @Test
+    public void testBufferReuse() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 10);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable x = in;
+        for (int e = 0; e < 10; e++)
+            x = sd.tanh(x);
+        sd.sigmoid("out", x);
+
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(3, 10));
+        ExecutionPlan plan = ExecutionPlan.compile(sd, placeholders, false, false, "out");
+        assertNotNull(plan);
+
+        // chain of ops needs only two alternating intermediate arrays
+        assertEquals(2, plan.getNumBuffers());
+        assertEquals(0, plan.getNumChains());
+
+        INDArray exp = sd.execWithPlaceHolderAndEndResult(placeholders).dup();
+        assertEquals(exp, plan.execute(placeholders).get("out"));
+    }
+
+    @Test
+    public void testPruning() {
+        SameDiff sd = mlp();
+        sd.getVariable("w0").mul(2.0).add(1.0).sum();
+
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(2, 4));
+        ExecutionPlan plan = ExecutionPlan.compile(sd, placeholders, "out");
+        assertNotNull(plan);
+
+        sd.execWithPlaceHolder(placeholders);
+        INDArray exp = sd.getArrForVarName("out").dup();
+        assertEquals(exp, plan.execute(placeholders).get("out"));
+
+        // ops producing unused variable aren't planned
+        assertTrue(plan.getNumOps() <= plan.getNumFunctions() - 3);
+    }
+
+    @Test
+    public void testElementwiseFusion() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 300);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable w = sd.var("w", Nd4j.rand(300, 300));
+        SDVariable b = sd.var("b", Nd4j.rand(1, 300));
+        SDVariable scale = sd.var("scale", Nd4j.rand(1, 300));
+
+        // bias -> activation -> scale -> activation is fused into single chain, mmul isn't fusable
+        SDVariable z = in.mmul(w).add(b);
+        SDVariable a = sd.sigmoid(sd.tanh(z).mul(scale).mul(2.0));
+        sd.softmax("out", a);
+
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(250, 300));
+        INDArray exp = sd.execWithPlaceHolderAndEndResult(placeholders).dup();
+
+        ExecutionPlan fused = ExecutionPlan.compile(sd, placeholders, "out");
+        ExecutionPlan unfused = ExecutionPlan.compile(sd, placeholders, false, false, "out");
+        assertEquals(1, fused.getNumChains());
+        assertEquals(0, unfused.getNumChains());
+
+        for (int e = 0; e < 3; e++) {
+            assertEquals(exp, unfused.execute(placeholders).get("out"));
+            assertEquals(exp, fused.execute(placeholders).get("out"));
+        }
+    }
+
+    @Test
+    public void testIntermediateResultNotFused() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 10);
+        sd.addAsPlaceHolder("input");
+
+        // tanh result is used twice, so it can't be kept within chain
+        SDVariable t = sd.tanh(in);
+        sd.sigmoid(t).add("out", t);
+
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(4, 10));
+        INDArray exp = sd.execWithPlaceHolderAndEndResult(placeholders).dup();
+
+        ExecutionPlan plan = ExecutionPlan.compile(sd, placeholders, "out");
+        assertEquals(exp, plan.execute(placeholders).get("out"));
+    }
+
+    @Test
+    public void testConcurrentBranches() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 8);
+        sd.addAsPlaceHolder("input");
+
+        // 4 independent towers, joined at the end
+        SDVariable sum = null;
+        for (int t = 0; t < 4; t++) {
+            SDVariable w = sd.var("w" + t, Nd4j.rand(8, 8));
+            SDVariable tower = sd.tanh(sd.sigmoid(in.mmul(w)).mmul(w));
+            sum = sum == null ? tower : sum.add(tower);
+        }
+        sd.softmax("out", sum);
+
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(2, 8));
+        ExecutionPlan plan = ExecutionPlan.compile(sd, placeholders, true, "out");
+        assertNotNull(plan);
+        assertTrue(plan.isConcurrent());
+
+        INDArray exp = sd.execWithPlaceHolderAndEndResult(placeholders).dup();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int e = 0; e < 20; e++)
+                assertEquals(exp, plan.execute(placeholders, pool).get("out"));
+        } finally {
+            pool.shutdown();
+        }
+
+        // same graph via SameDiff API, both below and above batch size threshold
+        sd.setParallelExecution(4, 4);
+        assertEquals(exp, sd.execCompiled(placeholders, "out").get("out"));
+
+        Map<String, INDArray> large = Collections.singletonMap("input", Nd4j.rand(16, 8));
+        INDArray expLarge = sd.execWithPlaceHolderAndEndResult(large).dup();
+        assertEquals(expLarge, sd.execCompiled(large, "out").get("out"));
+
+        sd.setParallelExecution(0, 0);
+    }
+
+    @Test
+    public void testGraphModificationInvalidatesPlan() {
+        SameDiff sd = mlp();
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(2, 4));
+
+        sd.execCompiled(placeholders, "out");
+        sd.getVariable("out").mul("scaled", 2.0);
+
+        INDArray out = sd.execCompiled(placeholders, "out").get("out");
+        INDArray outScaled = sd.execCompiled(placeholders, "scaled").get("scaled");
+        assertEquals(out.mul(2.0), outScaled);
+    }
+
+    @Test
+    public void testPlanCacheEviction() {
+        SameDiff sd = mlp();
+        sd.setExecutionPlanCacheSize(2);
+
+        for (int minibatch : new int[] {3, 5, 7, 3}) {
+            Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(minibatch, 4));
+            INDArray exp = sd.execWithPlaceHolderAndEndResult(placeholders).dup();
+            assertEquals(exp, sd.execCompiled(placeholders, "out").get("out"));
+            assertTrue(sd.getNumExecutionPlans() <= 2);
+        }
+
+        assertEquals(2, sd.getNumExecutionPlans());
+
+        sd.clearExecutionCache();
+        assertEquals(0, sd.getNumExecutionPlans());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleasedPlan() {
+        SameDiff sd = mlp();
+
+        Map<String, INDArray> placeholders = Collections.singletonMap("input", Nd4j.rand(5, 4));
+        ExecutionPlan plan = ExecutionPlan.compile(sd, placeholders, "out");
+        assertNotNull(plan);
+
+        INDArray out = plan.execute(placeholders).get("out");
+        INDArray copy = out.dup();
+
+        plan.release();
+        assertTrue(plan.isReleased());
+
+        // outputs are owned by caller, so they survive plan release
+        assertEquals(copy, out);
+        plan.execute(placeholders);
+    }
+
+    @Test
+    public void testConcurrentPlansOfSameGraph() throws Exception {
+        SameDiff sd = mlp();
+
+        // two plans for different shapes share the same op instances
+        final Map<String, INDArray> placeholders1 = Collections.singletonMap("input", Nd4j.rand(5, 4));
+        final Map<String, INDArray> placeholders2 = Collections.singletonMap("input", Nd4j.rand(7, 4));
+        final ExecutionPlan plan1 = ExecutionPlan.compile(sd, placeholders1, "out");
+        final ExecutionPlan plan2 = ExecutionPlan.compile(sd, placeholders2, "out");
+        assertNotNull(plan1);
+        assertNotNull(plan2);
+
+        final INDArray exp1 = sd.execWithPlaceHolderAndEndResult(placeholders1).dup();
+        final INDArray exp2 = sd.execWithPlaceHolderAndEndResult(placeholders2).dup();
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final boolean first = t % 2 == 0;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int e = 0; e < 50; e++) {
+                            if (first)
+                                assertEquals(exp1, plan1.execute(placeholders1).get("out"));
+                            else
+                                assertEquals(exp2, plan2.execute(placeholders2).get("out"));
+                        }
+                    } catch (Throwable ex) {
+                        error.compareAndSet(null, ex);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        if (error.get() != null)
+            throw new RuntimeException(error.get());
+    }
+}
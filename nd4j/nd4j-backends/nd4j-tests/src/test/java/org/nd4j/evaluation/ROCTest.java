@@ -1001,4 +1001,111 @@ public class ROCTest extends BaseNd4jTest {
         }
     }
 
+    @Test
+    public void testRocSketchedSmallMatchesExact() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray labels = Nd4j.getExecutioner().exec(new BernoulliDistribution(Nd4j.createUninitialized(100, 1), 0.5));
+        INDArray predictions = Nd4j.rand(100, 1);
+
+        ROC exact = new ROC();
+        ROC sketched = ROC.sketched();
+        exact.eval(labels, predictions);
+        sketched.eval(labels, predictions);
+
+        //All sketch centroids are singletons here, so results should be exact
+        assertEquals(exact.getCountActualPositive(), sketched.getCountActualPositive());
+        assertEquals(exact.getCountActualNegative(), sketched.getCountActualNegative());
+        assertEquals(exact.calculateAUC(), sketched.calculateAUC(), 1e-10);
+        assertEquals(exact.calculateAUCPR(), sketched.calculateAUCPR(), 1e-6);
+    }
+
+    @Test
+    public void testRocSketchedLargeSkewed() {
+        Random r = new Random(12345);
+        int minibatch = 1000;
+
+        ROC exact = new ROC();
+        ROC merged = ROC.sketched();
+        ROC[] workers = new ROC[4];
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = ROC.sketched();
+
+        for (int i = 0; i < 200; i++) {
+            INDArray labels = Nd4j.create(minibatch, 1);
+            INDArray predictions = Nd4j.create(minibatch, 1);
+            for (int j = 0; j < minibatch; j++) {
+                int label = r.nextInt(2);
+                //Very skewed predictions: nearly all of them are very close to 1.0
+                double p = 1.0 / (1.0 + Math.exp(-(8.0 + label + r.nextGaussian())));
+                labels.putScalar(j, 0, label);
+                predictions.putScalar(j, 0, p);
+            }
+
+            exact.eval(labels, predictions);
+            workers[i % workers.length].eval(labels, predictions);
+        }
+
+        for (ROC w : workers)
+            merged.merge(w);
+
+        assertEquals(exact.getCountActualPositive(), merged.getCountActualPositive());
+        assertEquals(exact.getExampleCount(), merged.getExampleCount());
+        assertEquals(exact.calculateAUC(), merged.calculateAUC(), 2e-3);
+        assertEquals(exact.calculateAUCPR(), merged.calculateAUCPR(), 2e-3);
+    }
+
+    @Test
+    public void testRocSketchedSerialization() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray labels = Nd4j.getExecutioner().exec(new BernoulliDistribution(Nd4j.createUninitialized(5000, 1), 0.5));
+        INDArray predictions = Nd4j.rand(5000, 1);
+
+        ROC roc = ROC.sketched(100);
+        roc.eval(labels, predictions);
+        double auc = roc.calculateAUC();
+
+        ROC fromJson = ROC.fromJson(roc.toJson());
+        assertTrue(fromJson.isSketched());
+        assertEquals(roc.getPositiveSketch(), fromJson.getPositiveSketch());
+        assertEquals(auc, fromJson.calculateAUC(), 1e-10);
+
+        //Deserialized instance should still be mergeable
+        fromJson.merge(roc);
+        assertEquals(2 * roc.getExampleCount(), fromJson.getExampleCount());
+        assertEquals(auc, fromJson.calculateAUC(), 1e-3);
+    }
+
+    @Test
+    public void testRocBinarySketched() {
+        Nd4j.getRandom().setSeed(12345);
+        int nOut = 3;
+
+        ROCBinary exact = new ROCBinary();
+        ROCBinary sketched = ROCBinary.sketched();
+        for (int i = 0; i < 10; i++) {
+            INDArray labels = Nd4j.getExecutioner().exec(new BernoulliDistribution(Nd4j.createUninitialized(10, nOut), 0.5));
+            INDArray out = Nd4j.rand(10, nOut);
+            exact.eval(labels, out);
+            sketched.eval(labels, out);
+        }
+
+        for (int i = 0; i < nOut; i++)
+            assertEquals(exact.calculateAUC(i), sketched.calculateAUC(i), 1e-10);
+        assertTrue(sketched.stats().contains("Sketched"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSketchedCompressionValidation() {
+        ROC.sketched(5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSketchedCompressionValidationBinary() {
+        ROCBinary.sketched(5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSketchedCompressionValidationMultiClass() {
+        ROCMultiClass.sketched(0);
+    }
 }
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+package org.nd4j.linalg.dataset;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.TestDataSetIterator;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerMinMaxScaler;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerStandardize;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.DistributionStats;
+import org.nd4j.linalg.dataset.api.preprocessor.stats.MinMaxStats;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for merging of normalizer statistics, gathered over separate parts of the data
+ */
+@RunWith(Parameterized.class)
+public class NormalizerStatsMergeTest extends BaseNd4jTest {
+    public NormalizerStatsMergeTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    private static DataSet randomDataSet(int rows) {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray features = Nd4j.rand(DataType.DOUBLE, rows, 5).muli(10).addi(Nd4j.linspace(1, 5, 5, DataType.DOUBLE));
+        INDArray labels = Nd4j.rand(DataType.DOUBLE, rows, 2).muli(3);
+        return new DataSet(features, labels);
+    }
+
+    private static DataSet rows(DataSet ds, int from, int to) {
+        return new DataSet(ds.getFeatures().get(NDArrayIndex.interval(from, to), NDArrayIndex.all()).dup(),
+                        ds.getLabels().get(NDArrayIndex.interval(from, to), NDArrayIndex.all()).dup());
+    }
+
+    @Test
+    public void testDistributionStatsMerge() {
+        DataSet ds = randomDataSet(1000);
+        DistributionStats exp = new DistributionStats.Builder().addFeatures(ds).build();
+
+        // uneven parts, including single row part
+        DistributionStats.Builder first = new DistributionStats.Builder().addFeatures(rows(ds, 0, 1));
+        DistributionStats.Builder second = new DistributionStats.Builder().addFeatures(rows(ds, 1, 300));
+        DistributionStats.Builder third = new DistributionStats.Builder().addFeatures(rows(ds, 300, 1000));
+
+        DistributionStats merged = first.merge(second).merge(third).merge(new DistributionStats.Builder()).build();
+        assertEquals(1000, first.getCount());
+        assertEquals(exp.getMean(), merged.getMean());
+        assertEquals(exp.getStd(), merged.getStd());
+
+        // other builder is not modified
+        assertEquals(299, second.getCount());
+    }
+
+    @Test
+    public void testMinMaxStatsMerge() {
+        DataSet ds = randomDataSet(1000);
+        MinMaxStats exp = new MinMaxStats.Builder().addFeatures(ds).build();
+
+        MinMaxStats merged = new MinMaxStats.Builder().merge(new MinMaxStats.Builder().addFeatures(rows(ds, 0, 400)))
+                        .merge(new MinMaxStats.Builder().addFeatures(rows(ds, 400, 1000))).build();
+
+        assertEquals(exp.getLower(), merged.getLower());
+        assertEquals(exp.getUpper(), merged.getUpper());
+    }
+
+    @Test
+    public void testParallelFit() {
+        DataSet ds = randomDataSet(1000);
+
+        List<DataSetIterator> shards = new ArrayList<>();
+        for (int e = 0; e < 4; e++)
+            shards.add(new TestDataSetIterator(rows(ds, e * 250, (e + 1) * 250), 32));
+
+        NormalizerStandardize exp = new NormalizerStandardize();
+        exp.fitLabel(true);
+        exp.fit(new TestDataSetIterator(ds, 32));
+
+        NormalizerStandardize standardize = new NormalizerStandardize();
+        standardize.fitLabel(true);
+        standardize.fit(shards);
+
+        assertEquals(exp.getMean(), standardize.getMean());
+        assertEquals(exp.getStd(), standardize.getStd());
+        assertEquals(exp.getLabelMean(), standardize.getLabelMean());
+        assertEquals(exp.getLabelStd(), standardize.getLabelStd());
+
+        NormalizerMinMaxScaler expMinMax = new NormalizerMinMaxScaler();
+        expMinMax.fit(new TestDataSetIterator(ds, 32));
+
+        NormalizerMinMaxScaler minMax = new NormalizerMinMaxScaler();
+        minMax.fit(shards);
+
+        assertEquals(expMinMax.getMin(), minMax.getMin());
+        assertEquals(expMinMax.getMax(), minMax.getMax());
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.dataset;
+
+import lombok.val;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.paged.PagedDataSetIterator;
+import org.nd4j.linalg.dataset.paged.PagedDataSetReader;
+import org.nd4j.linalg.dataset.paged.PagedDataSetWriter;
+import org.nd4j.linalg.dataset.paged.PagedMultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PagedDataSetTest extends BaseNd4jTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    public PagedDataSetTest(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Test
+    public void testDataSetRoundTrip() throws Exception {
+        for (boolean compress : new boolean[] {false, true}) {
+            for (boolean mmap : new boolean[] {false, true}) {
+                File file = testDir.newFile();
+
+                List<DataSet> expected = new ArrayList<>();
+                try (val writer = new PagedDataSetWriter(file, compress)) {
+                    for (int i = 0; i < 5; i++) {
+                        INDArray features = Nd4j.rand('f', new int[] {4 + i, 3, 7});
+                        INDArray labels = Nd4j.zeros(4 + i, 2, 7);
+                        labels.get(NDArrayIndex.all(), NDArrayIndex.point(1),
+                                        NDArrayIndex.all()).assign(1.0);
+                        INDArray mask = i % 2 == 0 ? null : Nd4j.ones(4 + i, 7);
+
+                        DataSet ds = new DataSet(features, labels, mask, mask);
+                        expected.add(ds);
+                        writer.write(ds);
+                    }
+                    assertEquals(5, writer.numRecords());
+                }
+
+                // file is page-aligned container
+                assertEquals(0, (file.length() - 12 - 4 - 5 * 16) % 4096);
+
+                try (val iterator = new PagedDataSetIterator(new PagedDataSetReader(file, mmap), null)) {
+                    for (int e = 0; e < 2; e++) {
+                        int cnt = 0;
+                        while (iterator.hasNext()) {
+                            DataSet ds = iterator.next();
+                            DataSet exp = expected.get(cnt++);
+                            assertEquals(exp.getFeatures(), ds.getFeatures());
+                            assertEquals('f', ds.getFeatures().ordering());
+                            assertEquals(exp.getLabels(), ds.getLabels());
+                            assertEquals(exp.getFeaturesMaskArray(), ds.getFeaturesMaskArray());
+                            assertEquals(exp.getLabelsMaskArray(), ds.getLabelsMaskArray());
+                        }
+                        assertEquals(5, cnt);
+                        iterator.reset();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMappedArraysAreCopyOnWrite() throws Exception {
+        File file = testDir.newFile();
+        INDArray features = Nd4j.linspace(1, 12, 12).reshape(3, 4);
+        INDArray labels = Nd4j.eye(3);
+        try (val writer = new PagedDataSetWriter(file)) {
+            writer.write(new DataSet(features, labels));
+        }
+
+        try (val reader = new PagedDataSetReader(file)) {
+            DataSet first = reader.getDataSet(0);
+            first.getFeatures().addi(100.0);
+            assertEquals(features.add(100.0), first.getFeatures());
+
+            // in-place changes never reach the file
+            assertEquals(features, reader.getDataSet(0).getFeatures());
+        }
+
+        try (val reader = new PagedDataSetReader(file)) {
+            assertEquals(features, reader.getDataSet(0).getFeatures());
+        }
+    }
+
+    @Test
+    public void testMultiDataSetRoundTrip() throws Exception {
+        File file = testDir.newFile();
+
+        INDArray[] features = new INDArray[] {Nd4j.rand(5, 3), Nd4j.rand('f', new int[] {5, 2, 4})};
+        INDArray[] labels = new INDArray[] {Nd4j.create(DataType.INT, 5, 1).assign(3)};
+        INDArray[] featuresMasks = new INDArray[] {null, Nd4j.ones(5, 4)};
+        MultiDataSet mds = new MultiDataSet(features, labels, featuresMasks, null);
+
+        // views should be stored as regular arrays
+        INDArray view = Nd4j.rand(10, 6).get(NDArrayIndex.interval(2, 7),
+                        NDArrayIndex.interval(1, 4));
+
+        try (val writer = new PagedDataSetWriter(file, true)) {
+            writer.write(mds);
+            writer.write(new DataSet(view, view.dup()));
+        }
+
+        try (val iterator = new PagedMultiDataSetIterator(file)) {
+            assertTrue(iterator.hasNext());
+            org.nd4j.linalg.dataset.api.MultiDataSet restored = iterator.next();
+            assertEquals(2, restored.getFeatures().length);
+            assertEquals(features[0], restored.getFeatures(0));
+            assertEquals(features[1], restored.getFeatures(1));
+            assertEquals(DataType.INT, restored.getLabels(0).dataType());
+            assertEquals(labels[0], restored.getLabels(0));
+            assertNull(restored.getFeaturesMaskArrays()[0]);
+            assertEquals(featuresMasks[1], restored.getFeaturesMaskArray(1));
+            assertNull(restored.getLabelsMaskArrays());
+
+            assertTrue(iterator.hasNext());
+            restored = iterator.next();
+            assertEquals(view, restored.getFeatures(0));
+            assertEquals(view, restored.getLabels(0));
+            assertFalse(iterator.hasNext());
+        }
+
+        try (val reader = new PagedDataSetReader(file)) {
+            assertTrue(reader.isMultiDataSet(0));
+            assertFalse(reader.isMultiDataSet(1));
+            assertEquals(view, reader.getDataSet(1).getFeatures());
+
+            try {
+                reader.getDataSet(0);
+                fail("MultiDataSet with multiple arrays can't be read as DataSet");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
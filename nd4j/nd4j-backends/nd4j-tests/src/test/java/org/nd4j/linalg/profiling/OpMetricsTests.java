@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.nd4j.linalg.BaseNd4jTest;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.pairwise.arithmetic.AddOp;
+import org.nd4j.linalg.api.ops.impl.transforms.strict.Tanh;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.factory.Nd4jBackend;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.nd4j.linalg.profiler.metrics.JmxExporter;
+import org.nd4j.linalg.profiler.metrics.OpMetrics;
+import org.nd4j.linalg.profiler.metrics.OpStats;
+import org.nd4j.linalg.profiler.metrics.PrometheusExporter;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+@RunWith(Parameterized.class)
+public class OpMetricsTests extends BaseNd4jTest {
+    private int initialInterval;
+
+    public OpMetricsTests(Nd4jBackend backend) {
+        super(backend);
+    }
+
+    @Before
+    public void setUp() {
+        initialInterval = OpMetrics.getInstance().getSamplingInterval();
+        OpMetrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() {
+        OpMetrics.getInstance().setSamplingInterval(initialInterval);
+        OpMetrics.getInstance().reset();
+    }
+
+    @Test
+    public void testSamplingInterval() {
+        val metrics = OpMetrics.getInstance();
+
+        metrics.setSamplingInterval(100);
+        assertEquals(128, metrics.getSamplingInterval());
+        assertTrue(metrics.isEnabled());
+
+        metrics.setSamplingInterval(1);
+        assertEquals(1, metrics.getSamplingInterval());
+
+        metrics.setSamplingInterval(0);
+        assertEquals(0, metrics.getSamplingInterval());
+        assertFalse(metrics.isEnabled());
+    }
+
+    @Test
+    public void testLegacyOpCounters() {
+        val metrics = OpMetrics.getInstance();
+        metrics.setSamplingInterval(4);
+
+        val array = Nd4j.create(DataType.FLOAT, 10, 10);
+        for (int e = 0; e < 20; e++)
+            Transforms.tanh(array, true);
+
+        OpStats stats = metrics.getStats(Tanh.class);
+        assertEquals(20, stats.getInvocations());
+        assertEquals(5, stats.getSampledInvocations());
+        assertEquals(5 * 2 * 100 * 4, stats.getSampledBytes());
+        assertEquals(0, stats.getTypeMismatches());
+        assertTrue(stats.getEstimatedTimeNanos() >= stats.getSampledTimeNanos());
+
+        long histogramTotal = 0;
+        for (int b = 0; b < OpStats.NUM_BUCKETS; b++)
+            histogramTotal += stats.getBucketCount(b);
+        assertEquals(5, histogramTotal);
+    }
+
+    @Test
+    public void testCustomOpCounters() {
+        val metrics = OpMetrics.getInstance();
+        metrics.setSamplingInterval(1);
+
+        val x = Nd4j.create(DataType.FLOAT, 3, 4);
+        val y = Nd4j.create(DataType.FLOAT, 3, 4).dup('f');
+        val z = Nd4j.create(DataType.FLOAT, 3, 4);
+        Nd4j.getExecutioner().exec(new AddOp(new INDArray[] {x, y}, new INDArray[] {z}));
+
+        OpStats stats = metrics.getStats(AddOp.class);
+        assertEquals(1, stats.getInvocations());
+        assertEquals(1, stats.getSampledInvocations());
+        assertEquals(3 * 12 * 4, stats.getSampledBytes());
+        assertEquals(1, stats.getOrderMismatches());
+    }
+
+    @Test
+    public void testDisabled() {
+        val metrics = OpMetrics.getInstance();
+        metrics.setSamplingInterval(0);
+
+        Transforms.tanh(Nd4j.create(DataType.FLOAT, 10), true);
+        assertEquals(0, metrics.getStats(Tanh.class).getInvocations());
+    }
+
+    @Test
+    public void testExporters() throws Exception {
+        val metrics = OpMetrics.getInstance();
+        metrics.setSamplingInterval(1);
+
+        Transforms.tanh(Nd4j.create(DataType.FLOAT, 10), true);
+
+        String text = PrometheusExporter.format(metrics.getStats());
+        log.info("Prometheus output:\n{}", text);
+        assertTrue(text.contains("# TYPE nd4j_op_invocations_total counter"));
+        String label = "op=\"" + Tanh.class.getName() + "\"";
+        assertTrue(text.contains("nd4j_op_invocations_total{" + label + "} 1\n"));
+        assertTrue(text.contains("nd4j_op_time_seconds_bucket{" + label + ",le=\"+Inf\"} 1\n"));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        OpStats stats = metrics.getStats(Tanh.class);
+        JmxExporter exporter = new JmxExporter(server);
+        try {
+            metrics.export(exporter);
+            assertEquals(1L, server.getAttribute(JmxExporter.objectName(stats), "Invocations"));
+        } finally {
+            exporter.unregister(metrics.getStats());
+        }
+    }
+
+    @Test
+    public void testExportersSameSimpleName() throws Exception {
+        val metrics = OpMetrics.getInstance();
+        metrics.setSamplingInterval(1);
+
+        // reduce and pairwise transform ops share simple name
+        OpStats reduce = metrics.getStats(org.nd4j.linalg.api.ops.impl.reduce.same.Max.class);
+        OpStats transform = metrics.getStats(org.nd4j.linalg.api.ops.impl.transforms.same.Max.class);
+        assertNotEquals(reduce.getName(), transform.getName());
+
+        List<OpStats> stats = Arrays.asList(reduce, transform);
+        String text = PrometheusExporter.format(stats);
+        assertTrue(text.contains("nd4j_op_invocations_total{op=\"" + reduce.getName() + "\"} 0\n"));
+        assertTrue(text.contains("nd4j_op_invocations_total{op=\"" + transform.getName() + "\"} 0\n"));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        JmxExporter exporter = new JmxExporter(server);
+        try {
+            exporter.export(stats);
+            assertNotEquals(JmxExporter.objectName(reduce), JmxExporter.objectName(transform));
+            assertTrue(server.isRegistered(JmxExporter.objectName(reduce)));
+            assertTrue(server.isRegistered(JmxExporter.objectName(transform)));
+        } finally {
+            exporter.unregister(stats);
+        }
+    }
+
+    @Override
+    public char ordering() {
+        return 'c';
+    }
+}
@@ -110,6 +110,13 @@ public class ND4JSystemProperties {
      */
     public static final String AERON_TERM_BUFFER_PROP = "aeron.term.buffer.length";
 
+    /**
+     * Applicability: Always<br>
+     * Description: Op metrics registry times every N-th invocation of each op class, and this system property sets N.
+     * Value is rounded up to the nearest power of 2. Set to 0 to disable op metrics completely. Default value: 64
+     */
+    public static final String OP_METRICS_SAMPLING_INTERVAL = "org.nd4j.metrics.sampling";
+
     private ND4JSystemProperties() {
     }
 }
@@ -280,13 +280,24 @@ public class Counter<T> implements Serializable {
      * @param N
      */
     public void keepTopNElements(int N){
-        PriorityQueue<Pair<T, Double>> queue = asPriorityQueue();
+        List<Pair<T, Double>> top = topN(N);
         clear();
-        for (int e = 0; e < N; e++) {
-            Pair<T, Double> pair = queue.poll();
-            if (pair != null)
-                incrementCount(pair.getFirst(), pair.getSecond());
-        }
+        for (Pair<T, Double> pair : top)
+            incrementCount(pair.getFirst(), pair.getSecond());
+    }
+
+    /**
+     * This method returns N elements with highest counter values, in O(size * log N) time
+     *
+     * @param N
+     * @return elements and their counts, sorted by counts in descending order
+     */
+    public List<Pair<T, Double>> topN(int N) {
+        ObjectDoubleHashMap.TopN<T> top = new ObjectDoubleHashMap.TopN<>(N);
+        for (Map.Entry<T, AtomicDouble> entry : map.entrySet())
+            top.offer(entry.getKey(), entry.getValue().get());
+
+        return top.result();
     }
 
 
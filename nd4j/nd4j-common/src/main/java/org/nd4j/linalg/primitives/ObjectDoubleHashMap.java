@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.primitives;
+
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Open addressing hash map from objects to primitive doubles, with linear probing.
+ * Keys and values are kept in two flat arrays, so there's no Entry or boxed value per element.
+ * Missing keys have value of 0.0, which is convenient for counting.
+ *
+ * PLEASE NOTE: This class is NOT thread-safe. See {@link StripedCounter} for concurrent use.
+ * PLEASE NOTE: null keys are not supported
+ */
+public class ObjectDoubleHashMap<T> implements Serializable {
+    private static final long serialVersionUID = 119L;
+    protected static final double LOAD_FACTOR = 0.6;
+
+    protected Object[] keys;
+    protected double[] values;
+    protected int mask;
+    protected int threshold;
+    protected int size;
+
+    /**
+     * This interface is used to visit entries of the map without creating objects per entry
+     */
+    public interface EntryVisitor<T> {
+        void visit(T key, double value);
+    }
+
+    public ObjectDoubleHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize number of elements map should be able to hold without resizing
+     */
+    public ObjectDoubleHashMap(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Expected size should be non-negative value");
+
+        allocate(capacityFor(expectedSize));
+    }
+
+    protected static int capacityFor(int expectedSize) {
+        long required = Math.max(4L, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        if (required > (1 << 30))
+            throw new IllegalStateException("Map can't hold " + expectedSize + " elements");
+
+        int capacity = Integer.highestOneBit((int) required);
+        return capacity < required ? capacity << 1 : capacity;
+    }
+
+    /**
+     * This method spreads hash code bits, so linear probing works fine with poor hash functions
+     */
+    protected static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    protected void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new double[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return slot holding given key, or empty slot where it should be inserted
+     */
+    protected int slot(Object key) {
+        int i = mix(key.hashCode()) & mask;
+        Object k;
+        while ((k = keys[i]) != null && !k.equals(key))
+            i = (i + 1) & mask;
+
+        return i;
+    }
+
+    protected void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+
+        for (int e = 0; e < oldKeys.length; e++) {
+            if (oldKeys[e] != null) {
+                int i = slot(oldKeys[e]);
+                keys[i] = oldKeys[e];
+                values[i] = oldValues[e];
+            }
+        }
+    }
+
+    public double get(@NonNull T key) {
+        int i = slot(key);
+        return keys[i] == null ? 0.0 : values[i];
+    }
+
+    public boolean containsKey(@NonNull T key) {
+        return keys[slot(key)] != null;
+    }
+
+    /**
+     * This method adds given increment to value of given key
+     *
+     * @return new value
+     */
+    public double addTo(@NonNull T key, double inc) {
+        int i = slot(key);
+        if (keys[i] != null)
+            return values[i] += inc;
+
+        insert(i, key, inc);
+        return inc;
+    }
+
+    /**
+     * This method sets new value for given key
+     *
+     * @return previous value, or 0.0 if key wasn't present
+     */
+    public double put(@NonNull T key, double value) {
+        int i = slot(key);
+        if (keys[i] != null) {
+            double old = values[i];
+            values[i] = value;
+            return old;
+        }
+
+        insert(i, key, value);
+        return 0.0;
+    }
+
+    protected void insert(int i, T key, double value) {
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold)
+            rehash(keys.length << 1);
+    }
+
+    /**
+     * This method removes given key from the map
+     *
+     * @return removed value, or 0.0 if key wasn't present
+     */
+    public double remove(@NonNull T key) {
+        int gap = slot(key);
+        if (keys[gap] == null)
+            return 0.0;
+
+        double old = values[gap];
+        removeAt(gap);
+        return old;
+    }
+
+    protected void removeAt(int gap) {
+        // backward shift deletion: move following elements of the same probe chain into the gap
+        int j = gap;
+        while (true) {
+            j = (j + 1) & mask;
+            Object k = keys[j];
+            if (k == null)
+                break;
+
+            int ideal = mix(k.hashCode()) & mask;
+            if (((j - ideal) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+
+        keys[gap] = null;
+        values[gap] = 0.0;
+        size--;
+    }
+
+    /**
+     * This method removes all entries with values below given threshold
+     *
+     * @return number of removed entries
+     */
+    public int removeBelow(double threshold) {
+        int removed = 0;
+        // removal shifts next element of the chain into current slot, so we check the same slot again.
+        // elements wrapped around the end of table can only be shifted into slots that were checked already
+        for (int i = 0; i < keys.length; ) {
+            if (keys[i] != null && values[i] < threshold) {
+                removeAt(i);
+                removed++;
+            } else
+                i++;
+        }
+
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, 0.0);
+        size = 0;
+    }
+
+    /**
+     * @return sum of all values
+     */
+    public double sum() {
+        double sum = 0.0;
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null)
+                sum += values[i];
+
+        return sum;
+    }
+
+    public void forEach(@NonNull EntryVisitor<T> visitor) {
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null)
+                visitor.visit((T) keys[i], values[i]);
+    }
+
+    /**
+     * @return snapshot of keys
+     */
+    public Set<T> keySet() {
+        Set<T> result = new HashSet<>(Math.max(16, (int) (size / 0.75) + 1));
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null)
+                result.add((T) keys[i]);
+
+        return result;
+    }
+
+    /**
+     * This method returns N entries with highest values, in O(size * log N) time
+     *
+     * @param n number of entries to return
+     * @return entries sorted by values in descending order
+     */
+    public List<Pair<T, Double>> topN(int n) {
+        TopN<T> top = new TopN<>(n);
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != null)
+                top.offer((T) keys[i], values[i]);
+
+        return top.result();
+    }
+
+    /**
+     * Bounded min-heap, which keeps N elements with highest values
+     */
+    protected static class TopN<T> {
+        private final int n;
+        private final Comparator<Pair<T, Double>> comparator;
+        private final PriorityQueue<Pair<T, Double>> heap;
+
+        protected TopN(int n) {
+            if (n < 0)
+                throw new IllegalArgumentException("N should be non-negative value");
+
+            this.n = n;
+            this.comparator = new Comparator<Pair<T, Double>>() {
+                @Override
+                public int compare(Pair<T, Double> o1, Pair<T, Double> o2) {
+                    return Double.compare(o1.getSecond(), o2.getSecond());
+                }
+            };
+            this.heap = new PriorityQueue<>(Math.max(1, n), comparator);
+        }
+
+        protected void offer(T key, double value) {
+            if (n == 0)
+                return;
+
+            if (heap.size() < n)
+                heap.add(Pair.create(key, value));
+            else if (value > heap.peek().getSecond()) {
+                heap.poll();
+                heap.add(Pair.create(key, value));
+            }
+        }
+
+        protected List<Pair<T, Double>> result() {
+            List<Pair<T, Double>> result = new ArrayList<>(heap);
+            Collections.sort(result, Collections.reverseOrder(comparator));
+            return result;
+        }
+    }
+}
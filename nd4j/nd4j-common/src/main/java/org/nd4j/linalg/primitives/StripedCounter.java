@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.primitives;
+
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Concurrent counter, suited for heavy counting with many threads, i.e. vocabulary building.
+ *
+ * Elements are spread over independent stripes by hash code, each stripe is {@link ObjectDoubleHashMap} guarded by its own monitor.
+ * So, there's no boxed value or Entry object per element, and threads counting different elements rarely contend.
+ * Total count is kept per stripe as well, and summed up on request.
+ *
+ * API mirrors {@link Counter}, except methods that expose internal map.
+ */
+public class StripedCounter<T> implements Serializable {
+    private static final long serialVersionUID = 119L;
+
+    protected final ObjectDoubleHashMap<T>[] stripes;
+    protected final double[] totals;
+    protected final int shift;
+
+    public StripedCounter() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrencyLevel expected number of threads updating this counter. Rounded up to power of 2.
+     */
+    public StripedCounter(int concurrencyLevel) {
+        this(concurrencyLevel, 16);
+    }
+
+    /**
+     * @param concurrencyLevel expected number of threads updating this counter. Rounded up to power of 2.
+     * @param expectedSize expected number of distinct elements
+     */
+    public StripedCounter(int concurrencyLevel, int expectedSize) {
+        if (concurrencyLevel < 1)
+            throw new IllegalArgumentException("Concurrency level should be positive value");
+
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.min(concurrencyLevel, 1 << 16) - 1);
+        int numStripes = 1 << bits;
+
+        this.stripes = new ObjectDoubleHashMap[numStripes];
+        this.totals = new double[numStripes];
+        this.shift = 32 - bits;
+        for (int i = 0; i < numStripes; i++)
+            stripes[i] = new ObjectDoubleHashMap<>(Math.max(16, expectedSize / numStripes));
+    }
+
+    protected int stripe(Object element) {
+        // stripe uses high bits of hash, map inside of the stripe uses low bits
+        return shift == 32 ? 0 : ObjectDoubleHashMap.mix(element.hashCode()) >>> shift;
+    }
+
+    public double getCount(@NonNull T element) {
+        int s = stripe(element);
+        synchronized (stripes[s]) {
+            return stripes[s].get(element);
+        }
+    }
+
+    /**
+     * This method increments counter of given element
+     *
+     * @param element
+     * @param inc
+     * @return new counter value
+     */
+    public double incrementCount(@NonNull T element, double inc) {
+        int s = stripe(element);
+        synchronized (stripes[s]) {
+            totals[s] += inc;
+            return stripes[s].addTo(element, inc);
+        }
+    }
+
+    /**
+     * This method will increment all elements in collection
+     *
+     * @param elements
+     * @param inc
+     */
+    public void incrementAll(@NonNull Collection<? extends T> elements, double inc) {
+        for (T element : elements)
+            incrementCount(element, inc);
+    }
+
+    /**
+     * This method will increment counts of this counter by counts from other counter
+     * @param other
+     */
+    public void incrementAll(@NonNull Counter<? extends T> other) {
+        for (Map.Entry<? extends T, AtomicDouble> entry : other.entrySet())
+            incrementCount(entry.getKey(), entry.getValue().get());
+    }
+
+    /**
+     * This method will increment counts of this counter by counts from other counter
+     * @param other
+     */
+    public void incrementAll(@NonNull StripedCounter<? extends T> other) {
+        for (Pair<? extends T, Double> pair : other.entries())
+            incrementCount(pair.getFirst(), pair.getSecond());
+    }
+
+    /**
+     * This method sets new counter value for given element
+     *
+     * @param element element to be updated
+     * @param count new counter value
+     * @return previous value
+     */
+    public double setCount(@NonNull T element, double count) {
+        int s = stripe(element);
+        synchronized (stripes[s]) {
+            double old = stripes[s].put(element, count);
+            totals[s] += count - old;
+            return old;
+        }
+    }
+
+    /**
+     * This method removes given key from counter
+     *
+     * @param element
+     * @return counter value
+     */
+    public double removeKey(@NonNull T element) {
+        int s = stripe(element);
+        synchronized (stripes[s]) {
+            double old = stripes[s].remove(element);
+            totals[s] -= old;
+            return old;
+        }
+    }
+
+    public boolean containsElement(@NonNull T element) {
+        int s = stripe(element);
+        synchronized (stripes[s]) {
+            return stripes[s].containsKey(element);
+        }
+    }
+
+    /**
+     * This method returns probability of given element
+     *
+     * @param element
+     * @return
+     */
+    public double getProbability(@NonNull T element) {
+        double total = totalCount();
+        if (total <= 0.0)
+            throw new IllegalStateException("Can't calculate probability with empty counter");
+
+        return getCount(element) / total;
+    }
+
+    /**
+     * This method returns total sum of counter values
+     * @return
+     */
+    public double totalCount() {
+        double total = 0.0;
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                total += totals[s];
+            }
+
+        return total;
+    }
+
+    /**
+     * Returns total number of tracked elements
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                size += stripes[s].size();
+            }
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * This method returns snapshot of elements used in this counter
+     *
+     * @return
+     */
+    public Set<T> keySet() {
+        Set<T> result = new HashSet<>();
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                result.addAll(stripes[s].keySet());
+            }
+
+        return result;
+    }
+
+    /**
+     * This method returns snapshot of elements and their counts
+     *
+     * @return
+     */
+    public List<Pair<T, Double>> entries() {
+        final List<Pair<T, Double>> result = new ArrayList<>();
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                stripes[s].forEach(new ObjectDoubleHashMap.EntryVisitor<T>() {
+                    @Override
+                    public void visit(T key, double value) {
+                        result.add(Pair.create(key, value));
+                    }
+                });
+            }
+
+        return result;
+    }
+
+    /**
+     * This method returns N elements with highest counts, in O(size * log N) time
+     *
+     * @param n
+     * @return elements and their counts, sorted by counts in descending order
+     */
+    public List<Pair<T, Double>> topN(int n) {
+        final ObjectDoubleHashMap.TopN<T> top = new ObjectDoubleHashMap.TopN<>(n);
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                stripes[s].forEach(new ObjectDoubleHashMap.EntryVisitor<T>() {
+                    @Override
+                    public void visit(T key, double value) {
+                        top.offer(key, value);
+                    }
+                });
+            }
+
+        return top.result();
+    }
+
+    /**
+     * This method returns List of elements, sorted by their counts
+     * @return
+     */
+    public List<T> keySetSorted() {
+        List<Pair<T, Double>> top = topN(size());
+        List<T> result = new ArrayList<>(top.size());
+        for (Pair<T, Double> pair : top)
+            result.add(pair.getFirst());
+
+        return result;
+    }
+
+    /**
+     * This method returns element with highest counter value
+     *
+     * @return
+     */
+    public T argMax() {
+        List<Pair<T, Double>> top = topN(1);
+        return top.isEmpty() ? null : top.get(0).getFirst();
+    }
+
+    /**
+     * This method removes all elements except of top N by counter values
+     * @param n
+     */
+    public void keepTopNElements(int n) {
+        List<Pair<T, Double>> top = topN(n);
+        clear();
+        for (Pair<T, Double> pair : top)
+            incrementCount(pair.getFirst(), pair.getSecond());
+    }
+
+    /**
+     * This method will remove all elements with counts below given threshold from counter
+     * @param threshold
+     */
+    public void dropElementsBelowThreshold(double threshold) {
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                if (stripes[s].removeBelow(threshold) > 0)
+                    totals[s] = stripes[s].sum();
+            }
+    }
+
+    /**
+     * This method effectively resets counter to empty state
+     */
+    public void clear() {
+        for (int s = 0; s < stripes.length; s++)
+            synchronized (stripes[s]) {
+                stripes[s].clear();
+                totals[s] = 0.0;
+            }
+    }
+
+    /**
+     * This method returns snapshot of this counter as {@link Counter}
+     *
+     * @return
+     */
+    public Counter<T> toCounter() {
+        Counter<T> counter = new Counter<>();
+        for (Pair<T, Double> pair : entries())
+            counter.incrementCount(pair.getFirst(), pair.getSecond());
+
+        return counter;
+    }
+}
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.primitives;
+
+import lombok.NonNull;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Concurrent CounterMap counterpart, suited for co-occurrence counting.
+ *
+ * First elements are spread over independent stripes by hash code. Each stripe is guarded by its own monitor,
+ * and holds {@link ObjectDoubleHashMap} of second elements per first element, so there's no boxed value per pair.
+ */
+public class StripedCounterMap<F, S> implements Serializable {
+    private static final long serialVersionUID = 119L;
+
+    protected final Map<F, ObjectDoubleHashMap<S>>[] stripes;
+    protected final int shift;
+
+    public StripedCounterMap() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrencyLevel expected number of threads updating this counter. Rounded up to power of 2.
+     */
+    public StripedCounterMap(int concurrencyLevel) {
+        if (concurrencyLevel < 1)
+            throw new IllegalArgumentException("Concurrency level should be positive value");
+
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.min(concurrencyLevel, 1 << 16) - 1);
+        int numStripes = 1 << bits;
+
+        this.stripes = new Map[numStripes];
+        this.shift = 32 - bits;
+        for (int i = 0; i < numStripes; i++)
+            stripes[i] = new HashMap<>();
+    }
+
+    protected int stripe(Object element) {
+        return shift == 32 ? 0 : ObjectDoubleHashMap.mix(element.hashCode()) >>> shift;
+    }
+
+    /**
+     * This method will increment counts for a given first/second pair
+     *
+     * @param first
+     * @param second
+     * @param inc
+     * @return new counter value
+     */
+    public double incrementCount(@NonNull F first, @NonNull S second, double inc) {
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            ObjectDoubleHashMap<S> counter = stripe.get(first);
+            if (counter == null) {
+                counter = new ObjectDoubleHashMap<>(4);
+                stripe.put(first, counter);
+            }
+
+            return counter.addTo(second, inc);
+        }
+    }
+
+    /**
+     * This method will increment values of this counter, by counts of other counter
+     *
+     * @param other
+     */
+    public void incrementAll(@NonNull CounterMap<F, S> other) {
+        for (F first : other.keySet())
+            for (Map.Entry<S, AtomicDouble> entry : other.getCounter(first).entrySet())
+                incrementCount(first, entry.getKey(), entry.getValue().get());
+    }
+
+    /**
+     * This method returns counts for a given first/second pair
+     *
+     * @param first
+     * @param second
+     * @return
+     */
+    public double getCount(@NonNull F first, @NonNull S second) {
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            ObjectDoubleHashMap<S> counter = stripe.get(first);
+            return counter == null ? 0.0 : counter.get(second);
+        }
+    }
+
+    /**
+     * This method allows you to set counter value for a given first/second pair
+     *
+     * @param first
+     * @param second
+     * @param value
+     * @return previous value
+     */
+    public double setCount(@NonNull F first, @NonNull S second, double value) {
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            ObjectDoubleHashMap<S> counter = stripe.get(first);
+            if (counter == null) {
+                counter = new ObjectDoubleHashMap<>(4);
+                stripe.put(first, counter);
+            }
+
+            return counter.put(second, value);
+        }
+    }
+
+    /**
+     * This method checks if this map has any values stored
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return totalSize() == 0;
+    }
+
+    /**
+     * This method checks if this map has any values stored for a given first element
+     *
+     * @param first
+     * @return
+     */
+    public boolean isEmpty(@NonNull F first) {
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            ObjectDoubleHashMap<S> counter = stripe.get(first);
+            return counter == null || counter.isEmpty();
+        }
+    }
+
+    /**
+     * This method returns snapshot of second elements and their counts for a given first element
+     *
+     * @param first
+     * @return
+     */
+    public Counter<S> getCounter(@NonNull F first) {
+        final Counter<S> result = new Counter<>();
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            ObjectDoubleHashMap<S> counter = stripe.get(first);
+            if (counter != null)
+                counter.forEach(new ObjectDoubleHashMap.EntryVisitor<S>() {
+                    @Override
+                    public void visit(S key, double value) {
+                        result.incrementCount(key, value);
+                    }
+                });
+        }
+
+        return result;
+    }
+
+    /**
+     * This method returns N second elements with highest counts for a given first element
+     *
+     * @param first
+     * @param n
+     * @return second elements and their counts, sorted by counts in descending order
+     */
+    public List<Pair<S, Double>> topN(@NonNull F first, int n) {
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            ObjectDoubleHashMap<S> counter = stripe.get(first);
+            return counter == null ? new ArrayList<Pair<S, Double>>() : counter.topN(n);
+        }
+    }
+
+    /**
+     * This method returns pair of elements with a max value
+     *
+     * @return
+     */
+    public Pair<F, S> argMax() {
+        double maxCount = -Double.MAX_VALUE;
+        Pair<F, S> maxKey = null;
+        for (Map<F, ObjectDoubleHashMap<S>> stripe : stripes)
+            synchronized (stripe) {
+                for (Map.Entry<F, ObjectDoubleHashMap<S>> entry : stripe.entrySet()) {
+                    List<Pair<S, Double>> top = entry.getValue().topN(1);
+                    if (!top.isEmpty() && (top.get(0).getSecond() > maxCount || maxKey == null)) {
+                        maxKey = Pair.makePair(entry.getKey(), top.get(0).getFirst());
+                        maxCount = top.get(0).getSecond();
+                    }
+                }
+            }
+
+        return maxKey;
+    }
+
+    /**
+     * This method returns snapshot of all first elements
+     * @return
+     */
+    public Set<F> keySet() {
+        Set<F> result = new HashSet<>();
+        for (Map<F, ObjectDoubleHashMap<S>> stripe : stripes)
+            synchronized (stripe) {
+                result.addAll(stripe.keySet());
+            }
+
+        return result;
+    }
+
+    /**
+     * This method purges all counters
+     */
+    public void clear() {
+        for (Map<F, ObjectDoubleHashMap<S>> stripe : stripes)
+            synchronized (stripe) {
+                stripe.clear();
+            }
+    }
+
+    /**
+     * This method purges counter for a given first element
+     * @param first
+     */
+    public void clear(@NonNull F first) {
+        Map<F, ObjectDoubleHashMap<S>> stripe = stripes[stripe(first)];
+        synchronized (stripe) {
+            stripe.remove(first);
+        }
+    }
+
+    /**
+     * This method returns number of First elements in this map
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Map<F, ObjectDoubleHashMap<S>> stripe : stripes)
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+
+        return size;
+    }
+
+    /**
+     * This method returns total number of first/second pairs in this map
+     * @return
+     */
+    public int totalSize() {
+        int size = 0;
+        for (Map<F, ObjectDoubleHashMap<S>> stripe : stripes)
+            synchronized (stripe) {
+                for (ObjectDoubleHashMap<S> counter : stripe.values())
+                    size += counter.size();
+            }
+
+        return size;
+    }
+
+    /**
+     * This method returns snapshot of this map as {@link CounterMap}
+     *
+     * @return
+     */
+    public CounterMap<F, S> toCounterMap() {
+        final CounterMap<F, S> result = new CounterMap<>();
+        for (Map<F, ObjectDoubleHashMap<S>> stripe : stripes)
+            synchronized (stripe) {
+                for (Map.Entry<F, ObjectDoubleHashMap<S>> entry : stripe.entrySet()) {
+                    final F first = entry.getKey();
+                    entry.getValue().forEach(new ObjectDoubleHashMap.EntryVisitor<S>() {
+                        @Override
+                        public void visit(S key, double value) {
+                            result.incrementCount(first, key, value);
+                        }
+                    });
+                }
+            }
+
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.primitives;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for StripedCounterMap
+ */
+public class StripedCounterMapTest {
+
+    @Test
+    public void testBasic() {
+        StripedCounterMap<Integer, Integer> counterMap = new StripedCounterMap<>(4);
+        assertTrue(counterMap.isEmpty());
+
+        counterMap.incrementCount(0, 0, 1);
+        counterMap.incrementCount(0, 1, 1);
+        counterMap.incrementCount(0, 2, 1);
+        counterMap.incrementCount(1, 0, 1);
+        counterMap.incrementCount(1, 1, 1);
+        counterMap.incrementCount(1, 2, 5);
+        counterMap.incrementCount(1, 2, 1);
+
+        assertEquals(2, counterMap.size());
+        assertEquals(6, counterMap.totalSize());
+        assertEquals(6.0, counterMap.getCount(1, 2), 1e-5);
+        assertEquals(0.0, counterMap.getCount(2, 2), 1e-5);
+        assertTrue(counterMap.isEmpty(2));
+        assertFalse(counterMap.isEmpty(0));
+
+        assertEquals(Pair.makePair(1, 2), counterMap.argMax());
+
+        List<Pair<Integer, Double>> top = counterMap.topN(0, 2);
+        assertEquals(2, top.size());
+
+        Counter<Integer> counter = counterMap.getCounter(1);
+        assertEquals(3, counter.size());
+        assertEquals(6.0, counter.getCount(2), 1e-5);
+
+        CounterMap<Integer, Integer> plain = counterMap.toCounterMap();
+        assertEquals(6.0, plain.getCount(1, 2), 1e-5);
+        assertEquals(6, plain.totalSize());
+
+        assertEquals(6.0, counterMap.setCount(1, 2, 2.0), 1e-5);
+        assertEquals(2.0, counterMap.getCount(1, 2), 1e-5);
+
+        counterMap.clear(1);
+        assertTrue(counterMap.isEmpty(1));
+        assertEquals(1, counterMap.size());
+
+        counterMap.incrementAll(plain);
+        assertEquals(2.0, counterMap.getCount(0, 0), 1e-5);
+        assertEquals(6.0, counterMap.getCount(1, 2), 1e-5);
+
+        counterMap.clear();
+        assertTrue(counterMap.isEmpty());
+    }
+}
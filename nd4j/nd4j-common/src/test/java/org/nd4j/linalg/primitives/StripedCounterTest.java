@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.primitives;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for StripedCounter and ObjectDoubleHashMap
+ */
+@Slf4j
+public class StripedCounterTest {
+
+    @Test
+    public void testHashMapRandomOps() {
+        ObjectDoubleHashMap<Integer> map = new ObjectDoubleHashMap<>(4);
+        Map<Integer, Double> reference = new HashMap<>();
+
+        Random random = new Random(119);
+        for (int e = 0; e < 100000; e++) {
+            // small key space, so we'll have plenty of collisions and removals
+            int key = random.nextInt(1000);
+            switch (random.nextInt(3)) {
+                case 0: {
+                    double v = map.addTo(key, 1.0);
+                    Double r = reference.get(key);
+                    reference.put(key, r == null ? 1.0 : r + 1.0);
+                    assertEquals(reference.get(key), v, 1e-9);
+                    break;
+                }
+                case 1: {
+                    Double r = reference.remove(key);
+                    assertEquals(r == null ? 0.0 : r, map.remove(key), 1e-9);
+                    break;
+                }
+                default: {
+                    Double r = reference.get(key);
+                    assertEquals(r == null ? 0.0 : r, map.get(key), 1e-9);
+                    assertEquals(r != null, map.containsKey(key));
+                }
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        assertEquals(reference.keySet(), map.keySet());
+    }
+
+    @Test
+    public void testHashMapRemoveBelow() {
+        ObjectDoubleHashMap<String> map = new ObjectDoubleHashMap<>();
+        for (int e = 0; e < 1000; e++)
+            map.put("word_" + e, e);
+
+        assertEquals(500, map.removeBelow(500));
+        assertEquals(500, map.size());
+        for (int e = 0; e < 1000; e++)
+            assertEquals(e >= 500, map.containsKey("word_" + e));
+    }
+
+    @Test
+    public void testCounterBasic() {
+        StripedCounter<String> counter = new StripedCounter<>(4);
+
+        counter.incrementCount("A", 1);
+        counter.incrementCount("A", 1);
+        counter.incrementCount("B", 2);
+        counter.incrementAll(Arrays.asList("A", "C"), 1.0);
+
+        assertEquals(3.0, counter.getCount("A"), 1e-5);
+        assertEquals(2.0, counter.getCount("B"), 1e-5);
+        assertEquals(1.0, counter.getCount("C"), 1e-5);
+        assertEquals(0.0, counter.getCount("D"), 1e-5);
+        assertEquals(6.0, counter.totalCount(), 1e-5);
+        assertEquals(3, counter.size());
+
+        assertEquals(3.0, counter.setCount("A", 10), 1e-5);
+        assertEquals(13.0, counter.totalCount(), 1e-5);
+
+        assertEquals(2.0, counter.removeKey("B"), 1e-5);
+        assertEquals(11.0, counter.totalCount(), 1e-5);
+        assertFalse(counter.containsElement("B"));
+
+        assertEquals("A", counter.argMax());
+        assertEquals(Arrays.asList("A", "C"), counter.keySetSorted());
+
+        Counter<String> plain = counter.toCounter();
+        assertEquals(10.0, plain.getCount("A"), 1e-5);
+        assertEquals(1.0, plain.getCount("C"), 1e-5);
+    }
+
+    @Test
+    public void testCounterTopN() {
+        StripedCounter<String> counter = new StripedCounter<>();
+        Counter<String> plain = new Counter<>();
+        for (int e = 0; e < 100; e++) {
+            counter.incrementCount("word_" + e, e);
+            plain.incrementCount("word_" + e, e);
+        }
+
+        List<Pair<String, Double>> top = counter.topN(3);
+        assertEquals(3, top.size());
+        assertEquals("word_99", top.get(0).getFirst());
+        assertEquals("word_98", top.get(1).getFirst());
+        assertEquals("word_97", top.get(2).getFirst());
+        assertEquals(top, plain.topN(3));
+
+        counter.keepTopNElements(10);
+        assertEquals(10, counter.size());
+        assertTrue(counter.containsElement("word_90"));
+        assertFalse(counter.containsElement("word_89"));
+
+        counter.dropElementsBelowThreshold(95);
+        assertEquals(5, counter.size());
+        assertEquals(95 + 96 + 97 + 98 + 99, counter.totalCount(), 1e-5);
+    }
+
+    @Test
+    public void testCounterConcurrency() throws Exception {
+        final StripedCounter<String> counter = new StripedCounter<>(8);
+        final int numThreads = 8;
+        final int numWords = 5000;
+
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10; i++)
+                        for (int e = 0; e < numWords; e++)
+                            counter.incrementCount("word_" + e, 1.0);
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread t : threads)
+            t.join();
+
+        assertEquals(numWords, counter.size());
+        assertEquals(numThreads * 10.0 * numWords, counter.totalCount(), 1e-5);
+        for (int e = 0; e < numWords; e++)
+            assertEquals(numThreads * 10.0, counter.getCount("word_" + e), 1e-5);
+    }
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.rl4j.learning.sync;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Exp Replay for discrete actions, backed by preallocated ring buffers instead of a queue of Transition objects.
+ *
+ * Observations are stored in two off-heap matrices allocated on first store(): flattened histories, one row per transition,
+ * and next frames. Actions, rewards and terminal flags are kept in primitive arrays.
+ * Sampled batches are assembled with a couple of pullRows calls into contiguous INDArrays, see {@link #sample(int)}.
+ *
+ * Sampling is either uniform (alpha == 0), or proportional to priority^alpha, as in
+ * _Prioritized Experience Replay_, T. Schaul et al. - 2015 <a href="https://arxiv.org/abs/1511.05952">https://arxiv.org/abs/1511.05952</a>
+ * In the latter case, priorities are kept in a {@link SumTree} and should be updated with TD errors via {@link #updatePriorities(int[], double[])}.
+ * New transitions get max priority seen so far.
+ *
+ * PLEASE NOTE: Frames aren't shared between transitions, so every stored transition takes (historyLength + 1) frames of memory.
+ */
+@Slf4j
+public class PrioritizedExpReplay implements IExpReplay<Integer> {
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    final private int maxSize;
+    final private int batchSize;
+    final private Random random;
+
+    @Getter
+    final private double alpha;
+    @Getter
+    @Setter
+    private double beta;
+    @Getter
+    @Setter
+    private double epsilon = DEFAULT_EPSILON;
+    private double maxPriority = 1.0;
+    final private SumTree priorities;
+
+    private INDArray observations;
+    private INDArray nextFrames;
+    final private int[] actions;
+    final private double[] rewards;
+    final private boolean[] terminals;
+
+    private long[] frameShape;
+    private int historyLength;
+    private int frameSize;
+
+    private int position = 0;
+    @Getter
+    private int size = 0;
+
+    /**
+     * Uniform sampling
+     */
+    public PrioritizedExpReplay(int maxSize, int batchSize, int seed) {
+        this(maxSize, batchSize, seed, 0.0, 0.0);
+    }
+
+    /**
+     * @param alpha priority exponent. 0.0 means uniform sampling
+     * @param beta importance sampling exponent. 1.0 fully compensates non-uniform sampling
+     */
+    public PrioritizedExpReplay(int maxSize, int batchSize, int seed, double alpha, double beta) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("maxSize should be positive value");
+
+        if (alpha < 0.0 || beta < 0.0)
+            throw new IllegalArgumentException("alpha and beta should be non-negative values");
+
+        this.maxSize = maxSize;
+        this.batchSize = batchSize;
+        this.random = new Random(seed);
+        this.alpha = alpha;
+        this.beta = beta;
+        this.priorities = alpha > 0.0 ? new SumTree(maxSize) : null;
+
+        this.actions = new int[maxSize];
+        this.rewards = new double[maxSize];
+        this.terminals = new boolean[maxSize];
+    }
+
+    public boolean isPrioritized() {
+        return priorities != null;
+    }
+
+    public void store(Transition<Integer> transition) {
+        INDArray[] history = transition.getObservation();
+        if (observations == null)
+            allocate(history.length, transition.getNextObservation());
+
+        if (history.length != historyLength)
+            throw new IllegalArgumentException("History length changed: " + history.length + " vs " + historyLength);
+
+        for (int j = 0; j < historyLength; j++) {
+            INDArray target = observations.get(NDArrayIndex.point(position), NDArrayIndex.interval(j * frameSize, (j + 1) * frameSize));
+            target.assign(history[j].reshape('c', target.shape()));
+        }
+
+        INDArray next = nextFrames.getRow(position);
+        next.assign(transition.getNextObservation().reshape('c', next.shape()));
+
+        actions[position] = transition.getAction();
+        rewards[position] = transition.getReward();
+        terminals[position] = transition.isTerminal();
+
+        if (priorities != null)
+            priorities.set(position, Math.pow(maxPriority, alpha));
+
+        position = (position + 1) % maxSize;
+        size = Math.min(size + 1, maxSize);
+    }
+
+    protected void allocate(int historyLength, INDArray frame) {
+        this.historyLength = historyLength;
+        this.frameShape = frame.shape().clone();
+        this.frameSize = (int) frame.length();
+
+        log.info("Allocating replay buffers for {} transitions of {} x {} values", maxSize, historyLength, frameSize);
+
+        // buffers live for the whole training, so they must not be attached to any workspace
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            observations = Nd4j.create(Nd4j.dataType(), maxSize, (long) historyLength * frameSize);
+            nextFrames = Nd4j.create(Nd4j.dataType(), maxSize, frameSize);
+        }
+    }
+
+    /**
+     * @return a batch of sampled transitions, of configured batch size
+     */
+    public ReplayBatch sample() {
+        return sample(batchSize);
+    }
+
+    /**
+     * This method samples transitions with replacement, and assembles them into contiguous arrays.
+     * Batch never has more transitions than the buffer holds, same as {@link ExpReplay#getBatch(int)},
+     * but the same transition may appear in it more than once.
+     *
+     * @param batchSize number of transitions to sample. Capped by number of stored transitions.
+     * @return
+     */
+    public ReplayBatch sample(int batchSize) {
+        int n = Math.min(size, batchSize);
+        int[] indices = new int[n];
+        double[] weights = new double[n];
+
+        if (priorities == null) {
+            for (int i = 0; i < n; i++) {
+                indices[i] = random.nextInt(size);
+                weights[i] = 1.0;
+            }
+        } else {
+            // stratified sampling: one sample per equal segment of total priority mass
+            double total = priorities.total();
+            double segment = total / n;
+            double maxWeight = Math.pow(size * priorities.min() / total, -beta);
+            for (int i = 0; i < n; i++) {
+                int idx = priorities.find((i + random.nextDouble()) * segment);
+                if (idx >= size)
+                    idx = size - 1;
+
+                indices[i] = idx;
+                weights[i] = Math.pow(size * priorities.get(idx) / total, -beta) / maxWeight;
+            }
+        }
+
+        int[] batchActions = new int[n];
+        double[] batchRewards = new double[n];
+        boolean[] batchTerminals = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            batchActions[i] = actions[indices[i]];
+            batchRewards[i] = rewards[indices[i]];
+            batchTerminals[i] = terminals[indices[i]];
+        }
+
+        if (n == 0)
+            return new ReplayBatch(null, null, batchActions, batchRewards, batchTerminals, indices, weights);
+
+        INDArray obs = Nd4j.pullRows(observations, 1, indices);
+        INDArray next = Nd4j.pullRows(nextFrames, 1, indices);
+
+        INDArray nextObs;
+        if (historyLength == 1) {
+            nextObs = next;
+        } else {
+            // next history is the new frame, followed by all but the oldest frame of current history
+            long obsSize = (long) historyLength * frameSize;
+            nextObs = Nd4j.createUninitialized(obs.dataType(), new long[] {n, obsSize}, 'c');
+            nextObs.get(NDArrayIndex.all(), NDArrayIndex.interval(0, frameSize)).assign(next);
+            nextObs.get(NDArrayIndex.all(), NDArrayIndex.interval(frameSize, obsSize))
+                            .assign(obs.get(NDArrayIndex.all(), NDArrayIndex.interval(0, obsSize - frameSize)));
+        }
+
+        return new ReplayBatch(obs, nextObs, batchActions, batchRewards, batchTerminals, indices, weights);
+    }
+
+    /**
+     * This method updates priorities of sampled transitions. No-op for uniform sampling.
+     *
+     * @param indices indices from {@link ReplayBatch#getIndices()}
+     * @param errors absolute TD errors of corresponding transitions
+     */
+    public void updatePriorities(int[] indices, double[] errors) {
+        if (priorities == null)
+            return;
+
+        for (int i = 0; i < indices.length; i++) {
+            double priority = Math.abs(errors[i]) + epsilon;
+            maxPriority = Math.max(maxPriority, priority);
+            priorities.set(indices[i], Math.pow(priority, alpha));
+        }
+    }
+
+    /**
+     * @return a batch of sampled transitions, as Transition objects.
+     * Prefer {@link #sample()} which doesn't create objects per transition.
+     */
+    public ArrayList<Transition<Integer>> getBatch() {
+        ReplayBatch batch = sample();
+        ArrayList<Transition<Integer>> result = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            INDArray[] history = new INDArray[historyLength];
+            for (int j = 0; j < historyLength; j++)
+                history[j] = batch.getObservations().get(NDArrayIndex.point(i),
+                                NDArrayIndex.interval(j * frameSize, (j + 1) * frameSize)).dup().reshape(frameShape);
+
+            INDArray next = nextFrames.getRow(batch.getIndices()[i]).dup().reshape(frameShape);
+            result.add(new Transition<>(history, batch.getActions()[i], batch.getRewards()[i], batch.getTerminals()[i], next));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return shape of a single frame, or null if nothing was stored yet
+     */
+    public int[] getFrameShape() {
+        return frameShape == null ? null : ArrayUtil.toInts(frameShape);
+    }
+}
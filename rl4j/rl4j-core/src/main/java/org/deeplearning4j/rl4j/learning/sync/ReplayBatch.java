@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.rl4j.learning.sync;
+
+import lombok.Value;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+/**
+ * A batch of transitions sampled from {@link PrioritizedExpReplay}, stored column-wise.
+ *
+ * Observations are flattened: row i holds the whole history of transition i, frames concatenated
+ * in the same order as in {@link Transition#getObservation()}.
+ */
+@Value
+public class ReplayBatch {
+
+    INDArray observations;
+    INDArray nextObservations;
+    int[] actions;
+    double[] rewards;
+    boolean[] terminals;
+    /** positions of sampled transitions within replay, to be used with updatePriorities() */
+    int[] indices;
+    /** importance sampling weights, normalized to max 1.0 */
+    double[] weights;
+
+    public int size() {
+        return actions.length;
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.rl4j.learning.sync;
+
+import java.util.Arrays;
+
+/**
+ * Binary tree over fixed number of non-negative values, which keeps sums and minimums of subtrees.
+ * Updating a value, finding the total, finding the minimum and prefix-sum lookup all take O(log n).
+ *
+ * Used by {@link PrioritizedExpReplay} for proportional sampling.
+ */
+public class SumTree {
+
+    final private int capacity;
+    final private int leaves;
+    final private double[] sums;
+    final private double[] mins;
+
+    public SumTree(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity should be positive value");
+
+        int leaves = 1;
+        while (leaves < capacity)
+            leaves <<= 1;
+
+        this.capacity = capacity;
+        this.leaves = leaves;
+        this.sums = new double[2 * leaves];
+        this.mins = new double[2 * leaves];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Set value at given index
+     */
+    public void set(int index, double value) {
+        if (index < 0 || index >= capacity)
+            throw new IndexOutOfBoundsException("Index " + index + " is out of [0, " + capacity + ")");
+
+        if (value < 0 || Double.isNaN(value))
+            throw new IllegalArgumentException("Value should be non-negative: " + value);
+
+        int i = index + leaves;
+        sums[i] = value;
+        mins[i] = value;
+        for (i >>>= 1; i >= 1; i >>>= 1) {
+            sums[i] = sums[2 * i] + sums[2 * i + 1];
+            mins[i] = Math.min(mins[2 * i], mins[2 * i + 1]);
+        }
+    }
+
+    public double get(int index) {
+        return sums[index + leaves];
+    }
+
+    /**
+     * @return sum of all values
+     */
+    public double total() {
+        return sums[1];
+    }
+
+    /**
+     * @return minimum of values set so far, or +Infinity if nothing was set
+     */
+    public double min() {
+        return mins[1];
+    }
+
+    /**
+     * Find the smallest index such that sum of values up to and including it exceeds prefix
+     *
+     * @param prefix value in range [0, total())
+     * @return the index
+     */
+    public int find(double prefix) {
+        int i = 1;
+        while (i < leaves) {
+            int left = 2 * i;
+            if (prefix < sums[left] || sums[left + 1] == 0.0) {
+                i = left;
+            } else {
+                prefix -= sums[left];
+                i = left + 1;
+            }
+        }
+
+        return Math.min(i - leaves, capacity - 1);
+    }
+}
@@ -21,6 +21,10 @@ import lombok.Setter;
 import org.nd4j.linalg.primitives.Pair;
 import org.deeplearning4j.gym.StepReply;
 import org.deeplearning4j.rl4j.learning.Learning;
+import org.deeplearning4j.rl4j.learning.sync.ExpReplay;
+import org.deeplearning4j.rl4j.learning.sync.IExpReplay;
+import org.deeplearning4j.rl4j.learning.sync.PrioritizedExpReplay;
+import org.deeplearning4j.rl4j.learning.sync.ReplayBatch;
 import org.deeplearning4j.rl4j.learning.sync.Transition;
 import org.deeplearning4j.rl4j.learning.sync.qlearning.QLearning;
 import org.deeplearning4j.rl4j.mdp.MDP;
@@ -73,7 +77,13 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
 
     public QLearningDiscrete(MDP<O, Integer, DiscreteSpace> mdp, IDQN dqn, QLConfiguration conf,
                     DataManager dataManager, int epsilonNbStep) {
-        super(conf);
+        this(mdp, dqn, conf, dataManager, epsilonNbStep,
+                        new ExpReplay<Integer>(conf.getExpRepMaxSize(), conf.getBatchSize(), conf.getSeed()));
+    }
+
+    public QLearningDiscrete(MDP<O, Integer, DiscreteSpace> mdp, IDQN dqn, QLConfiguration conf,
+                    DataManager dataManager, int epsilonNbStep, IExpReplay<Integer> expReplay) {
+        super(conf, expReplay);
         this.configuration = conf;
         this.mdp = mdp;
         this.dataManager = dataManager;
@@ -176,8 +186,17 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
             getExpReplay().store(trans);
 
             if (getStepCounter() > updateStart) {
-                Pair<INDArray, INDArray> targets = setTarget(getExpReplay().getBatch());
-                getCurrentDQN().fit(targets.getFirst(), targets.getSecond());
+                if (getExpReplay() instanceof PrioritizedExpReplay) {
+                    PrioritizedExpReplay replay = (PrioritizedExpReplay) getExpReplay();
+                    ReplayBatch batch = replay.sample();
+                    double[] tdErrors = new double[batch.size()];
+                    Pair<INDArray, INDArray> targets = setTarget(batch, tdErrors);
+                    getCurrentDQN().fit(targets.getFirst(), targets.getSecond());
+                    replay.updatePriorities(batch.getIndices(), tdErrors);
+                } else {
+                    Pair<INDArray, INDArray> targets = setTarget(getExpReplay().getBatch());
+                    getCurrentDQN().fit(targets.getFirst(), targets.getSecond());
+                }
             }
 
             history = nhistory;
@@ -202,12 +221,14 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
         INDArray obs = Nd4j.create(nshape);
         INDArray nextObs = Nd4j.create(nshape);
         int[] actions = new int[size];
+        double[] rewards = new double[size];
         boolean[] areTerminal = new boolean[size];
 
         for (int i = 0; i < size; i++) {
             Transition<Integer> trans = transitions.get(i);
             areTerminal[i] = trans.isTerminal();
             actions[i] = trans.getAction();
+            rewards[i] = trans.getReward();
 
             INDArray[] obsArray = trans.getObservation();
             if (obs.rank() == 2) {
@@ -227,6 +248,33 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
                 }
             }
         }
+
+        return setTarget(obs, nextObs, actions, rewards, areTerminal, null, null);
+    }
+
+    /**
+     * Same as {@link #setTarget(ArrayList)}, for batch sampled from {@link PrioritizedExpReplay}.
+     * Updates are scaled by importance sampling weights, and absolute TD errors are stored into tdErrors.
+     */
+    protected Pair<INDArray, INDArray> setTarget(ReplayBatch batch, double[] tdErrors) {
+        if (batch.size() == 0)
+            throw new IllegalArgumentException("too few transitions");
+
+        int[] shape = getHistoryProcessor() == null ? getMdp().getObservationSpace().getShape()
+                        : getHistoryProcessor().getConf().getShape();
+        int[] nshape = makeShape(batch.size(), shape);
+
+        INDArray obs = batch.getObservations().reshape(ArrayUtil.toLongArray(nshape));
+        INDArray nextObs = batch.getNextObservations().reshape(ArrayUtil.toLongArray(nshape));
+
+        return setTarget(obs, nextObs, batch.getActions(), batch.getRewards(), batch.getTerminals(), batch.getWeights(),
+                        tdErrors);
+    }
+
+    protected Pair<INDArray, INDArray> setTarget(INDArray obs, INDArray nextObs, int[] actions, double[] rewards,
+                    boolean[] areTerminal, double[] weights, double[] tdErrors) {
+        int size = actions.length;
+
         if (getHistoryProcessor() != null) {
             obs.muli(1.0 / getHistoryProcessor().getScale());
             nextObs.muli(1.0 / getHistoryProcessor().getScale());
@@ -248,7 +296,7 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
 
 
         for (int i = 0; i < size; i++) {
-            double yTar = transitions.get(i).getReward();
+            double yTar = rewards[i];
             if (!areTerminal[i]) {
                 double q = 0;
                 if (getConfiguration().isDoubleDQN()) {
@@ -267,6 +315,12 @@ public abstract class QLearningDiscrete<O extends Encodable> extends QLearning<O
             double highB = previousV + getConfiguration().getErrorClamp();
             double clamped = Math.min(highB, Math.max(yTar, lowB));
 
+            if (tdErrors != null)
+                tdErrors[i] = Math.abs(yTar - previousV);
+
+            if (weights != null)
+                clamped = previousV + weights[i] * (clamped - previousV);
+
             dqnOutputAr.putScalar(i, actions[i], clamped);
         }
 
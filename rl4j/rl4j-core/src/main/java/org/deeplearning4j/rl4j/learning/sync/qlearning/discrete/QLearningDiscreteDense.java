@@ -16,6 +16,7 @@
 
 package org.deeplearning4j.rl4j.learning.sync.qlearning.discrete;
 
+import org.deeplearning4j.rl4j.learning.sync.IExpReplay;
 import org.deeplearning4j.rl4j.learning.sync.qlearning.QLearning;
 import org.deeplearning4j.rl4j.mdp.MDP;
 import org.deeplearning4j.rl4j.network.dqn.DQNFactory;
@@ -37,6 +38,11 @@ public class QLearningDiscreteDense<O extends Encodable> extends QLearningDiscre
         super(mdp, dqn, conf, dataManager, conf.getEpsilonNbStep());
     }
 
+    public QLearningDiscreteDense(MDP<O, Integer, DiscreteSpace> mdp, IDQN dqn, QLearning.QLConfiguration conf,
+                    DataManager dataManager, IExpReplay<Integer> expReplay) {
+        super(mdp, dqn, conf, dataManager, conf.getEpsilonNbStep(), expReplay);
+    }
+
     public QLearningDiscreteDense(MDP<O, Integer, DiscreteSpace> mdp, DQNFactory factory,
                     QLearning.QLConfiguration conf, DataManager dataManager) {
         this(mdp, factory.buildDQN(mdp.getObservationSpace().getShape(), mdp.getActionSpace().getSize()), conf,
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.rl4j.learning.sync;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class PrioritizedExpReplayTest {
+
+    private static Transition<Integer> transition(int id, int historyLength) {
+        INDArray[] history = new INDArray[historyLength];
+        for (int j = 0; j < historyLength; j++)
+            history[j] = Nd4j.valueArrayOf(new long[] {2, 3}, id * 10 + j);
+
+        INDArray next = Nd4j.valueArrayOf(new long[] {2, 3}, id * 10 + 9);
+        return new Transition<>(history, id, (double) id, id % 2 == 0, next);
+    }
+
+    @Test
+    public void testSumTree() {
+        SumTree tree = new SumTree(5);
+        for (int e = 0; e < 5; e++)
+            tree.set(e, e + 1);
+
+        assertEquals(15.0, tree.total(), 1e-9);
+        assertEquals(1.0, tree.min(), 1e-9);
+
+        assertEquals(0, tree.find(0.5));
+        assertEquals(1, tree.find(1.5));
+        assertEquals(2, tree.find(3.0));
+        assertEquals(4, tree.find(14.9));
+
+        tree.set(0, 10.0);
+        assertEquals(24.0, tree.total(), 1e-9);
+        assertEquals(2.0, tree.min(), 1e-9);
+        assertEquals(0, tree.find(9.9));
+    }
+
+    @Test
+    public void testUniformBatch() {
+        PrioritizedExpReplay replay = new PrioritizedExpReplay(8, 4, 123);
+        for (int e = 0; e < 12; e++)
+            replay.store(transition(e, 3));
+
+        assertEquals(8, replay.getSize());
+
+        ReplayBatch batch = replay.sample();
+        assertEquals(4, batch.size());
+        assertArrayEquals(new long[] {4, 18}, batch.getObservations().shape());
+        assertArrayEquals(new long[] {4, 18}, batch.getNextObservations().shape());
+
+        for (int i = 0; i < batch.size(); i++) {
+            int id = batch.getActions()[i];
+            // first 4 transitions were overwritten
+            assertTrue(id >= 4);
+            assertEquals(id, batch.getRewards()[i], 1e-9);
+            assertEquals(id % 2 == 0, batch.getTerminals()[i]);
+            assertEquals(1.0, batch.getWeights()[i], 1e-9);
+
+            INDArray obs = batch.getObservations().get(NDArrayIndex.point(i), NDArrayIndex.all());
+            INDArray next = batch.getNextObservations().get(NDArrayIndex.point(i), NDArrayIndex.all());
+            for (int j = 0; j < 3; j++)
+                assertEquals(id * 10 + j, obs.getDouble(j * 6), 1e-5);
+
+            // next history: new frame first, then all but the oldest frame
+            assertEquals(id * 10 + 9, next.getDouble(0), 1e-5);
+            assertEquals(id * 10, next.getDouble(6), 1e-5);
+            assertEquals(id * 10 + 1, next.getDouble(12), 1e-5);
+        }
+    }
+
+    @Test
+    public void testGetBatchCompatibility() {
+        PrioritizedExpReplay replay = new PrioritizedExpReplay(8, 4, 123);
+        for (int e = 0; e < 8; e++)
+            replay.store(transition(e, 2));
+
+        ArrayList<Transition<Integer>> batch = replay.getBatch();
+        assertEquals(4, batch.size());
+        for (Transition<Integer> t : batch) {
+            Transition<Integer> exp = transition(t.getAction(), 2);
+            assertEquals(exp.getObservation()[0], t.getObservation()[0]);
+            assertEquals(exp.getObservation()[1], t.getObservation()[1]);
+            assertEquals(exp.getNextObservation(), t.getNextObservation());
+        }
+    }
+
+    @Test
+    public void testPrioritizedSampling() {
+        PrioritizedExpReplay replay = new PrioritizedExpReplay(16, 64, 123, 1.0, 1.0);
+        for (int e = 0; e < 16; e++)
+            replay.store(transition(e, 1));
+
+        // all priorities are tiny except transition 5
+        int[] indices = new int[16];
+        double[] errors = new double[16];
+        for (int e = 0; e < 16; e++) {
+            indices[e] = e;
+            errors[e] = e == 5 ? 100.0 : 0.01;
+        }
+        replay.updatePriorities(indices, errors);
+
+        // batch size is capped by number of stored transitions
+        ReplayBatch batch = replay.sample();
+        assertEquals(16, batch.size());
+
+        int hits = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.getActions()[i] == 5) {
+                hits++;
+                // most frequent transition gets smallest weight
+                assertTrue(batch.getWeights()[i] < 0.01);
+            } else {
+                assertEquals(1.0, batch.getWeights()[i], 1e-6);
+            }
+        }
+
+        assertTrue("Hits: " + hits, hits >= 0.9 * batch.size());
+    }
+}